@@ -0,0 +1,31 @@
+package com.mybooking.benchmarks;
+
+import org.openjdk.jmh.Main;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Запуск бенчмарков с результатами в JSON.
+ *
+ * <p>Аргументы передаются JMH как есть ({@code -p rooms=1000}, {@code -f}, регулярное выражение имён и т.д.).
+ * Если формат результатов не задан ({@code -rf}), результаты пишутся в {@code jmh-result.json} текущего
+ * каталога — файлы разных коммитов можно сравнивать между собой.</p>
+ */
+public final class BenchmarkMain {
+
+    private BenchmarkMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> jmhArgs = new ArrayList<>(Arrays.asList(args));
+        if (!jmhArgs.contains("-rf")) {
+            jmhArgs.addAll(List.of("-rf", "json"));
+            if (!jmhArgs.contains("-rff")) {
+                jmhArgs.addAll(List.of("-rff", "jmh-result.json"));
+            }
+        }
+        Main.main(jmhArgs.toArray(String[]::new));
+    }
+}
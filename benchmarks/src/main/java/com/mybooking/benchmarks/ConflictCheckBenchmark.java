@@ -0,0 +1,164 @@
+package com.mybooking.benchmarks;
+
+import com.mybooking.hotelservice.model.Hotel;
+import com.mybooking.hotelservice.model.Room;
+import com.mybooking.hotelservice.model.RoomReservationLock;
+import com.mybooking.hotelservice.repository.RoomReservationLockRepository;
+import com.mybooking.hotelservice.service.HotelService;
+import com.mybooking.hotelservice.service.RoomOccupancyIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Проверка конфликтов hold для номера с длинной историей удержаний: in-memory индекс против запроса к БД.
+ *
+ * <p>У номера {@link #locksPerRoom} подтверждённых удержаний по одной ночи в прошлом (история) и одно
+ * подтверждённое удержание на 4 ночи с дня {@link #CONFIRMED_FROM}. История занимает не более
+ * {@link #HISTORY_NIGHTS} ночей до вчерашнего дня (даты остаются в григорианском календаре), поэтому при большем
+ * числе удержаний ночи истории повторяются; запрос к БД при этом по-прежнему читает все удержания номера,
+ * начинающиеся до проверяемого периода. Параметр {@link #check} выбирает,
+ * чем проверяется пересечение:
+ * <ul>
+ *   <li>{@code index} — {@link RoomOccupancyIndex#hasConflict}, как в {@link HotelService#holdRoom} по умолчанию;</li>
+ *   <li>{@code database} — запрос {@code findByRoomIdAndStatusIn...}, который выполнялся до индекса и который
+ *       при {@code hotel.occupancy-index.authoritative: false} перепроверяет свободный по индексу период.</li>
+ * </ul>
+ * {@code conflicting} проверяет период, пересекающийся с удержанием, {@code free} — свободный период после него.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class ConflictCheckBenchmark {
+
+    static final int CONFIRMED_FROM = 10;
+    static final int FREE_FROM = 20;
+    static final int HISTORY_NIGHTS = 100_000;
+    static final int INSERT_CHUNK = 10_000;
+
+    private static final List<RoomReservationLock.Status> ACTIVE_STATUSES =
+            List.of(RoomReservationLock.Status.HELD, RoomReservationLock.Status.CONFIRMED);
+
+    /**
+     * Число удержаний в истории номера.
+     */
+    @Param({"10000", "100000", "1000000"})
+    public int locksPerRoom;
+
+    /**
+     * Способ проверки: {@code index} или {@code database}.
+     */
+    @Param({"index", "database"})
+    public String check;
+
+    private ConfigurableApplicationContext context;
+    private RoomOccupancyIndex occupancyIndex;
+    private RoomReservationLockRepository lockRepository;
+    private boolean useIndex;
+    private Long roomId;
+    private LocalDate today;
+
+    @Setup(Level.Trial)
+    public void start() {
+        if (!check.equals("index") && !check.equals("database")) {
+            throw new IllegalArgumentException("check must be index or database: " + check);
+        }
+        useIndex = check.equals("index");
+        context = HotelServiceState.startHotelService();
+        occupancyIndex = context.getBean(RoomOccupancyIndex.class);
+        lockRepository = context.getBean(RoomReservationLockRepository.class);
+        HotelService hotelService = context.getBean(HotelService.class);
+        today = LocalDate.now();
+
+        Hotel hotel = new Hotel();
+        hotel.setName("Conflict bench");
+        hotel.setCity("Bench City");
+        hotel.setAddress("Street");
+        hotel = hotelService.saveHotel(hotel);
+        Room room = new Room();
+        room.setNumber("1");
+        room.setCapacity(2);
+        room.setAvailable(true);
+        room.setHotel(hotel);
+        roomId = hotelService.saveRoom(room).getId();
+
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        // порциями: миллион строк целиком в памяти вместе с H2 не помещается в heap форка
+        List<Object[]> locks = new ArrayList<>(INSERT_CHUNK);
+        for (int i = 1; i <= locksPerRoom; i++) {
+            LocalDate night = today.minusDays(1 + (i - 1) % HISTORY_NIGHTS);
+            locks.add(lock("history-" + i, night, night));
+            if (locks.size() == INSERT_CHUNK) {
+                insert(jdbc, locks);
+            }
+        }
+        locks.add(lock("upcoming", today.plusDays(CONFIRMED_FROM), today.plusDays(CONFIRMED_FROM + 3)));
+        insert(jdbc, locks);
+
+        occupancyIndex.rebuild();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public boolean conflicting() {
+        LocalDate night = today.plusDays(CONFIRMED_FROM + 1);
+        return hasConflict(night, night);
+    }
+
+    @Benchmark
+    public boolean free() {
+        LocalDate start = today.plusDays(FREE_FROM);
+        return hasConflict(start, start.plusDays(1));
+    }
+
+    private boolean hasConflict(LocalDate startDate, LocalDate endDate) {
+        if (useIndex) {
+            return occupancyIndex.hasConflict(roomId, startDate, endDate);
+        }
+        return !lockRepository
+                .findByRoomIdAndStatusInAndStartDateLessThanEqualAndEndDateGreaterThanEqual(
+                        roomId, ACTIVE_STATUSES, endDate, startDate)
+                .isEmpty();
+    }
+
+    private static void insert(JdbcTemplate jdbc, List<Object[]> locks) {
+        jdbc.batchUpdate("insert into room_reservation_lock (request_id, room_id, start_date, end_date, status, expires_at) "
+                        + "values (?, ?, ?, ?, ?, null)", locks, 1000,
+                (ps, row) -> {
+                    for (int i = 0; i < row.length; i++) {
+                        ps.setObject(i + 1, row[i]);
+                    }
+                });
+        locks.clear();
+    }
+
+    private Object[] lock(String requestId, LocalDate start, LocalDate end) {
+        return new Object[]{requestId, roomId, Date.valueOf(start), Date.valueOf(end),
+                RoomReservationLock.Status.CONFIRMED.name()};
+    }
+}
@@ -0,0 +1,89 @@
+package com.mybooking.benchmarks;
+
+import com.mybooking.hotelservice.controller.HotelController;
+import com.mybooking.hotelservice.controller.RoomController;
+import com.mybooking.hotelservice.dto.HotelDetailsDto;
+import com.mybooking.hotelservice.dto.HotelListDto;
+import com.mybooking.hotelservice.dto.KeysetPageDto;
+import com.mybooking.hotelservice.dto.RoomDetailsDto;
+import com.mybooking.hotelservice.dto.RoomListDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Чтение и отображение в DTO через {@link RoomController} и {@link HotelController} (без HTTP-слоя):
+ * карточки номера и отеля по случайному id, keyset-страница номеров со случайного курсора и OFFSET-страница
+ * отелей из середины списка.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DtoMappingBenchmark {
+
+    private static final int PAGE = 50;
+
+    private HotelServiceState state;
+    private RoomController roomController;
+    private HotelController hotelController;
+    private String[] roomCursors;
+
+    @Setup(Level.Trial)
+    public void setUp(HotelServiceState state) {
+        this.state = state;
+        this.roomController = state.bean(RoomController.class);
+        this.hotelController = state.bean(HotelController.class);
+
+        // курсоры всех страниц: замер начинает страницу с произвольного места таблицы
+        List<String> cursors = new ArrayList<>();
+        String next = roomController.listRoomsAfter(null, PAGE).next();
+        while (next != null) {
+            cursors.add(next);
+            next = roomController.listRoomsAfter(next, PAGE).next();
+        }
+        roomCursors = cursors.toArray(String[]::new);
+    }
+
+    @Benchmark
+    public RoomDetailsDto roomDetails() {
+        return roomController.getRoom(random(state.roomIds));
+    }
+
+    @Benchmark
+    public KeysetPageDto<RoomListDto> roomsKeysetPage() {
+        String after = roomCursors[ThreadLocalRandom.current().nextInt(roomCursors.length)];
+        return roomController.listRoomsAfter(after, PAGE);
+    }
+
+    @Benchmark
+    public HotelDetailsDto hotelDetails() {
+        return hotelController.getHotel(random(state.hotelIds));
+    }
+
+    @Benchmark
+    public Page<HotelListDto> hotelsOffsetPage() {
+        return hotelController.listHotels(PageRequest.of(state.hotelIds.length / PAGE / 2, PAGE));
+    }
+
+    private static long random(long[] ids) {
+        return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+    }
+}
@@ -0,0 +1,112 @@
+package com.mybooking.benchmarks;
+
+import com.mybooking.hotelservice.model.RoomReservationLock;
+import com.mybooking.hotelservice.service.HotelService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Жизненный цикл удержания в {@link HotelService}: проверка конфликтов при hold, confirm и release.
+ *
+ * <ul>
+ *   <li>{@code holdConflicting} — период пересекается с подтверждённым удержанием, hold отклоняется;</li>
+ *   <li>{@code holdFree} — удержание свободной ночи (после замера освобождается);</li>
+ *   <li>{@code confirmHold} / {@code releaseHold} — подтверждение и освобождение удержания, созданного перед замером.</li>
+ * </ul>
+ * Каждый вызов использует новый requestId, поэтому измеряется полный путь, а не идемпотентный повтор.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HoldBenchmark {
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong slots = new AtomicLong();
+    private HotelServiceState state;
+    private HotelService hotelService;
+
+    @Setup(Level.Trial)
+    public void setUp(HotelServiceState state) {
+        this.state = state;
+        this.hotelService = state.bean(HotelService.class);
+    }
+
+    @Benchmark
+    public Object holdConflicting() {
+        long roomId = state.roomIds[(int) (requests.get() % state.roomIds.length)];
+        LocalDate start = state.day(HotelServiceState.CONFIRMED_FROM + 1);
+        try {
+            return hotelService.holdRoom(nextRequestId(), roomId, start, start.plusDays(1));
+        } catch (IllegalStateException expected) {
+            return expected;
+        }
+    }
+
+    @Benchmark
+    public RoomReservationLock holdFree(Release release) {
+        long slot = slots.getAndIncrement();
+        LocalDate night = state.slotNight(slot);
+        release.requestId = nextRequestId();
+        return hotelService.holdRoom(release.requestId, state.slotRoom(slot), night, night);
+    }
+
+    @Benchmark
+    public RoomReservationLock confirmHold(Held held) {
+        return hotelService.confirmHold(held.requestId);
+    }
+
+    @Benchmark
+    public RoomReservationLock releaseHold(Held held) {
+        return hotelService.releaseHold(held.requestId);
+    }
+
+    private String nextRequestId() {
+        return "bench-" + requests.incrementAndGet();
+    }
+
+    /**
+     * Удержание свободной ночи, созданное до замера.
+     */
+    @State(Scope.Thread)
+    public static class Held {
+        String requestId;
+
+        @Setup(Level.Invocation)
+        public void hold(HoldBenchmark benchmark) {
+            long slot = benchmark.slots.getAndIncrement();
+            LocalDate night = benchmark.state.slotNight(slot);
+            requestId = benchmark.nextRequestId();
+            benchmark.hotelService.holdRoom(requestId, benchmark.state.slotRoom(slot), night, night);
+        }
+    }
+
+    /**
+     * Освобождает удержание, созданное замером, чтобы ночи не заканчивались.
+     */
+    @State(Scope.Thread)
+    public static class Release {
+        String requestId;
+
+        @TearDown(Level.Invocation)
+        public void release(HoldBenchmark benchmark) {
+            benchmark.hotelService.releaseHold(requestId);
+        }
+    }
+}
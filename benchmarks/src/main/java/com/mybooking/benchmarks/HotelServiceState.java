@@ -0,0 +1,151 @@
+package com.mybooking.benchmarks;
+
+import com.mybooking.hotelservice.HotelServiceApplication;
+import com.mybooking.hotelservice.model.RoomReservationLock;
+import com.mybooking.hotelservice.service.ImportService;
+import com.mybooking.hotelservice.service.RoomOccupancyIndex;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Запущенный hotel-service (Spring-контекст) на встроенной H2, заполненной {@link #rooms} номерами.
+ *
+ * <p>Номера импортируются через {@link ImportService} (по {@link #ROOMS_PER_HOTEL} на отель); у каждого номера
+ * есть подтверждённое удержание на 4 ночи с дня {@link #CONFIRMED_FROM}, удержание HELD на 2 ночи с дня
+ * {@link #HELD_FROM} и освобождённое на 3 ночи с дня {@link #RELEASED_FROM} (дни от сегодня). После заполнения
+ * перестраиваются индекс занятости и статистика — как после старта сервиса с такими данными. Ночи с
+ * {@link #FREE_FROM} до конца горизонта индекса свободны: на них бенчмарки создают собственные удержания
+ * ({@link #slotRoom}, {@link #slotNight}).</p>
+ *
+ * <p>Контекст создаётся один раз на форк JMH; каждый запуск использует отдельную in-memory БД.</p>
+ */
+@State(Scope.Benchmark)
+public class HotelServiceState {
+
+    static final int ROOMS_PER_HOTEL = 20;
+    static final int CONFIRMED_FROM = 10;
+    static final int HELD_FROM = 20;
+    static final int RELEASED_FROM = 30;
+    static final int FREE_FROM = 60;
+    /** Последний день горизонта индекса занятости (hotel.occupancy-index.horizon-days). */
+    static final int HORIZON_DAYS = 365;
+
+    /**
+     * Число номеров в БД.
+     */
+    @Param({"1000", "10000", "100000"})
+    public int rooms;
+
+    ConfigurableApplicationContext context;
+    LocalDate today;
+    long[] roomIds;
+    long[] hotelIds;
+
+    @Setup(Level.Trial)
+    public void start() throws Exception {
+        context = startHotelService();
+        today = LocalDate.now();
+
+        ImportService importService = context.getBean(ImportService.class);
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+
+        int hotels = (rooms + ROOMS_PER_HOTEL - 1) / ROOMS_PER_HOTEL;
+        StringBuilder csv = new StringBuilder("name,city,address\n");
+        for (int i = 0; i < hotels; i++) {
+            csv.append("Bench ").append(i).append(",City ").append(i % 50).append(",Street ").append(i).append('\n');
+        }
+        importService.importHotels(bytes(csv), ImportService.Format.CSV);
+        hotelIds = jdbc.queryForList("select id from hotels where name like 'Bench %' order by id", Long.class)
+                .stream().mapToLong(Long::longValue).toArray();
+
+        csv = new StringBuilder("hotelId,number,capacity,available\n");
+        for (int i = 0; i < rooms; i++) {
+            csv.append(hotelIds[i / ROOMS_PER_HOTEL]).append(',').append(100 + i % ROOMS_PER_HOTEL).append(',')
+                    .append(1 + i % 4).append(",true\n");
+        }
+        importService.importRooms(bytes(csv), ImportService.Format.CSV);
+        roomIds = jdbc.queryForList("select r.id from room r join hotels h on h.id = r.hotel_id "
+                        + "where h.name like 'Bench %' order by r.id", Long.class)
+                .stream().mapToLong(Long::longValue).toArray();
+
+        List<Object[]> locks = new ArrayList<>(roomIds.length * 3);
+        for (long roomId : roomIds) {
+            locks.add(lock("seed-c-" + roomId, roomId, CONFIRMED_FROM, 4, RoomReservationLock.Status.CONFIRMED));
+            locks.add(lock("seed-h-" + roomId, roomId, HELD_FROM, 2, RoomReservationLock.Status.HELD));
+            locks.add(lock("seed-r-" + roomId, roomId, RELEASED_FROM, 3, RoomReservationLock.Status.RELEASED));
+        }
+        jdbc.batchUpdate("insert into room_reservation_lock (request_id, room_id, start_date, end_date, status, expires_at) "
+                + "values (?, ?, ?, ?, ?, null)", locks, 1000,
+                (ps, row) -> {
+                    for (int i = 0; i < row.length; i++) {
+                        ps.setObject(i + 1, row[i]);
+                    }
+                });
+
+        context.getBean(RoomOccupancyIndex.class).rebuild();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    /**
+     * Запускает hotel-service на отдельной in-memory БД без регистрации в Eureka.
+     */
+    static ConfigurableApplicationContext startHotelService() {
+        // аргументы командной строки: приоритет выше application.yml сервиса
+        return new SpringApplicationBuilder(HotelServiceApplication.class).run(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:bench-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1",
+                "--spring.jpa.show-sql=false",
+                "--eureka.client.enabled=false",
+                "--logging.level.root=WARN",
+                "--logging.level.org.springframework.security=WARN");
+    }
+
+    <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    /**
+     * Номер свободной ночи {@code slot}: номера перебираются по кругу.
+     */
+    long slotRoom(long slot) {
+        return roomIds[(int) (slot % roomIds.length)];
+    }
+
+    /**
+     * Дата свободной ночи {@code slot}: после каждого круга по номерам — следующий день после {@link #FREE_FROM}.
+     */
+    LocalDate slotNight(long slot) {
+        return day(FREE_FROM + (int) (slot / roomIds.length % (HORIZON_DAYS - FREE_FROM)));
+    }
+
+    LocalDate day(int offset) {
+        return today.plusDays(offset);
+    }
+
+    private Object[] lock(String requestId, long roomId, int from, int nights, RoomReservationLock.Status status) {
+        return new Object[]{requestId, roomId, Date.valueOf(day(from)), Date.valueOf(day(from + nights - 1)),
+                status.name()};
+    }
+
+    private static ByteArrayInputStream bytes(StringBuilder csv) {
+        return new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
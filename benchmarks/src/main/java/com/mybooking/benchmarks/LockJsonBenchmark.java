@@ -0,0 +1,76 @@
+package com.mybooking.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.mybooking.hotelservice.model.RoomReservationLock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON-сериализация ответов hold/confirm/release ({@link RoomReservationLock}) — одного удержания
+ * и списка из {@link #locks} удержаний.
+ *
+ * <p>ObjectMapper настроен как в Spring Boot (даты ISO-8601 строками), Spring-контекст не поднимается.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LockJsonBenchmark {
+
+    /**
+     * Размер сериализуемого списка.
+     */
+    @Param({"1", "100"})
+    public int locks;
+
+    private ObjectWriter writer;
+    private RoomReservationLock single;
+    private List<RoomReservationLock> list;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        writer = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build()
+                .writer();
+        LocalDate start = LocalDate.of(2030, 1, 1);
+        list = new ArrayList<>(locks);
+        for (int i = 0; i < locks; i++) {
+            RoomReservationLock lock = new RoomReservationLock();
+            lock.setId(1_000_000L + i);
+            lock.setRequestId("3f2b9c1e-7a4d-4e61-9b0f-" + String.format("%012d", i));
+            lock.setRoomId(10_000L + i);
+            lock.setStartDate(start.plusDays(i % 300));
+            lock.setEndDate(start.plusDays(i % 300 + 3));
+            lock.setStatus(RoomReservationLock.Status.HELD);
+            lock.setExpiresAt(Instant.parse("2030-01-01T12:15:00Z"));
+            list.add(lock);
+        }
+        single = list.get(0);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws Exception {
+        return locks == 1 ? writer.writeValueAsBytes(single) : writer.writeValueAsBytes(list);
+    }
+}
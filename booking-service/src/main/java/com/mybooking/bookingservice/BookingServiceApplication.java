@@ -2,13 +2,17 @@ package com.mybooking.bookingservice;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Точка входа Booking Service проекта MyBooking.
  *
  * <p>Сервис отвечает за управление бронированиями и выдачу JWT токенов для аутентификации пользователей.</p>
+ *
+ * <p>Планировщик включён для фоновой доставки outbox-сообщений в hotel-service.</p>
  */
 @SpringBootApplication
+@EnableScheduling
 public class BookingServiceApplication {
 
     public static void main(String[] args) {
@@ -1,10 +1,12 @@
 package com.mybooking.bookingservice.api;
 
+import com.mybooking.bookingservice.http.HotelUnavailableException;
 import com.mybooking.bookingservice.logging.RequestIdMdcFilter;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.ConstraintViolationException;
 import org.slf4j.MDC;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.access.AccessDeniedException;
@@ -83,6 +85,30 @@ public class GlobalExceptionHandler {
         return build(HttpStatus.CONFLICT, "Conflict", "Conflict", req);
     }
 
+    /**
+     * 503 Service Unavailable: пул асинхронных саг и его очередь заполнены.
+     */
+    @ExceptionHandler(TaskRejectedException.class)
+    public org.springframework.http.ResponseEntity<ErrorDto> handleRejected(TaskRejectedException ex, HttpServletRequest req) {
+        ErrorDto body = build(HttpStatus.SERVICE_UNAVAILABLE, "Service Unavailable",
+                "Booking queue is full, retry later", req).getBody();
+        return org.springframework.http.ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(org.springframework.http.HttpHeaders.RETRY_AFTER, "1")
+                .body(body);
+    }
+
+    /**
+     * 503 Service Unavailable: circuit breaker hotel-service открыт или bulkhead заполнен.
+     */
+    @ExceptionHandler(HotelUnavailableException.class)
+    public org.springframework.http.ResponseEntity<ErrorDto> handleHotelUnavailable(HotelUnavailableException ex, HttpServletRequest req) {
+        ErrorDto body = build(HttpStatus.SERVICE_UNAVAILABLE, "Service Unavailable",
+                "Hotel service is unavailable, retry later", req).getBody();
+        return org.springframework.http.ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(org.springframework.http.HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(body);
+    }
+
     @ExceptionHandler(Exception.class)
     public org.springframework.http.ResponseEntity<ErrorDto> handleFallback(Exception ex, HttpServletRequest req) {
         return build(HttpStatus.INTERNAL_SERVER_ERROR, "Internal Server Error", safeMessage(ex), req);
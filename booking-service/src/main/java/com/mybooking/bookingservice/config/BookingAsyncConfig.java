@@ -0,0 +1,62 @@
+package com.mybooking.bookingservice.config;
+
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.Map;
+
+/**
+ * Исполнитель асинхронных саг бронирования.
+ *
+ * <p>Пул ограничен и по числу потоков, и по длине очереди: при переполнении задача отклоняется
+ * ({@link org.springframework.core.task.TaskRejectedException}), и клиент получает 503.
+ * Задачи наследуют MDC (traceId) и SecurityContext (JWT пользователя) вызывающего потока,
+ * чтобы вызовы hotel-service несли те же X-Request-Id и Authorization, что и в синхронном режиме.</p>
+ */
+@Configuration
+public class BookingAsyncConfig {
+
+    @Bean(name = "bookingSagaExecutor")
+    public ThreadPoolTaskExecutor bookingSagaExecutor(
+            @Value("${booking.async.pool-size:16}") int poolSize,
+            @Value("${booking.async.queue-capacity:1000}") int queueCapacity
+    ) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("booking-saga-");
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setTaskDecorator(contextPropagatingDecorator());
+        // При остановке даём начатым сагам завершиться, чтобы не оставлять PENDING без компенсации
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    private static TaskDecorator contextPropagatingDecorator() {
+        return task -> {
+            Map<String, String> mdc = MDC.getCopyOfContextMap();
+            SecurityContext security = SecurityContextHolder.createEmptyContext();
+            security.setAuthentication(SecurityContextHolder.getContext().getAuthentication());
+
+            return () -> {
+                if (mdc != null) {
+                    MDC.setContextMap(mdc);
+                }
+                SecurityContextHolder.setContext(security);
+                try {
+                    task.run();
+                } finally {
+                    SecurityContextHolder.clearContext();
+                    MDC.clear();
+                }
+            };
+        };
+    }
+}
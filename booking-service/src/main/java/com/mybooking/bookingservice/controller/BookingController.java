@@ -1,18 +1,34 @@
 package com.mybooking.bookingservice.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.mybooking.bookingservice.logging.RequestIdMdcFilter;
 import com.mybooking.bookingservice.model.Booking;
 import com.mybooking.bookingservice.repository.BookingRepository;
+import com.mybooking.bookingservice.service.BookingExportService;
 import com.mybooking.bookingservice.service.BookingService;
+import com.mybooking.bookingservice.service.BookingStatusNotifier;
+import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.MDC;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
+import java.net.URI;
 import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 /**
  * REST-контроллер управления бронированиями.
  *
@@ -25,12 +41,27 @@ import java.util.Map;
 @RequestMapping("/api/bookings")
 @io.swagger.v3.oas.annotations.security.SecurityRequirement(name = "bearer-jwt")
 public class BookingController {
+    private static final String HEADER_PREFER = "Prefer";
+    private static final String RESPOND_ASYNC = "respond-async";
+    private static final String NDJSON = "application/x-ndjson";
+    private static final String NEXT_SINCE = "X-Export-Next-Since";
+
     private final BookingService bookingService;
     private final BookingRepository bookingRepository;
+    private final BookingStatusNotifier statusNotifier;
+    private final BookingExportService exportService;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter rowWriter;
 
-    public BookingController(BookingService bookingService, BookingRepository bookingRepository) {
+    public BookingController(BookingService bookingService, BookingRepository bookingRepository,
+                             BookingStatusNotifier statusNotifier, BookingExportService exportService,
+                             ObjectMapper objectMapper) {
         this.bookingService = bookingService;
         this.bookingRepository = bookingRepository;
+        this.statusNotifier = statusNotifier;
+        this.exportService = exportService;
+        this.objectMapper = objectMapper;
+        this.rowWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
     }
 
     @PostMapping
@@ -40,13 +71,22 @@ public class BookingController {
      * <p>Выполняет удержание номера в hotel-service, сохраняет бронирование и подтверждает удержание.
      * При ошибках выполняется компенсация (release) в hotel-service.</p>
      *
+     * <p>Асинхронный режим включается заголовком {@code Prefer: respond-async} или параметром
+     * {@code ?async=true}: ответ 202 с заголовком {@code Location} на {@code /api/bookings/{id}}
+     * возвращается сразу после записи PENDING, итоговый статус можно опросить или получить по SSE
+     * ({@code /api/bookings/{id}/events}).</p>
+     *
      * @param jwt JWT текущего пользователя (используется для userId/claims)
+     * @param prefer заголовок Prefer (RFC 7240)
+     * @param async признак асинхронного режима
      * @param req входные параметры: roomId, startDate, endDate
-     * @return созданное бронирование
+     * @return созданное бронирование (200) или принятое к обработке (202)
      */
-    public Booking create(
+    public ResponseEntity<Booking> create(
             @AuthenticationPrincipal Jwt jwt,
             @RequestHeader(value = RequestIdMdcFilter.HEADER_REQUEST_ID, required = false) String requestIdHeader,
+            @RequestHeader(value = HEADER_PREFER, required = false) String prefer,
+            @RequestParam(value = "async", defaultValue = "false") boolean async,
             @RequestBody Map<String, String> req
     ) {
         Long userId = Long.parseLong(jwt.getSubject());
@@ -59,7 +99,24 @@ public class BookingController {
                 ? requestIdHeader
                 : MDC.get(RequestIdMdcFilter.MDC_TRACE_ID);
 
-        return bookingService.createBooking(userId, roomId, start, end, requestId);
+        if (!async && !prefersAsync(prefer)) {
+            return ResponseEntity.ok(bookingService.createBooking(userId, roomId, start, end, requestId));
+        }
+
+        Booking booking = bookingService.createBookingAsync(userId, roomId, start, end, requestId);
+        if (booking.getStatus() != Booking.Status.PENDING) {
+            // повтор уже завершённого запроса — отдаём итог как в синхронном режиме
+            return ResponseEntity.ok(booking);
+        }
+        URI location = ServletUriComponentsBuilder.fromCurrentRequestUri()
+                .replaceQuery(null)
+                .path("/{id}")
+                .buildAndExpand(booking.getId())
+                .toUri();
+        return ResponseEntity.accepted()
+                .location(location)
+                .header("Preference-Applied", RESPOND_ASYNC)
+                .body(booking);
     }
 
     @GetMapping
@@ -74,6 +131,36 @@ public class BookingController {
         return bookingRepository.findByUserId(userId);
     }
 
+    @GetMapping("/{id}")
+    /**
+     * Возвращает бронирование по id (статус-URL асинхронного режима).
+     *
+     * <p>Доступно владельцу бронирования и администратору; для остальных — 404.</p>
+     *
+     * @param jwt JWT текущего пользователя
+     * @param id идентификатор бронирования
+     * @return бронирование
+     */
+    public Booking getBooking(@AuthenticationPrincipal Jwt jwt, @PathVariable Long id) {
+        return findVisible(jwt, id);
+    }
+
+    @GetMapping(value = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    /**
+     * Подписка на итоговый статус бронирования (Server-Sent Events).
+     *
+     * <p>Отправляет одно событие {@code status} с бронированием в статусе CONFIRMED или CANCELLED
+     * и закрывает поток. Если бронирование уже завершено, событие отправляется сразу.</p>
+     *
+     * @param jwt JWT текущего пользователя
+     * @param id идентификатор бронирования
+     * @return SSE-поток
+     */
+    public SseEmitter bookingEvents(@AuthenticationPrincipal Jwt jwt, @PathVariable Long id) {
+        Booking booking = findVisible(jwt, id);
+        return statusNotifier.subscribe(booking, () -> bookingRepository.findById(id).orElse(null));
+    }
+
     @GetMapping("/suggestions")
     public java.util.List<BookingService.RoomView> suggestions() {
         return bookingService.getRoomSuggestions();
@@ -91,4 +178,68 @@ public class BookingController {
     public List<Booking> all() {
         return bookingRepository.findAll();
     }
+
+    @GetMapping("/export")
+    /**
+     * Выгружает бронирования в формате NDJSON ({@code application/x-ndjson}): по одному JSON-объекту
+     * в строке. Ответ пишется по мере чтения курсора БД и не буферизуется целиком.
+     *
+     * <p>Административная операция. Параметр {@code since} — идентификатор последнего полученного
+     * бронирования (только новые бронирования, в порядке id) либо курсор изменений в формате ISO-8601
+     * ({@code 2024-05-01T00:00:00Z}) вместе с {@code afterId}: выгружаются бронирования, созданные или
+     * изменённые после позиции {@code (since, afterId)}, в порядке {@code (updatedAt, id)}. Курсор следующей
+     * выгрузки изменений возвращается в заголовке {@value #NEXT_SINCE}.</p>
+     *
+     * @param since    идентификатор или момент, после которого начинается выгрузка
+     * @param afterId  идентификатор последней полученной записи с {@code updatedAt}, равным {@code since}
+     * @param response HTTP-ответ
+     */
+    @PreAuthorize("hasAuthority('SCOPE_ADMIN')")
+    public void export(@RequestParam(defaultValue = "0") String since,
+                       @RequestParam(defaultValue = "0") long afterId,
+                       HttpServletResponse response) throws IOException {
+        // разбираем параметр до начала ответа: ошибка формата — 400 в обычном JSON
+        boolean byId = since.chars().allMatch(Character::isDigit);
+        long sinceId = byId ? Long.parseLong(since) : 0;
+        OffsetDateTime sinceTime = byId ? null : OffsetDateTime.parse(since);
+        OffsetDateTime until = byId ? null : exportService.changesUntil();
+
+        response.setContentType(NDJSON);
+        if (until != null) {
+            response.setHeader(NEXT_SINCE, until.toString());
+        }
+        try (JsonGenerator out = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+            out.setRootValueSeparator(null);
+            BookingExportService.RowWriter writer = booking -> {
+                rowWriter.writeValue(out, booking);
+                out.writeRaw('\n');
+            };
+            if (byId) {
+                exportService.exportAfterId(sinceId, writer);
+            } else {
+                exportService.exportUpdatedAfter(sinceTime, afterId, until, writer);
+            }
+        }
+    }
+
+    private Booking findVisible(Jwt jwt, Long id) {
+        Booking booking = bookingRepository.findById(id)
+                .orElseThrow(() -> new NoSuchElementException("Booking not found"));
+        boolean admin = jwt.getClaimAsString("scope") != null
+                && Arrays.asList(jwt.getClaimAsString("scope").split(" ")).contains("ADMIN");
+        if (!admin && !booking.getUserId().equals(Long.parseLong(jwt.getSubject()))) {
+            // не раскрываем существование чужих бронирований
+            throw new NoSuchElementException("Booking not found");
+        }
+        return booking;
+    }
+
+    private static boolean prefersAsync(String prefer) {
+        if (prefer == null) {
+            return false;
+        }
+        return Arrays.stream(prefer.split(","))
+                .map(p -> p.split(";")[0].trim())
+                .anyMatch(RESPOND_ASYNC::equalsIgnoreCase);
+    }
 }
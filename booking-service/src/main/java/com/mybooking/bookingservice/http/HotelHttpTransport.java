@@ -0,0 +1,206 @@
+package com.mybooking.bookingservice.http;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.io.ConnectionEndpoint;
+import org.apache.hc.client5.http.io.LeaseRequest;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * HTTP-транспорт вызовов hotel-service ({@code hotel.http.transport}).
+ *
+ * <ul>
+ *   <li>{@code apache} (по умолчанию) — Apache HttpClient 5 с пулом соединений: не более
+ *       {@code hotel.http.max-connections-per-route} на hotel-service и {@code hotel.http.max-connections-total}
+ *       всего, простаивающие дольше {@code hotel.http.idle-eviction-ms} закрываются фоновым потоком,
+ *       keep-alive без заголовка {@code Keep-Alive} от сервера — {@code hotel.http.keep-alive-ms}.
+ *       Ожидание свободного соединения ограничено {@code hotel.timeout-ms}. Пул публикует метрики
+ *       {@code hotel.client.pool.leased}, {@code .pending}, {@code .available}, {@code .max}
+ *       и таймер ожидания соединения {@code hotel.client.pool.wait};</li>
+ *   <li>{@code jdk} — {@link HttpClient} JDK: HTTP/2 (h2c upgrade, с откатом на HTTP/1.1, если сервер его
+ *       не поддерживает), общий исполнитель на {@code hotel.http.executor-threads} потоков. Пулом JDK-клиент
+ *       управляет сам, поэтому лимиты соединений и метрики пула к нему не применяются;</li>
+ *   <li>{@code simple} — прежний {@code HttpURLConnection} без управления пулом (для сравнения).</li>
+ * </ul>
+ */
+@Component
+public class HotelHttpTransport implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(HotelHttpTransport.class);
+
+    public static final String POOL_METRIC_PREFIX = "hotel.client.pool";
+
+    private final ClientHttpRequestFactory requestFactory;
+    private final AutoCloseable resources;
+
+    /**
+     * @param transport              {@code apache}, {@code jdk} или {@code simple}
+     * @param timeoutMs              connect/read timeout и максимальное ожидание соединения из пула
+     * @param maxConnectionsPerRoute максимум соединений к одному хосту (apache)
+     * @param maxConnectionsTotal    максимум соединений пула (apache)
+     * @param idleEvictionMs         закрывать соединения, простаивающие дольше (apache)
+     * @param keepAliveMs            keep-alive, если сервер не прислал {@code Keep-Alive} (apache)
+     * @param executorThreads        потоков общего исполнителя (jdk)
+     * @param meterRegistry          реестр метрик пула
+     */
+    public HotelHttpTransport(
+            @Value("${hotel.http.transport:apache}") String transport,
+            @Value("${hotel.timeout-ms}") int timeoutMs,
+            @Value("${hotel.http.max-connections-per-route:64}") int maxConnectionsPerRoute,
+            @Value("${hotel.http.max-connections-total:128}") int maxConnectionsTotal,
+            @Value("${hotel.http.idle-eviction-ms:30000}") long idleEvictionMs,
+            @Value("${hotel.http.keep-alive-ms:60000}") long keepAliveMs,
+            @Value("${hotel.http.executor-threads:4}") int executorThreads,
+            MeterRegistry meterRegistry
+    ) {
+        switch (transport) {
+            case "apache" -> {
+                TimedConnectionManager pool = new TimedConnectionManager(meterRegistry);
+                pool.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+                pool.setMaxTotal(maxConnectionsTotal);
+                pool.setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+                        .setSocketTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+                        .build());
+                registerPoolGauges(pool, meterRegistry);
+
+                CloseableHttpClient client = HttpClients.custom()
+                        .setConnectionManager(pool)
+                        .setDefaultRequestConfig(RequestConfig.custom()
+                                .setConnectionRequestTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+                                .setResponseTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+                                .setDefaultKeepAlive(keepAliveMs, TimeUnit.MILLISECONDS)
+                                .build())
+                        .evictIdleConnections(TimeValue.ofMilliseconds(idleEvictionMs))
+                        .evictExpiredConnections()
+                        // повторы выполняет HotelRetryExecutor
+                        .disableAutomaticRetries()
+                        .build();
+                this.requestFactory = new HttpComponentsClientHttpRequestFactory(client);
+                this.resources = client;
+            }
+            case "jdk" -> {
+                ExecutorService executor = Executors.newFixedThreadPool(executorThreads, daemonThreads());
+                HttpClient client = HttpClient.newBuilder()
+                        .version(HttpClient.Version.HTTP_2)
+                        .connectTimeout(Duration.ofMillis(timeoutMs))
+                        .executor(executor)
+                        .build();
+                JdkClientHttpRequestFactory rf = new JdkClientHttpRequestFactory(client, executor);
+                rf.setReadTimeout(timeoutMs);
+                this.requestFactory = rf;
+                this.resources = executor::shutdownNow;
+            }
+            case "simple" -> {
+                SimpleClientHttpRequestFactory rf = new SimpleClientHttpRequestFactory();
+                rf.setConnectTimeout(timeoutMs);
+                rf.setReadTimeout(timeoutMs);
+                this.requestFactory = rf;
+                this.resources = () -> { };
+            }
+            default -> throw new IllegalArgumentException(
+                    "Unknown hotel.http.transport: " + transport + " (expected apache, jdk or simple)");
+        }
+        log.info("hotel-service HTTP transport: {}", transport);
+    }
+
+    /**
+     * @return фабрика запросов для {@code RestClient}
+     */
+    public ClientHttpRequestFactory requestFactory() {
+        return requestFactory;
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        resources.close();
+    }
+
+    private static void registerPoolGauges(PoolingHttpClientConnectionManager pool, MeterRegistry meterRegistry) {
+        gauge(meterRegistry, "leased", "Соединения с hotel-service, занятые запросами", pool, PoolStats::getLeased);
+        gauge(meterRegistry, "pending", "Запросы, ожидающие свободного соединения", pool, PoolStats::getPending);
+        gauge(meterRegistry, "available", "Простаивающие соединения в пуле", pool, PoolStats::getAvailable);
+        gauge(meterRegistry, "max", "Максимальный размер пула", pool, PoolStats::getMax);
+    }
+
+    private static void gauge(MeterRegistry meterRegistry, String name, String description,
+                              PoolingHttpClientConnectionManager pool, ToDoubleFunction<PoolStats> value) {
+        Gauge.builder(POOL_METRIC_PREFIX + "." + name, pool, p -> value.applyAsDouble(p.getTotalStats()))
+                .description(description)
+                .register(meterRegistry);
+    }
+
+    private static ThreadFactory daemonThreads() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "hotel-http-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Пул, измеряющий время ожидания соединения ({@code hotel.client.pool.wait}).
+     */
+    static final class TimedConnectionManager extends PoolingHttpClientConnectionManager {
+
+        private final Timer waitTimer;
+
+        TimedConnectionManager(MeterRegistry meterRegistry) {
+            this.waitTimer = Timer.builder(POOL_METRIC_PREFIX + ".wait")
+                    .description("Ожидание свободного соединения с hotel-service")
+                    .register(meterRegistry);
+        }
+
+        @Override
+        public LeaseRequest lease(String id, HttpRoute route, Timeout requestTimeout, Object state) {
+            LeaseRequest lease = super.lease(id, route, requestTimeout, state);
+            long startedAt = System.nanoTime();
+            return new LeaseRequest() {
+                @Override
+                public ConnectionEndpoint get(Timeout timeout)
+                        throws InterruptedException, ExecutionException, TimeoutException {
+                    try {
+                        return lease.get(timeout);
+                    } finally {
+                        waitTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+                    }
+                }
+
+                @Override
+                public boolean cancel() {
+                    return lease.cancel();
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.mybooking.bookingservice.http;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Circuit breaker на каждую операцию hotel-service и общий bulkhead (Resilience4j).
+ *
+ * <p>Circuit breaker операции ({@code holdRoom}, {@code reserveRoom}, {@code confirmHold}, {@code releaseHold},
+ * {@code getRoomSuggestions}, {@code getCapabilities}) учитывает каждую попытку отдельно: 5xx и ошибки
+ * ввода-вывода считаются отказами, ответы 4xx (например, 409 Conflict) — успехами, hotel-service при этом
+ * исправен. При доле отказов выше порога breaker открывается, и вызовы отклоняются без обращения к сервису;
+ * через {@code wait-duration-in-open-state} breaker пропускает пробные вызовы (half-open) и по их итогам
+ * закрывается или открывается снова.</p>
+ *
+ * <p>Bulkhead {@code hotel-service} ограничивает число потоков, одновременно находящихся в вызове hotel-service
+ * (вместе с повторами и паузами между ними): деградировавший сервис не забирает все потоки обработки запросов.</p>
+ *
+ * <p>Отклонённый вызов завершается {@link HotelUnavailableException}. Параметры задаются в
+ * {@code resilience4j.circuitbreaker.*} и {@code resilience4j.bulkhead.*}; состояния доступны через
+ * actuator ({@code /actuator/circuitbreakers}, {@code /actuator/circuitbreakerevents}, {@code /actuator/bulkheads})
+ * и метрики {@code resilience4j.circuitbreaker.*}, {@code resilience4j.bulkhead.*}.</p>
+ */
+@Component
+public class HotelResilience {
+
+    private static final Logger log = LoggerFactory.getLogger(HotelResilience.class);
+
+    public static final String BULKHEAD = "hotel-service";
+
+    private final CircuitBreakerRegistry circuitBreakers;
+    private final Bulkhead bulkhead;
+    private final Map<String, CircuitBreaker> byOperation = new ConcurrentHashMap<>();
+
+    public HotelResilience(CircuitBreakerRegistry circuitBreakers, BulkheadRegistry bulkheads) {
+        this.circuitBreakers = circuitBreakers;
+        this.bulkhead = bulkheads.bulkhead(BULKHEAD);
+    }
+
+    /**
+     * Выполняет вызов (вместе с повторами) внутри bulkhead.
+     *
+     * @throws HotelUnavailableException если все места bulkhead заняты
+     */
+    public <T> T withinBulkhead(HotelRetryExecutor.Operation<T> call) {
+        try {
+            bulkhead.acquirePermission();
+        } catch (BulkheadFullException full) {
+            throw new HotelUnavailableException("hotel-service concurrency limit reached", 1, full);
+        }
+        try {
+            return call.run();
+        } finally {
+            bulkhead.onComplete();
+        }
+    }
+
+    /**
+     * Выполняет одну попытку вызова через circuit breaker операции.
+     *
+     * @throws HotelUnavailableException если breaker открыт или исчерпаны пробные вызовы half-open
+     */
+    public <T> T attempt(String operation, HotelRetryExecutor.Operation<T> call) {
+        CircuitBreaker circuitBreaker = circuitBreaker(operation);
+        try {
+            return circuitBreaker.executeSupplier(call::run);
+        } catch (CallNotPermittedException open) {
+            throw unavailable(circuitBreaker, open);
+        }
+    }
+
+    /**
+     * Быстрая проверка перед началом саги: не выполняет вызов и не занимает пробных вызовов half-open.
+     *
+     * @throws HotelUnavailableException если breaker операции открыт или bulkhead заполнен
+     */
+    public void checkAvailable(String operation) {
+        CircuitBreaker circuitBreaker = circuitBreaker(operation);
+        if (!circuitBreaker.tryAcquirePermission()) {
+            throw unavailable(circuitBreaker, null);
+        }
+        circuitBreaker.releasePermission();
+        if (bulkhead.getMetrics().getAvailableConcurrentCalls() == 0) {
+            throw new HotelUnavailableException("hotel-service concurrency limit reached", 1, null);
+        }
+    }
+
+    private CircuitBreaker circuitBreaker(String operation) {
+        return byOperation.computeIfAbsent(operation, name -> {
+            CircuitBreaker circuitBreaker = circuitBreakers.circuitBreaker(name);
+            circuitBreaker.getEventPublisher().onStateTransition(event ->
+                    log.warn("Circuit breaker hotel-service {}: {}", name, event.getStateTransition()));
+            return circuitBreaker;
+        });
+    }
+
+    private static HotelUnavailableException unavailable(CircuitBreaker circuitBreaker, Throwable cause) {
+        long waitMs = circuitBreaker.getCircuitBreakerConfig().getWaitIntervalFunctionInOpenState().apply(1);
+        return new HotelUnavailableException("hotel-service circuit breaker " + circuitBreaker.getName()
+                + " is " + circuitBreaker.getState(), Math.max(1, (waitMs + 999) / 1000), cause);
+    }
+}
@@ -0,0 +1,142 @@
+package com.mybooking.bookingservice.http;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientException;
+
+/**
+ * Исполнитель вызовов hotel-service с политикой повторов.
+ *
+ * <p>Объединяет {@link RetryPolicy} (классификация ошибок, backoff с full jitter, Retry-After)
+ * и {@link RetryBudget} (ограничение доли повторов на экземпляр). Каждое решение публикуется
+ * счётчиком Micrometer {@code hotel.client.retry.decisions} с тегами {@code operation} и {@code decision}:
+ * <ul>
+ *   <li>{@code success} — вызов выполнен;</li>
+ *   <li>{@code retry} — назначен повтор;</li>
+ *   <li>{@code fatal} — ошибка не повторяемая (например, 409 Conflict);</li>
+ *   <li>{@code exhausted} — исчерпано число попыток;</li>
+ *   <li>{@code budget_exhausted} — повтор запрещён бюджетом;</li>
+ *   <li>{@code retry_after_too_long} — Retry-After превышает максимальную паузу.</li>
+ * </ul>
+ * </p>
+ */
+@Component
+public class HotelRetryExecutor {
+
+    private static final Logger log = LoggerFactory.getLogger(HotelRetryExecutor.class);
+
+    public static final String DECISIONS_METRIC = "hotel.client.retry.decisions";
+
+    private final RetryPolicy policy;
+    private final RetryBudget budget;
+    private final MeterRegistry meterRegistry;
+
+    public HotelRetryExecutor(
+            @Value("${hotel.retries}") int maxAttempts,
+            @Value("${hotel.retry.base-delay-ms:50}") long baseDelayMs,
+            @Value("${hotel.retry.max-delay-ms:1000}") long maxDelayMs,
+            @Value("${hotel.retry.budget-ratio:0.1}") double budgetRatio,
+            @Value("${hotel.retry.budget-max-tokens:10}") double budgetMaxTokens,
+            MeterRegistry meterRegistry
+    ) {
+        this.policy = new RetryPolicy(maxAttempts, baseDelayMs, maxDelayMs);
+        this.budget = new RetryBudget(budgetRatio, budgetMaxTokens);
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("hotel.client.retry.budget", budget, RetryBudget::available)
+                .description("Остаток бюджета повторов вызовов hotel-service")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Выполняет операцию с повторами согласно политике.
+     *
+     * @param opName    имя операции (тег метрик и логов)
+     * @param operation операция
+     * @param <T>       тип результата
+     * @return результат операции
+     * @throws RestClientException последняя ошибка, если повтор невозможен или не имеет смысла
+     */
+    public <T> T execute(String opName, Operation<T> operation) {
+        budget.onRequest();
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                T result = operation.run();
+                record(opName, "success");
+                return result;
+            } catch (RestClientException ex) {
+                String decision = decide(ex, attempt);
+                record(opName, decision);
+
+                if (!"retry".equals(decision)) {
+                    log.warn("Ошибка вызова hotel-service в операции {} (попытка {}/{}, решение {}): {}",
+                            opName, attempt, policy.maxAttempts(), decision, ex.toString());
+                    throw ex;
+                }
+
+                long delayMs = policy.backoffMs(attempt, RetryPolicy.retryAfterMs(ex));
+                log.warn("Ошибка вызова hotel-service в операции {} (попытка {}/{}), повтор через {} мс: {}",
+                        opName, attempt, policy.maxAttempts(), delayMs, ex.toString());
+                if (!sleep(delayMs)) {
+                    throw ex;
+                }
+            }
+        }
+    }
+
+    private String decide(RestClientException ex, int attempt) {
+        if (!policy.isRetryable(ex)) {
+            return "fatal";
+        }
+        if (attempt >= policy.maxAttempts()) {
+            return "exhausted";
+        }
+        if (RetryPolicy.retryAfterMs(ex) > policy.maxDelayMs()) {
+            return "retry_after_too_long";
+        }
+        if (!budget.tryAcquireRetry()) {
+            return "budget_exhausted";
+        }
+        return "retry";
+    }
+
+    private void record(String opName, String decision) {
+        Counter.builder(DECISIONS_METRIC)
+                .description("Решения политики повторов вызовов hotel-service")
+                .tag("operation", opName)
+                .tag("decision", decision)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * @return false, если ожидание прервано (повтор не выполняется)
+     */
+    private static boolean sleep(long delayMs) {
+        if (delayMs <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(delayMs);
+            return true;
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Операция вызова hotel-service.
+     *
+     * @param <T> тип результата
+     */
+    @FunctionalInterface
+    public interface Operation<T> {
+        T run();
+    }
+}
@@ -0,0 +1,234 @@
+package com.mybooking.bookingservice.http;
+
+import com.mybooking.bookingservice.logging.RequestIdMdcFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * HTTP-клиент hotel-service.
+ *
+ * <p>Инкапсулирует контракт {@code /api/rooms/*}, таймауты, политику повторов ({@link HotelRetryExecutor}),
+ * circuit breaker на каждую операцию и общий bulkhead ({@link HotelResilience}).
+ * Заголовки X-Request-Id и Authorization добавляет {@link RequestIdRestClientInterceptor}
+ * из MDC и SecurityContext текущего потока, если они не заданы явно.</p>
+ */
+@Component
+public class HotelServiceClient {
+
+    private static final Logger log = LoggerFactory.getLogger(HotelServiceClient.class);
+
+    private final RestClient restClient;
+    private final HotelRetryExecutor retryExecutor;
+    private final HotelResilience resilience;
+    private final boolean reserveEnabled;
+    private final long capabilitiesTtlMs;
+    private volatile ReserveSupport reserveSupport;
+    private final AtomicBoolean probing = new AtomicBoolean();
+
+    /**
+     * Таймауты и пул соединений задаёт {@link HotelHttpTransport}.
+     *
+     * @param hotelBaseUrl базовый URL hotel-service (например, http://localhost:8081)
+     * @param transport HTTP-транспорт вызовов hotel-service
+     * @param retryExecutor исполнитель вызовов с политикой повторов
+     * @param resilience circuit breaker и bulkhead вызовов
+     * @param reserveEnabled использовать атомарный reserve, если hotel-service его поддерживает
+     * @param capabilitiesTtlMs время кэширования ответа {@code /api/rooms/capabilities}
+     */
+    public HotelServiceClient(
+            @Value("${hotel.base-url}") String hotelBaseUrl,
+            HotelHttpTransport transport,
+            HotelRetryExecutor retryExecutor,
+            HotelResilience resilience,
+            @Value("${hotel.reserve.enabled:true}") boolean reserveEnabled,
+            @Value("${hotel.capabilities.ttl-ms:60000}") long capabilitiesTtlMs
+    ) {
+        this.retryExecutor = retryExecutor;
+        this.resilience = resilience;
+        this.reserveEnabled = reserveEnabled;
+        this.capabilitiesTtlMs = capabilitiesTtlMs;
+
+        this.restClient = RestClient.builder()
+                .baseUrl(hotelBaseUrl)
+                .requestFactory(transport.requestFactory())
+                .requestInterceptor(new RequestIdRestClientInterceptor())
+                .build();
+    }
+
+    /**
+     * Определяет, поддерживает ли hotel-service атомарный {@code POST /api/rooms/{roomId}/reserve}.
+     *
+     * <p>Ответ {@code GET /api/rooms/capabilities} кэшируется на {@code hotel.capabilities.ttl-ms}. Устаревшее
+     * значение перепроверяет один поток (single-flight) одной попыткой через circuit breaker
+     * {@code getCapabilities}; остальные в это время используют последнее известное значение и не ждут.
+     * Ответ 4xx (например, 404 у старой версии hotel-service) означает «не поддерживается». Ошибка проверки
+     * (5xx, ввод-вывод, открытый breaker) оставляет последнее известное значение до следующей проверки через
+     * TTL; пока значение неизвестно, сага выполняется через hold + confirm.</p>
+     */
+    public boolean reserveSupported() {
+        if (!reserveEnabled) {
+            return false;
+        }
+        ReserveSupport cached = reserveSupport;
+        long now = System.currentTimeMillis();
+        if (cached != null && now - cached.checkedAtMs() < capabilitiesTtlMs) {
+            return cached.supported();
+        }
+        if (!probing.compareAndSet(false, true)) {
+            return cached != null && cached.supported();
+        }
+        try {
+            boolean supported;
+            try {
+                HotelCapabilities caps = resilience.attempt("getCapabilities", () -> restClient.get()
+                        .uri("/api/rooms/capabilities")
+                        .retrieve()
+                        .body(HotelCapabilities.class));
+                supported = caps != null && caps.operations() != null && caps.operations().contains("reserve");
+            } catch (HttpClientErrorException ex) {
+                log.debug("hotel-service does not advertise capabilities, using hold+confirm: {}", ex.toString());
+                supported = false;
+            } catch (RestClientException | HotelUnavailableException ex) {
+                supported = cached != null && cached.supported();
+                log.warn("hotel-service capabilities check failed, keeping reserve={}: {}", supported, ex.toString());
+            }
+            reserveSupport = new ReserveSupport(supported, now);
+            return supported;
+        } finally {
+            probing.set(false);
+        }
+    }
+
+    /**
+     * {@code POST /api/rooms/{roomId}/reserve} — hold + confirm за один вызов.
+     */
+    public void reserve(Long roomId, String requestId, LocalDate start, LocalDate end) {
+        call("reserveRoom", () -> {
+            restClient.post()
+                    .uri(uriBuilder -> uriBuilder
+                            .path("/api/rooms/{roomId}/reserve")
+                            .queryParam("requestId", requestId)
+                            .queryParam("startDate", start)
+                            .queryParam("endDate", end)
+                            .build(roomId))
+                    .retrieve()
+                    .toBodilessEntity();
+            return null;
+        });
+    }
+
+    /**
+     * {@code POST /api/rooms/{roomId}/hold}.
+     */
+    public void hold(Long roomId, String requestId, LocalDate start, LocalDate end) {
+        call("holdRoom", () -> {
+            restClient.post()
+                    .uri(uriBuilder -> uriBuilder
+                            .path("/api/rooms/{roomId}/hold")
+                            .queryParam("requestId", requestId)
+                            .queryParam("startDate", start)
+                            .queryParam("endDate", end)
+                            .build(roomId))
+                    .retrieve()
+                    .toBodilessEntity();
+            return null;
+        });
+    }
+
+    /**
+     * {@code POST /api/rooms/confirm}.
+     */
+    public void confirm(String requestId) {
+        call("confirmHold", () -> {
+            restClient.post()
+                    .uri(uriBuilder -> uriBuilder
+                            .path("/api/rooms/confirm")
+                            .queryParam("requestId", requestId)
+                            .build())
+                    .retrieve()
+                    .toBodilessEntity();
+            return null;
+        });
+    }
+
+    /**
+     * {@code POST /api/rooms/release?compensation=true} — одна попытка; повторы выполняет вызывающая сторона
+     * (outbox relay). Компенсация освобождает удержание этого requestId и в статусе CONFIRMED: сага могла
+     * выполнить reserve и не успеть записать статус бронирования.
+     *
+     * <p>Проходит через circuit breaker {@code releaseHold}, но не через bulkhead: release выполняет фоновый relay,
+     * а не потоки обработки запросов.</p>
+     *
+     * @param requestId requestId удержания
+     * @param bearerToken сервисный JWT (без префикса {@code Bearer })
+     * @throws RestClientException ошибка вызова, в том числе 404 (удержание не создавалось)
+     * @throws HotelUnavailableException circuit breaker открыт
+     */
+    public void release(String requestId, String bearerToken) {
+        resilience.attempt("releaseHold", () -> restClient.post()
+                .uri(uriBuilder -> uriBuilder
+                        .path("/api/rooms/release")
+                        .queryParam("requestId", requestId)
+                        .queryParam("compensation", true)
+                        .build())
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + bearerToken)
+                .header(RequestIdMdcFilter.HEADER_REQUEST_ID, requestId)
+                .retrieve()
+                .toBodilessEntity());
+    }
+
+    /**
+     * {@code GET /api/rooms/top?n=...} с повторами: самые популярные доступные номера, уже упорядоченные
+     * hotel-service по убыванию {@code timesBooked}.
+     *
+     * @param type тип тела ответа (JSON-массив)
+     * @param n число номеров
+     * @param bearerToken JWT вызова (без префикса {@code Bearer }); подсказки загружаются фоном под сервисным JWT
+     * @return тело ответа
+     */
+    public <T> T topRooms(Class<T> type, int n, String bearerToken) {
+        return call("getRoomSuggestions", () ->
+                restClient.get()
+                        .uri(uriBuilder -> uriBuilder
+                                .path("/api/rooms/top")
+                                .queryParam("n", n)
+                                .build())
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + bearerToken)
+                        .retrieve()
+                        .body(type));
+    }
+
+    /**
+     * Быстрая проверка перед сагой: circuit breaker первого шага (reserve или hold) не открыт и bulkhead не заполнен.
+     *
+     * @throws HotelUnavailableException hotel-service сейчас не вызывается
+     */
+    public void checkAvailable() {
+        // без проверки capabilities: при недоступном hotel-service 503 отдаётся сразу, без ожидания таймаута
+        ReserveSupport known = reserveSupport;
+        boolean reserve = reserveEnabled && known != null && known.supported();
+        resilience.checkAvailable(reserve ? "reserveRoom" : "holdRoom");
+    }
+
+    /**
+     * Вызов с повторами: bulkhead охватывает все попытки и паузы, circuit breaker — каждую попытку.
+     */
+    private <T> T call(String operation, HotelRetryExecutor.Operation<T> attempt) {
+        return resilience.withinBulkhead(() ->
+                retryExecutor.execute(operation, () -> resilience.attempt(operation, attempt)));
+    }
+
+    private record HotelCapabilities(List<String> operations) {}
+
+    private record ReserveSupport(boolean supported, long checkedAtMs) {}
+}
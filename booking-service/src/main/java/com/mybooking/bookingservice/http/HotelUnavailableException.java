@@ -0,0 +1,24 @@
+package com.mybooking.bookingservice.http;
+
+/**
+ * Вызов hotel-service отклонён без обращения к сервису: circuit breaker операции открыт
+ * или bulkhead исчерпан ({@link HotelResilience}).
+ *
+ * <p>Отображается в {@code 503 Service Unavailable} с заголовком {@code Retry-After}.</p>
+ */
+public class HotelUnavailableException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public HotelUnavailableException(String message, long retryAfterSeconds, Throwable cause) {
+        super(message, cause);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * @return через сколько секунд имеет смысл повторить запрос
+     */
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
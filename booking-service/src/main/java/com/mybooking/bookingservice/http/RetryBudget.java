@@ -0,0 +1,53 @@
+package com.mybooking.bookingservice.http;
+
+/**
+ * Бюджет повторов экземпляра сервиса (token bucket).
+ *
+ * <p>Каждый исходный вызов пополняет бюджет на {@code ratio} токена, каждый повтор расходует один токен.
+ * Таким образом в установившемся режиме повторы создают не более {@code ratio} дополнительной нагрузки
+ * (например, 0.1 = +10%), а при деградации hotel-service повторы не умножают трафик.
+ * Ёмкость ограничена {@code maxTokens}: это запас повторов при низком трафике.</p>
+ */
+public final class RetryBudget {
+
+    private final double ratio;
+    private final double maxTokens;
+    private double tokens;
+
+    /**
+     * @param ratio     доля дополнительной нагрузки, допустимая для повторов
+     * @param maxTokens ёмкость бюджета (начальный запас повторов)
+     */
+    public RetryBudget(double ratio, double maxTokens) {
+        this.ratio = Math.max(0, ratio);
+        this.maxTokens = Math.max(0, maxTokens);
+        this.tokens = this.maxTokens;
+    }
+
+    /**
+     * Учитывает исходный (не повторный) вызов.
+     */
+    public synchronized void onRequest() {
+        tokens = Math.min(maxTokens, tokens + ratio);
+    }
+
+    /**
+     * Пытается списать токен на повтор.
+     *
+     * @return true, если повтор разрешён бюджетом
+     */
+    public synchronized boolean tryAcquireRetry() {
+        if (tokens < 1.0) {
+            return false;
+        }
+        tokens -= 1.0;
+        return true;
+    }
+
+    /**
+     * @return текущий остаток бюджета
+     */
+    public synchronized double available() {
+        return tokens;
+    }
+}
@@ -0,0 +1,112 @@
+package com.mybooking.bookingservice.http;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Политика повторов вызовов hotel-service.
+ *
+ * <p>Классификация ошибок:
+ * <ul>
+ *   <li>4xx — фатальные (повтор не изменит результат), кроме 408 Request Timeout и 429 Too Many Requests;</li>
+ *   <li>5xx и ошибки ввода-вывода (таймаут, отказ соединения) — повторяемые;</li>
+ *   <li>прочие {@link RestClientException} (например, ошибка разбора ответа) — фатальные.</li>
+ * </ul>
+ * </p>
+ *
+ * <p>Пауза между попытками — экспоненциальный backoff с full jitter:
+ * {@code random(0, min(maxDelay, baseDelay * 2^(attempt-1)))}. Если сервер прислал {@code Retry-After},
+ * пауза не меньше указанного значения.</p>
+ */
+public final class RetryPolicy {
+
+    private final int maxAttempts;
+    private final long baseDelayMs;
+    private final long maxDelayMs;
+
+    /**
+     * @param maxAttempts максимальное число попыток (включая первую)
+     * @param baseDelayMs базовая пауза backoff
+     * @param maxDelayMs  верхняя граница паузы; более длинный Retry-After означает отказ от повтора
+     */
+    public RetryPolicy(int maxAttempts, long baseDelayMs, long maxDelayMs) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseDelayMs = Math.max(0, baseDelayMs);
+        this.maxDelayMs = Math.max(this.baseDelayMs, maxDelayMs);
+    }
+
+    public int maxAttempts() {
+        return maxAttempts;
+    }
+
+    public long maxDelayMs() {
+        return maxDelayMs;
+    }
+
+    /**
+     * Определяет, имеет ли смысл повторять вызов после ошибки.
+     *
+     * @param ex ошибка вызова
+     * @return true для 408/429/5xx и ошибок ввода-вывода
+     */
+    public boolean isRetryable(RestClientException ex) {
+        if (ex instanceof HttpClientErrorException clientError) {
+            HttpStatus status = HttpStatus.resolve(clientError.getStatusCode().value());
+            return status == HttpStatus.REQUEST_TIMEOUT || status == HttpStatus.TOO_MANY_REQUESTS;
+        }
+        return ex instanceof HttpServerErrorException || ex instanceof ResourceAccessException;
+    }
+
+    /**
+     * Вычисляет паузу перед следующей попыткой.
+     *
+     * @param attempt      номер неудавшейся попытки (начиная с 1)
+     * @param retryAfterMs пауза из заголовка Retry-After или 0
+     * @return пауза в миллисекундах
+     */
+    public long backoffMs(int attempt, long retryAfterMs) {
+        int shift = Math.min(Math.max(0, attempt - 1), 30);
+        long cap = Math.min(maxDelayMs, baseDelayMs << shift);
+        long jitter = cap > 0 ? ThreadLocalRandom.current().nextLong(cap + 1) : 0;
+        return Math.max(jitter, retryAfterMs);
+    }
+
+    /**
+     * Извлекает паузу из заголовка {@code Retry-After} (секунды или HTTP-date).
+     *
+     * @param ex ошибка вызова
+     * @return пауза в миллисекундах; 0, если заголовка нет или он некорректен
+     */
+    public static long retryAfterMs(RestClientException ex) {
+        if (!(ex instanceof HttpStatusCodeException statusError) || statusError.getResponseHeaders() == null) {
+            return 0;
+        }
+        String value = statusError.getResponseHeaders().getFirst(HttpHeaders.RETRY_AFTER);
+        if (value == null || value.isBlank()) {
+            return 0;
+        }
+        value = value.trim();
+        try {
+            return Math.max(0, Long.parseLong(value) * 1000);
+        } catch (NumberFormatException notSeconds) {
+            try {
+                Instant at = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+                return Math.max(0, Duration.between(Instant.now(), at).toMillis());
+            } catch (DateTimeParseException notDate) {
+                return 0;
+            }
+        }
+    }
+}
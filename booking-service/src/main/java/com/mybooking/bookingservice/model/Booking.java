@@ -19,7 +19,8 @@ import java.time.OffsetDateTime;
                 @Index(name = "idx_booking_user_id", columnList = "user_id"),
                 @Index(name = "idx_booking_room_id", columnList = "room_id"),
                 @Index(name = "idx_booking_status", columnList = "status"),
-                @Index(name = "idx_booking_dates", columnList = "start_date, end_date")
+                @Index(name = "idx_booking_dates", columnList = "start_date, end_date"),
+                @Index(name = "idx_booking_updated", columnList = "updated_at, id")
         },
         uniqueConstraints = {
                 @UniqueConstraint(
@@ -29,8 +30,10 @@ import java.time.OffsetDateTime;
         }
 )
 public class Booking {
+    // id из последовательности (блоки по 50): INSERT откладывается до flush и может идти JDBC-пакетом
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bookings_seq")
+    @SequenceGenerator(name = "bookings_seq", sequenceName = "bookings_seq", allocationSize = 50)
     private Long id;
 
     private String requestId; // ключ идемпотентности запроса
@@ -47,6 +50,9 @@ public class Booking {
 
     private OffsetDateTime createdAt;
 
+    // момент последнего изменения (вставка, обновление сущности, UPDATE статуса): курсор выгрузки изменений
+    private OffsetDateTime updatedAt;
+
     public enum Status { PENDING, CONFIRMED, CANCELLED }
 
     public Long getId() { return id; }
@@ -67,4 +73,12 @@ public class Booking {
     public void setCorrelationId(String correlationId) { this.correlationId = correlationId; }
     public OffsetDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(OffsetDateTime createdAt) { this.createdAt = createdAt; }
+    public OffsetDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(OffsetDateTime updatedAt) { this.updatedAt = updatedAt; }
+
+    @PrePersist
+    @PreUpdate
+    void touch() {
+        updatedAt = OffsetDateTime.now();
+    }
 }
@@ -0,0 +1,73 @@
+package com.mybooking.bookingservice.model;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+/**
+ * JPA-сущность исходящего сообщения (transactional outbox).
+ *
+ * <p>Записывается в той же локальной транзакции, что и изменение статуса бронирования,
+ * и доставляется в hotel-service фоновым relay. Так компенсация (release удержания)
+ * не теряется при сбое процесса между удалёнными шагами саги.</p>
+ */
+
+
+@Entity
+@Table(
+        name = "booking_outbox",
+        indexes = {
+                @Index(name = "idx_outbox_status_due", columnList = "status, due_at"),
+                @Index(name = "idx_outbox_booking_id", columnList = "booking_id")
+        }
+)
+public class OutboxMessage {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private Long bookingId;
+    private String requestId; // requestId удержания в hotel-service (ключ идемпотентности)
+
+    @Enumerated(EnumType.STRING)
+    private Type type;
+
+    @Enumerated(EnumType.STRING)
+    private Status status;
+
+    private int attempts;
+    private Instant dueAt; // не раньше этого момента сообщение отправляется relay
+    private Instant createdAt;
+    private Instant sentAt;
+
+    @Column(length = 512)
+    private String lastError;
+
+    /** Тип операции в hotel-service. */
+    public enum Type { RELEASE_HOLD }
+
+    /**
+     * Статус доставки: PENDING — ожидает отправки, SENT — доставлено,
+     * DISCARDED — больше не требуется (сага завершилась подтверждением).
+     */
+    public enum Status { PENDING, SENT, DISCARDED }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public Long getBookingId() { return bookingId; }
+    public void setBookingId(Long bookingId) { this.bookingId = bookingId; }
+    public String getRequestId() { return requestId; }
+    public void setRequestId(String requestId) { this.requestId = requestId; }
+    public Type getType() { return type; }
+    public void setType(Type type) { this.type = type; }
+    public Status getStatus() { return status; }
+    public void setStatus(Status status) { this.status = status; }
+    public int getAttempts() { return attempts; }
+    public void setAttempts(int attempts) { this.attempts = attempts; }
+    public Instant getDueAt() { return dueAt; }
+    public void setDueAt(Instant dueAt) { this.dueAt = dueAt; }
+    public Instant getCreatedAt() { return createdAt; }
+    public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+    public Instant getSentAt() { return sentAt; }
+    public void setSentAt(Instant sentAt) { this.sentAt = sentAt; }
+    public String getLastError() { return lastError; }
+    public void setLastError(String lastError) { this.lastError = lastError; }
+}
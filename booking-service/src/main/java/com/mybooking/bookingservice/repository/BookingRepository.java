@@ -1,10 +1,18 @@
 package com.mybooking.bookingservice.repository;
 
 import com.mybooking.bookingservice.model.Booking;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 /**
  * Репозиторий бронирований.
  *
@@ -22,4 +30,59 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
      * @return список бронирований
      */
     List<Booking> findByUserId(Long userId);
+
+    /**
+     * Обновляет статус бронирования точечным UPDATE (без чтения сущности); {@code updatedAt} обновляется
+     * вместе со статусом, иначе выгрузка изменений пропустила бы переход.
+     *
+     * @param id     идентификатор бронирования
+     * @param status новый статус
+     * @param now    момент изменения
+     * @return число обновлённых строк
+     */
+    @Modifying
+    @Query("update Booking b set b.status = :status, b.updatedAt = :now where b.id = :id")
+    int updateStatus(@Param("id") Long id, @Param("status") Booking.Status status, @Param("now") OffsetDateTime now);
+
+    /**
+     * Переводит бронирование из PENDING в итоговый статус точечным UPDATE. Завершение саги и компенсация
+     * {@code OutboxRelay} не перезаписывают решения друг друга: побеждает тот, кто первым сменил PENDING.
+     *
+     * @param id     идентификатор бронирования
+     * @param status итоговый статус
+     * @param now    момент изменения
+     * @return 1, если бронирование было PENDING, иначе 0
+     */
+    @Modifying
+    @Query("update Booking b set b.status = :status, b.updatedAt = :now " +
+            "where b.id = :id and b.status = com.mybooking.bookingservice.model.Booking.Status.PENDING")
+    int completePending(@Param("id") Long id, @Param("status") Booking.Status status, @Param("now") OffsetDateTime now);
+
+    /**
+     * Курсор по бронированиям с идентификатором больше заданного (для выгрузки).
+     * Поток нужно читать и закрывать внутри транзакции.
+     *
+     * @param sinceId идентификатор последней выгруженной записи
+     * @return бронирования в порядке id
+     */
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select b from Booking b where b.id > :sinceId order by b.id")
+    Stream<Booking> streamAfter(@Param("sinceId") long sinceId);
+
+    /**
+     * Курсор по бронированиям, созданным или изменённым после позиции {@code (since, afterId)} и до {@code until}
+     * (для выгрузки изменений). Поток нужно читать и закрывать внутри транзакции.
+     *
+     * @param since   {@code updatedAt} последней выгруженной записи
+     * @param afterId идентификатор последней выгруженной записи с тем же {@code updatedAt}
+     * @param until   верхняя граница {@code updatedAt} (не включительно)
+     * @return бронирования в порядке {@code (updatedAt, id)}
+     */
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select b from Booking b " +
+            "where (b.updatedAt > :since or (b.updatedAt = :since and b.id > :afterId)) and b.updatedAt < :until " +
+            "order by b.updatedAt, b.id")
+    Stream<Booking> streamUpdatedAfter(@Param("since") OffsetDateTime since,
+                                       @Param("afterId") long afterId,
+                                       @Param("until") OffsetDateTime until);
 }
@@ -0,0 +1,74 @@
+package com.mybooking.bookingservice.repository;
+
+import com.mybooking.bookingservice.model.OutboxMessage;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+/**
+ * Репозиторий outbox-сообщений booking-service.
+ *
+ * <p>Переходы статусов выполняются точечными UPDATE с условием {@code status = PENDING},
+ * поэтому relay и завершение саги не перезаписывают решения друг друга.</p>
+ */
+
+
+public interface OutboxMessageRepository extends JpaRepository<OutboxMessage, Long> {
+
+    // JPQL-литералы статусов
+    String PENDING = "com.mybooking.bookingservice.model.OutboxMessage.Status.PENDING";
+    String SENT = "com.mybooking.bookingservice.model.OutboxMessage.Status.SENT";
+    String DISCARDED = "com.mybooking.bookingservice.model.OutboxMessage.Status.DISCARDED";
+
+    /**
+     * Возвращает очередную порцию сообщений, срок отправки которых наступил.
+     */
+    @Query("select m from OutboxMessage m " +
+            "where m.status = " + PENDING + " and m.dueAt <= :now order by m.dueAt")
+    List<OutboxMessage> findDue(@Param("now") Instant now, Pageable page);
+
+    /**
+     * Самое старое сообщение с наступившим сроком (для метрики задержки relay).
+     */
+    Optional<OutboxMessage> findFirstByStatusAndDueAtLessThanEqualOrderByDueAtAsc(OutboxMessage.Status status, Instant now);
+
+    long countByStatus(OutboxMessage.Status status);
+
+    /**
+     * Переносит срок отправки ожидающих сообщений бронирования (например, на «сейчас» при отмене).
+     */
+    @Modifying
+    @Query("update OutboxMessage m set m.dueAt = :dueAt " +
+            "where m.bookingId = :bookingId and m.status = " + PENDING)
+    int reschedule(@Param("bookingId") Long bookingId, @Param("dueAt") Instant dueAt);
+
+    /**
+     * Отменяет ожидающие сообщения бронирования (компенсация не нужна).
+     */
+    @Modifying
+    @Query("update OutboxMessage m set m.status = " + DISCARDED + " " +
+            "where m.bookingId = :bookingId and m.status = " + PENDING)
+    int discard(@Param("bookingId") Long bookingId);
+
+    /**
+     * Удаляет сообщения бронирования (бронирование удаляется, не начав сагу).
+     */
+    @Modifying
+    @Query("delete from OutboxMessage m where m.bookingId = :bookingId")
+    int deleteByBookingId(@Param("bookingId") Long bookingId);
+
+    @Modifying
+    @Query("update OutboxMessage m set m.status = " + SENT + ", m.sentAt = :sentAt, m.attempts = m.attempts + 1 " +
+            "where m.id = :id and m.status = " + PENDING)
+    int markSent(@Param("id") Long id, @Param("sentAt") Instant sentAt);
+
+    @Modifying
+    @Query("update OutboxMessage m set m.attempts = m.attempts + 1, m.dueAt = :dueAt, m.lastError = :error " +
+            "where m.id = :id and m.status = " + PENDING)
+    int markFailed(@Param("id") Long id, @Param("dueAt") Instant dueAt, @Param("error") String error);
+}
@@ -32,6 +32,9 @@ import java.util.Map;
 @Service
 public class AuthService {
 
+    private static final String SERVICE_SUBJECT = "booking-service";
+    private static final String SERVICE_SCOPE = "SERVICE";
+
     private final UserRepository userRepository;
     private final SecretKey key;
     private final long tokenTtlSeconds;
@@ -134,6 +137,26 @@ public class AuthService {
                 .compact();
     }
 
+    /**
+     * Выпускает сервисный JWT booking-service для фоновых вызовов hotel-service
+     * (outbox relay), выполняемых вне пользовательского запроса.
+     *
+     * <p>subject = {@code booking-service}, scope = {@code SERVICE}.</p>
+     *
+     * @return подписанный JWT
+     */
+    public String issueServiceToken() {
+        Instant now = Instant.now();
+
+        return Jwts.builder()
+                .setSubject(SERVICE_SUBJECT)
+                .addClaims(Map.of("scope", SERVICE_SCOPE))
+                .setIssuedAt(Date.from(now))
+                .setExpiration(Date.from(now.plusSeconds(tokenTtlSeconds)))
+                .signWith(key)
+                .compact();
+    }
+
     private static void validateCredentials(String username, String password) {
         if (username == null || username.isBlank()) {
             throw new IllegalArgumentException("Username is required");
@@ -0,0 +1,110 @@
+package com.mybooking.bookingservice.service;
+
+import com.mybooking.bookingservice.model.Booking;
+import com.mybooking.bookingservice.repository.BookingRepository;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Потоковая выгрузка бронирований для внешних систем (хранилище данных).
+ *
+ * <p>Бронирования читаются курсором БД в read-only транзакции и сразу передаются получателю;
+ * каждая сущность после записи отсоединяется от persistence context, поэтому потребление памяти
+ * не зависит от размера таблицы.</p>
+ *
+ * <p>Инкрементальная выгрузка изменений — по курсору {@code (updatedAt, id)}: {@code updatedAt} меняется
+ * при каждом изменении бронирования, в том числе при смене статуса, поэтому следующая выгрузка забирает
+ * и новые, и изменённые строки. Выгружаются только строки старше {@code booking.export.settle-ms}: транзакция,
+ * ещё не зафиксированная к моменту выгрузки, может записать {@code updatedAt} меньше уже выданного курсора.
+ * Выгрузка по идентификатору забирает только новые строки (первичная загрузка).</p>
+ */
+@Service
+public class BookingExportService {
+
+    private final BookingRepository bookingRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate readOnlyTransaction;
+    private final long settleMs;
+
+    public BookingExportService(
+            BookingRepository bookingRepository,
+            EntityManager entityManager,
+            PlatformTransactionManager transactionManager,
+            @Value("${booking.export.settle-ms:5000}") long settleMs
+    ) {
+        this.bookingRepository = bookingRepository;
+        this.entityManager = entityManager;
+        this.settleMs = settleMs;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * @param sinceId идентификатор последней выгруженной записи
+     * @param writer  получатель строк
+     * @return число выгруженных бронирований
+     */
+    public long exportAfterId(long sinceId, RowWriter writer) throws IOException {
+        return export(() -> bookingRepository.streamAfter(sinceId), writer);
+    }
+
+    /**
+     * @return верхняя граница {@code updatedAt} выгрузки изменений, начатой сейчас; она же — {@code since}
+     * следующей выгрузки
+     */
+    public OffsetDateTime changesUntil() {
+        return OffsetDateTime.now().minus(Duration.ofMillis(settleMs)).truncatedTo(ChronoUnit.MICROS);
+    }
+
+    /**
+     * @param since   {@code updatedAt} курсора (последней выгруженной записи или предыдущего {@link #changesUntil})
+     * @param afterId идентификатор последней выгруженной записи с этим {@code updatedAt}, иначе 0
+     * @param until   верхняя граница {@code updatedAt}, полученная из {@link #changesUntil}
+     * @param writer  получатель строк
+     * @return число выгруженных бронирований
+     */
+    public long exportUpdatedAfter(OffsetDateTime since, long afterId, OffsetDateTime until, RowWriter writer)
+            throws IOException {
+        return export(() -> bookingRepository.streamUpdatedAfter(since, afterId, until), writer);
+    }
+
+    private long export(Supplier<Stream<Booking>> query, RowWriter writer) throws IOException {
+        try {
+            Long rows = readOnlyTransaction.execute(status -> {
+                long count = 0;
+                try (Stream<Booking> stream = query.get()) {
+                    for (Booking booking : (Iterable<Booking>) stream::iterator) {
+                        writer.write(booking);
+                        entityManager.detach(booking);
+                        count++;
+                    }
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+                return count;
+            });
+            return rows == null ? 0 : rows;
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    /**
+     * Получатель строк выгрузки.
+     */
+    @FunctionalInterface
+    public interface RowWriter {
+        void write(Booking booking) throws IOException;
+    }
+}
@@ -1,23 +1,26 @@
 package com.mybooking.bookingservice.service;
 
-import com.mybooking.bookingservice.logging.RequestIdMdcFilter;
+import com.mybooking.bookingservice.http.HotelServiceClient;
+import com.mybooking.bookingservice.http.HotelUnavailableException;
 import com.mybooking.bookingservice.model.Booking;
+import com.mybooking.bookingservice.model.OutboxMessage;
 import com.mybooking.bookingservice.repository.BookingRepository;
-import com.mybooking.bookingservice.http.RequestIdRestClientInterceptor;
+import com.mybooking.bookingservice.repository.OutboxMessageRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.client.RestClient;
-import org.springframework.web.client.RestClientException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
-import java.util.Arrays;
-import java.util.Comparator;
+import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.UUID;
 
@@ -32,7 +35,8 @@ import java.util.UUID;
  * </ul>
  * </p>
  *
- * <p>Реализация синхронная (MVC-стек). Для обращения к hotel-service используется {@link RestClient}.</p>
+ * <p>Реализация на MVC-стеке: сага выполняется в потоке запроса либо, в асинхронном режиме,
+ * в ограниченном пуле {@code bookingSagaExecutor}. Вызовы hotel-service выполняет {@link HotelServiceClient}.</p>
  */
 @Service
 public class BookingService {
@@ -40,41 +44,45 @@ public class BookingService {
     private static final Logger log = LoggerFactory.getLogger(BookingService.class);
 
     private final BookingRepository bookingRepository;
-    private final RestClient restClient;
-
-    private final int retries;
-    private final Duration timeout;
+    private final OutboxMessageRepository outboxRepository;
+    private final HotelServiceClient hotelClient;
+    private final TransactionTemplate transactionTemplate;
+    private final TaskExecutor sagaExecutor;
+    private final BookingStatusNotifier statusNotifier;
+    private final RoomSuggestionCache suggestionCache;
+    private final Duration compensationDelay;
 
     /**
-     * Создаёт сервис бронирований и настраивает HTTP-клиент для вызовов hotel-service.
-     *
-     * <p>Таймаут применяется как connect/read timeout на уровне HTTP request factory.</p>
+     * Создаёт сервис бронирований.
      *
      * @param bookingRepository репозиторий бронирований
-     * @param hotelBaseUrl базовый URL hotel-service (например, http://localhost:8081)
-     * @param timeoutMs таймаут HTTP-вызовов к hotel-service в миллисекундах
-     * @param retries количество повторов при временных ошибках
+     * @param outboxRepository репозиторий outbox-сообщений (компенсация саги)
+     * @param hotelClient HTTP-клиент hotel-service
+     * @param transactionManager менеджер транзакций для коротких локальных транзакций саги
+     * @param sagaExecutor ограниченный пул для асинхронного режима
+     * @param statusNotifier рассылка итоговых статусов подписчикам SSE
+     * @param suggestionCache кэш подсказок по комнатам
+     * @param compensationDelayMs через сколько relay выполнит release, если сага не завершилась
+     *                            (например, процесс упал между hold и записью статуса)
      */
     public BookingService(
             BookingRepository bookingRepository,
-            @Value("${hotel.base-url}") String hotelBaseUrl,
-            @Value("${hotel.timeout-ms}") int timeoutMs,
-            @Value("${hotel.retries}") int retries
+            OutboxMessageRepository outboxRepository,
+            HotelServiceClient hotelClient,
+            PlatformTransactionManager transactionManager,
+            @Qualifier("bookingSagaExecutor") TaskExecutor sagaExecutor,
+            BookingStatusNotifier statusNotifier,
+            RoomSuggestionCache suggestionCache,
+            @Value("${booking.outbox.compensation-delay-ms:120000}") long compensationDelayMs
     ) {
         this.bookingRepository = bookingRepository;
-        this.retries = retries;
-        this.timeout = Duration.ofMillis(timeoutMs);
-
-        // Настройка таймаутов для синхронного HTTP-клиента
-        SimpleClientHttpRequestFactory rf = new SimpleClientHttpRequestFactory();
-        rf.setConnectTimeout(timeoutMs);
-        rf.setReadTimeout(timeoutMs);
-
-        this.restClient = RestClient.builder()
-                .baseUrl(hotelBaseUrl)
-                .requestFactory(rf)
-                .requestInterceptor(new RequestIdRestClientInterceptor())
-                .build();
+        this.outboxRepository = outboxRepository;
+        this.hotelClient = hotelClient;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.sagaExecutor = sagaExecutor;
+        this.statusNotifier = statusNotifier;
+        this.suggestionCache = suggestionCache;
+        this.compensationDelay = Duration.ofMillis(compensationDelayMs);
     }
 
     /**
@@ -82,6 +90,8 @@ public class BookingService {
      *
      * <p>Контракт с Hotel Service соответствует endpoints вида <code>/api/*</code>:
      * <ul>
+     *   <li>POST <code>/api/rooms/{roomId}/reserve?requestId=.&startDate=.&endDate=.</code> — hold + confirm
+     *       за один вызов, если hotel-service объявляет поддержку в <code>/api/rooms/capabilities</code></li>
      *   <li>POST <code>/api/rooms/{roomId}/hold?requestId=.&startDate=.&endDate=.</code></li>
      *   <li>POST <code>/api/rooms/confirm?requestId=.</code></li>
      *   <li>POST <code>/api/rooms/release?requestId=.</code> (компенсация)</li>
@@ -96,7 +106,12 @@ public class BookingService {
      *   <li>Confirm в hotel-service</li>
      *   <li>Перевод бронирования в CONFIRMED</li>
      * </ol>
-     * При ошибке — best-effort release и перевод в CANCELLED.</p>
+     * При ошибке — перевод в CANCELLED; release выполняет {@link OutboxRelay} по outbox-сообщению,
+     * записанному в той же транзакции, что и статус (гарантированная компенсация вне критического пути).</p>
+     *
+     * <p>Метод намеренно не транзакционный: запись PENDING и итоговый статус фиксируются
+     * короткими локальными транзакциями, а HTTP-вызовы hotel-service (с таймаутами и повторами)
+     * выполняются между ними без удержания JDBC-соединения.</p>
      *
      * @param userId id пользователя
      * @param roomId id комнаты
@@ -104,67 +119,182 @@ public class BookingService {
      * @param end дата окончания
      * @param requestId requestId для идемпотентности (обязателен)
      * @return созданное (или ранее созданное) бронирование
+     * @throws HotelUnavailableException circuit breaker первого шага открыт или bulkhead заполнен;
+     *                                   бронирование не создаётся
      */
-    @Transactional
     public Booking createBooking(Long userId, Long roomId, LocalDate start, LocalDate end, String requestId) {
-        // traceId для логов и корреляции — это X-Request-Id (идемпотентность тоже по нему)
-        final String traceId = requestId;
+        PendingBooking pending = persistPending(userId, roomId, start, end, requestId);
+        Booking booking = pending.booking();
+        if (!pending.created()) {
+            return booking;
+        }
 
-        String correlationId = UUID.randomUUID().toString();
+        booking.setStatus(runSaga(booking));
+        return booking;
+    }
 
+    /**
+     * Асинхронный вариант {@link #createBooking}: фиксирует PENDING и возвращает управление сразу,
+     * а шаги hold/confirm выполняются в ограниченном пуле {@code bookingSagaExecutor}.
+     *
+     * <p>Итоговый статус доступен через {@code GET /api/bookings/{id}} или SSE-подписку
+     * ({@link BookingStatusNotifier}). Повтор запроса с тем же requestId возвращает существующую запись
+     * и не запускает сагу повторно.</p>
+     *
+     * @return бронирование в статусе PENDING (или ранее созданное бронирование)
+     * @throws TaskRejectedException если пул саг и его очередь заполнены; запись PENDING при этом удаляется,
+     *                               и повтор с тем же requestId после Retry-After создаёт бронирование заново
+     * @throws HotelUnavailableException circuit breaker первого шага открыт или bulkhead заполнен
+     */
+    public Booking createBookingAsync(Long userId, Long roomId, LocalDate start, LocalDate end, String requestId) {
+        PendingBooking pending = persistPending(userId, roomId, start, end, requestId);
+        Booking booking = pending.booking();
+        if (!pending.created()) {
+            return booking;
+        }
+
+        try {
+            sagaExecutor.execute(() -> runSaga(booking));
+        } catch (TaskRejectedException rejected) {
+            log.warn("[{}] saga executor saturated, booking dropped bookingId={}", requestId, booking.getId());
+            // Удалённых вызовов не было — компенсация не нужна. Запись удаляется, а не отменяется:
+            // иначе идемпотентность вернула бы повтору с тем же requestId отменённое бронирование.
+            transactionTemplate.executeWithoutResult(status -> {
+                outboxRepository.deleteByBookingId(booking.getId());
+                bookingRepository.deleteById(booking.getId());
+            });
+            throw rejected;
+        }
+        return booking;
+    }
+
+    /**
+     * Проверяет идемпотентность и фиксирует PENDING отдельной короткой транзакцией.
+     */
+    private PendingBooking persistPending(Long userId, Long roomId, LocalDate start, LocalDate end, String requestId) {
         // Идемпотентность: если запрос с таким requestId уже обработан — возвращаем существующую запись
         Booking existing = bookingRepository.findByRequestId(requestId).orElse(null);
         if (existing != null) {
-            return existing;
+            return new PendingBooking(existing, false);
         }
+        // hotel-service деградировал (circuit breaker открыт или bulkhead заполнен): быстрый отказ 503
+        // без записи бронирования, повтор с тем же requestId после Retry-After выполнит сагу
+        hotelClient.checkAvailable();
 
-        Booking booking = new Booking();
-        booking.setRequestId(requestId);
-        booking.setUserId(userId);
-        booking.setRoomId(roomId);
-        booking.setStartDate(start);
-        booking.setEndDate(end);
-        booking.setStatus(Booking.Status.PENDING);
-        booking.setCorrelationId(correlationId);
-        booking.setCreatedAt(java.time.OffsetDateTime.now());
-        booking = bookingRepository.save(booking);
+        Booking booking;
+        try {
+            // Локальная транзакция №1: фиксируем PENDING вместе с отложенной компенсацией
+            // и сразу отпускаем соединение. Если процесс упадёт до записи итогового статуса,
+            // OutboxRelay освободит возможное удержание по истечении compensationDelay.
+            booking = transactionTemplate.execute(status -> {
+                Booking saved = bookingRepository.save(newPendingBooking(userId, roomId, start, end, requestId));
+                outboxRepository.save(newReleaseMessage(saved, Instant.now().plus(compensationDelay)));
+                return saved;
+            });
+        } catch (DataIntegrityViolationException duplicate) {
+            // Параллельный запрос с тем же requestId успел записать PENDING первым
+            return new PendingBooking(bookingRepository.findByRequestId(requestId).orElseThrow(() -> duplicate), false);
+        }
 
-        // Требуемое событие: создание PENDING
+        // Требуемое событие: создание PENDING (traceId для логов — это X-Request-Id)
         log.info("[{}] booking status=PENDING bookingId={} roomId={} start={} end={}",
-                traceId, booking.getId(), roomId, start, end);
-
-        try {
-            // Hold
-            log.info("[{}] call hotel hold roomId={} requestId={}", traceId, roomId, requestId);
-            holdRoom(roomId, requestId, start, end);
+                requestId, booking.getId(), roomId, start, end);
+        return new PendingBooking(booking, true);
+    }
 
-            // Confirm availability
-            log.info("[{}] call hotel confirm-availability requestId={}", traceId, requestId);
-            confirmHold(requestId);
+    /**
+     * Выполняет удалённые шаги саги и фиксирует итоговый статус.
+     *
+     * <p>Бронирование только читается: статус записывается точечным UPDATE, поэтому экземпляр,
+     * уже отданный клиенту асинхронного режима, не меняется из другого потока.</p>
+     *
+     * @return итоговый статус (CONFIRMED или CANCELLED)
+     */
+    private Booking.Status runSaga(Booking booking) {
+        final String traceId = booking.getRequestId();
+        final String requestId = booking.getRequestId();
+        final Long roomId = booking.getRoomId();
 
-            booking.setStatus(Booking.Status.CONFIRMED);
-            bookingRepository.save(booking);
+        // Удалённые шаги саги выполняются вне транзакции: медленный hotel-service не держит соединение пула
+        Booking.Status finalStatus;
+        try {
+            if (hotelClient.reserveSupported()) {
+                // Hold + confirm за один round trip
+                log.info("[{}] call hotel reserve roomId={} requestId={}", traceId, roomId, requestId);
+                hotelClient.reserve(roomId, requestId, booking.getStartDate(), booking.getEndDate());
+            } else {
+                // Hold
+                log.info("[{}] call hotel hold roomId={} requestId={}", traceId, roomId, requestId);
+                hotelClient.hold(roomId, requestId, booking.getStartDate(), booking.getEndDate());
+
+                // Confirm availability
+                log.info("[{}] call hotel confirm-availability requestId={}", traceId, requestId);
+                hotelClient.confirm(requestId);
+            }
 
-            // Требуемое событие: CONFIRMED
-            log.info("[{}] booking status=CONFIRMED bookingId={}", traceId, booking.getId());
+            finalStatus = Booking.Status.CONFIRMED;
         } catch (Exception e) {
             log.warn("[{}] booking flow failed: bookingId={}, reason={}", traceId, booking.getId(), e.toString());
+            finalStatus = Booking.Status.CANCELLED;
+        }
 
-            // Компенсация (release) best-effort
-            try {
-                log.info("[{}] call hotel release requestId={}", traceId, requestId);
-                releaseHold(requestId);
-            } catch (Exception ignored) {
-                // best-effort: не маскируем исходную причину
+        // Локальная транзакция №2: итоговый статус и судьба компенсации фиксируются атомарно.
+        // CONFIRMED — release не нужен; CANCELLED — release отправит OutboxRelay сразу, вне критического пути.
+        Booking.Status outcome = finalStatus;
+        boolean completed = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            if (bookingRepository.completePending(booking.getId(), outcome, OffsetDateTime.now()) == 0) {
+                // Сага дольше compensationDelay: OutboxRelay уже освободил удержание и отменил бронирование.
+                // Удержание, подтверждённое после этого, освобождается новым сообщением.
+                if (outcome == Booking.Status.CONFIRMED) {
+                    outboxRepository.save(newReleaseMessage(booking, Instant.now()));
+                }
+                return false;
+            }
+            if (outcome == Booking.Status.CONFIRMED) {
+                outboxRepository.discard(booking.getId());
+            } else {
+                outboxRepository.reschedule(booking.getId(), Instant.now());
             }
+            return true;
+        }));
+        if (!completed) {
+            log.warn("[{}] booking already compensated, saga outcome {} dropped bookingId={}",
+                    traceId, finalStatus, booking.getId());
+            finalStatus = Booking.Status.CANCELLED;
+        }
 
-            booking.setStatus(Booking.Status.CANCELLED);
-            bookingRepository.save(booking);
+        // Требуемое событие: CONFIRMED / CANCELLED
+        log.info("[{}] booking status={} bookingId={}", traceId, finalStatus, booking.getId());
 
-            // Требуемое событие: CANCELLED
-            log.info("[{}] booking status=CANCELLED bookingId={}", traceId, booking.getId());
+        if (statusNotifier.hasSubscribers(booking.getId())) {
+            bookingRepository.findById(booking.getId()).ifPresent(statusNotifier::publish);
         }
+        return finalStatus;
+    }
 
+    private record PendingBooking(Booking booking, boolean created) {}
+
+    private static OutboxMessage newReleaseMessage(Booking booking, Instant dueAt) {
+        OutboxMessage message = new OutboxMessage();
+        message.setBookingId(booking.getId());
+        message.setRequestId(booking.getRequestId());
+        message.setType(OutboxMessage.Type.RELEASE_HOLD);
+        message.setStatus(OutboxMessage.Status.PENDING);
+        message.setDueAt(dueAt);
+        message.setCreatedAt(Instant.now());
+        return message;
+    }
+
+    private static Booking newPendingBooking(Long userId, Long roomId, LocalDate start, LocalDate end, String requestId) {
+        Booking booking = new Booking();
+        booking.setRequestId(requestId);
+        booking.setUserId(userId);
+        booking.setRoomId(roomId);
+        booking.setStartDate(start);
+        booking.setEndDate(end);
+        booking.setStatus(Booking.Status.PENDING);
+        booking.setCorrelationId(UUID.randomUUID().toString());
+        booking.setCreatedAt(java.time.OffsetDateTime.now());
         return booking;
     }
 
@@ -183,131 +313,11 @@ public class BookingService {
      *   <li>по убыванию timesBooked</li>
      *   <li>при равенстве — по возрастанию id</li>
      * </ul>
-     * </p>
+     * Список одинаков для всех пользователей и отдаётся из {@link RoomSuggestionCache}.</p>
      *
      * @return отсортированный список комнат
      */
     public List<RoomView> getRoomSuggestions() {
-        RoomView[] rooms = executeWithRetry(() ->
-                        restClient.get()
-                                .uri("/api/rooms")
-                                .retrieve()
-                                .body(RoomView[].class),
-                "getRoomSuggestions"
-        );
-
-        if (rooms == null || rooms.length == 0) {
-            return List.of();
-        }
-
-        return Arrays.stream(rooms)
-                .sorted(Comparator.comparingLong(RoomView::timesBooked).reversed()
-                        .thenComparing(RoomView::id))
-                .toList();
-    }
-
-    private void holdRoom(Long roomId, String requestId, LocalDate start, LocalDate end) {
-        executeWithRetry(() -> {
-            restClient.post()
-                    .uri(uriBuilder -> uriBuilder
-                            .path("/api/rooms/{roomId}/hold")
-                            .queryParam("requestId", requestId)
-                            .queryParam("startDate", start)
-                            .queryParam("endDate", end)
-                            .build(roomId))
-                    .retrieve()
-                    .toBodilessEntity();
-            return null;
-        }, "holdRoom");
-    }
-
-    private void confirmHold(String requestId) {
-        executeWithRetry(() -> {
-            restClient.post()
-                    .uri(uriBuilder -> uriBuilder
-                            .path("/api/rooms/confirm")
-                            .queryParam("requestId", requestId)
-                            .build())
-                    .retrieve()
-                    .toBodilessEntity();
-            return null;
-        }, "confirmHold");
-    }
-
-    private void releaseHold(String requestId) {
-        executeWithRetry(() -> {
-            restClient.post()
-                    .uri(uriBuilder -> uriBuilder
-                            .path("/api/rooms/release")
-                            .queryParam("requestId", requestId)
-                            .build())
-                    .retrieve()
-                    .toBodilessEntity();
-            return null;
-        }, "releaseHold");
-    }
-
-    /**
-     * Выполняет операцию с повтором при временных ошибках.
-     *
-     * <p>Ретраи применяются к {@link RestClientException}. Между попытками используется
-     * простой backoff (300ms, затем линейное увеличение).</p>
-     *
-     * @param operation операция
-     * @param opName имя операции для логирования
-     * @param <T> тип результата
-     * @return результат операции
-     */
-    private <T> T executeWithRetry(Operation<T> operation, String opName) {
-        RestClientException last = null;
-
-        for (int attempt = 1; attempt <= Math.max(1, retries); attempt++) {
-            try {
-                return operation.run();
-            } catch (RestClientException ex) {
-                last = ex;
-
-                // Спец-кейс: releaseHold + 404 = нормальный сценарий (hold мог не создаться).
-                if ("releaseHold".equals(opName)
-                        && ex instanceof org.springframework.web.client.HttpClientErrorException.NotFound) {
-                    log.debug("releaseHold skipped: hold not found (requestId={})",
-                            MDC.get(RequestIdMdcFilter.MDC_TRACE_ID));
-                    return null;
-                }
-
-                log.warn("Ошибка вызова hotel-service в операции {} (попытка {}/{}): {}",
-                        opName, attempt, retries, ex.toString());
-
-                // если попытки закончились — пробрасываем дальше
-                if (attempt >= retries) {
-                    throw ex;
-                }
-
-                // простой backoff, чтобы не долбить сервис в лоб
-                sleepBackoff(attempt);
-            }
-        }
-
-        // На практике сюда не попадём, но на всякий случай:
-        if (last != null) {
-            throw last;
-        }
-        return null;
-    }
-
-
-    private void sleepBackoff(int attempt) {
-        long baseMs = 300L;
-        long delayMs = baseMs * attempt;
-        try {
-            Thread.sleep(delayMs);
-        } catch (InterruptedException ie) {
-            Thread.currentThread().interrupt();
-        }
-    }
-
-    @FunctionalInterface
-    private interface Operation<T> {
-        T run();
+        return suggestionCache.get();
     }
 }
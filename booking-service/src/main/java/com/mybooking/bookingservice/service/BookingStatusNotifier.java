@@ -0,0 +1,108 @@
+package com.mybooking.bookingservice.service;
+
+import com.mybooking.bookingservice.model.Booking;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+/**
+ * Рассылка итогового статуса бронирования подписчикам SSE.
+ *
+ * <p>Подписка живёт до перехода бронирования в CONFIRMED/CANCELLED (одно событие {@code status})
+ * или до таймаута {@code booking.async.sse-timeout-ms}. Состояние хранится в памяти узла:
+ * клиент, подключившийся к другому экземпляру, получает статус при подписке или через
+ * {@code GET /api/bookings/{id}}.</p>
+ */
+@Component
+public class BookingStatusNotifier {
+
+    private static final Logger log = LoggerFactory.getLogger(BookingStatusNotifier.class);
+
+    static final String EVENT_NAME = "status";
+
+    private final Map<Long, List<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+    private final long timeoutMs;
+
+    public BookingStatusNotifier(@Value("${booking.async.sse-timeout-ms:60000}") long timeoutMs) {
+        this.timeoutMs = timeoutMs;
+    }
+
+    /**
+     * Подписывает клиента на смену статуса бронирования.
+     *
+     * <p>Если бронирование уже в итоговом статусе, событие отправляется сразу и поток закрывается.
+     * Текущее состояние проверяется после регистрации, поэтому переход, случившийся между чтением
+     * и подпиской, не теряется.</p>
+     *
+     * @param booking текущее состояние бронирования
+     * @param reload  повторное чтение бронирования после регистрации подписки
+     * @return SSE-поток
+     */
+    public SseEmitter subscribe(Booking booking, Supplier<Booking> reload) {
+        Long bookingId = booking.getId();
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+
+        List<SseEmitter> list = subscribers.computeIfAbsent(bookingId, id -> new CopyOnWriteArrayList<>());
+        list.add(emitter);
+        emitter.onCompletion(() -> remove(bookingId, emitter));
+        emitter.onTimeout(() -> remove(bookingId, emitter));
+        emitter.onError(e -> remove(bookingId, emitter));
+
+        Booking current = reload.get();
+        if (current != null && current.getStatus() != Booking.Status.PENDING) {
+            remove(bookingId, emitter);
+            send(emitter, current);
+        }
+        return emitter;
+    }
+
+    /**
+     * @return true, если на бронирование есть активные подписки
+     */
+    public boolean hasSubscribers(Long bookingId) {
+        List<SseEmitter> list = subscribers.get(bookingId);
+        return list != null && !list.isEmpty();
+    }
+
+    /**
+     * Отправляет итоговый статус всем подписчикам и закрывает их потоки.
+     *
+     * @param booking бронирование в итоговом статусе
+     */
+    public void publish(Booking booking) {
+        List<SseEmitter> list = subscribers.remove(booking.getId());
+        if (list == null) {
+            return;
+        }
+        for (SseEmitter emitter : list) {
+            send(emitter, booking);
+        }
+    }
+
+    private void send(SseEmitter emitter, Booking booking) {
+        try {
+            emitter.send(SseEmitter.event().name(EVENT_NAME).data(booking));
+            emitter.complete();
+        } catch (IOException | IllegalStateException e) {
+            // клиент отключился или поток уже закрыт
+            log.debug("SSE send failed for bookingId={}: {}", booking.getId(), e.toString());
+            emitter.completeWithError(e);
+        }
+    }
+
+    private void remove(Long bookingId, SseEmitter emitter) {
+        subscribers.computeIfPresent(bookingId, (id, list) -> {
+            list.remove(emitter);
+            return list.isEmpty() ? null : list;
+        });
+    }
+}
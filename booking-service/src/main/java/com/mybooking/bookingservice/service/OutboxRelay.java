@@ -0,0 +1,185 @@
+package com.mybooking.bookingservice.service;
+
+import com.mybooking.bookingservice.http.HotelServiceClient;
+import com.mybooking.bookingservice.http.HotelUnavailableException;
+import com.mybooking.bookingservice.logging.RequestIdMdcFilter;
+import com.mybooking.bookingservice.model.Booking;
+import com.mybooking.bookingservice.model.OutboxMessage;
+import com.mybooking.bookingservice.repository.BookingRepository;
+import com.mybooking.bookingservice.repository.OutboxMessageRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClientException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Фоновый relay outbox-сообщений booking-service в hotel-service.
+ *
+ * <p>Каждые {@code booking.outbox.poll-interval-ms} выбирает порцию сообщений с наступившим сроком
+ * ({@code booking.outbox.batch-size}) и выполняет release удержания по requestId под сервисным JWT.
+ * Это компенсация: hotel-service освобождает удержание этого requestId и в статусе CONFIRMED (сага могла
+ * упасть после reserve, не записав статус). Release идемпотентен в hotel-service, поэтому повторная доставка
+ * безопасна:
+ * <ul>
+ *   <li>2xx и 404 (удержание не создавалось) — сообщение SENT, а бронирование, оставшееся PENDING, в той же
+ *       транзакции переводится в CANCELLED;</li>
+ *   <li>прочие ошибки — повтор с экспоненциальной паузой до {@code booking.outbox.max-backoff-ms}.</li>
+ * </ul>
+ * </p>
+ *
+ * <p>Метрики: {@code booking.outbox.pending} (ожидающие сообщения), {@code booking.outbox.lag.seconds}
+ * (возраст самого старого сообщения с наступившим сроком), {@code booking.outbox.relayed{result}}.</p>
+ */
+@Component
+public class OutboxRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private final OutboxMessageRepository outboxRepository;
+    private final BookingRepository bookingRepository;
+    private final BookingStatusNotifier statusNotifier;
+    private final HotelServiceClient hotelClient;
+    private final AuthService authService;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final int batchSize;
+    private final long baseBackoffMs;
+    private final long maxBackoffMs;
+
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong lagSeconds = new AtomicLong();
+
+    public OutboxRelay(
+            OutboxMessageRepository outboxRepository,
+            BookingRepository bookingRepository,
+            BookingStatusNotifier statusNotifier,
+            HotelServiceClient hotelClient,
+            AuthService authService,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${booking.outbox.batch-size:100}") int batchSize,
+            @Value("${booking.outbox.base-backoff-ms:1000}") long baseBackoffMs,
+            @Value("${booking.outbox.max-backoff-ms:60000}") long maxBackoffMs
+    ) {
+        this.outboxRepository = outboxRepository;
+        this.bookingRepository = bookingRepository;
+        this.statusNotifier = statusNotifier;
+        this.hotelClient = hotelClient;
+        this.authService = authService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.batchSize = batchSize;
+        this.baseBackoffMs = baseBackoffMs;
+        this.maxBackoffMs = Math.max(baseBackoffMs, maxBackoffMs);
+
+        Gauge.builder("booking.outbox.pending", pending, AtomicLong::get)
+                .description("Outbox-сообщения, ожидающие отправки")
+                .register(meterRegistry);
+        Gauge.builder("booking.outbox.lag.seconds", lagSeconds, AtomicLong::get)
+                .description("Возраст самого старого outbox-сообщения с наступившим сроком")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Отправляет сообщения с наступившим сроком, порциями до исчерпания.
+     *
+     * @return число обработанных сообщений
+     */
+    @Scheduled(fixedDelayString = "${booking.outbox.poll-interval-ms:500}")
+    public int relayDue() {
+        int processed = 0;
+        List<OutboxMessage> batch;
+        do {
+            batch = outboxRepository.findDue(Instant.now(), PageRequest.of(0, batchSize));
+            if (batch.isEmpty()) {
+                break;
+            }
+            String token = authService.issueServiceToken();
+            for (OutboxMessage message : batch) {
+                deliver(message, token);
+            }
+            processed += batch.size();
+        } while (batch.size() == batchSize);
+
+        updateGauges();
+        return processed;
+    }
+
+    private void deliver(OutboxMessage message, String token) {
+        String requestId = message.getRequestId();
+        MDC.put(RequestIdMdcFilter.MDC_TRACE_ID, requestId);
+        try {
+            hotelClient.release(requestId, token);
+            markSent(message, "sent");
+            log.info("[{}] outbox release delivered bookingId={}", requestId, message.getBookingId());
+        } catch (HttpClientErrorException.NotFound notFound) {
+            // удержание не создавалось — компенсировать нечего
+            markSent(message, "not_found");
+        } catch (RestClientException | HotelUnavailableException ex) {
+            Instant next = Instant.now().plus(backoff(message.getAttempts() + 1));
+            String error = ex.toString();
+            transactionTemplate.executeWithoutResult(status -> outboxRepository.markFailed(
+                    message.getId(), next, error.length() > 512 ? error.substring(0, 512) : error));
+            record("retry");
+            log.warn("[{}] outbox release failed (attempt {}), next at {}: {}",
+                    requestId, message.getAttempts() + 1, next, error);
+        } finally {
+            MDC.remove(RequestIdMdcFilter.MDC_TRACE_ID);
+        }
+    }
+
+    private void markSent(OutboxMessage message, String result) {
+        // удержание освобождено: бронирование, которое сага не довела до итогового статуса, отменяется атомарно
+        boolean cancelled = Boolean.TRUE.equals(transactionTemplate.execute(status ->
+                outboxRepository.markSent(message.getId(), Instant.now()) == 1
+                        && bookingRepository.completePending(
+                                message.getBookingId(), Booking.Status.CANCELLED, OffsetDateTime.now()) == 1));
+        record(result);
+        if (cancelled) {
+            log.info("[{}] booking status=CANCELLED bookingId={} (compensated)",
+                    message.getRequestId(), message.getBookingId());
+            if (statusNotifier.hasSubscribers(message.getBookingId())) {
+                bookingRepository.findById(message.getBookingId()).ifPresent(statusNotifier::publish);
+            }
+        }
+    }
+
+    private Duration backoff(int attempt) {
+        int shift = Math.min(Math.max(0, attempt - 1), 30);
+        return Duration.ofMillis(Math.min(maxBackoffMs, baseBackoffMs << shift));
+    }
+
+    private void updateGauges() {
+        Instant now = Instant.now();
+        pending.set(outboxRepository.countByStatus(OutboxMessage.Status.PENDING));
+        lagSeconds.set(outboxRepository
+                .findFirstByStatusAndDueAtLessThanEqualOrderByDueAtAsc(OutboxMessage.Status.PENDING, now)
+                .map(m -> Duration.between(m.getDueAt(), now).toSeconds())
+                .orElse(0L));
+    }
+
+    private void record(String result) {
+        Counter.builder("booking.outbox.relayed")
+                .description("Результаты доставки outbox-сообщений")
+                .tag("type", OutboxMessage.Type.RELEASE_HOLD.name())
+                .tag("result", result)
+                .register(meterRegistry)
+                .increment();
+    }
+}
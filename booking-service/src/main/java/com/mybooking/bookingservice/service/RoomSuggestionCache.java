@@ -0,0 +1,198 @@
+package com.mybooking.bookingservice.service;
+
+import com.mybooking.bookingservice.http.HotelServiceClient;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Кэш подсказок по комнатам (stale-while-revalidate).
+ *
+ * <p>Подсказки одинаковы для всех пользователей, поэтому загружаются из hotel-service под сервисным JWT
+ * ({@code GET /api/rooms/top}, первые {@code booking.suggestions.limit} номеров в порядке популярности)
+ * и хранятся одним значением:
+ * <ul>
+ *   <li>моложе {@code booking.suggestions.ttl-ms} — отдаются из кэша ({@code hit});</li>
+ *   <li>старше TTL, но в пределах {@code booking.suggestions.max-stale-ms} сверх него — отдаются из кэша
+ *       ({@code stale}), а обновление выполняется в фоне;</li>
+ *   <li>кэш пуст или значение старше — запрос ждёт загрузки ({@code miss}).</li>
+ * </ul>
+ * Одновременно выполняется не более одной загрузки (single-flight): запросы, пришедшие во время загрузки,
+ * ждут её результата. Если загрузка не удалась, отдаётся последнее успешно загруженное значение
+ * ({@code stale_on_error}), каким бы старым оно ни было; после неудачной фоновой загрузки следующая
+ * выполняется не раньше чем через {@code booking.suggestions.failure-backoff-ms}.</p>
+ *
+ * <p>Метрики: {@code booking.suggestions.cache{result}}, {@code booking.suggestions.refresh{result}}
+ * и {@code booking.suggestions.age.seconds} (возраст отдаваемого значения).</p>
+ */
+@Component
+public class RoomSuggestionCache implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(RoomSuggestionCache.class);
+
+    private final Supplier<List<BookingService.RoomView>> loader;
+    private final LongSupplier nanoTime;
+    private final ExecutorService refreshExecutor;
+    private final long ttlNanos;
+    private final long maxStaleNanos;
+    private final long failureBackoffNanos;
+    private final MeterRegistry meterRegistry;
+
+    private final AtomicReference<Entry> current = new AtomicReference<>();
+    private final AtomicReference<CompletableFuture<Entry>> inFlight = new AtomicReference<>();
+    private volatile long lastFailureNanos;
+    private volatile boolean failed;
+
+    @Autowired
+    public RoomSuggestionCache(
+            HotelServiceClient hotelClient,
+            AuthService authService,
+            MeterRegistry meterRegistry,
+            @Value("${booking.suggestions.limit:20}") int limit,
+            @Value("${booking.suggestions.ttl-ms:60000}") long ttlMs,
+            @Value("${booking.suggestions.max-stale-ms:600000}") long maxStaleMs,
+            @Value("${booking.suggestions.failure-backoff-ms:5000}") long failureBackoffMs
+    ) {
+        this(() -> toList(hotelClient.topRooms(BookingService.RoomView[].class, limit,
+                        authService.issueServiceToken())),
+                System::nanoTime, meterRegistry, ttlMs, maxStaleMs, failureBackoffMs);
+    }
+
+    /**
+     * @param loader   загрузка подсказок из hotel-service
+     * @param nanoTime источник времени ({@link System#nanoTime()})
+     */
+    public RoomSuggestionCache(Supplier<List<BookingService.RoomView>> loader, LongSupplier nanoTime,
+                               MeterRegistry meterRegistry, long ttlMs, long maxStaleMs, long failureBackoffMs) {
+        this.loader = loader;
+        this.nanoTime = nanoTime;
+        this.meterRegistry = meterRegistry;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+        this.maxStaleNanos = TimeUnit.MILLISECONDS.toNanos(maxStaleMs);
+        this.failureBackoffNanos = TimeUnit.MILLISECONDS.toNanos(failureBackoffMs);
+        this.refreshExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "room-suggestions-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Gauge.builder("booking.suggestions.age.seconds", current, ref -> {
+                    Entry entry = ref.get();
+                    return entry == null ? Double.NaN : (nanoTime.getAsLong() - entry.loadedAtNanos()) / 1e9;
+                })
+                .description("Возраст закэшированных подсказок по комнатам")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return подсказки, отсортированные по популярности
+     * @throws RuntimeException ошибка загрузки, если в кэше ещё нет ни одного значения
+     */
+    public List<BookingService.RoomView> get() {
+        Entry entry = current.get();
+        if (entry != null) {
+            long age = nanoTime.getAsLong() - entry.loadedAtNanos();
+            if (age < ttlNanos) {
+                record("booking.suggestions.cache", "hit");
+                return entry.rooms();
+            }
+            if (age < ttlNanos + maxStaleNanos) {
+                record("booking.suggestions.cache", "stale");
+                if (!failed || nanoTime.getAsLong() - lastFailureNanos >= failureBackoffNanos) {
+                    refresh(true);
+                }
+                return entry.rooms();
+            }
+        }
+
+        record("booking.suggestions.cache", "miss");
+        try {
+            return refresh(false).join().rooms();
+        } catch (CompletionException ex) {
+            if (entry != null) {
+                record("booking.suggestions.cache", "stale_on_error");
+                return entry.rooms();
+            }
+            throw ex.getCause() instanceof RuntimeException cause ? cause : ex;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        refreshExecutor.shutdownNow();
+    }
+
+    /**
+     * Запускает загрузку, если она ещё не выполняется, иначе присоединяется к текущей.
+     *
+     * @param background загружать в фоновом потоке (иначе — в вызывающем)
+     */
+    private CompletableFuture<Entry> refresh(boolean background) {
+        while (true) {
+            CompletableFuture<Entry> running = inFlight.get();
+            if (running != null) {
+                return running;
+            }
+            CompletableFuture<Entry> started = new CompletableFuture<>();
+            if (!inFlight.compareAndSet(null, started)) {
+                continue;
+            }
+            Runnable load = () -> {
+                try {
+                    Entry loaded = new Entry(loader.get(), nanoTime.getAsLong());
+                    current.set(loaded);
+                    failed = false;
+                    record("booking.suggestions.refresh", "success");
+                    inFlight.set(null);
+                    started.complete(loaded);
+                } catch (RuntimeException ex) {
+                    lastFailureNanos = nanoTime.getAsLong();
+                    failed = true;
+                    record("booking.suggestions.refresh", "failure");
+                    log.warn("Room suggestions refresh failed{}: {}",
+                            current.get() != null ? ", serving last loaded value" : "", ex.toString());
+                    inFlight.set(null);
+                    started.completeExceptionally(ex);
+                }
+            };
+            if (background) {
+                refreshExecutor.execute(load);
+            } else {
+                load.run();
+            }
+            return started;
+        }
+    }
+
+    private void record(String metric, String result) {
+        Counter.builder(metric)
+                .tag("result", result)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * Порядок сохраняется: hotel-service отдаёт номера по убыванию timesBooked, при равенстве — по возрастанию id.
+     */
+    private static List<BookingService.RoomView> toList(BookingService.RoomView[] rooms) {
+        return rooms == null ? List.of() : List.of(rooms);
+    }
+
+    private record Entry(List<BookingService.RoomView> rooms, long loadedAtNanos) {}
+}
@@ -0,0 +1,220 @@
+package com.mybooking.bookingservice;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.mybooking.bookingservice.model.Booking;
+import com.mybooking.bookingservice.testutil.JwtTestTokens;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.*;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.UUID;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+
+/**
+ * Интеграционные тесты асинхронного режима бронирования.
+ *
+ * <p>Проверяем 202 + Location, опрос статус-URL, доставку итогового статуса по SSE
+ * прокидывание X-Request-Id/JWT в вызовы hotel-service из пула саг и повтор после переполнения пула.</p>
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class BookingAsyncIntegrationTests {
+
+    private static final WireMockServer WIREMOCK = new WireMockServer(wireMockConfig().dynamicPort());
+
+    private static final String TEST_JWT_SECRET = "TEST_JWT_SECRET__MIN_32_BYTES_LONG__123456";
+
+    @Autowired
+    private TestRestTemplate rest;
+
+    @LocalServerPort
+    private int port;
+
+    @SpyBean(name = "bookingSagaExecutor")
+    private ThreadPoolTaskExecutor sagaExecutor;
+
+    @BeforeAll
+    static void startWireMock() {
+        WIREMOCK.start();
+        configureFor("localhost", WIREMOCK.port());
+    }
+
+    @AfterAll
+    static void stopWireMock() {
+        WIREMOCK.stop();
+    }
+
+    @BeforeEach
+    void resetWireMock() {
+        resetAllRequests();
+        resetToDefault();
+    }
+
+    @DynamicPropertySource
+    static void overrideProps(DynamicPropertyRegistry r) {
+        r.add("hotel.base-url", () -> "http://localhost:" + WIREMOCK.port());
+        r.add("hotel.timeout-ms", () -> "3000");
+        r.add("hotel.retries", () -> "1");
+        r.add("security.jwt.secret", () -> TEST_JWT_SECRET);
+
+        r.add("eureka.client.enabled", () -> "false");
+        r.add("eureka.client.register-with-eureka", () -> "false");
+        r.add("eureka.client.fetch-registry", () -> "false");
+    }
+
+    @Test
+    void preferRespondAsync_returns202_andStatusUrlEventuallyConfirmed() throws Exception {
+        String requestId = UUID.randomUUID().toString();
+        stubFor(post(urlPathEqualTo("/api/rooms/1/hold"))
+                .willReturn(aResponse().withStatus(200).withFixedDelay(500)));
+        stubFor(post(urlPathEqualTo("/api/rooms/confirm"))
+                .willReturn(aResponse().withStatus(200)));
+
+        HttpHeaders headers = jsonHeaders("1", requestId);
+        headers.set("Prefer", "respond-async");
+        ResponseEntity<Booking> accepted = rest.exchange(
+                "/api/bookings", HttpMethod.POST, new HttpEntity<>(body(), headers), Booking.class);
+
+        assertThat(accepted.getStatusCode()).isEqualTo(HttpStatus.ACCEPTED);
+        assertThat(accepted.getBody()).isNotNull();
+        assertThat(accepted.getBody().getStatus()).isEqualTo(Booking.Status.PENDING);
+        URI location = accepted.getHeaders().getLocation();
+        assertThat(location).isNotNull();
+        assertThat(location.getPath()).isEqualTo("/api/bookings/" + accepted.getBody().getId());
+
+        Booking finalState = pollUntilFinal(location.getPath(), "1");
+        assertThat(finalState.getStatus()).isEqualTo(Booking.Status.CONFIRMED);
+
+        // Контекст запроса (X-Request-Id и JWT пользователя) доходит до потоков пула саг
+        verify(postRequestedFor(urlPathEqualTo("/api/rooms/1/hold"))
+                .withHeader("X-Request-Id", equalTo(requestId))
+                .withHeader("Authorization", matching("Bearer .+")));
+
+        // Чужое бронирование не видно
+        ResponseEntity<String> foreign = rest.exchange(
+                location.getPath(), HttpMethod.GET, new HttpEntity<>(jsonHeaders("2", null)), String.class);
+        assertThat(foreign.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    @Test
+    void asyncQueryParam_deliversCancelledStatusOverSse() throws Exception {
+        String requestId = UUID.randomUUID().toString();
+        stubFor(post(urlPathEqualTo("/api/rooms/1/hold"))
+                .willReturn(aResponse().withStatus(409).withFixedDelay(500)));
+        stubFor(post(urlPathEqualTo("/api/rooms/release"))
+                .willReturn(aResponse().withStatus(200)));
+
+        ResponseEntity<Booking> accepted = rest.exchange(
+                "/api/bookings?async=true", HttpMethod.POST,
+                new HttpEntity<>(body(), jsonHeaders("1", requestId)), Booking.class);
+        assertThat(accepted.getStatusCode()).isEqualTo(HttpStatus.ACCEPTED);
+        assertThat(accepted.getBody()).isNotNull();
+
+        HttpRequest sse = HttpRequest.newBuilder(
+                        URI.create("http://localhost:" + port + "/api/bookings/" + accepted.getBody().getId() + "/events"))
+                .header(HttpHeaders.ACCEPT, MediaType.TEXT_EVENT_STREAM_VALUE)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + JwtTestTokens.hmacToken(TEST_JWT_SECRET, "1", "USER"))
+                .timeout(Duration.ofSeconds(10))
+                .build();
+        HttpResponse<String> events = HttpClient.newHttpClient().send(sse, HttpResponse.BodyHandlers.ofString());
+
+        assertThat(events.statusCode()).isEqualTo(200);
+        assertThat(events.body()).contains("event:status");
+        assertThat(events.body()).contains("\"status\":\"CANCELLED\"");
+    }
+
+    @Test
+    void retryAfterSaturatedSagaPool_createsBookingAgain() throws Exception {
+        String requestId = UUID.randomUUID().toString();
+        stubFor(post(urlPathEqualTo("/api/rooms/1/hold"))
+                .willReturn(aResponse().withStatus(200)));
+        stubFor(post(urlPathEqualTo("/api/rooms/confirm"))
+                .willReturn(aResponse().withStatus(200)));
+        // Первая попытка упирается в заполненную очередь, повтор исполняется настоящим пулом
+        doThrow(new TaskRejectedException("saga queue is full"))
+                .doCallRealMethod()
+                .when(sagaExecutor).execute(any(Runnable.class));
+
+        // JDK-клиент: TestRestTemplate сам повторяет ответ 503 с Retry-After
+        String json = "{\"roomId\":\"1\",\"startDate\":\"" + body().get("startDate")
+                + "\",\"endDate\":\"" + body().get("endDate") + "\"}";
+        HttpRequest first = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/bookings"))
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + JwtTestTokens.hmacToken(TEST_JWT_SECRET, "1", "USER"))
+                .header("X-Request-Id", requestId)
+                .header("Prefer", "respond-async")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+        HttpResponse<String> rejected = HttpClient.newHttpClient().send(first, HttpResponse.BodyHandlers.ofString());
+        assertThat(rejected.statusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE.value());
+        assertThat(rejected.headers().firstValue(HttpHeaders.RETRY_AFTER)).isPresent();
+
+        HttpHeaders headers = jsonHeaders("1", requestId);
+        headers.set("Prefer", "respond-async");
+
+        // Повтор с тем же X-Request-Id не получает «вечно отменённую» запись, а запускает сагу заново
+        ResponseEntity<Booking> accepted = rest.exchange(
+                "/api/bookings", HttpMethod.POST, new HttpEntity<>(body(), headers), Booking.class);
+        assertThat(accepted.getStatusCode()).isEqualTo(HttpStatus.ACCEPTED);
+        assertThat(accepted.getBody()).isNotNull();
+        assertThat(accepted.getBody().getStatus()).isEqualTo(Booking.Status.PENDING);
+
+        Booking finalState = pollUntilFinal(accepted.getHeaders().getLocation().getPath(), "1");
+        assertThat(finalState.getStatus()).isEqualTo(Booking.Status.CONFIRMED);
+        verify(1, postRequestedFor(urlPathEqualTo("/api/rooms/1/hold")));
+    }
+
+    private Booking pollUntilFinal(String path, String userId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (System.currentTimeMillis() < deadline) {
+            ResponseEntity<Booking> resp = rest.exchange(
+                    path, HttpMethod.GET, new HttpEntity<>(jsonHeaders(userId, null)), Booking.class);
+            assertThat(resp.getStatusCode()).isEqualTo(HttpStatus.OK);
+            if (resp.getBody() != null && resp.getBody().getStatus() != Booking.Status.PENDING) {
+                return resp.getBody();
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("booking did not reach a final status in time");
+    }
+
+    private static Map<String, String> body() {
+        return Map.of(
+                "roomId", "1",
+                "startDate", LocalDate.now().plusDays(1).toString(),
+                "endDate", LocalDate.now().plusDays(2).toString()
+        );
+    }
+
+    private static HttpHeaders jsonHeaders(String userId, String requestId) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        if (requestId != null) {
+            headers.set("X-Request-Id", requestId);
+        }
+        headers.setBearerAuth(JwtTestTokens.hmacToken(TEST_JWT_SECRET, userId, "USER"));
+        return headers;
+    }
+}
@@ -0,0 +1,153 @@
+package com.mybooking.bookingservice;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.mybooking.bookingservice.model.Booking;
+import com.mybooking.bookingservice.repository.BookingRepository;
+import com.mybooking.bookingservice.testutil.JwtTestTokens;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.*;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.UUID;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Circuit breaker вызовов hotel-service: после серии 5xx сага не запускается,
+ * {@code POST /api/bookings} сразу отвечает 503 с {@code Retry-After} и не создаёт бронирование.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class BookingCircuitBreakerIntegrationTests {
+
+    private static final WireMockServer WIREMOCK = new WireMockServer(wireMockConfig().dynamicPort());
+
+    private static final String TEST_JWT_SECRET = "TEST_JWT_SECRET__MIN_32_BYTES_LONG__123456";
+
+    @Autowired
+    private TestRestTemplate rest;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private CircuitBreakerRegistry circuitBreakers;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeAll
+    static void startWireMock() {
+        WIREMOCK.start();
+        configureFor("localhost", WIREMOCK.port());
+    }
+
+    @AfterAll
+    static void stopWireMock() {
+        WIREMOCK.stop();
+    }
+
+    @BeforeEach
+    void disableClientRetries() {
+        // Apache HttpClient в TestRestTemplate сам повторяет 503 после Retry-After
+        rest.getRestTemplate().setRequestFactory(new SimpleClientHttpRequestFactory());
+    }
+
+    @AfterEach
+    void closeCircuitBreakers() {
+        circuitBreakers.getAllCircuitBreakers().forEach(CircuitBreaker::reset);
+        resetAllRequests();
+        resetToDefault();
+    }
+
+    @DynamicPropertySource
+    static void overrideProps(DynamicPropertyRegistry r) {
+        r.add("hotel.base-url", () -> "http://localhost:" + WIREMOCK.port());
+        r.add("hotel.timeout-ms", () -> "800");
+        r.add("hotel.retries", () -> "1");
+        r.add("hotel.capabilities.ttl-ms", () -> "0");
+        r.add("security.jwt.secret", () -> TEST_JWT_SECRET);
+        r.add("resilience4j.circuitbreaker.configs.default.sliding-window-size", () -> "4");
+        r.add("resilience4j.circuitbreaker.configs.default.minimum-number-of-calls", () -> "4");
+        r.add("resilience4j.circuitbreaker.configs.default.wait-duration-in-open-state", () -> "30s");
+
+        r.add("eureka.client.enabled", () -> "false");
+        r.add("eureka.client.register-with-eureka", () -> "false");
+        r.add("eureka.client.fetch-registry", () -> "false");
+    }
+
+    @Test
+    void openCircuitFailsFastWith503AndRetryAfter() {
+        stubFor(post(urlPathEqualTo("/api/rooms/1/hold")).willReturn(aResponse().withStatus(500)));
+        stubFor(post(urlPathEqualTo("/api/rooms/release")).willReturn(aResponse().withStatus(200)));
+
+        String firstRequestId = null;
+        for (int i = 0; i < 4; i++) {
+            String requestId = UUID.randomUUID().toString();
+            firstRequestId = firstRequestId == null ? requestId : firstRequestId;
+            ResponseEntity<Booking> resp = createBooking(requestId, Booking.class);
+            assertThat(resp.getStatusCode()).isEqualTo(HttpStatus.OK);
+            assertThat(resp.getBody().getStatus()).isEqualTo(Booking.Status.CANCELLED);
+        }
+        assertThat(circuitBreakers.circuitBreaker("holdRoom").getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(meterRegistry.get("resilience4j.circuitbreaker.state")
+                .tag("name", "holdRoom").tag("state", "open").gauge().value()).isEqualTo(1.0);
+
+        String rejectedRequestId = UUID.randomUUID().toString();
+        ResponseEntity<String> rejected = createBooking(rejectedRequestId, String.class);
+
+        assertThat(rejected.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(rejected.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("30");
+        assertThat(bookingRepository.findByRequestId(rejectedRequestId)).isEmpty();
+        verify(4, postRequestedFor(urlPathEqualTo("/api/rooms/1/hold")));
+
+        // повтор уже обработанного запроса по-прежнему возвращает сохранённое бронирование
+        ResponseEntity<Booking> duplicate = createBooking(firstRequestId, Booking.class);
+        assertThat(duplicate.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(duplicate.getBody().getStatus()).isEqualTo(Booking.Status.CANCELLED);
+    }
+
+    @Test
+    void conflictsDoNotOpenTheCircuit() {
+        stubFor(post(urlPathEqualTo("/api/rooms/1/hold")).willReturn(aResponse().withStatus(409)));
+        stubFor(post(urlPathEqualTo("/api/rooms/release")).willReturn(aResponse().withStatus(404)));
+
+        for (int i = 0; i < 5; i++) {
+            ResponseEntity<Booking> resp = createBooking(UUID.randomUUID().toString(), Booking.class);
+            assertThat(resp.getStatusCode()).isEqualTo(HttpStatus.OK);
+            assertThat(resp.getBody().getStatus()).isEqualTo(Booking.Status.CANCELLED);
+        }
+
+        assertThat(circuitBreakers.circuitBreaker("holdRoom").getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    private <T> ResponseEntity<T> createBooking(String requestId, Class<T> type) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set("X-Request-Id", requestId);
+        headers.setBearerAuth(JwtTestTokens.hmacToken(TEST_JWT_SECRET, "1", "USER"));
+
+        Map<String, String> body = Map.of(
+                "roomId", "1",
+                "startDate", LocalDate.now().plusDays(1).toString(),
+                "endDate", LocalDate.now().plusDays(2).toString()
+        );
+
+        return rest.exchange("/api/bookings", HttpMethod.POST, new HttpEntity<>(body, headers), type);
+    }
+}
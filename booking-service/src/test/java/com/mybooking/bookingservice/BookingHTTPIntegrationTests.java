@@ -9,6 +9,9 @@ import com.nimbusds.jose.JWSObject;
 import com.nimbusds.jose.Payload;
 import com.nimbusds.jose.crypto.MACSigner;
 import com.nimbusds.jwt.JWTClaimsSet;
+import com.mybooking.bookingservice.model.Booking;
+import com.mybooking.bookingservice.repository.BookingRepository;
+import com.mybooking.bookingservice.testutil.JwtTestTokens;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -17,14 +20,20 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
 import java.util.Date;
 
 import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 /**
@@ -34,11 +43,12 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
  * <ul>
  *   <li>защищённость endpoint-а suggestions,</li>
  *   <li>успешный доступ при валидном JWT,</li>
- *   <li>корректный вызов hotel-service по /api/rooms (через WireMock).</li>
+ *   <li>корректный вызов hotel-service по /api/rooms (через WireMock),</li>
+ *   <li>потоковую выгрузку бронирований в NDJSON, в том числе изменений по курсору.</li>
  * </ul>
  * </p>
  */
-@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "booking.export.settle-ms=0")
 @AutoConfigureMockMvc
 class BookingHTTPIntegrationTests {
 
@@ -58,6 +68,12 @@ class BookingHTTPIntegrationTests {
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
     @DynamicPropertySource
     static void overrideProps(DynamicPropertyRegistry r) {
         r.add("hotel.base-url", () -> "http://localhost:" + WIREMOCK.port());
@@ -90,7 +106,7 @@ class BookingHTTPIntegrationTests {
 
     @Test
     void suggestions_withJwt_success() throws Exception {
-        WireMock.stubFor(WireMock.get(WireMock.urlPathEqualTo("/api/rooms"))
+        WireMock.stubFor(WireMock.get(WireMock.urlPathEqualTo("/api/rooms/top"))
                 .willReturn(WireMock.okJson("""
                         [
                           {"id": 1, "number": "101", "timesBooked": 5},
@@ -103,6 +119,73 @@ class BookingHTTPIntegrationTests {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    void export_streamsNdjsonSinceIdOrChangeCursor() throws Exception {
+        long since = bookingRepository.findAll().stream().mapToLong(Booking::getId).max().orElse(0);
+        Booking older = bookingRepository.save(booking("export-older"));
+        Booking newer = bookingRepository.save(booking("export-newer"));
+        String admin = "Bearer " + JwtTestTokens.hmacToken(TEST_JWT_SECRET, "1", "ADMIN");
+
+        mockMvc.perform(get("/api/bookings/export").param("since", "0")
+                        .header("Authorization", "Bearer " + JwtTestTokens.hmacToken(TEST_JWT_SECRET, "1", "USER")))
+                .andExpect(status().isForbidden());
+
+        String byId = mockMvc.perform(get("/api/bookings/export").param("since", String.valueOf(since))
+                        .header("Authorization", admin))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+        assertThat(byId.split("\n"))
+                .hasSize(2)
+                .satisfies(lines -> {
+                    assertThat(lines[0]).startsWith("{\"id\":" + older.getId() + ",");
+                    assertThat(lines[1]).startsWith("{\"id\":" + newer.getId() + ",");
+                });
+
+        // выгрузка изменений: первая — с начала времён, следующая — с курсора из заголовка
+        MockHttpServletResponse all = exportChanges("1970-01-01T00:00:00Z", admin);
+        assertThat(all.getContentAsString())
+                .contains("{\"id\":" + older.getId() + ",")
+                .contains("{\"id\":" + newer.getId() + ",");
+        String cursor = all.getHeader("X-Export-Next-Since");
+        assertThat(cursor).isNotNull();
+
+        MockHttpServletResponse unchanged = exportChanges(cursor, admin);
+        assertThat(unchanged.getContentAsString()).doesNotContain("{\"id\":" + older.getId() + ",");
+
+        // смена статуса точечным UPDATE попадает в следующую выгрузку
+        transactionTemplate.executeWithoutResult(status ->
+                bookingRepository.updateStatus(older.getId(), Booking.Status.CANCELLED, OffsetDateTime.now()));
+        String changed = exportChanges(unchanged.getHeader("X-Export-Next-Since"), admin).getContentAsString();
+        assertThat(changed)
+                .contains("{\"id\":" + older.getId() + ",")
+                .contains("\"status\":\"CANCELLED\"")
+                .doesNotContain("{\"id\":" + newer.getId() + ",");
+
+        mockMvc.perform(get("/api/bookings/export").param("since", "yesterday")
+                        .header("Authorization", admin))
+                .andExpect(status().isBadRequest());
+    }
+
+    private MockHttpServletResponse exportChanges(String since, String admin) throws Exception {
+        return mockMvc.perform(get("/api/bookings/export").param("since", since)
+                        .header("Authorization", admin))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+    }
+
+    private static Booking booking(String requestId) {
+        Booking booking = new Booking();
+        booking.setRequestId(requestId);
+        booking.setUserId(1L);
+        booking.setRoomId(1L);
+        booking.setStartDate(LocalDate.of(2100, 1, 10));
+        booking.setEndDate(LocalDate.of(2100, 1, 12));
+        booking.setStatus(Booking.Status.CONFIRMED);
+        booking.setCreatedAt(OffsetDateTime.now());
+        return booking;
+    }
+
     private String tokenUser() {
         try {
             byte[] secret = TEST_JWT_SECRET.getBytes(StandardCharsets.UTF_8);
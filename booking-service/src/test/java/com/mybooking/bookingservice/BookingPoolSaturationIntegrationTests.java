@@ -0,0 +1,161 @@
+package com.mybooking.bookingservice;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.mybooking.bookingservice.model.Booking;
+import com.mybooking.bookingservice.testutil.JwtTestTokens;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.*;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Нагрузочный тест саги при медленном hotel-service.
+ *
+ * <p>WireMock добавляет задержку к hold, пул Hikari уменьшен до двух соединений. Параллельных
+ * бронирований больше, чем соединений в пуле, однако во время удалённых вызовов ни одно соединение
+ * не занято, все бронирования завершаются, а {@code GET /api/bookings} отвечает без ожидания пула.</p>
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class BookingPoolSaturationIntegrationTests {
+
+    private static final WireMockServer WIREMOCK = new WireMockServer(wireMockConfig().dynamicPort());
+
+    private static final String TEST_JWT_SECRET = "TEST_JWT_SECRET__MIN_32_BYTES_LONG__123456";
+
+    private static final int POOL_SIZE = 2;
+    private static final int CONCURRENT_BOOKINGS = 8;
+    private static final int HOLD_DELAY_MS = 1500;
+
+    @Autowired
+    private TestRestTemplate rest;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @BeforeAll
+    static void startWireMock() {
+        WIREMOCK.start();
+        configureFor("localhost", WIREMOCK.port());
+    }
+
+    @AfterAll
+    static void stopWireMock() {
+        WIREMOCK.stop();
+    }
+
+    @BeforeEach
+    void resetWireMock() {
+        resetAllRequests();
+        resetToDefault();
+    }
+
+    @DynamicPropertySource
+    static void overrideProps(DynamicPropertyRegistry r) {
+        r.add("hotel.base-url", () -> "http://localhost:" + WIREMOCK.port());
+        r.add("hotel.timeout-ms", () -> "5000");
+        r.add("hotel.retries", () -> "1");
+        r.add("security.jwt.secret", () -> TEST_JWT_SECRET);
+
+        // Маленький пул и короткое ожидание соединения: при удержании соединения на время саги тест упадёт
+        r.add("spring.datasource.url", () -> "jdbc:h2:mem:booking-pool;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE");
+        r.add("spring.datasource.hikari.maximum-pool-size", () -> String.valueOf(POOL_SIZE));
+        r.add("spring.datasource.hikari.connection-timeout", () -> "500");
+
+        r.add("eureka.client.enabled", () -> "false");
+        r.add("eureka.client.register-with-eureka", () -> "false");
+        r.add("eureka.client.fetch-registry", () -> "false");
+    }
+
+    @Test
+    void slowHotelService_doesNotSaturateConnectionPool() throws Exception {
+        stubFor(post(urlPathMatching("/api/rooms/\\d+/hold"))
+                .willReturn(aResponse().withStatus(200).withFixedDelay(HOLD_DELAY_MS)));
+        stubFor(post(urlPathEqualTo("/api/rooms/confirm"))
+                .willReturn(aResponse().withStatus(200)));
+
+        ExecutorService pool = Executors.newFixedThreadPool(CONCURRENT_BOOKINGS);
+        try {
+            List<Future<ResponseEntity<Booking>>> bookings = new ArrayList<>();
+            for (int i = 0; i < CONCURRENT_BOOKINGS; i++) {
+                long roomId = i + 1;
+                bookings.add(pool.submit(() -> createBooking(roomId, UUID.randomUUID().toString())));
+            }
+
+            // Дожидаемся, пока все саги повиснут на медленном hold
+            awaitHoldRequests(CONCURRENT_BOOKINGS);
+
+            HikariDataSource hikari = dataSource.unwrap(HikariDataSource.class);
+            assertThat(hikari.getHikariPoolMXBean().getActiveConnections()).isZero();
+
+            long startedAt = System.nanoTime();
+            ResponseEntity<Booking[]> mine = rest.exchange(
+                    "/api/bookings", HttpMethod.GET, new HttpEntity<>(authHeaders()), Booking[].class);
+            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+
+            assertThat(mine.getStatusCode()).isEqualTo(HttpStatus.OK);
+            assertThat(elapsedMs).isLessThan(HOLD_DELAY_MS);
+
+            for (Future<ResponseEntity<Booking>> f : bookings) {
+                ResponseEntity<Booking> resp = f.get(30, TimeUnit.SECONDS);
+                assertThat(resp.getStatusCode()).isEqualTo(HttpStatus.OK);
+                assertThat(resp.getBody()).isNotNull();
+                assertThat(resp.getBody().getStatus()).isEqualTo(Booking.Status.CONFIRMED);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private void awaitHoldRequests(int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (System.currentTimeMillis() < deadline) {
+            if (findAll(postRequestedFor(urlPathMatching("/api/rooms/\\d+/hold"))).size() >= expected) {
+                return;
+            }
+            Thread.sleep(20);
+        }
+        throw new AssertionError("hold requests did not arrive in time");
+    }
+
+    private ResponseEntity<Booking> createBooking(long roomId, String requestId) {
+        HttpHeaders headers = authHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set("X-Request-Id", requestId);
+
+        Map<String, String> body = Map.of(
+                "roomId", String.valueOf(roomId),
+                "startDate", LocalDate.now().plusDays(1).toString(),
+                "endDate", LocalDate.now().plusDays(2).toString()
+        );
+
+        return rest.exchange("/api/bookings", HttpMethod.POST, new HttpEntity<>(body, headers), Booking.class);
+    }
+
+    private HttpHeaders authHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(JwtTestTokens.hmacToken(TEST_JWT_SECRET, "1", "USER"));
+        return headers;
+    }
+}
@@ -1,6 +1,7 @@
 package com.mybooking.bookingservice;
 
 import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.matching.RequestPatternBuilder;
 import com.mybooking.bookingservice.model.Booking;
 import com.mybooking.bookingservice.testutil.JwtTestTokens;
 import org.junit.jupiter.api.AfterAll;
@@ -25,10 +26,11 @@ import static org.assertj.core.api.Assertions.assertThat;
 /**
  * Интеграционные тесты саги booking-service с использованием WireMock вместо реального hotel-service.
  *
- * <p>Покрываем два сценария:
+ * <p>Покрываем сценарии:
  * <ul>
  *   <li>Success: hold=200, confirm=200 → booking CONFIRMED</li>
- *   <li>Failure: hold=409/500 → booking CANCELLED + release best-effort</li>
+ *   <li>Success через reserve, если hotel-service объявляет его в capabilities</li>
+ *   <li>Failure: hold=409/500 → booking CANCELLED + release через outbox relay</li>
  * </ul>
  * </p>
  */
@@ -65,6 +67,8 @@ class BookingSagaWireMockIntegrationTests {
         r.add("hotel.timeout-ms", () -> "800");
         r.add("hotel.retries", () -> "1");
         r.add("security.jwt.secret", () -> TEST_JWT_SECRET);
+        // capabilities проверяются перед каждой сагой: тесты не зависят от порядка запуска
+        r.add("hotel.capabilities.ttl-ms", () -> "0");
 
         // чтобы тесты были полностью автономными
         r.add("eureka.client.enabled", () -> "false");
@@ -108,7 +112,7 @@ class BookingSagaWireMockIntegrationTests {
         stubFor(post(urlPathEqualTo("/api/rooms/1/hold"))
                 .willReturn(aResponse().withStatus(409)));
 
-        // best-effort release: допускается и 200, и 404. Тут ставим 200 для простоты.
+        // release через outbox: допускается и 200, и 404. Тут ставим 200 для простоты.
         stubFor(post(urlPathEqualTo("/api/rooms/release"))
                 .willReturn(aResponse().withStatus(200)));
 
@@ -124,13 +128,55 @@ class BookingSagaWireMockIntegrationTests {
         verify(postRequestedFor(urlPathEqualTo("/api/rooms/1/hold"))
                 .withHeader("X-Request-Id", equalTo(requestId)));
 
-        verify(postRequestedFor(urlPathEqualTo("/api/rooms/release"))
-                .withHeader("X-Request-Id", equalTo(requestId)));
+        // компенсация выполняется фоновым relay после ответа клиенту
+        awaitRequest(postRequestedFor(urlPathEqualTo("/api/rooms/release"))
+                .withHeader("X-Request-Id", equalTo(requestId))
+                .withHeader("Authorization", matching("Bearer .+")));
 
         // confirm не должен вызываться если hold не прошёл
         verify(0, postRequestedFor(urlPathEqualTo("/api/rooms/confirm")));
     }
 
+    @Test
+    void sagaSuccess_shouldUseSingleReserveCall_whenHotelAdvertisesIt() {
+        // Arrange (Given)
+        String requestId = UUID.randomUUID().toString();
+
+        stubFor(get(urlPathEqualTo("/api/rooms/capabilities"))
+                .willReturn(okJson("{\"operations\":[\"hold\",\"confirm\",\"release\",\"reserve\"]}")));
+
+        stubFor(post(urlPathEqualTo("/api/rooms/1/reserve"))
+                .willReturn(aResponse().withStatus(200)));
+
+        // Act (When)
+        ResponseEntity<Booking> resp = createBooking(requestId);
+
+        // Assert (Then)
+        assertThat(resp.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(resp.getBody()).isNotNull();
+        assertThat(resp.getBody().getStatus()).isEqualTo(Booking.Status.CONFIRMED);
+
+        verify(postRequestedFor(urlPathEqualTo("/api/rooms/1/reserve"))
+                .withQueryParam("requestId", equalTo(requestId))
+                .withHeader("X-Request-Id", equalTo(requestId)));
+
+        verify(0, postRequestedFor(urlPathEqualTo("/api/rooms/1/hold")));
+        verify(0, postRequestedFor(urlPathEqualTo("/api/rooms/confirm")));
+    }
+
+    private static void awaitRequest(RequestPatternBuilder pattern) {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (findAll(pattern).isEmpty() && System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        verify(pattern);
+    }
+
     private ResponseEntity<Booking> createBooking(String requestId) {
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_JSON);
@@ -2,11 +2,14 @@ package com.mybooking.bookingservice;
 
 import com.github.tomakehurst.wiremock.WireMockServer;
 import com.mybooking.bookingservice.model.Booking;
+import com.mybooking.bookingservice.model.User;
 import com.mybooking.bookingservice.repository.BookingRepository;
+import com.mybooking.bookingservice.repository.UserRepository;
 import com.mybooking.bookingservice.service.BookingService;
 import org.junit.jupiter.api.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.crypto.bcrypt.BCrypt;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
 
@@ -42,6 +45,9 @@ class BookingServiceTests {
     @Autowired
     private BookingRepository bookingRepository;
 
+    @Autowired
+    private UserRepository userRepository;
+
     @DynamicPropertySource
     static void overrideProps(DynamicPropertyRegistry r) {
         r.add("hotel.base-url", () -> "http://localhost:" + WIREMOCK.port());
@@ -157,7 +163,7 @@ class BookingServiceTests {
 
     @Test
     void suggestions_sorted() {
-        stubFor(get(urlPathEqualTo("/api/rooms"))
+        stubFor(get(urlPathEqualTo("/api/rooms/top")).withQueryParam("n", equalTo("20"))
                 .willReturn(okJson("""
                         [
                           {"id": 1, "number": "101", "timesBooked": 5},
@@ -171,4 +177,15 @@ class BookingServiceTests {
         Assertions.assertEquals(1L, rooms.get(0).id());
         Assertions.assertEquals(2L, rooms.get(1).id());
     }
+
+    @Test
+    void csvPrefill_hashesPasswordsAndKeepsPreHashed() {
+        User user1 = userRepository.findByUsername("user1").orElseThrow();
+        Assertions.assertTrue(BCrypt.checkpw("password", user1.getPasswordHash()));
+
+        // в users.csv для qa указан готовый BCrypt-хеш: сохраняется без повторного хеширования
+        User qa = userRepository.findByUsername("qa").orElseThrow();
+        Assertions.assertEquals("$2a$10$BvCy8BfPLf6hyuyR3Ba7UeTA/w79w.GBJTwkPjCjMmGL8m34wjsTK", qa.getPasswordHash());
+        Assertions.assertTrue(BCrypt.checkpw("password", qa.getPasswordHash()));
+    }
 }
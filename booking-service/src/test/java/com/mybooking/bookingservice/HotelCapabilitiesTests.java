@@ -0,0 +1,91 @@
+package com.mybooking.bookingservice;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.mybooking.bookingservice.http.HotelHttpTransport;
+import com.mybooking.bookingservice.http.HotelResilience;
+import com.mybooking.bookingservice.http.HotelRetryExecutor;
+import com.mybooking.bookingservice.http.HotelServiceClient;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.okJson;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+
+/**
+ * Проверка {@code GET /api/rooms/capabilities}: одна проверка на устаревшее значение, последнее известное
+ * значение при ошибке и при параллельной проверке.
+ */
+class HotelCapabilitiesTests {
+
+    private static final String CAPABILITIES = "/api/rooms/capabilities";
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+    private WireMockServer wireMock;
+    private HotelHttpTransport transport;
+    private HotelServiceClient client;
+
+    @BeforeEach
+    void start() {
+        wireMock = new WireMockServer(wireMockConfig().dynamicPort());
+        wireMock.start();
+        transport = new HotelHttpTransport("jdk", 5000, 10, 10, 30000, 60000, 1, registry);
+        client = new HotelServiceClient(wireMock.baseUrl(), transport,
+                new HotelRetryExecutor(3, 1, 5, 0.1, 10, registry),
+                new HotelResilience(CircuitBreakerRegistry.ofDefaults(), BulkheadRegistry.ofDefaults()),
+                true, 0);
+    }
+
+    @AfterEach
+    void stop() throws Exception {
+        transport.destroy();
+        wireMock.stop();
+    }
+
+    @Test
+    void failedCheckKeepsLastKnownValueAndClientErrorDisablesReserve() {
+        wireMock.stubFor(get(urlPathEqualTo(CAPABILITIES))
+                .willReturn(okJson("{\"operations\":[\"hold\",\"reserve\"]}")));
+        Assertions.assertTrue(client.reserveSupported());
+
+        wireMock.stubFor(get(urlPathEqualTo(CAPABILITIES)).willReturn(aResponse().withStatus(500)));
+        Assertions.assertTrue(client.reserveSupported());
+        // одна попытка, без повторов
+        wireMock.verify(2, getRequestedFor(urlPathEqualTo(CAPABILITIES)));
+
+        wireMock.stubFor(get(urlPathEqualTo(CAPABILITIES)).willReturn(aResponse().withStatus(404)));
+        Assertions.assertFalse(client.reserveSupported());
+    }
+
+    @Test
+    void concurrentCallersDoNotWaitForRunningCheck() throws Exception {
+        wireMock.stubFor(get(urlPathEqualTo(CAPABILITIES)).willReturn(okJson("{\"operations\":[\"reserve\"]}")));
+        Assertions.assertTrue(client.reserveSupported());
+
+        wireMock.stubFor(get(urlPathEqualTo(CAPABILITIES))
+                .willReturn(okJson("{\"operations\":[\"hold\"]}").withFixedDelay(1000)));
+        CompletableFuture<Boolean> check = CompletableFuture.supplyAsync(client::reserveSupported);
+        while (wireMock.getAllServeEvents().size() < 2) {
+            Thread.sleep(10);
+        }
+
+        long startedNs = System.nanoTime();
+        Assertions.assertTrue(client.reserveSupported());
+        Assertions.assertTrue(System.nanoTime() - startedNs < TimeUnit.MILLISECONDS.toNanos(500));
+
+        Assertions.assertFalse(check.get(5, TimeUnit.SECONDS));
+        wireMock.verify(2, getRequestedFor(urlPathEqualTo(CAPABILITIES)));
+    }
+}
@@ -0,0 +1,109 @@
+package com.mybooking.bookingservice;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.mybooking.bookingservice.http.HotelHttpTransport;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestClient;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.ok;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+
+/**
+ * Транспорты вызовов hotel-service: пул Apache HttpClient ограничивает число соединений на маршрут
+ * и публикует метрики, JDK-клиент выполняет те же вызовы.
+ */
+class HotelHttpTransportTests {
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+    private WireMockServer wireMock;
+
+    @BeforeEach
+    void startWireMock() {
+        wireMock = new WireMockServer(wireMockConfig().dynamicPort());
+        wireMock.start();
+        wireMock.stubFor(post(urlPathEqualTo("/api/rooms/confirm"))
+                .willReturn(aResponse().withStatus(200).withFixedDelay(100)));
+        wireMock.stubFor(get(urlPathEqualTo("/api/rooms/capabilities"))
+                .willReturn(ok("{\"operations\":[\"hold\"]}")));
+    }
+
+    @AfterEach
+    void stopWireMock() {
+        wireMock.stop();
+    }
+
+    @Test
+    void apachePoolLimitsConnectionsPerRouteAndPublishesMetrics() throws Exception {
+        HotelHttpTransport transport = new HotelHttpTransport("apache", 5000, 2, 10, 30000, 60000, 1, registry);
+        RestClient client = client(transport);
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        try {
+            List<? extends Future<?>> calls = IntStream.range(0, 8)
+                    .mapToObj(i -> callers.submit(() -> client.post().uri("/api/rooms/confirm")
+                            .retrieve().toBodilessEntity()))
+                    .toList();
+            for (Future<?> call : calls) {
+                call.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            callers.shutdownNow();
+            transport.destroy();
+        }
+
+        Timer wait = registry.get("hotel.client.pool.wait").timer();
+        Assertions.assertEquals(8, wait.count());
+        // 8 вызовов по 100 мс на 2 соединения: последние ждут освобождения соединения
+        Assertions.assertTrue(wait.max(TimeUnit.MILLISECONDS) >= 150, "max wait " + wait.max(TimeUnit.MILLISECONDS));
+        Assertions.assertEquals(0.0, gauge("leased"));
+        Assertions.assertEquals(0.0, gauge("pending"));
+        Assertions.assertEquals(10.0, gauge("max"));
+        Assertions.assertEquals(8, wireMock.getAllServeEvents().size());
+    }
+
+    @Test
+    void jdkTransportCallsHotelService() throws Exception {
+        HotelHttpTransport transport = new HotelHttpTransport("jdk", 5000, 2, 10, 30000, 60000, 2, registry);
+        try {
+            String body = client(transport).get().uri("/api/rooms/capabilities").retrieve().body(String.class);
+
+            Assertions.assertEquals("{\"operations\":[\"hold\"]}", body);
+            Assertions.assertTrue(registry.find("hotel.client.pool.leased").meters().isEmpty());
+        } finally {
+            transport.destroy();
+        }
+    }
+
+    @Test
+    void unknownTransportIsRejected() {
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new HotelHttpTransport("okhttp", 5000, 2, 10, 30000, 60000, 1, registry));
+    }
+
+    private RestClient client(HotelHttpTransport transport) {
+        return RestClient.builder()
+                .baseUrl("http://localhost:" + wireMock.port())
+                .requestFactory(transport.requestFactory())
+                .build();
+    }
+
+    private double gauge(String name) {
+        return registry.get("hotel.client.pool." + name).gauge().value();
+    }
+}
@@ -0,0 +1,104 @@
+package com.mybooking.bookingservice;
+
+import com.mybooking.bookingservice.http.HotelRetryExecutor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Модульные тесты политики повторов вызовов hotel-service.
+ *
+ * <p>Проверяют классификацию ошибок (4xx фатальны, кроме 408/429; 5xx и I/O повторяемы),
+ * бюджет повторов, обработку Retry-After и публикацию решений в метриках.</p>
+ */
+class HotelRetryExecutorTests {
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void conflictIsNotRetried() {
+        HotelRetryExecutor executor = new HotelRetryExecutor(3, 1, 5, 0.1, 10, registry);
+        AtomicInteger calls = new AtomicInteger();
+
+        Assertions.assertThrows(HttpClientErrorException.class, () -> executor.execute("holdRoom", () -> {
+            calls.incrementAndGet();
+            throw HttpClientErrorException.create(HttpStatus.CONFLICT, "Conflict", null, null, StandardCharsets.UTF_8);
+        }));
+
+        Assertions.assertEquals(1, calls.get());
+        Assertions.assertEquals(1.0, decisions("holdRoom", "fatal"));
+    }
+
+    @Test
+    void serverErrorsAndIoErrorsAreRetriedUntilSuccess() {
+        HotelRetryExecutor executor = new HotelRetryExecutor(3, 1, 5, 0.1, 10, registry);
+        AtomicInteger calls = new AtomicInteger();
+
+        String result = executor.execute("confirmHold", () -> {
+            int n = calls.incrementAndGet();
+            if (n == 1) {
+                throw HttpServerErrorException.create(HttpStatus.SERVICE_UNAVAILABLE, "Unavailable", null, null, StandardCharsets.UTF_8);
+            }
+            if (n == 2) {
+                throw new ResourceAccessException("Read timed out");
+            }
+            return "ok";
+        });
+
+        Assertions.assertEquals("ok", result);
+        Assertions.assertEquals(3, calls.get());
+        Assertions.assertEquals(2.0, decisions("confirmHold", "retry"));
+        Assertions.assertEquals(1.0, decisions("confirmHold", "success"));
+    }
+
+    @Test
+    void tooManyRequestsIsRetriedButLongRetryAfterIsNot() {
+        HotelRetryExecutor executor = new HotelRetryExecutor(3, 1, 50, 0.1, 10, registry);
+        AtomicInteger calls = new AtomicInteger();
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, "120");
+
+        Assertions.assertThrows(HttpClientErrorException.class, () -> executor.execute("holdRoom", () -> {
+            calls.incrementAndGet();
+            throw HttpClientErrorException.create(HttpStatus.TOO_MANY_REQUESTS, "Too Many Requests", headers, null, StandardCharsets.UTF_8);
+        }));
+
+        Assertions.assertEquals(1, calls.get());
+        Assertions.assertEquals(1.0, decisions("holdRoom", "retry_after_too_long"));
+    }
+
+    @Test
+    void retryBudgetLimitsExtraLoad() {
+        HotelRetryExecutor executor = new HotelRetryExecutor(5, 1, 5, 0.1, 2, registry);
+        AtomicInteger calls = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++) {
+            Assertions.assertThrows(HttpServerErrorException.class, () -> executor.execute("releaseHold", () -> {
+                calls.incrementAndGet();
+                throw HttpServerErrorException.create(HttpStatus.INTERNAL_SERVER_ERROR, "Error", null, null, StandardCharsets.UTF_8);
+            }));
+        }
+
+        // 3 исходных вызова + 2 повтора из запаса бюджета (пополнение 0.1 на вызов не даёт третьего токена)
+        Assertions.assertEquals(5, calls.get());
+        Assertions.assertEquals(2.0, decisions("releaseHold", "retry"));
+        Assertions.assertEquals(3.0, decisions("releaseHold", "budget_exhausted"));
+    }
+
+    private double decisions(String operation, String decision) {
+        var counter = registry.find(HotelRetryExecutor.DECISIONS_METRIC)
+                .tag("operation", operation)
+                .tag("decision", decision)
+                .counter();
+        return counter == null ? 0.0 : counter.count();
+    }
+}
@@ -0,0 +1,171 @@
+package com.mybooking.bookingservice;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.mybooking.bookingservice.model.Booking;
+import com.mybooking.bookingservice.model.OutboxMessage;
+import com.mybooking.bookingservice.repository.BookingRepository;
+import com.mybooking.bookingservice.repository.OutboxMessageRepository;
+import com.mybooking.bookingservice.service.BookingService;
+import com.mybooking.bookingservice.service.OutboxRelay;
+import org.junit.jupiter.api.*;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+
+/**
+ * Интеграционные тесты outbox relay.
+ *
+ * <p>Моделируем сбой процесса после hold: в БД остаются бронирование PENDING и outbox-сообщение
+ * с наступившим сроком. Relay должен освободить удержание, а при недоступности hotel-service —
+ * сохранить сообщение и запланировать повтор. Сага, «убитая» после успешного reserve (отказ записи статуса),
+ * компенсируется освобождением подтверждённого удержания и отменой бронирования.</p>
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.MOCK)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class OutboxRelayIntegrationTests {
+
+    private static final WireMockServer WIREMOCK = new WireMockServer(wireMockConfig().dynamicPort());
+
+    static {
+        WIREMOCK.start();
+        configureFor("localhost", WIREMOCK.port());
+    }
+
+    @Autowired
+    private OutboxRelay relay;
+
+    @SpyBean
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private OutboxMessageRepository outboxRepository;
+
+    @DynamicPropertySource
+    static void overrideProps(DynamicPropertyRegistry r) {
+        r.add("hotel.base-url", () -> "http://localhost:" + WIREMOCK.port());
+        r.add("hotel.timeout-ms", () -> "800");
+        r.add("hotel.retries", () -> "1");
+        // relay запускается вручную
+        r.add("booking.outbox.poll-interval-ms", () -> "3600000");
+        // компенсация незавершённой саги наступает сразу
+        r.add("booking.outbox.compensation-delay-ms", () -> "0");
+        // своя БД: relay других закэшированных контекстов (опрос каждые 500 мс) не должен видеть сообщения теста
+        r.add("spring.datasource.url", () -> "jdbc:h2:mem:outbox-relay;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE");
+
+        r.add("eureka.client.enabled", () -> "false");
+        r.add("eureka.client.register-with-eureka", () -> "false");
+        r.add("eureka.client.fetch-registry", () -> "false");
+    }
+
+    @AfterAll
+    void stopWiremock() {
+        WIREMOCK.stop();
+    }
+
+    @BeforeEach
+    void reset() {
+        WIREMOCK.resetAll();
+        outboxRepository.deleteAll();
+        bookingRepository.deleteAll();
+    }
+
+    @Test
+    void orphanedHoldIsReleasedWithServiceToken() {
+        stubFor(post(urlPathEqualTo("/api/rooms/release")).willReturn(aResponse().withStatus(200)));
+        OutboxMessage message = orphanedSaga();
+
+        Assertions.assertEquals(1, relay.relayDue());
+
+        verify(postRequestedFor(urlPathEqualTo("/api/rooms/release"))
+                .withQueryParam("requestId", equalTo(message.getRequestId()))
+                .withHeader("X-Request-Id", equalTo(message.getRequestId()))
+                .withHeader("Authorization", matching("Bearer .+")));
+        OutboxMessage after = outboxRepository.findById(message.getId()).orElseThrow();
+        Assertions.assertEquals(OutboxMessage.Status.SENT, after.getStatus());
+        Assertions.assertEquals(1, after.getAttempts());
+    }
+
+    @Test
+    void unavailableHotelServiceKeepsMessageForRetry() {
+        stubFor(post(urlPathEqualTo("/api/rooms/release")).willReturn(serviceUnavailable()));
+        OutboxMessage message = orphanedSaga();
+
+        relay.relayDue();
+
+        OutboxMessage after = outboxRepository.findById(message.getId()).orElseThrow();
+        Assertions.assertEquals(OutboxMessage.Status.PENDING, after.getStatus());
+        Assertions.assertEquals(1, after.getAttempts());
+        Assertions.assertNotNull(after.getLastError());
+        Assertions.assertTrue(after.getDueAt().isAfter(Instant.now()));
+
+        // повтор ещё не наступил — relay не трогает сообщение
+        Assertions.assertEquals(0, relay.relayDue());
+        verify(1, postRequestedFor(urlPathEqualTo("/api/rooms/release")));
+    }
+
+    @Test
+    void sagaKilledAfterReserveIsCompensatedAndCancelled() {
+        stubFor(get(urlPathEqualTo("/api/rooms/capabilities"))
+                .willReturn(okJson("{\"operations\":[\"hold\",\"confirm\",\"release\",\"reserve\"]}")));
+        stubFor(post(urlPathEqualTo("/api/rooms/1/reserve")).willReturn(aResponse().withStatus(200)));
+        stubFor(post(urlPathEqualTo("/api/rooms/release")).willReturn(aResponse().withStatus(200)));
+        // процесс «падает» после reserve: итоговый статус не записывается
+        Mockito.doThrow(new IllegalStateException("killed")).when(bookingRepository).completePending(
+                ArgumentMatchers.anyLong(), ArgumentMatchers.eq(Booking.Status.CONFIRMED), ArgumentMatchers.any());
+        String requestId = UUID.randomUUID().toString();
+        LocalDate start = LocalDate.now().plusDays(1);
+
+        Assertions.assertThrows(IllegalStateException.class,
+                () -> bookingService.createBooking(1L, 1L, start, start.plusDays(1), requestId));
+        Mockito.reset(bookingRepository);
+        verify(postRequestedFor(urlPathEqualTo("/api/rooms/1/reserve")).withQueryParam("requestId", equalTo(requestId)));
+        Booking orphan = bookingRepository.findByRequestId(requestId).orElseThrow();
+        Assertions.assertEquals(Booking.Status.PENDING, orphan.getStatus());
+
+        Assertions.assertEquals(1, relay.relayDue());
+
+        // подтверждённое удержание освобождается компенсацией, бронирование отменяется
+        verify(postRequestedFor(urlPathEqualTo("/api/rooms/release"))
+                .withQueryParam("requestId", equalTo(requestId))
+                .withQueryParam("compensation", equalTo("true")));
+        Assertions.assertEquals(Booking.Status.CANCELLED,
+                bookingRepository.findById(orphan.getId()).orElseThrow().getStatus());
+        Assertions.assertEquals(0, relay.relayDue());
+    }
+
+    private OutboxMessage orphanedSaga() {
+        Booking booking = new Booking();
+        booking.setRequestId(UUID.randomUUID().toString());
+        booking.setUserId(1L);
+        booking.setRoomId(1L);
+        booking.setStartDate(LocalDate.now().plusDays(1));
+        booking.setEndDate(LocalDate.now().plusDays(2));
+        booking.setStatus(Booking.Status.PENDING);
+        booking.setCreatedAt(OffsetDateTime.now());
+        booking = bookingRepository.save(booking);
+
+        OutboxMessage message = new OutboxMessage();
+        message.setBookingId(booking.getId());
+        message.setRequestId(booking.getRequestId());
+        message.setType(OutboxMessage.Type.RELEASE_HOLD);
+        message.setStatus(OutboxMessage.Status.PENDING);
+        message.setCreatedAt(Instant.now().minusSeconds(300));
+        message.setDueAt(Instant.now().minusSeconds(1));
+        return outboxRepository.save(message);
+    }
+}
@@ -0,0 +1,163 @@
+package com.mybooking.bookingservice;
+
+import com.mybooking.bookingservice.service.BookingService;
+import com.mybooking.bookingservice.service.RoomSuggestionCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Кэш подсказок по комнатам: TTL, stale-while-revalidate, single-flight и последнее удачное значение
+ * при недоступном hotel-service.
+ */
+class RoomSuggestionCacheTests {
+
+    private static final long TTL_MS = 1_000;
+    private static final long MAX_STALE_MS = 10_000;
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+    private final AtomicLong now = new AtomicLong(1_000_000_000L);
+    private final AtomicInteger loads = new AtomicInteger();
+    private RoomSuggestionCache cache;
+
+    @AfterEach
+    void destroy() {
+        if (cache != null) {
+            cache.destroy();
+        }
+    }
+
+    @Test
+    void freshValueIsServedFromCache() {
+        cache = cache(() -> rooms(loads.incrementAndGet()));
+
+        Assertions.assertEquals(rooms(1), cache.get());
+        advanceMs(TTL_MS - 1);
+        Assertions.assertEquals(rooms(1), cache.get());
+
+        Assertions.assertEquals(1, loads.get());
+        Assertions.assertEquals(1.0, count("booking.suggestions.cache", "miss"));
+        Assertions.assertEquals(1.0, count("booking.suggestions.cache", "hit"));
+    }
+
+    @Test
+    void staleValueIsServedWhileRefreshingInBackground() throws Exception {
+        cache = cache(() -> rooms(loads.incrementAndGet()));
+        cache.get();
+        advanceMs(TTL_MS + 1);
+
+        Assertions.assertEquals(rooms(1), cache.get());
+
+        awaitCount("booking.suggestions.refresh", "success", 2.0);
+        Assertions.assertEquals(rooms(2), cache.get());
+        Assertions.assertEquals(1.0, count("booking.suggestions.cache", "stale"));
+    }
+
+    @Test
+    void burstOfMissesTriggersSingleLoad() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        cache = cache(() -> {
+            loads.incrementAndGet();
+            await(release);
+            return rooms(1);
+        });
+        ExecutorService callers = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<List<BookingService.RoomView>>> results = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                results.add(callers.submit(cache::get));
+            }
+            awaitCount("booking.suggestions.cache", "miss", 16.0);
+            release.countDown();
+            for (Future<List<BookingService.RoomView>> result : results) {
+                Assertions.assertEquals(rooms(1), result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+
+        Assertions.assertEquals(1, loads.get());
+    }
+
+    @Test
+    void lastGoodValueIsServedWhenHotelServiceIsDown() throws Exception {
+        AtomicBoolean down = new AtomicBoolean();
+        cache = cache(() -> {
+            loads.incrementAndGet();
+            if (down.get()) {
+                throw new IllegalStateException("hotel-service is down");
+            }
+            return rooms(1);
+        });
+        cache.get();
+        down.set(true);
+
+        // в окне stale: фоновая загрузка не удалась, значение прежнее
+        advanceMs(TTL_MS + 1);
+        Assertions.assertEquals(rooms(1), cache.get());
+        awaitCount("booking.suggestions.refresh", "failure", 1.0);
+        Assertions.assertEquals(rooms(1), cache.get());
+        Assertions.assertEquals(2, loads.get(), "failure backoff suppresses immediate reload");
+
+        // за пределами окна stale: синхронная загрузка не удалась, но отдаётся последнее удачное значение
+        advanceMs(MAX_STALE_MS);
+        Assertions.assertEquals(rooms(1), cache.get());
+        Assertions.assertEquals(1.0, count("booking.suggestions.cache", "stale_on_error"));
+    }
+
+    @Test
+    void missWithoutCachedValuePropagatesFailure() {
+        cache = cache(() -> {
+            throw new IllegalStateException("hotel-service is down");
+        });
+
+        Assertions.assertThrows(IllegalStateException.class, cache::get);
+    }
+
+    private RoomSuggestionCache cache(Supplier<List<BookingService.RoomView>> loader) {
+        return new RoomSuggestionCache(loader, now::get, registry, TTL_MS, MAX_STALE_MS, 5_000);
+    }
+
+    private void advanceMs(long ms) {
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(ms));
+    }
+
+    private double count(String metric, String result) {
+        var counter = registry.find(metric).tag("result", result).counter();
+        return counter == null ? 0.0 : counter.count();
+    }
+
+    private void awaitCount(String metric, String result, double expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (count(metric, result) < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assertions.assertEquals(expected, count(metric, result));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static List<BookingService.RoomView> rooms(long version) {
+        return List.of(new BookingService.RoomView(version, "10" + version, version));
+    }
+}
@@ -0,0 +1,333 @@
+package com.mybooking.datagen;
+
+import org.springframework.security.crypto.bcrypt.BCrypt;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Генератор синтетического набора данных MyBooking для нагрузочного тестирования.
+ *
+ * <p>Пишет согласованные CSV в форматах {@code CsvDataInitializer} обоих сервисов:
+ * <ul>
+ *   <li>hotel-service: {@code hotels.csv}, {@code rooms.csv}, {@code locks.csv};</li>
+ *   <li>booking-service: {@code users.csv}, {@code bookings.csv}.</li>
+ * </ul>
+ * Идентификаторы идут подряд с 1 (загрузчики получают те же id из последовательностей при загрузке
+ * в пустые таблицы). Популярность номеров, пользователей и городов распределена по Ципфу
+ * ({@code --skew}); периоды бронирований пересекаются, но активные удержания одного номера
+ * (HELD, CONFIRMED) не пересекаются: бронирование на занятые ночи записывается как CANCELLED
+ * с удержанием RELEASED. {@code times_booked} номера равен числу его подтверждённых бронирований.
+ * Результат детерминирован при одинаковых параметрах и {@code --seed}.</p>
+ *
+ * <p>Запуск: {@code java -jar datagen/target/datagen-0.0.1-SNAPSHOT.jar --out=target/dataset --hotels=10000
+ * --rooms-per-hotel=100 --users=100000 --bookings=1000000}.</p>
+ */
+public final class DataGenerator {
+
+    private static final List<String> CITIES = List.of(
+            "Amsterdam", "Berlin", "Paris", "London", "Rome", "Madrid", "Barcelona", "Vienna", "Prague", "Lisbon",
+            "Budapest", "Warsaw", "Copenhagen", "Stockholm", "Oslo", "Helsinki", "Dublin", "Brussels", "Zurich", "Athens");
+
+    private static final int ROOMS_PER_FLOOR = 20;
+
+    private final Options options;
+
+    public DataGenerator(Options options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Options options;
+        try {
+            options = Options.parse(args);
+        } catch (IllegalArgumentException | DateTimeException ex) {
+            System.err.println(ex.getMessage());
+            System.err.println(Options.USAGE);
+            System.exit(2);
+            return;
+        }
+        Summary summary = new DataGenerator(options).generate();
+        System.out.println(summary);
+    }
+
+    /**
+     * Генерирует набор данных в каталог {@link Options#out()}.
+     *
+     * @return число строк по файлам и длительность
+     */
+    public Summary generate() throws IOException {
+        long startedAt = System.nanoTime();
+        Files.createDirectories(options.out());
+        Random random = new Random(options.seed());
+        Map<String, Long> rows = new LinkedHashMap<>();
+
+        rows.put("hotels.csv", writeHotels(random));
+        rows.put("users.csv", writeUsers());
+        int[] timesBooked = new int[options.rooms()];
+        long[] statuses = writeBookingsAndLocks(random, timesBooked);
+        rows.put("bookings.csv", (long) options.bookings());
+        rows.put("locks.csv", (long) options.bookings());
+        rows.put("rooms.csv", writeRooms(random, timesBooked));
+
+        return new Summary(rows, statuses[0], statuses[1], statuses[2],
+                Duration.ofNanos(System.nanoTime() - startedAt));
+    }
+
+    private long writeHotels(Random random) throws IOException {
+        ZipfSampler cities = new ZipfSampler(CITIES.size(), options.skew());
+        try (Writer out = open("hotels.csv")) {
+            out.write("id,name,city,address\n");
+            for (int id = 1; id <= options.hotels(); id++) {
+                String city = CITIES.get(cities.sample(random) - 1);
+                out.write(id + "," + city + " Hotel " + id + "," + city + ",Street " + (1 + random.nextInt(300)) + "\n");
+            }
+        }
+        return options.hotels();
+    }
+
+    private long writeUsers() throws IOException {
+        // один хеш на всех: BCrypt намеренно медленный, а пароль у синтетических пользователей общий
+        String hash = BCrypt.hashpw(options.password(), BCrypt.gensalt());
+        try (Writer out = open("users.csv")) {
+            out.write("id,username,password,role\n");
+            out.write("1,admin," + hash + ",ADMIN\n");
+            for (int id = 2; id <= options.users(); id++) {
+                out.write(id + ",user" + id + "," + hash + ",USER\n");
+            }
+        }
+        return options.users();
+    }
+
+    /**
+     * @return число бронирований CONFIRMED, PENDING и CANCELLED
+     */
+    private long[] writeBookingsAndLocks(Random random, int[] timesBooked) throws IOException {
+        int rooms = options.rooms();
+        ZipfSampler roomPopularity = new ZipfSampler(rooms, options.skew());
+        ZipfSampler userActivity = new ZipfSampler(options.users(), options.skew());
+        long roomStride = coprimeStride(rooms);
+        long userStride = coprimeStride(options.users());
+
+        // ночи горизонта по номерам: бит занят активным удержанием
+        int words = (options.days() + options.maxNights() + 64) >>> 6;
+        long[] occupied = new long[Math.multiplyExact(rooms, words)];
+
+        long origin = options.from().toEpochDay();
+        String holdExpiresAt = Instant.now().plus(Duration.ofMinutes(15)).truncatedTo(ChronoUnit.SECONDS).toString();
+        long confirmed = 0;
+        long pending = 0;
+        long cancelled = 0;
+
+        try (Writer bookings = open("bookings.csv"); Writer locks = open("locks.csv")) {
+            bookings.write("id,request_id,user_id,room_id,start_date,end_date,status\n");
+            locks.write("id,request_id,room_id,start_date,end_date,status,expires_at\n");
+            for (int id = 1; id <= options.bookings(); id++) {
+                // ранги популярности разбрасываются по id, чтобы популярные номера не были в одном отеле
+                int roomIndex = permute(roomPopularity.sample(random), roomStride, rooms);
+                int userId = permute(userActivity.sample(random), userStride, options.users()) + 1;
+                int start = random.nextInt(options.days());
+                int end = start + 1 + random.nextInt(options.maxNights());
+
+                double roll = random.nextDouble();
+                String status = roll < 0.80 ? "CONFIRMED" : roll < 0.95 ? "CANCELLED" : "PENDING";
+                if (!status.equals("CANCELLED")) {
+                    int base = roomIndex * words;
+                    if (isFree(occupied, base, start, end)) {
+                        occupy(occupied, base, start, end);
+                    } else {
+                        // сага не смогла удержать номер
+                        status = "CANCELLED";
+                    }
+                }
+
+                String lockStatus;
+                String expiresAt = "";
+                switch (status) {
+                    case "CONFIRMED" -> {
+                        confirmed++;
+                        timesBooked[roomIndex]++;
+                        lockStatus = "CONFIRMED";
+                    }
+                    case "PENDING" -> {
+                        pending++;
+                        lockStatus = "HELD";
+                        expiresAt = holdExpiresAt;
+                    }
+                    default -> {
+                        cancelled++;
+                        lockStatus = "RELEASED";
+                    }
+                }
+
+                String requestId = "GEN-" + id;
+                String startDate = LocalDate.ofEpochDay(origin + start).toString();
+                String endDate = LocalDate.ofEpochDay(origin + end).toString();
+                int roomId = roomIndex + 1;
+                bookings.write(id + "," + requestId + "," + userId + "," + roomId + ","
+                        + startDate + "," + endDate + "," + status + "\n");
+                locks.write(id + "," + requestId + "," + roomId + ","
+                        + startDate + "," + endDate + "," + lockStatus + "," + expiresAt + "\n");
+            }
+        }
+        return new long[]{confirmed, pending, cancelled};
+    }
+
+    private long writeRooms(Random random, int[] timesBooked) throws IOException {
+        try (Writer out = open("rooms.csv")) {
+            out.write("id,hotel_id,number,capacity,times_booked,available\n");
+            int id = 0;
+            for (int hotel = 1; hotel <= options.hotels(); hotel++) {
+                for (int i = 0; i < options.roomsPerHotel(); i++) {
+                    int number = (i / ROOMS_PER_FLOOR + 1) * 100 + i % ROOMS_PER_FLOOR + 1;
+                    int capacity = 1 + random.nextInt(4);
+                    boolean available = random.nextInt(100) < 95;
+                    out.write((id + 1) + "," + hotel + "," + number + "," + capacity + ","
+                            + timesBooked[id] + "," + available + "\n");
+                    id++;
+                }
+            }
+        }
+        return options.rooms();
+    }
+
+    /**
+     * Проверяет ночи {@code [from, to]} (включительно) номера с картой, начинающейся со слова {@code base}.
+     */
+    private static boolean isFree(long[] occupied, int base, int from, int to) {
+        for (int night = from; night <= to; night++) {
+            if ((occupied[base + (night >>> 6)] & (1L << night)) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void occupy(long[] occupied, int base, int from, int to) {
+        for (int night = from; night <= to; night++) {
+            occupied[base + (night >>> 6)] |= 1L << night;
+        }
+    }
+
+    /**
+     * Биекция рангов {@code 1..n} на индексы {@code 0..n-1}: умножение на взаимно простой шаг по модулю n.
+     */
+    private static int permute(int rank, long stride, int n) {
+        return (int) ((rank - 1) * stride % n);
+    }
+
+    private static long coprimeStride(int n) {
+        long stride = 1_000_003L;
+        while (gcd(stride, n) != 1) {
+            stride += 2;
+        }
+        return stride;
+    }
+
+    private static long gcd(long a, long b) {
+        return b == 0 ? a : gcd(b, a % b);
+    }
+
+    private Writer open(String file) throws IOException {
+        return new BufferedWriter(Files.newBufferedWriter(options.out().resolve(file), StandardCharsets.UTF_8), 1 << 20);
+    }
+
+    /**
+     * Параметры генерации.
+     *
+     * @param out           каталог результата
+     * @param hotels        число отелей
+     * @param roomsPerHotel номеров в отеле
+     * @param users         число пользователей (первый — admin)
+     * @param bookings      число бронирований (и удержаний)
+     * @param skew          показатель распределения Ципфа (0 — равномерно)
+     * @param from          первая дата заезда
+     * @param days          число дат заезда начиная с {@code from}
+     * @param maxNights     максимальная длительность бронирования в ночах
+     * @param password      пароль всех пользователей
+     * @param seed          зерно генератора случайных чисел
+     */
+    public record Options(Path out, int hotels, int roomsPerHotel, int users, int bookings, double skew,
+                          LocalDate from, int days, int maxNights, String password, long seed) {
+
+        static final String USAGE = """
+                Usage: java -jar datagen.jar [--out=target/dataset] [--hotels=1000] [--rooms-per-hotel=20]
+                       [--users=1000] [--bookings=10000] [--skew=0.8] [--from=<today>] [--days=365]
+                       [--max-nights=7] [--password=password] [--seed=42]""";
+
+        public Options {
+            if (hotels < 1 || roomsPerHotel < 1 || users < 1 || bookings < 0 || days < 1 || maxNights < 1) {
+                throw new IllegalArgumentException("sizes must be positive");
+            }
+            if ((long) hotels * roomsPerHotel > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("too many rooms: " + (long) hotels * roomsPerHotel);
+            }
+        }
+
+        /**
+         * @return общее число номеров
+         */
+        public int rooms() {
+            return hotels * roomsPerHotel;
+        }
+
+        static Options parse(String[] args) {
+            Map<String, String> values = new LinkedHashMap<>();
+            for (String arg : args) {
+                if (!arg.startsWith("--") || !arg.contains("=")) {
+                    throw new IllegalArgumentException("Unexpected argument: " + arg);
+                }
+                values.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+            Options options = new Options(
+                    Path.of(values.getOrDefault("out", "target/dataset")),
+                    Integer.parseInt(values.getOrDefault("hotels", "1000")),
+                    Integer.parseInt(values.getOrDefault("rooms-per-hotel", "20")),
+                    Integer.parseInt(values.getOrDefault("users", "1000")),
+                    Integer.parseInt(values.getOrDefault("bookings", "10000")),
+                    Double.parseDouble(values.getOrDefault("skew", "0.8")),
+                    values.containsKey("from") ? LocalDate.parse(values.get("from")) : LocalDate.now(),
+                    Integer.parseInt(values.getOrDefault("days", "365")),
+                    Integer.parseInt(values.getOrDefault("max-nights", "7")),
+                    values.getOrDefault("password", "password"),
+                    Long.parseLong(values.getOrDefault("seed", "42")));
+            values.keySet().removeAll(List.of("out", "hotels", "rooms-per-hotel", "users", "bookings", "skew",
+                    "from", "days", "max-nights", "password", "seed"));
+            if (!values.isEmpty()) {
+                throw new IllegalArgumentException("Unknown options: " + values.keySet());
+            }
+            return options;
+        }
+    }
+
+    /**
+     * Итог генерации.
+     *
+     * @param rows      число строк данных по файлам
+     * @param confirmed подтверждённых бронирований
+     * @param pending   бронирований в ожидании (удержание HELD)
+     * @param cancelled отменённых бронирований (включая конфликты дат)
+     * @param took      длительность
+     */
+    public record Summary(Map<String, Long> rows, long confirmed, long pending, long cancelled, Duration took) {
+
+        @Override
+        public String toString() {
+            return "Dataset generated in " + took.toMillis() + " ms: " + rows
+                    + ", bookings CONFIRMED=" + confirmed + " PENDING=" + pending + " CANCELLED=" + cancelled;
+        }
+    }
+}
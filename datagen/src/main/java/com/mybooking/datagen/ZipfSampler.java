@@ -0,0 +1,91 @@
+package com.mybooking.datagen;
+
+import java.util.Random;
+
+/**
+ * Выборка рангов {@code 1..n} с распределением Ципфа: {@code P(k) ~ 1 / k^exponent}.
+ *
+ * <p>Метод rejection-inversion (W. Hörmann, G. Derflinger): O(1) памяти и в среднем чуть больше одной
+ * итерации на выборку, поэтому подходит для {@code n} до 10^7 без таблицы вероятностей.
+ * {@code exponent = 0} даёт равномерное распределение.</p>
+ */
+public final class ZipfSampler {
+
+    private final int n;
+    private final double exponent;
+    private final double hIntegralX1;
+    private final double hIntegralN;
+    private final double s;
+
+    /**
+     * @param n        число рангов (не меньше 1)
+     * @param exponent показатель степени (не меньше 0)
+     */
+    public ZipfSampler(int n, double exponent) {
+        if (n < 1) {
+            throw new IllegalArgumentException("n must be positive: " + n);
+        }
+        if (exponent < 0) {
+            throw new IllegalArgumentException("exponent must not be negative: " + exponent);
+        }
+        this.n = n;
+        this.exponent = exponent;
+        this.hIntegralX1 = hIntegral(1.5) - 1d;
+        this.hIntegralN = hIntegral(n + 0.5);
+        this.s = 2d - hIntegralInverse(hIntegral(2.5) - h(2));
+    }
+
+    /**
+     * @param random источник случайности
+     * @return ранг от 1 (самый популярный) до n
+     */
+    public int sample(Random random) {
+        while (true) {
+            double u = hIntegralN + random.nextDouble() * (hIntegralX1 - hIntegralN);
+            double x = hIntegralInverse(u);
+            int k = (int) (x + 0.5);
+            if (k < 1) {
+                k = 1;
+            } else if (k > n) {
+                k = n;
+            }
+            if (k - x <= s || u >= hIntegral(k + 0.5) - h(k)) {
+                return k;
+            }
+        }
+    }
+
+    private double hIntegral(double x) {
+        double logX = Math.log(x);
+        return helper2((1d - exponent) * logX) * logX;
+    }
+
+    private double h(double x) {
+        return Math.exp(-exponent * Math.log(x));
+    }
+
+    private double hIntegralInverse(double x) {
+        double t = Math.max(x * (1d - exponent), -1d);
+        return Math.exp(helper1(t) * x);
+    }
+
+    /**
+     * {@code log(1 + x) / x} с устойчивостью около нуля.
+     */
+    private static double helper1(double x) {
+        if (Math.abs(x) > 1e-8) {
+            return Math.log1p(x) / x;
+        }
+        return 1d - x * (0.5 - x * (1d / 3d - 0.25 * x));
+    }
+
+    /**
+     * {@code (exp(x) - 1) / x} с устойчивостью около нуля.
+     */
+    private static double helper2(double x) {
+        if (Math.abs(x) > 1e-8) {
+            return Math.expm1(x) / x;
+        }
+        return 1d + x * 0.5 * (1d + x / 3d * (1d + 0.25 * x));
+    }
+}
@@ -0,0 +1,97 @@
+package com.mybooking.datagen;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Тесты генератора набора данных: согласованность файлов, непересечение активных удержаний,
+ * перекос популярности и воспроизводимость.
+ */
+class DataGeneratorTests {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void generatesConsistentDataset() throws Exception {
+        DataGenerator.Summary summary = new DataGenerator(options(dir.resolve("a"), 42)).generate();
+
+        List<String[]> rooms = rows(dir.resolve("a/rooms.csv"));
+        List<String[]> bookings = rows(dir.resolve("a/bookings.csv"));
+        List<String[]> locks = rows(dir.resolve("a/locks.csv"));
+        Assertions.assertEquals(50, rows(dir.resolve("a/hotels.csv")).size());
+        Assertions.assertEquals(1000, rooms.size());
+        Assertions.assertEquals(200, rows(dir.resolve("a/users.csv")).size());
+        Assertions.assertEquals(20_000, bookings.size());
+        Assertions.assertEquals(20_000, locks.size());
+        Assertions.assertEquals(20_000, summary.confirmed() + summary.pending() + summary.cancelled());
+
+        // активные удержания одного номера не пересекаются (границы включительные)
+        Map<String, List<long[]>> active = new HashMap<>();
+        for (String[] lock : locks) {
+            if (!lock[5].equals("RELEASED")) {
+                long start = LocalDate.parse(lock[3]).toEpochDay();
+                long end = LocalDate.parse(lock[4]).toEpochDay();
+                for (long[] other : active.computeIfAbsent(lock[2], k -> new ArrayList<>())) {
+                    Assertions.assertTrue(end < other[0] || start > other[1], "overlap in room " + lock[2]);
+                }
+                active.get(lock[2]).add(new long[]{start, end});
+            }
+        }
+
+        long timesBooked = rooms.stream().mapToLong(r -> Long.parseLong(r[4])).sum();
+        Assertions.assertEquals(summary.confirmed(), timesBooked);
+
+        // спрос (все бронирования, включая отменённые) на самый популярный номер многократно выше среднего
+        Map<String, Integer> demand = new HashMap<>();
+        bookings.forEach(b -> demand.merge(b[3], 1, Integer::sum));
+        int maxDemand = demand.values().stream().mapToInt(Integer::intValue).max().orElseThrow();
+        Assertions.assertTrue(maxDemand > 10 * bookings.size() / rooms.size(), "popularity is not skewed: " + maxDemand);
+    }
+
+    @Test
+    void sameSeedProducesSameFiles() throws Exception {
+        new DataGenerator(options(dir.resolve("a"), 7)).generate();
+        new DataGenerator(options(dir.resolve("b"), 7)).generate();
+
+        Assertions.assertEquals(Files.readString(dir.resolve("a/bookings.csv")), Files.readString(dir.resolve("b/bookings.csv")));
+        Assertions.assertEquals(Files.readString(dir.resolve("a/rooms.csv")), Files.readString(dir.resolve("b/rooms.csv")));
+    }
+
+    @Test
+    void zipfSamplerFavoursLowRanks() {
+        ZipfSampler zipf = new ZipfSampler(10_000_000, 1.1);
+        Random random = new Random(1);
+        int[] counts = new int[4];
+        for (int i = 0; i < 100_000; i++) {
+            int k = zipf.sample(random);
+            Assertions.assertTrue(k >= 1 && k <= 10_000_000);
+            if (k <= 3) {
+                counts[k]++;
+            }
+        }
+        // P(1) / P(2) = 2^1.1
+        Assertions.assertEquals(Math.pow(2, 1.1), (double) counts[1] / counts[2], 0.15);
+        Assertions.assertTrue(counts[2] > counts[3]);
+    }
+
+    private static DataGenerator.Options options(Path out, long seed) {
+        return new DataGenerator.Options(out, 50, 20, 200, 20_000, 1.1, LocalDate.of(2030, 1, 1), 90, 7,
+                "password", seed);
+    }
+
+    private static List<String[]> rows(Path file) throws Exception {
+        List<String> lines = Files.readAllLines(file);
+        return lines.subList(1, lines.size()).stream().map(l -> l.split(",", -1)).toList();
+    }
+}
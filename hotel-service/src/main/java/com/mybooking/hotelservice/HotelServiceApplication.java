@@ -3,6 +3,7 @@ package com.mybooking.hotelservice;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Точка входа в микросервис управления отелями (Hotel Service).
@@ -14,9 +15,13 @@ import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
  * в системе обнаружения сервисов (Eureka), что позволяет другим микросервисам
  * (например, API Gateway или Booking Service) находить данный сервис
  * динамически по имени, а не по жёстко заданному адресу.</p>
+ *
+ * <p>{@link EnableScheduling} включает периодические фоновые задачи сервиса
+ * (например, сверку in-memory индекса занятости номеров с БД).</p>
  */
 @SpringBootApplication
 @EnableDiscoveryClient
+@EnableScheduling
 public class HotelServiceApplication {
 
     /**
@@ -1,6 +1,7 @@
 package com.mybooking.hotelservice.api;
 
 import com.mybooking.hotelservice.logging.RequestIdMdcFilter;
+import com.mybooking.hotelservice.service.RoomBusyException;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.ConstraintViolationException;
@@ -78,6 +79,18 @@ public class GlobalExceptionHandler {
         return build(HttpStatus.CONFLICT, "Conflict", "Conflict", req);
     }
 
+    /**
+     * 429 Too Many Requests: блокировка номера не получена вовремя, повтор может пройти.
+     * Не 503: конкуренция за один номер не должна открывать circuit breaker вызывающего сервиса.
+     */
+    @ExceptionHandler(RoomBusyException.class)
+    public org.springframework.http.ResponseEntity<ErrorDto> handleRoomBusy(RoomBusyException ex, HttpServletRequest req) {
+        ErrorDto body = build(HttpStatus.TOO_MANY_REQUESTS, "Too Many Requests", safeMessage(ex), req).getBody();
+        return org.springframework.http.ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(org.springframework.http.HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(body);
+    }
+
     @ExceptionHandler(IllegalStateException.class)
     public org.springframework.http.ResponseEntity<ErrorDto> handleIllegalState(IllegalStateException ex, jakarta.servlet.http.HttpServletRequest req) {
         // В hotel-service конфликт доступности/занятости/hold — это доменный Conflict (409).
@@ -2,44 +2,71 @@ package com.mybooking.hotelservice.config;
 
 import com.mybooking.hotelservice.model.Hotel;
 import com.mybooking.hotelservice.model.Room;
+import com.mybooking.hotelservice.model.RoomReservationLock;
 import com.mybooking.hotelservice.repository.HotelRepository;
 import com.mybooking.hotelservice.repository.RoomRepository;
+import com.mybooking.hotelservice.repository.RoomReservationLockRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.ApplicationRunner;
-import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
 import org.springframework.stereotype.Component;
 
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
  * Предзаполнение БД из CSV для демонстрации бизнес-сценариев.
  *
  * <p>Загружает данные только если таблицы hotels и rooms пустые.
- * Источники: classpath:data/hotels.csv и classpath:data/rooms.csv.</p>
+ * Источники: hotels.csv, rooms.csv и необязательный locks.csv в каталоге {@code hotel.prefill.location}
+ * (по умолчанию classpath:data/; для сгенерированного набора — например, {@code file:target/dataset/}).</p>
  *
- * <p>Связь Room -> Hotel строится через hotel_id из CSV.</p>
+ * <p>Связь Room -> Hotel строится через hotel_id из CSV. Удержания (locks.csv) сохраняются как есть
+ * и попадают в индекс занятости при его построении после старта.</p>
  */
 @Component
 public class CsvDataInitializer implements ApplicationRunner {
 
     private static final Logger log = LoggerFactory.getLogger(CsvDataInitializer.class);
 
-    private static final String HOTELS_CSV = "data/hotels.csv";
-    private static final String ROOMS_CSV = "data/rooms.csv";
+    private static final String HOTELS_CSV = "hotels.csv";
+    private static final String ROOMS_CSV = "rooms.csv";
+    private static final String LOCKS_CSV = "locks.csv";
+    private static final int LOCKS_BATCH = 1000;
 
     private final HotelRepository hotelRepository;
     private final RoomRepository roomRepository;
+    private final RoomReservationLockRepository lockRepository;
+    private final ResourceLoader resourceLoader;
+    private final String location;
 
-    public CsvDataInitializer(HotelRepository hotelRepository, RoomRepository roomRepository) {
+    /**
+     * @param location каталог CSV (Spring resource location с завершающим '/')
+     */
+    public CsvDataInitializer(
+            HotelRepository hotelRepository,
+            RoomRepository roomRepository,
+            RoomReservationLockRepository lockRepository,
+            ResourceLoader resourceLoader,
+            @Value("${hotel.prefill.location:classpath:data/}") String location
+    ) {
         this.hotelRepository = hotelRepository;
         this.roomRepository = roomRepository;
+        this.lockRepository = lockRepository;
+        this.resourceLoader = resourceLoader;
+        this.location = location;
     }
 
     @Override
@@ -54,15 +81,16 @@ public class CsvDataInitializer implements ApplicationRunner {
 
         Map<Long, Hotel> hotelsById = loadHotels();
         loadRooms(hotelsById);
+        loadLocks();
 
-        log.info("CSV prefill completed: hotels={}, rooms={}.", hotelRepository.count(), roomRepository.count());
+        log.info("CSV prefill completed: hotels={}, rooms={}, locks={}.",
+                hotelRepository.count(), roomRepository.count(), lockRepository.count());
     }
 
     private Map<Long, Hotel> loadHotels() throws IOException {
         Map<Long, Hotel> hotelsById = new HashMap<>();
 
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
-                new ClassPathResource(HOTELS_CSV).getInputStream(), StandardCharsets.UTF_8))) {
+        try (BufferedReader reader = open(HOTELS_CSV)) {
 
             String header = reader.readLine();
             if (header == null) {
@@ -98,8 +126,7 @@ public class CsvDataInitializer implements ApplicationRunner {
     }
 
     private void loadRooms(Map<Long, Hotel> hotelsById) throws IOException {
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
-                new ClassPathResource(ROOMS_CSV).getInputStream(), StandardCharsets.UTF_8))) {
+        try (BufferedReader reader = open(ROOMS_CSV)) {
 
             String header = reader.readLine();
             if (header == null) {
@@ -140,6 +167,52 @@ public class CsvDataInitializer implements ApplicationRunner {
         }
     }
 
+    private void loadLocks() throws IOException {
+        if (!resourceLoader.getResource(location + LOCKS_CSV).exists()) {
+            return;
+        }
+        try (BufferedReader reader = open(LOCKS_CSV)) {
+
+            String header = reader.readLine();
+            if (header == null) {
+                throw new IllegalStateException("Locks CSV is empty: " + LOCKS_CSV);
+            }
+
+            List<RoomReservationLock> batch = new ArrayList<>(LOCKS_BATCH);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+
+                // id,request_id,room_id,start_date,end_date,status,expires_at
+                String[] parts = splitCsvLine(line, 7, LOCKS_CSV);
+
+                RoomReservationLock lock = new RoomReservationLock();
+                lock.setRequestId(parts[1].trim());
+                lock.setRoomId(Long.parseLong(parts[2].trim()));
+                lock.setStartDate(LocalDate.parse(parts[3].trim()));
+                lock.setEndDate(LocalDate.parse(parts[4].trim()));
+                lock.setStatus(RoomReservationLock.Status.valueOf(parts[5].trim()));
+                String expiresAt = parts[6].trim();
+                lock.setExpiresAt(expiresAt.isEmpty() ? null : Instant.parse(expiresAt));
+
+                batch.add(lock);
+                if (batch.size() == LOCKS_BATCH) {
+                    lockRepository.saveAll(batch);
+                    batch.clear();
+                }
+            }
+            lockRepository.saveAll(batch);
+        }
+    }
+
+    private BufferedReader open(String file) throws IOException {
+        Resource resource = resourceLoader.getResource(location + file);
+        return new BufferedReader(new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8));
+    }
+
     /**
      * Упрощённый CSV-парсер (без кавычек/экранирования).
      */
@@ -0,0 +1,115 @@
+package com.mybooking.hotelservice.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.mybooking.hotelservice.service.ExportService;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.time.Instant;
+
+/**
+ * REST-контроллер выгрузки данных Hotel Service в формате NDJSON ({@code application/x-ndjson}).
+ *
+ * <p>Каждая строка ответа — JSON-объект одной записи. Ответ пишется по мере чтения курсора БД
+ * и не буферизуется целиком. Параметр {@code since} — идентификатор последней полученной записи
+ * для инкрементальной выгрузки; для удержаний — также курсор изменений в формате ISO-8601.</p>
+ */
+@RestController
+@RequestMapping("/api/export")
+@PreAuthorize("hasAuthority('SCOPE_ADMIN')")
+public class ExportController {
+
+    static final String NDJSON = "application/x-ndjson";
+    static final String NEXT_SINCE = "X-Export-Next-Since";
+
+    private final ExportService exportService;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Без сброса после каждой строки: буферы генератора и ответа сбрасываются по заполнении.
+     */
+    private final ObjectWriter rowWriter;
+
+    public ExportController(ExportService exportService, ObjectMapper objectMapper) {
+        this.exportService = exportService;
+        this.objectMapper = objectMapper;
+        this.rowWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    /**
+     * Выгружает отели.
+     *
+     * @param since идентификатор, после которого начинается выгрузка
+     */
+    @GetMapping("/hotels")
+    public void hotels(@RequestParam(defaultValue = "0") long since, HttpServletResponse response) throws IOException {
+        try (JsonGenerator out = open(response)) {
+            exportService.exportHotels(since, row -> writeRow(out, row));
+        }
+    }
+
+    /**
+     * Выгружает номера.
+     *
+     * @param since идентификатор, после которого начинается выгрузка
+     */
+    @GetMapping("/rooms")
+    public void rooms(@RequestParam(defaultValue = "0") long since, HttpServletResponse response) throws IOException {
+        try (JsonGenerator out = open(response)) {
+            exportService.exportRooms(since, row -> writeRow(out, row));
+        }
+    }
+
+    /**
+     * Выгружает удержания номеров (все статусы).
+     *
+     * <p>{@code since} — идентификатор (только новые удержания, в порядке id) либо курсор изменений в формате
+     * ISO-8601 ({@code 2024-05-01T00:00:00Z}) вместе с {@code afterId}: выгружаются удержания, созданные или
+     * изменённые после позиции {@code (since, afterId)}, в порядке {@code (updatedAt, id)}. Курсор следующей
+     * выгрузки изменений возвращается в заголовке {@value #NEXT_SINCE}.</p>
+     *
+     * @param since   идентификатор или момент, после которого начинается выгрузка
+     * @param afterId идентификатор последней полученной записи с {@code updatedAt}, равным {@code since}
+     */
+    @GetMapping("/locks")
+    public void locks(@RequestParam(defaultValue = "0") String since,
+                      @RequestParam(defaultValue = "0") long afterId,
+                      HttpServletResponse response) throws IOException {
+        // разбираем параметр до начала ответа: ошибка формата — 400 в обычном JSON
+        boolean byId = since.chars().allMatch(Character::isDigit);
+        long sinceId = byId ? Long.parseLong(since) : 0;
+        Instant sinceTime = byId ? null : Instant.parse(since);
+        Instant until = byId ? null : exportService.changesUntil();
+
+        if (until != null) {
+            response.setHeader(NEXT_SINCE, until.toString());
+        }
+        try (JsonGenerator out = open(response)) {
+            if (byId) {
+                exportService.exportLocks(sinceId, row -> writeRow(out, row));
+            } else {
+                exportService.exportLocksUpdatedAfter(sinceTime, afterId, until, row -> writeRow(out, row));
+            }
+        }
+    }
+
+    private JsonGenerator open(HttpServletResponse response) throws IOException {
+        response.setContentType(NDJSON);
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream());
+        generator.setRootValueSeparator(null);
+        return generator;
+    }
+
+    private void writeRow(JsonGenerator out, Object row) throws IOException {
+        rowWriter.writeValue(out, row);
+        out.writeRaw('\n');
+    }
+}
@@ -2,7 +2,7 @@ package com.mybooking.hotelservice.controller;
 
 import com.mybooking.hotelservice.dto.HotelDetailsDto;
 import com.mybooking.hotelservice.dto.HotelListDto;
-import com.mybooking.hotelservice.dto.RoomDto;
+import com.mybooking.hotelservice.dto.KeysetPageDto;
 import com.mybooking.hotelservice.model.Hotel;
 import com.mybooking.hotelservice.service.HotelService;
 import org.springframework.data.domain.Page;
@@ -10,8 +10,6 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-
 /**
  * REST-контроллер для управления отелями.
  *
@@ -35,8 +33,26 @@ public class HotelController {
      */
     @GetMapping
     public Page<HotelListDto> listHotels(Pageable pageable) {
-        return hotelService.listHotels(pageable)
-                .map(h -> new HotelListDto(h.getId(), h.getName(), h.getAddress(), h.getCity()));
+        return hotelService.listHotelDtos(pageable);
+    }
+
+    /**
+     * Keyset-пагинация отелей: {@code limit=N[&after=<курсор>]}, без count-запроса и OFFSET.
+     *
+     * @param after курсор из поля {@code next} предыдущей страницы; отсутствует для первой страницы
+     * @param limit размер страницы (1..1000)
+     * @return страница отелей и курсор следующей
+     */
+    @GetMapping(params = "limit")
+    public KeysetPageDto<HotelListDto> listHotelsAfter(
+            @RequestParam(required = false) String after,
+            @RequestParam int limit
+    ) {
+        if (limit < 1 || limit > 1000) {
+            throw new IllegalArgumentException("limit must be between 1 and 1000");
+        }
+        Long afterId = KeysetPageDto.decode("hotels", after);
+        return KeysetPageDto.of(hotelService.listHotelsAfter(afterId, limit + 1), limit, HotelListDto::id, "hotels");
     }
 
     /**
@@ -47,14 +63,8 @@ public class HotelController {
      */
     @GetMapping("/{id}")
     public HotelDetailsDto getHotel(@PathVariable Long id) {
-        Hotel hotel = hotelService.getHotelWithRooms(id)
+        return hotelService.getHotelDetails(id)
                 .orElseThrow(() -> new IllegalStateException("Hotel not found"));
-
-        List<RoomDto> rooms = hotel.getRooms().stream()
-                .map(r -> new RoomDto(r.getId(), r.getNumber(), r.getCapacity(), r.getTimesBooked(), r.isAvailable()))
-                .toList();
-
-        return new HotelDetailsDto(hotel.getId(), hotel.getName(), hotel.getAddress(), hotel.getCity(), rooms);
     }
 
     /**
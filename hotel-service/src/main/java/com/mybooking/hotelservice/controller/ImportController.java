@@ -0,0 +1,66 @@
+package com.mybooking.hotelservice.controller;
+
+import com.mybooking.hotelservice.dto.ImportResultDto;
+import com.mybooking.hotelservice.service.ImportService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * REST-контроллер массового импорта отелей и номеров.
+ *
+ * <p>Принимает файл в теле запроса ({@code text/csv} или {@code application/x-ndjson}) и читает его
+ * потоком, не загружая целиком. Некорректные строки не прерывают импорт и перечисляются в ответе.</p>
+ */
+@RestController
+@RequestMapping("/api/import")
+@PreAuthorize("hasAuthority('SCOPE_ADMIN')")
+public class ImportController {
+
+    private static final String CSV = "text/csv";
+
+    private final ImportService importService;
+
+    public ImportController(ImportService importService) {
+        this.importService = importService;
+    }
+
+    /**
+     * Импортирует отели.
+     *
+     * @param contentType формат тела запроса
+     * @param body        файл отелей
+     * @return итог импорта
+     */
+    @PostMapping(value = "/hotels", consumes = {CSV, ExportController.NDJSON})
+    public ImportResultDto hotels(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType, InputStream body)
+            throws IOException {
+        return importService.importHotels(body, format(contentType));
+    }
+
+    /**
+     * Импортирует номера существующих отелей.
+     *
+     * @param contentType формат тела запроса
+     * @param body        файл номеров
+     * @return итог импорта
+     */
+    @PostMapping(value = "/rooms", consumes = {CSV, ExportController.NDJSON})
+    public ImportResultDto rooms(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType, InputStream body)
+            throws IOException {
+        return importService.importRooms(body, format(contentType));
+    }
+
+    private static ImportService.Format format(String contentType) {
+        return MediaType.parseMediaType(contentType).isCompatibleWith(MediaType.parseMediaType(ExportController.NDJSON))
+                ? ImportService.Format.NDJSON
+                : ImportService.Format.CSV;
+    }
+}
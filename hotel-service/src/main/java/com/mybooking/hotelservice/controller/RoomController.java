@@ -1,16 +1,37 @@
 package com.mybooking.hotelservice.controller;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mybooking.hotelservice.dto.AvailabilityQueryDto;
+import com.mybooking.hotelservice.dto.CapabilitiesDto;
+import com.mybooking.hotelservice.dto.KeysetPageDto;
+import com.mybooking.hotelservice.dto.RoomCalendarDto;
 import com.mybooking.hotelservice.dto.RoomDetailsDto;
 import com.mybooking.hotelservice.model.Room;
 import com.mybooking.hotelservice.model.RoomReservationLock;
 import com.mybooking.hotelservice.service.HotelService;
+import com.mybooking.hotelservice.service.RoomCalendarService;
+import com.mybooking.hotelservice.service.RoomPopularityRanking;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import com.mybooking.hotelservice.dto.RoomListDto;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.io.IOException;
 import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * REST-контроллер для управления номерами отелей.
@@ -23,9 +44,26 @@ import java.time.LocalDate;
 public class RoomController {
 
     private final HotelService hotelService;
+    private final RoomCalendarService calendarService;
+    private final RoomPopularityRanking ranking;
+    private final ObjectMapper objectMapper;
+    private final int availabilityBatchSize;
 
-    public RoomController(HotelService hotelService) {
+    /**
+     * @param availabilityBatchSize размер порции пакетной проверки доступности
+     */
+    public RoomController(
+            HotelService hotelService,
+            RoomCalendarService calendarService,
+            RoomPopularityRanking ranking,
+            ObjectMapper objectMapper,
+            @Value("${hotel.availability.check-batch-size:1000}") int availabilityBatchSize
+    ) {
         this.hotelService = hotelService;
+        this.calendarService = calendarService;
+        this.ranking = ranking;
+        this.objectMapper = objectMapper;
+        this.availabilityBatchSize = availabilityBatchSize;
     }
 
     /**
@@ -35,15 +73,167 @@ public class RoomController {
      */
     @GetMapping
     public Page<RoomListDto> listRooms(Pageable pageable) {
-        return hotelService.listRooms(pageable)
-                .map(r -> new RoomListDto(
-                        r.getId(),
-                        r.getHotel() != null ? r.getHotel().getId() : null,
-                        r.getNumber(),
-                        r.getCapacity(),
-                        r.getTimesBooked(),
-                        r.isAvailable()
-                ));
+        return hotelService.listRoomDtos(pageable);
+    }
+
+    /**
+     * Keyset-пагинация номеров: {@code limit=N[&after=<курсор>]}.
+     *
+     * <p>В отличие от {@link #listRooms(Pageable)} не выполняет count-запрос и OFFSET-сканирование,
+     * поэтому глубокие страницы отдаются так же быстро, как первая.</p>
+     *
+     * @param after курсор из поля {@code next} предыдущей страницы; отсутствует для первой страницы
+     * @param limit размер страницы (1..1000)
+     * @return страница номеров и курсор следующей
+     */
+    @GetMapping(params = "limit")
+    public KeysetPageDto<RoomListDto> listRoomsAfter(
+            @RequestParam(required = false) String after,
+            @RequestParam int limit
+    ) {
+        if (limit < 1 || limit > 1000) {
+            throw new IllegalArgumentException("limit must be between 1 and 1000");
+        }
+        Long afterId = KeysetPageDto.decode("rooms", after);
+        return KeysetPageDto.of(hotelService.listRoomsAfter(afterId, limit + 1), limit, RoomListDto::id, "rooms");
+    }
+
+    /**
+     * Самые популярные доступные номера: {@code n=N[&city=...][&hotelId=...][&minCapacity=...]}.
+     *
+     * <p>Отвечает по инкрементально поддерживаемому рейтингу ({@link RoomPopularityRanking}) без чтения
+     * таблицы номеров и сортировки; {@code timesBooked} включает ещё не записанные в БД подтверждения.</p>
+     *
+     * @param n           число номеров (1..1000)
+     * @param city        город или null
+     * @param hotelId     идентификатор отеля или null
+     * @param minCapacity минимальная вместимость
+     * @return номера по убыванию {@code timesBooked}, при равенстве — по возрастанию id
+     */
+    @GetMapping("/top")
+    public List<RoomListDto> topRooms(
+            @RequestParam(defaultValue = "10") int n,
+            @RequestParam(required = false) String city,
+            @RequestParam(required = false) Long hotelId,
+            @RequestParam(defaultValue = "1") int minCapacity
+    ) {
+        if (n < 1 || n > 1000) {
+            throw new IllegalArgumentException("n must be between 1 and 1000");
+        }
+        return ranking.top(n, city, hotelId, minCapacity);
+    }
+
+    /**
+     * Возвращает номера, свободные на все ночи периода.
+     *
+     * @param startDate   дата начала
+     * @param endDate     дата окончания
+     * @param minCapacity минимальная вместимость
+     * @param hotelId     идентификатор отеля (взаимоисключающий с city)
+     * @param city        город (взаимоисключающий с hotelId)
+     * @param limit       максимальное число номеров в ответе
+     * @return свободные номера
+     */
+    @GetMapping("/availability")
+    public List<RoomListDto> availability(
+            @RequestParam LocalDate startDate,
+            @RequestParam LocalDate endDate,
+            @RequestParam(defaultValue = "1") int minCapacity,
+            @RequestParam(required = false) Long hotelId,
+            @RequestParam(required = false) String city,
+            @RequestParam(defaultValue = "100") int limit
+    ) {
+        return hotelService.findAvailableRooms(startDate, endDate, minCapacity, hotelId, city, Math.min(limit, 1000));
+    }
+
+    /**
+     * Пакетная проверка доступности пар (номер, период).
+     *
+     * <p>Тело — JSON-массив {@code [{"roomId":1,"startDate":"2025-09-10","endDate":"2025-09-12"}, ...]},
+     * ответ — массив {@code boolean} той же длины и в том же порядке. Запрос читается и ответ пишется
+     * потоково порциями по {@code hotel.availability.check-batch-size} элементов, поэтому большие пакеты
+     * не буферизуются целиком; каждая порция проверяется {@link HotelService#checkAvailability}. Элемент, который
+     * не разбирается в запрос (например, неверная дата), получает {@code false}, не прерывая уже начатый ответ.</p>
+     *
+     * @param request  HTTP-запрос (тело читается потоково)
+     * @param response HTTP-ответ (тело пишется потоково)
+     * @throws IOException ошибка чтения или записи тела
+     */
+    @PostMapping("/availability/check")
+    public void checkAvailability(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        JsonFactory factory = objectMapper.getFactory();
+        try (JsonParser parser = factory.createParser(request.getInputStream())) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("Expected JSON array of {roomId, startDate, endDate}");
+            }
+
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            try (JsonGenerator generator = factory.createGenerator(response.getOutputStream())) {
+                generator.writeStartArray();
+                List<AvailabilityQueryDto> batch = new ArrayList<>(availabilityBatchSize);
+                JsonToken token;
+                while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                    if (token == null) {
+                        throw new IllegalArgumentException("Unexpected end of JSON array");
+                    }
+                    batch.add(readQuery(parser, token));
+                    if (batch.size() == availabilityBatchSize) {
+                        writeAvailability(generator, batch);
+                    }
+                }
+                writeAvailability(generator, batch);
+                generator.writeEndArray();
+            }
+        }
+    }
+
+    /**
+     * Читает элемент пакета целиком, затем связывает его с {@link AvailabilityQueryDto}: элемент, который
+     * не связывается (неверная дата, строка вместо числа), становится {@code null} и получает ответ
+     * {@code false}, а разбор продолжается со следующего элемента.
+     */
+    private AvailabilityQueryDto readQuery(JsonParser parser, JsonToken token) throws IOException {
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        JsonNode node = objectMapper.readTree(parser);
+        try {
+            return objectMapper.treeToValue(node, AvailabilityQueryDto.class);
+        } catch (JsonProcessingException ex) {
+            return null;
+        }
+    }
+
+    private void writeAvailability(JsonGenerator generator, List<AvailabilityQueryDto> batch) throws IOException {
+        for (boolean free : hotelService.checkAvailability(batch)) {
+            generator.writeBoolean(free);
+        }
+        generator.flush();
+        batch.clear();
+    }
+
+    /**
+     * Возвращает календари занятости всех номеров отеля за месяц одним ответом.
+     *
+     * @param hotelId идентификатор отеля
+     * @param month   месяц в формате {@code YYYY-MM}
+     * @return календари номеров
+     */
+    @GetMapping("/calendar")
+    public List<RoomCalendarDto> hotelCalendar(@RequestParam Long hotelId, @RequestParam String month) {
+        return calendarService.hotelCalendar(hotelId, YearMonth.parse(month));
+    }
+
+    /**
+     * Возвращает календарь занятости номера за месяц (битовая маска занятых дней).
+     *
+     * @param id    идентификатор номера
+     * @param month месяц в формате {@code YYYY-MM}
+     * @return календарь номера
+     */
+    @GetMapping("/{id}/calendar")
+    public RoomCalendarDto roomCalendar(@PathVariable Long id, @RequestParam String month) {
+        return calendarService.roomCalendar(id, YearMonth.parse(month));
     }
 
     /**
@@ -54,17 +244,8 @@ public class RoomController {
      */
     @GetMapping("/{id}")
     public RoomDetailsDto getRoom(@PathVariable Long id) {
-        Room room = hotelService.getRoom(id)
+        return hotelService.getRoomDetails(id)
                 .orElseThrow(() -> new IllegalStateException("Room not found"));
-
-        return new RoomDetailsDto(
-                room.getId(),
-                room.getHotel() != null ? room.getHotel().getId() : null,
-                room.getNumber(),
-                room.getCapacity(),
-                room.getTimesBooked(),
-                room.isAvailable()
-        );
     }
 
     /**
@@ -109,6 +290,38 @@ public class RoomController {
         return hotelService.holdRoom(requestId, roomId, startDate, endDate);
     }
 
+    /**
+     * Резервирует номер за один вызов (hold + confirm в одной транзакции).
+     *
+     * @param requestId идентификатор запроса
+     * @param roomId идентификатор номера
+     * @param startDate дата начала
+     * @param endDate дата окончания
+     * @return подтверждённое удержание
+     */
+    @PostMapping("/{roomId}/reserve")
+    public RoomReservationLock reserveRoom(
+            @RequestParam String requestId,
+            @PathVariable Long roomId,
+            @RequestParam LocalDate startDate,
+            @RequestParam LocalDate endDate
+    ) {
+        return hotelService.reserveRoom(requestId, roomId, startDate, endDate);
+    }
+
+    /**
+     * Возвращает операции с удержаниями, поддерживаемые этой версией сервиса.
+     *
+     * <p>Используется клиентами (booking-service) для выбора между {@code reserve}
+     * и парой {@code hold} + {@code confirm}.</p>
+     *
+     * @return поддерживаемые операции
+     */
+    @GetMapping("/capabilities")
+    public CapabilitiesDto capabilities() {
+        return CapabilitiesDto.CURRENT;
+    }
+
     /**
      * Подтверждает ранее созданное удержание номера.
      *
@@ -121,13 +334,15 @@ public class RoomController {
     }
 
     /**
-     * Освобождает ранее созданное удержание номера.
+     * Освобождает ранее созданное удержание номера; неизвестный requestId — 404.
      *
-     * @param requestId идентификатор запроса
+     * @param requestId    идентификатор запроса
+     * @param compensation компенсация саги: освобождает и подтверждённое удержание этого requestId
      * @return освобождённое удержание
      */
     @PostMapping("/release")
-    public RoomReservationLock releaseHold(@RequestParam String requestId) {
-        return hotelService.releaseHold(requestId);
+    public RoomReservationLock releaseHold(@RequestParam String requestId,
+                                           @RequestParam(defaultValue = "false") boolean compensation) {
+        return hotelService.releaseHold(requestId, compensation);
     }
 }
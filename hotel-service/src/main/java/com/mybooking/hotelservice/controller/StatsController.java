@@ -1,7 +1,6 @@
 package com.mybooking.hotelservice.controller;
 
-import com.mybooking.hotelservice.model.Room;
-import com.mybooking.hotelservice.repository.RoomRepository;
+import com.mybooking.hotelservice.service.RoomStatistics;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -14,16 +13,17 @@ import java.util.Map;
 /**
  * REST-контроллер статистики Hotel Service.
  *
- * <p>Предоставляет агрегированную информацию о состоянии номерного фонда.</p>
+ * <p>Предоставляет агрегированную информацию о состоянии номерного фонда. Показатели
+ * поддерживаются инкрементально ({@link RoomStatistics}) и не требуют чтения таблицы номеров.</p>
  */
 @RestController
 @RequestMapping("/api/stats")
 public class StatsController {
 
-    private final RoomRepository roomRepository;
+    private final RoomStatistics statistics;
 
-    public StatsController(RoomRepository roomRepository) {
-        this.roomRepository = roomRepository;
+    public StatsController(RoomStatistics statistics) {
+        this.statistics = statistics;
     }
 
     /**
@@ -37,17 +37,35 @@ public class StatsController {
     @GetMapping
     @PreAuthorize("hasAuthority('SCOPE_ADMIN')")
     public Map<String, Object> stats() {
-        List<Room> rooms = roomRepository.findAll();
-
-        long totalRooms = rooms.size();
-        long availableRooms = rooms.stream().filter(Room::isAvailable).count();
-        long totalBookings = rooms.stream().mapToLong(Room::getTimesBooked).sum();
+        RoomStatistics.Totals totals = statistics.totals();
 
         Map<String, Object> result = new HashMap<>();
-        result.put("totalRooms", totalRooms);
-        result.put("availableRooms", availableRooms);
-        result.put("totalBookings", totalBookings);
+        result.put("totalRooms", totals.totalRooms());
+        result.put("availableRooms", totals.availableRooms());
+        result.put("totalBookings", totals.totalBookings());
 
         return result;
     }
+
+    /**
+     * Возвращает статистику по отелям.
+     *
+     * @return показатели каждого отеля
+     */
+    @GetMapping("/by-hotel")
+    @PreAuthorize("hasAuthority('SCOPE_ADMIN')")
+    public List<RoomStatistics.HotelTotals> statsByHotel() {
+        return statistics.byHotel();
+    }
+
+    /**
+     * Возвращает статистику по городам.
+     *
+     * @return показатели, сгруппированные по городу отеля
+     */
+    @GetMapping("/by-city")
+    @PreAuthorize("hasAuthority('SCOPE_ADMIN')")
+    public Map<String, RoomStatistics.Totals> statsByCity() {
+        return statistics.byCity();
+    }
 }
@@ -0,0 +1,8 @@
+package com.mybooking.hotelservice.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Элемент пакетной проверки доступности: номер и период (границы включительные).
+ */
+public record AvailabilityQueryDto(Long roomId, LocalDate startDate, LocalDate endDate) {}
@@ -0,0 +1,16 @@
+package com.mybooking.hotelservice.dto;
+
+import java.util.List;
+
+/**
+ * DTO с перечнем операций над удержаниями, которые поддерживает hotel-service.
+ */
+public record CapabilitiesDto(List<String> operations) {
+
+    public static final String HOLD = "hold";
+    public static final String CONFIRM = "confirm";
+    public static final String RELEASE = "release";
+    public static final String RESERVE = "reserve";
+
+    public static final CapabilitiesDto CURRENT = new CapabilitiesDto(List.of(HOLD, CONFIRM, RELEASE, RESERVE));
+}
@@ -0,0 +1,22 @@
+package com.mybooking.hotelservice.dto;
+
+import java.util.List;
+
+/**
+ * Итог массового импорта.
+ *
+ * @param imported  число сохранённых строк
+ * @param rejected  число отклонённых строк
+ * @param elapsedMs длительность импорта
+ * @param errors    ошибки строк (не более {@code hotel.import.max-errors})
+ */
+public record ImportResultDto(long imported, long rejected, long elapsedMs, List<RowError> errors) {
+
+    /**
+     * Ошибка строки файла.
+     *
+     * @param line    номер строки файла (с 1, включая заголовок CSV)
+     * @param message причина отклонения
+     */
+    public record RowError(long line, String message) {}
+}
@@ -0,0 +1,63 @@
+package com.mybooking.hotelservice.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Страница keyset-пагинации: элементы и непрозрачный курсор следующей страницы.
+ *
+ * <p>Курсор кодирует идентификатор последнего элемента страницы и тип коллекции; клиент передаёт его
+ * без изменений в параметре {@code after}. {@code next == null} — страниц больше нет.</p>
+ *
+ * @param items элементы страницы в порядке идентификаторов
+ * @param next  курсор следующей страницы или null
+ * @param <T>   тип элемента
+ */
+public record KeysetPageDto<T>(List<T> items, String next) {
+
+    /**
+     * Собирает страницу из выборки размером до {@code limit + 1}: лишний элемент означает наличие следующей страницы.
+     *
+     * @param rows  выборка
+     * @param limit размер страницы
+     * @param id    идентификатор элемента
+     * @param kind  тип коллекции (часть курсора)
+     * @return страница
+     */
+    public static <T> KeysetPageDto<T> of(List<T> rows, int limit, Function<T, Long> id, String kind) {
+        if (rows.size() <= limit) {
+            return new KeysetPageDto<>(rows, null);
+        }
+        List<T> items = rows.subList(0, limit);
+        return new KeysetPageDto<>(List.copyOf(items), encode(kind, id.apply(items.get(limit - 1))));
+    }
+
+    /**
+     * @param kind   ожидаемый тип коллекции
+     * @param cursor курсор из параметра {@code after} или null
+     * @return идентификатор, после которого начинается страница; null для первой страницы
+     * @throws IllegalArgumentException курсор повреждён или относится к другой коллекции
+     */
+    public static Long decode(String kind, String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!value.startsWith(kind + ":")) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return Long.parseLong(value.substring(kind.length() + 1));
+        } catch (IllegalArgumentException ex) {
+            // NumberFormatException и ошибки Base64 — тоже IllegalArgumentException
+            throw new IllegalArgumentException("Invalid cursor", ex);
+        }
+    }
+
+    private static String encode(String kind, Long id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((kind + ":" + id).getBytes(StandardCharsets.UTF_8));
+    }
+}
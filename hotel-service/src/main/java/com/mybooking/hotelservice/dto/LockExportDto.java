@@ -0,0 +1,20 @@
+package com.mybooking.hotelservice.dto;
+
+import com.mybooking.hotelservice.model.RoomReservationLock;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * Строка выгрузки удержаний номеров (NDJSON).
+ */
+public record LockExportDto(
+        Long id,
+        String requestId,
+        Long roomId,
+        LocalDate startDate,
+        LocalDate endDate,
+        RoomReservationLock.Status status,
+        Instant expiresAt,
+        Instant updatedAt
+) {}
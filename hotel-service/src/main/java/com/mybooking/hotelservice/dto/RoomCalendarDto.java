@@ -0,0 +1,14 @@
+package com.mybooking.hotelservice.dto;
+
+/**
+ * Календарь занятости номера за месяц.
+ *
+ * <p>{@code occupied} — битовая маска ночей: бит {@code i} установлен, если день {@code i + 1} месяца
+ * занят активным удержанием (HELD или CONFIRMED).</p>
+ *
+ * @param roomId   идентификатор номера
+ * @param month    месяц в формате {@code YYYY-MM}
+ * @param days     число дней в месяце
+ * @param occupied битовая маска занятых дней
+ */
+public record RoomCalendarDto(Long roomId, String month, int days, int occupied) {}
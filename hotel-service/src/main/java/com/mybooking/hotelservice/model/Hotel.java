@@ -7,6 +7,7 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 
 import java.util.ArrayList;
@@ -22,8 +23,13 @@ import java.util.List;
 @Table(name = "hotels")
 public class Hotel {
 
+    /**
+     * Идентификатор из последовательности с выделением блоками по 50: в отличие от IDENTITY,
+     * не требует INSERT для получения id и позволяет Hibernate вставлять отели JDBC-пакетами.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "hotels_seq")
+    @SequenceGenerator(name = "hotels_seq", sequenceName = "hotels_seq", allocationSize = 50)
     private Long id;
 
     /**
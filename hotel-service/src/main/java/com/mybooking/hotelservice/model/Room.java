@@ -14,9 +14,12 @@ public class Room {
 
     /**
      * Уникальный идентификатор номера.
+     *
+     * <p>Выделяется из последовательности блоками по 50, что позволяет пакетную вставку номеров.</p>
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "room_seq")
+    @SequenceGenerator(name = "room_seq", sequenceName = "room_seq", allocationSize = 50)
     private Long id;
 
     /**
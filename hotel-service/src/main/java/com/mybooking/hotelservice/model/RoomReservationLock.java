@@ -1,6 +1,7 @@
 package com.mybooking.hotelservice.model;
 
 import jakarta.persistence.*;
+import java.time.Instant;
 import java.time.LocalDate;
 
 /**
@@ -20,6 +21,14 @@ import java.time.LocalDate;
                 @Index(
                         name = "idx_lock_room_dates",
                         columnList = "room_id, start_date, end_date"
+                ),
+                @Index(
+                        name = "idx_lock_status_expires",
+                        columnList = "status, expires_at"
+                ),
+                @Index(
+                        name = "idx_lock_updated",
+                        columnList = "updated_at, id"
                 )
         }
 )
@@ -56,9 +65,15 @@ public class RoomReservationLock {
     private Status status;
 
     /**
-     * Дата истечения удержания.
+     * Момент истечения удержания HELD (TTL {@code hotel.hold.ttl}); после него удержание
+     * не подтверждается и освобождается {@code HoldExpirySweeper}.
+     */
+    private Instant expiresAt;
+
+    /**
+     * Момент последнего изменения (создание, сохранение сущности, UPDATE статуса); курсор выгрузки изменений.
      */
-    private LocalDate expiresAt;
+    private Instant updatedAt;
 
     /**
      * Возможные статусы удержания номера.
@@ -77,6 +92,14 @@ public class RoomReservationLock {
     public void setEndDate(LocalDate endDate) { this.endDate = endDate; }
     public Status getStatus() { return status; }
     public void setStatus(Status status) { this.status = status; }
-    public LocalDate getExpiresAt() { return expiresAt; }
-    public void setExpiresAt(LocalDate expiresAt) { this.expiresAt = expiresAt; }
+    public Instant getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(Instant expiresAt) { this.expiresAt = expiresAt; }
+    public Instant getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(Instant updatedAt) { this.updatedAt = updatedAt; }
+
+    @PrePersist
+    @PreUpdate
+    void touch() {
+        updatedAt = Instant.now();
+    }
 }
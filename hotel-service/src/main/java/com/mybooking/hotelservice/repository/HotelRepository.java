@@ -1,10 +1,20 @@
 package com.mybooking.hotelservice.repository;
 
+import com.mybooking.hotelservice.dto.HotelListDto;
 import com.mybooking.hotelservice.model.Hotel;
-import org.springframework.data.jpa.repository.EntityGraph;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 /**
  * Репозиторий для сущности {@link Hotel}.
  *
@@ -12,6 +22,49 @@ import java.util.Optional;
  */
 public interface HotelRepository extends JpaRepository<Hotel, Long> {
 
-    @EntityGraph(attributePaths = "rooms")
-    Optional<Hotel> findWithRoomsById(Long id);
+    /**
+     * Страница отелей для списка: только колонки {@link HotelListDto}.
+     *
+     * @param pageable параметры страницы и сортировки
+     * @return страница отелей
+     */
+    @Query(value = "select new com.mybooking.hotelservice.dto.HotelListDto(h.id, h.name, h.address, h.city) from Hotel h",
+            countQuery = "select count(h) from Hotel h")
+    Page<HotelListDto> findListPage(Pageable pageable);
+
+    /**
+     * @param id идентификатор отеля
+     * @return основные поля отеля; пусто, если отель не найден
+     */
+    @Query("select new com.mybooking.hotelservice.dto.HotelListDto(h.id, h.name, h.address, h.city) from Hotel h where h.id = :id")
+    Optional<HotelListDto> findListDtoById(@Param("id") Long id);
+
+    /**
+     * Потоковая выборка отелей для выгрузки. Строки-проекции не попадают в persistence context,
+     * курсор читается порциями по fetch size; вызывать внутри транзакции и закрывать поток.
+     *
+     * @param sinceId выгружаются отели с идентификатором больше указанного
+     * @return отели в порядке идентификаторов
+     */
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select new com.mybooking.hotelservice.dto.HotelListDto(h.id, h.name, h.address, h.city) " +
+            "from Hotel h where h.id > :sinceId order by h.id")
+    Stream<HotelListDto> streamAfter(@Param("sinceId") long sinceId);
+
+    /**
+     * Страница отелей после указанного идентификатора (keyset-пагинация без count-запроса).
+     *
+     * @param afterId идентификатор последнего отеля предыдущей страницы
+     * @param limit   размер выборки
+     * @return отели в порядке идентификаторов
+     */
+    @Query("select new com.mybooking.hotelservice.dto.HotelListDto(h.id, h.name, h.address, h.city) " +
+            "from Hotel h where h.id > :afterId order by h.id")
+    List<HotelListDto> findPageAfter(@Param("afterId") long afterId, Limit limit);
+
+    /**
+     * @return идентификаторы всех отелей (проверка ссылок при импорте номеров)
+     */
+    @Query("select h.id from Hotel h")
+    List<Long> findAllIds();
 }
@@ -1,7 +1,26 @@
 package com.mybooking.hotelservice.repository;
 
+import com.mybooking.hotelservice.dto.RoomDetailsDto;
+import com.mybooking.hotelservice.dto.RoomDto;
+import com.mybooking.hotelservice.dto.RoomListDto;
 import com.mybooking.hotelservice.model.Room;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Репозиторий для сущности {@link Room}.
@@ -10,4 +29,208 @@ import org.springframework.data.jpa.repository.JpaRepository;
  * доступа к данным (создание, чтение, обновление, удаление) для номеров отеля.</p>
  */
 public interface RoomRepository extends JpaRepository<Room, Long> {
+
+    /**
+     * Загружает номер с пессимистической блокировкой строки ({@code SELECT ... FOR UPDATE}).
+     *
+     * <p>Используется как межэкземплярный guard при создании удержаний: пока транзакция
+     * не завершена, другие удержания того же номера ждут освобождения строки.</p>
+     *
+     * @param id идентификатор номера
+     * @return номер, если найден
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select r from Room r where r.id = :id")
+    Optional<Room> findByIdForUpdate(@Param("id") Long id);
+
+    /**
+     * Страница номеров для списка: только колонки {@link RoomListDto}, без загрузки сущностей и прокси отеля.
+     *
+     * @param pageable параметры страницы и сортировки
+     * @return страница номеров
+     */
+    @Query(value = "select new com.mybooking.hotelservice.dto.RoomListDto(r.id, h.id, r.number, r.capacity, r.timesBooked, r.available) " +
+            "from Room r left join r.hotel h",
+            countQuery = "select count(r) from Room r")
+    Page<RoomListDto> findListPage(Pageable pageable);
+
+    /**
+     * @param id идентификатор номера
+     * @return карточка номера; пусто, если номер не найден
+     */
+    @Query("select new com.mybooking.hotelservice.dto.RoomDetailsDto(r.id, h.id, r.number, r.capacity, r.timesBooked, r.available) " +
+            "from Room r left join r.hotel h where r.id = :id")
+    Optional<RoomDetailsDto> findDetailsById(@Param("id") Long id);
+
+    /**
+     * @param hotelId идентификатор отеля
+     * @return номера отеля в порядке идентификаторов
+     */
+    @Query("select new com.mybooking.hotelservice.dto.RoomDto(r.id, r.number, r.capacity, r.timesBooked, r.available) " +
+            "from Room r where r.hotel.id = :hotelId order by r.id")
+    List<RoomDto> findDtosByHotelId(@Param("hotelId") Long hotelId);
+
+    /**
+     * Потоковая выборка номеров для выгрузки (проекции, fetch size); вызывать внутри транзакции и закрывать поток.
+     *
+     * @param sinceId выгружаются номера с идентификатором больше указанного
+     * @return номера в порядке идентификаторов
+     */
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select new com.mybooking.hotelservice.dto.RoomListDto(r.id, h.id, r.number, r.capacity, r.timesBooked, r.available) " +
+            "from Room r left join r.hotel h where r.id > :sinceId order by r.id")
+    Stream<RoomListDto> streamAfter(@Param("sinceId") long sinceId);
+
+    /**
+     * Страница номеров после указанного идентификатора (keyset-пагинация без count-запроса).
+     *
+     * @param afterId идентификатор последнего номера предыдущей страницы
+     * @param limit   размер выборки
+     * @return номера в порядке идентификаторов
+     */
+    @Query("select new com.mybooking.hotelservice.dto.RoomListDto(r.id, h.id, r.number, r.capacity, r.timesBooked, r.available) " +
+            "from Room r left join r.hotel h where r.id > :afterId order by r.id")
+    List<RoomListDto> findPageAfter(@Param("afterId") long afterId, Limit limit);
+
+    /**
+     * Порция кандидатов для поиска свободных номеров (keyset по id): доступные номера подходящей вместимости,
+     * при необходимости ограниченные отелем или городом.
+     *
+     * @param minCapacity минимальная вместимость
+     * @param hotelId     идентификатор отеля или null
+     * @param city        город или null
+     * @param afterId     идентификатор последнего номера предыдущей порции
+     * @param limit       размер порции
+     * @return номера в порядке идентификаторов
+     */
+    @Query("select new com.mybooking.hotelservice.dto.RoomListDto(r.id, h.id, r.number, r.capacity, r.timesBooked, r.available) " +
+            "from Room r left join r.hotel h " +
+            "where r.available = true and r.capacity >= :minCapacity " +
+            "and (:hotelId is null or h.id = :hotelId) and (:city is null or h.city = :city) " +
+            "and r.id > :afterId order by r.id")
+    List<RoomListDto> findAvailabilityCandidates(@Param("minCapacity") int minCapacity,
+                                                 @Param("hotelId") Long hotelId,
+                                                 @Param("city") String city,
+                                                 @Param("afterId") long afterId,
+                                                 Limit limit);
+
+    /**
+     * @param ids идентификаторы номеров
+     * @return идентификаторы существующих номеров, открытых для бронирования
+     */
+    @Query("select r.id from Room r where r.id in :ids and r.available = true")
+    List<Long> findAvailableIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Агрегаты номерного фонда по отелям (одним GROUP BY, без загрузки сущностей).
+     *
+     * @return агрегаты всех отелей, включая отели без номеров
+     */
+    @Query("select h.id as hotelId, h.city as city, count(r) as rooms, " +
+            "sum(case when r.available = true then 1 else 0 end) as availableRooms, " +
+            "sum(r.timesBooked) as bookings " +
+            "from Hotel h left join h.rooms r group by h.id, h.city")
+    List<HotelAggregate> aggregateByHotel();
+
+    /**
+     * Агрегаты номерного фонда одного отеля.
+     *
+     * @param hotelId идентификатор отеля
+     * @return агрегаты; пусто, если отель не существует
+     */
+    @Query("select h.id as hotelId, h.city as city, count(r) as rooms, " +
+            "sum(case when r.available = true then 1 else 0 end) as availableRooms, " +
+            "sum(r.timesBooked) as bookings " +
+            "from Hotel h left join h.rooms r where h.id = :hotelId group by h.id, h.city")
+    Optional<HotelAggregate> aggregateForHotel(@Param("hotelId") Long hotelId);
+
+    /**
+     * Агрегаты номеров, не привязанных к отелю.
+     */
+    @Query("select count(r) as rooms, " +
+            "sum(case when r.available = true then 1 else 0 end) as availableRooms, " +
+            "sum(r.timesBooked) as bookings " +
+            "from Room r where r.hotel is null")
+    RoomTotalsView aggregateUnassigned();
+
+    /**
+     * Принадлежность номеров отелям (только идентификаторы).
+     */
+    @Query("select r.id as roomId, h.id as hotelId from Room r left join r.hotel h")
+    List<RoomHotelView> findRoomHotelIds();
+
+    @Query("select r.id as roomId, h.id as hotelId from Room r left join r.hotel h where r.id = :id")
+    Optional<RoomHotelView> findRoomHotelId(@Param("id") Long id);
+
+    @Query("select r.id as roomId, h.id as hotelId from Room r join r.hotel h where h.id = :hotelId")
+    List<RoomHotelView> findRoomHotelIdsByHotelId(@Param("hotelId") Long hotelId);
+
+    @Query("select r.id from Room r where r.hotel is null")
+    List<Long> findUnassignedRoomIds();
+
+    /**
+     * Доступные номера с городом отеля для рейтинга популярности (только колонки проекции).
+     */
+    @Query("select r.id as roomId, h.id as hotelId, h.city as city, r.number as number, " +
+            "r.capacity as capacity, r.timesBooked as timesBooked " +
+            "from Room r left join r.hotel h where r.available = true")
+    List<RoomRankingView> findRankingViews();
+
+    @Query("select r.id as roomId, h.id as hotelId, h.city as city, r.number as number, " +
+            "r.capacity as capacity, r.timesBooked as timesBooked " +
+            "from Room r left join r.hotel h where r.available = true and r.id in :ids")
+    List<RoomRankingView> findRankingViewsByIds(@Param("ids") Collection<Long> ids);
+
+    @Query("select r.id as roomId, h.id as hotelId, h.city as city, r.number as number, " +
+            "r.capacity as capacity, r.timesBooked as timesBooked " +
+            "from Room r join r.hotel h where r.available = true and h.id = :hotelId")
+    List<RoomRankingView> findRankingViewsByHotelId(@Param("hotelId") Long hotelId);
+
+    /**
+     * Увеличивает счётчик бронирований номеров на одно и то же приращение.
+     *
+     * @param delta приращение
+     * @param ids   идентификаторы номеров
+     * @return число обновлённых строк
+     */
+    @Modifying
+    @Query("update Room r set r.timesBooked = r.timesBooked + :delta where r.id in :ids")
+    int addTimesBooked(@Param("delta") long delta, @Param("ids") Collection<Long> ids);
+
+    /**
+     * Проекция: суммарные показатели набора номеров.
+     */
+    interface RoomTotalsView {
+        long getRooms();
+        Long getAvailableRooms();
+        Long getBookings();
+    }
+
+    /**
+     * Проекция: показатели номеров отеля.
+     */
+    interface HotelAggregate extends RoomTotalsView {
+        Long getHotelId();
+        String getCity();
+    }
+
+    /**
+     * Проекция: номер и его отель.
+     */
+    interface RoomHotelView {
+        Long getRoomId();
+        Long getHotelId();
+    }
+
+    /**
+     * Проекция: номер в рейтинге популярности.
+     */
+    interface RoomRankingView {
+        Long getRoomId();
+        Long getHotelId();
+        String getCity();
+        String getNumber();
+        int getCapacity();
+        long getTimesBooked();
+    }
 }
@@ -1,11 +1,22 @@
 package com.mybooking.hotelservice.repository;
 
+import com.mybooking.hotelservice.dto.LockExportDto;
 import com.mybooking.hotelservice.model.RoomReservationLock;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Репозиторий для работы с сущностью {@link RoomReservationLock}.
@@ -39,4 +50,120 @@ public interface RoomReservationLockRepository extends JpaRepository<RoomReserva
             LocalDate endInclusive,
             LocalDate startInclusive
     );
+
+    /**
+     * Возвращает интервалы всех удержаний с указанными статусами.
+     *
+     * <p>Используется для построения и сверки in-memory индекса занятости номеров,
+     * поэтому выбирает только необходимые колонки, а не сущности целиком.</p>
+     *
+     * @param statuses допустимые статусы удержаний
+     * @return интервалы удержаний
+     */
+    List<IntervalView> findByStatusIn(Collection<RoomReservationLock.Status> statuses);
+
+    /**
+     * Возвращает интервалы удержаний номеров, пересекающиеся с периодом (одним запросом для всех номеров).
+     *
+     * @param roomIds        идентификаторы номеров
+     * @param statuses       допустимые статусы удержаний
+     * @param endInclusive   верхняя граница пересечения (включительно)
+     * @param startInclusive нижняя граница пересечения (включительно)
+     * @return интервалы удержаний
+     */
+    List<IntervalView> findByRoomIdInAndStatusInAndStartDateLessThanEqualAndEndDateGreaterThanEqual(
+            Collection<Long> roomIds,
+            Collection<RoomReservationLock.Status> statuses,
+            LocalDate endInclusive,
+            LocalDate startInclusive
+    );
+
+    /**
+     * Возвращает порцию удержаний с указанным статусом, истёкших до указанного момента.
+     *
+     * @param status статус удержаний (HELD)
+     * @param now    текущий момент
+     * @param page   размер порции
+     * @return интервалы истёкших удержаний
+     */
+    List<IntervalView> findByStatusAndExpiresAtBeforeOrderByExpiresAtAsc(
+            RoomReservationLock.Status status,
+            Instant now,
+            Pageable page
+    );
+
+    /**
+     * Освобождает истёкшие удержания одним UPDATE (вместе с {@code updatedAt} для выгрузки изменений).
+     *
+     * <p>Условие на статус и срок повторяется, чтобы не затронуть удержания, подтверждённые
+     * между выборкой и обновлением.</p>
+     *
+     * @param ids идентификаторы удержаний из выборки
+     * @param now текущий момент
+     * @return число освобождённых удержаний
+     */
+    @Modifying
+    @Query("update RoomReservationLock l set l.status = com.mybooking.hotelservice.model.RoomReservationLock.Status.RELEASED, l.updatedAt = :now " +
+            "where l.id in :ids " +
+            "and l.status = com.mybooking.hotelservice.model.RoomReservationLock.Status.HELD " +
+            "and l.expiresAt < :now")
+    int releaseExpired(@Param("ids") Collection<Long> ids, @Param("now") Instant now);
+
+    /**
+     * Подтверждает удержание одним условным UPDATE: только HELD, срок которого не истёк к {@code now}
+     * ({@code updatedAt} выставляется в {@code now}).
+     *
+     * <p>Не перезаписывает удержание, освобождённое {@code HoldExpirySweeper} или {@code releaseHold}
+     * между чтением и подтверждением; 0 строк означает, что удержание уже не HELD или истекло.
+     * Контекст персистентности очищается, чтобы ранее прочитанная сущность не записалась повторно.</p>
+     *
+     * @param id  идентификатор удержания
+     * @param now текущий момент
+     * @return 1, если удержание подтверждено, иначе 0
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("update RoomReservationLock l set l.status = com.mybooking.hotelservice.model.RoomReservationLock.Status.CONFIRMED, l.updatedAt = :now " +
+            "where l.id = :id " +
+            "and l.status = com.mybooking.hotelservice.model.RoomReservationLock.Status.HELD " +
+            "and (l.expiresAt is null or l.expiresAt >= :now)")
+    int confirmHeld(@Param("id") Long id, @Param("now") Instant now);
+
+    /**
+     * Потоковая выборка удержаний для выгрузки (проекции, fetch size); вызывать внутри транзакции и закрывать поток.
+     *
+     * @param sinceId выгружаются удержания с идентификатором больше указанного
+     * @return удержания в порядке идентификаторов
+     */
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select new com.mybooking.hotelservice.dto.LockExportDto(l.id, l.requestId, l.roomId, l.startDate, l.endDate, l.status, l.expiresAt, l.updatedAt) " +
+            "from RoomReservationLock l where l.id > :sinceId order by l.id")
+    Stream<LockExportDto> streamAfter(@Param("sinceId") long sinceId);
+
+    /**
+     * Потоковая выборка удержаний, созданных или изменённых после позиции {@code (since, afterId)} и до
+     * {@code until} (выгрузка изменений); вызывать внутри транзакции и закрывать поток.
+     *
+     * @param since   {@code updatedAt} последней выгруженной записи
+     * @param afterId идентификатор последней выгруженной записи с тем же {@code updatedAt}
+     * @param until   верхняя граница {@code updatedAt} (не включительно)
+     * @return удержания в порядке {@code (updatedAt, id)}
+     */
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select new com.mybooking.hotelservice.dto.LockExportDto(l.id, l.requestId, l.roomId, l.startDate, l.endDate, l.status, l.expiresAt, l.updatedAt) " +
+            "from RoomReservationLock l " +
+            "where (l.updatedAt > :since or (l.updatedAt = :since and l.id > :afterId)) and l.updatedAt < :until " +
+            "order by l.updatedAt, l.id")
+    Stream<LockExportDto> streamUpdatedAfter(@Param("since") Instant since,
+                                             @Param("afterId") long afterId,
+                                             @Param("until") Instant until);
+
+    /**
+     * Проекция удержания: номер и период дат.
+     */
+    interface IntervalView {
+        Long getId();
+        Long getRoomId();
+        LocalDate getStartDate();
+        LocalDate getEndDate();
+    }
 }
@@ -0,0 +1,118 @@
+package com.mybooking.hotelservice.service;
+
+import com.mybooking.hotelservice.dto.HotelListDto;
+import com.mybooking.hotelservice.dto.LockExportDto;
+import com.mybooking.hotelservice.dto.RoomListDto;
+import com.mybooking.hotelservice.repository.HotelRepository;
+import com.mybooking.hotelservice.repository.RoomRepository;
+import com.mybooking.hotelservice.repository.RoomReservationLockRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Потоковая выгрузка каталога и удержаний для внешних систем (хранилище данных).
+ *
+ * <p>Строки читаются курсором БД в read-only транзакции и сразу передаются получателю, поэтому
+ * потребление памяти не зависит от размера таблицы. Инкрементальная выгрузка — по идентификатору:
+ * выгружаются строки с {@code id > sinceId}, идентификатор последней строки служит следующим {@code since}.</p>
+ *
+ * <p>Удержания меняют статус (подтверждение, освобождение), поэтому для них есть и выгрузка изменений по курсору
+ * {@code (updatedAt, id)}. Выгружаются только строки старше {@code hotel.export.settle-ms}: транзакция,
+ * ещё не зафиксированная к моменту выгрузки, может записать {@code updatedAt} меньше уже выданного курсора.</p>
+ */
+@Service
+public class ExportService {
+
+    private final HotelRepository hotelRepository;
+    private final RoomRepository roomRepository;
+    private final RoomReservationLockRepository lockRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final long settleMs;
+
+    public ExportService(
+            HotelRepository hotelRepository,
+            RoomRepository roomRepository,
+            RoomReservationLockRepository lockRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${hotel.export.settle-ms:5000}") long settleMs
+    ) {
+        this.hotelRepository = hotelRepository;
+        this.roomRepository = roomRepository;
+        this.lockRepository = lockRepository;
+        this.settleMs = settleMs;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    public long exportHotels(long sinceId, RowWriter<HotelListDto> writer) throws IOException {
+        return export(() -> hotelRepository.streamAfter(sinceId), writer);
+    }
+
+    public long exportRooms(long sinceId, RowWriter<RoomListDto> writer) throws IOException {
+        return export(() -> roomRepository.streamAfter(sinceId), writer);
+    }
+
+    public long exportLocks(long sinceId, RowWriter<LockExportDto> writer) throws IOException {
+        return export(() -> lockRepository.streamAfter(sinceId), writer);
+    }
+
+    /**
+     * @return верхняя граница {@code updatedAt} выгрузки изменений, начатой сейчас; она же — {@code since}
+     * следующей выгрузки
+     */
+    public Instant changesUntil() {
+        return Instant.now().minus(Duration.ofMillis(settleMs)).truncatedTo(ChronoUnit.MICROS);
+    }
+
+    /**
+     * @param since   {@code updatedAt} курсора (последней выгруженной записи или предыдущего {@link #changesUntil})
+     * @param afterId идентификатор последней выгруженной записи с этим {@code updatedAt}, иначе 0
+     * @param until   верхняя граница {@code updatedAt}, полученная из {@link #changesUntil}
+     * @param writer  получатель строк
+     * @return число выгруженных удержаний
+     */
+    public long exportLocksUpdatedAfter(Instant since, long afterId, Instant until, RowWriter<LockExportDto> writer)
+            throws IOException {
+        return export(() -> lockRepository.streamUpdatedAfter(since, afterId, until), writer);
+    }
+
+    private <T> long export(Supplier<Stream<T>> query, RowWriter<T> writer) throws IOException {
+        try {
+            Long rows = readOnlyTransaction.execute(status -> {
+                long count = 0;
+                try (Stream<T> stream = query.get()) {
+                    for (T row : (Iterable<T>) stream::iterator) {
+                        writer.write(row);
+                        count++;
+                    }
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+                return count;
+            });
+            return rows == null ? 0 : rows;
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    /**
+     * Получатель строк выгрузки.
+     *
+     * @param <T> тип строки
+     */
+    @FunctionalInterface
+    public interface RowWriter<T> {
+        void write(T row) throws IOException;
+    }
+}
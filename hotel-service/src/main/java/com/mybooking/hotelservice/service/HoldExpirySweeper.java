@@ -0,0 +1,118 @@
+package com.mybooking.hotelservice.service;
+
+import com.mybooking.hotelservice.model.RoomReservationLock;
+import com.mybooking.hotelservice.repository.RoomReservationLockRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Фоновое освобождение истёкших удержаний HELD.
+ *
+ * <p>Без него истёкшие удержания проверялись бы только лениво в {@link HotelService#confirmHold}
+ * и продолжали бы блокировать номер и участвовать в проверках конфликтов. Запуск — каждые
+ * {@code hotel.hold.sweep-interval-ms}; удержания освобождаются порциями по {@code hotel.hold.sweep-batch-size}
+ * одним UPDATE на порцию, каждая порция — в отдельной короткой транзакции.</p>
+ *
+ * <p>Метрики: {@code hotel.holds.swept} — число освобождённых удержаний за запуск,
+ * {@code hotel.holds.sweep.duration} — длительность запуска.</p>
+ */
+@Component
+public class HoldExpirySweeper {
+
+    private static final Logger log = LoggerFactory.getLogger(HoldExpirySweeper.class);
+
+    private final RoomReservationLockRepository lockRepository;
+    private final RoomOccupancyIndex occupancyIndex;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final DistributionSummary sweptPerRun;
+    private final Timer sweepDuration;
+
+    public HoldExpirySweeper(
+            RoomReservationLockRepository lockRepository,
+            RoomOccupancyIndex occupancyIndex,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${hotel.hold.sweep-batch-size:500}") int batchSize
+    ) {
+        this.lockRepository = lockRepository;
+        this.occupancyIndex = occupancyIndex;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.sweptPerRun = DistributionSummary.builder("hotel.holds.swept")
+                .description("Истёкшие удержания, освобождённые за один запуск")
+                .register(meterRegistry);
+        this.sweepDuration = Timer.builder("hotel.holds.sweep.duration")
+                .description("Длительность освобождения истёкших удержаний")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Освобождает все удержания HELD, истёкшие к моменту запуска.
+     *
+     * @return число освобождённых удержаний
+     */
+    @Scheduled(
+            initialDelayString = "${hotel.hold.sweep-interval-ms:30000}",
+            fixedDelayString = "${hotel.hold.sweep-interval-ms:30000}"
+    )
+    public int sweep() {
+        Timer.Sample sample = Timer.start();
+        Instant now = Instant.now();
+        int released = 0;
+
+        while (true) {
+            Integer batchReleased = transactionTemplate.execute(status -> sweepBatch(now));
+            if (batchReleased == null || batchReleased < 0) {
+                break;
+            }
+            released += batchReleased;
+        }
+
+        sample.stop(sweepDuration);
+        sweptPerRun.record(released);
+        if (released > 0) {
+            log.info("Released {} expired holds", released);
+        }
+        return released;
+    }
+
+    /**
+     * @return число освобождённых удержаний порции или -1, если истёкших удержаний не осталось
+     */
+    private int sweepBatch(Instant now) {
+        List<RoomReservationLockRepository.IntervalView> expired = lockRepository
+                .findByStatusAndExpiresAtBeforeOrderByExpiresAtAsc(
+                        RoomReservationLock.Status.HELD, now, PageRequest.of(0, batchSize));
+        if (expired.isEmpty()) {
+            return -1;
+        }
+
+        int released = lockRepository.releaseExpired(
+                expired.stream().map(RoomReservationLockRepository.IntervalView::getId).toList(), now);
+        // Удержания, подтверждённые между выборкой и UPDATE, остались активными:
+        // из индекса убираем только действительно освобождённые.
+        if (released == expired.size()) {
+            expired.forEach(view -> occupancyIndex.untrack(view.getRoomId(), view.getId()));
+        } else {
+            expired.stream()
+                    .filter(view -> lockRepository.findById(view.getId())
+                            .map(lock -> lock.getStatus() == RoomReservationLock.Status.RELEASED)
+                            .orElse(true))
+                    .forEach(view -> occupancyIndex.untrack(view.getRoomId(), view.getId()));
+        }
+        return released;
+    }
+}
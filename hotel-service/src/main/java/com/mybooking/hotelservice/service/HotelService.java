@@ -1,20 +1,39 @@
 package com.mybooking.hotelservice.service;
 
+import com.mybooking.hotelservice.dto.AvailabilityQueryDto;
+import com.mybooking.hotelservice.dto.HotelDetailsDto;
+import com.mybooking.hotelservice.dto.HotelListDto;
+import com.mybooking.hotelservice.dto.RoomDetailsDto;
+import com.mybooking.hotelservice.dto.RoomDto;
+import com.mybooking.hotelservice.dto.RoomListDto;
 import com.mybooking.hotelservice.model.Hotel;
 import com.mybooking.hotelservice.model.Room;
 import com.mybooking.hotelservice.model.RoomReservationLock;
 import com.mybooking.hotelservice.repository.HotelRepository;
 import com.mybooking.hotelservice.repository.RoomRepository;
 import com.mybooking.hotelservice.repository.RoomReservationLockRepository;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.stream.Collectors;
 
 /**
  * Сервисный слой Hotel Service.
@@ -24,51 +43,353 @@ import java.util.Optional;
  */
 @Service
 public class HotelService {
+
+    /**
+     * Размер порции кандидатов в {@link #findAvailableRooms}.
+     */
+    private static final int CANDIDATE_CHUNK = 500;
+
+    private static final List<RoomReservationLock.Status> ACTIVE_STATUSES =
+            List.of(RoomReservationLock.Status.HELD, RoomReservationLock.Status.CONFIRMED);
+
     private final HotelRepository hotelRepository;
     private final RoomRepository roomRepository;
     private final RoomReservationLockRepository lockRepository;
+    private final RoomOccupancyIndex occupancyIndex;
+    private final RoomLockStripes roomLocks;
+    private final RoomStatistics statistics;
+    private final RoomPopularityRanking ranking;
+    private final RoomBookingCounter bookingCounter;
+    private final TransactionTemplate transactionTemplate;
+    private final long holdLockTimeoutMs;
+    private final boolean indexAuthoritative;
+    private final Duration holdTtl;
 
-    public HotelService(HotelRepository hotelRepository, RoomRepository roomRepository, RoomReservationLockRepository lockRepository) {
+    /**
+     * @param holdLockTimeoutMs  максимальное ожидание блокировки номера при создании удержания
+     * @param indexAuthoritative true — конфликты проверяются только по in-memory индексу
+     *                           (один экземпляр сервиса); false — индекс отсекает заведомые конфликты,
+     *                           а свободный период перепроверяется запросом к БД под блокировкой строки
+     *                           (несколько экземпляров с общей БД)
+     * @param holdTtl            время жизни удержания HELD до подтверждения
+     */
+    public HotelService(
+            HotelRepository hotelRepository,
+            RoomRepository roomRepository,
+            RoomReservationLockRepository lockRepository,
+            RoomOccupancyIndex occupancyIndex,
+            RoomLockStripes roomLocks,
+            RoomStatistics statistics,
+            RoomPopularityRanking ranking,
+            RoomBookingCounter bookingCounter,
+            PlatformTransactionManager transactionManager,
+            @Value("${hotel.hold.lock-timeout-ms:5000}") long holdLockTimeoutMs,
+            @Value("${hotel.occupancy-index.authoritative:true}") boolean indexAuthoritative,
+            @Value("${hotel.hold.ttl:PT15M}") Duration holdTtl
+    ) {
         this.hotelRepository = hotelRepository;
         this.roomRepository = roomRepository;
         this.lockRepository = lockRepository;
+        this.occupancyIndex = occupancyIndex;
+        this.roomLocks = roomLocks;
+        this.statistics = statistics;
+        this.ranking = ranking;
+        this.bookingCounter = bookingCounter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.holdLockTimeoutMs = holdLockTimeoutMs;
+        this.indexAuthoritative = indexAuthoritative;
+        this.holdTtl = holdTtl;
     }
 
     public List<Hotel> listHotels() { return hotelRepository.findAll(); }
     public Optional<Hotel> getHotel(Long id) { return hotelRepository.findById(id); }
-    public Hotel saveHotel(Hotel h) { return hotelRepository.save(h); }
-    public void deleteHotel(Long id) { hotelRepository.deleteById(id); }
 
-    public List<Room> listRooms() { return roomRepository.findAll(); }
-    public Page<Room> listRooms(Pageable pageable) {
-        return roomRepository.findAll(pageable);
+    public Hotel saveHotel(Hotel h) {
+        Hotel saved = hotelRepository.save(h);
+        statistics.refresh(saved.getId());
+        ranking.refreshHotels(saved.getId());
+        return saved;
+    }
+
+    public void deleteHotel(Long id) {
+        hotelRepository.deleteById(id);
+        statistics.refresh(id);
+        ranking.refreshHotels(id);
     }
+
+    public List<Room> listRooms() { return roomRepository.findAll(); }
     public Optional<Room> getRoom(Long id) { return roomRepository.findById(id); }
-    public Room saveRoom(Room r) { return roomRepository.save(r); }
-    public void deleteRoom(Long id) { roomRepository.deleteById(id); }
 
-    public Page<Hotel> listHotels(Pageable pageable) {
-        return hotelRepository.findAll(pageable);
+    /**
+     * Страница номеров для списка: выбираются только колонки {@link RoomListDto}, без сущностей
+     * и прокси отеля; read-only транзакция не создаёт снимков для dirty-checking.
+     */
+    @Transactional(readOnly = true)
+    public Page<RoomListDto> listRoomDtos(Pageable pageable) {
+        return roomRepository.findListPage(pageable).map(this::withPendingBookings);
     }
 
-    public Optional<Hotel> getHotelWithRooms(Long id) {
-        return hotelRepository.findWithRoomsById(id);
+    /**
+     * @param id идентификатор номера
+     * @return карточка номера (проекция колонок DTO)
+     */
+    @Transactional(readOnly = true)
+    public Optional<RoomDetailsDto> getRoomDetails(Long id) {
+        return roomRepository.findDetailsById(id)
+                .map(r -> new RoomDetailsDto(r.id(), r.hotelId(), r.number(), r.capacity(),
+                        r.timesBooked() + bookingCounter.pending(r.id()), r.available()));
     }
 
-    @Transactional
+    /**
+     * Сохраняет номер, пересчитывает статистику прежнего и нового отеля номера и позицию номера в рейтинге.
+     */
+    public Room saveRoom(Room r) {
+        Long previousHotelId = r.getId() == null ? null : statistics.hotelOf(r.getId());
+        Room saved = roomRepository.save(r);
+        Long hotelId = roomRepository.findRoomHotelId(saved.getId())
+                .map(RoomRepository.RoomHotelView::getHotelId)
+                .orElse(null);
+        statistics.refresh(previousHotelId, hotelId);
+        ranking.refreshRooms(saved.getId());
+        return saved;
+    }
+
+    public void deleteRoom(Long id) {
+        Long hotelId = statistics.hotelOf(id);
+        roomRepository.deleteById(id);
+        statistics.refresh(hotelId);
+        ranking.refreshRooms(id);
+    }
+
+    /**
+     * Страница отелей для списка: выбираются только колонки {@link HotelListDto}.
+     */
+    @Transactional(readOnly = true)
+    public Page<HotelListDto> listHotelDtos(Pageable pageable) {
+        return hotelRepository.findListPage(pageable);
+    }
+
+    /**
+     * Keyset-страница отелей: без count-запроса и OFFSET, стоимость не зависит от глубины страницы.
+     *
+     * @param afterId идентификатор последнего отеля предыдущей страницы или null для первой
+     * @param limit   размер выборки
+     * @return отели в порядке идентификаторов
+     */
+    public List<HotelListDto> listHotelsAfter(Long afterId, int limit) {
+        return hotelRepository.findPageAfter(afterId == null ? Long.MIN_VALUE : afterId, Limit.of(limit));
+    }
+
+    /**
+     * Keyset-страница номеров: без count-запроса и OFFSET, стоимость не зависит от глубины страницы.
+     *
+     * @param afterId идентификатор последнего номера предыдущей страницы или null для первой
+     * @param limit   размер выборки
+     * @return номера в порядке идентификаторов
+     */
+    public List<RoomListDto> listRoomsAfter(Long afterId, int limit) {
+        return roomRepository.findPageAfter(afterId == null ? Long.MIN_VALUE : afterId, Limit.of(limit)).stream()
+                .map(this::withPendingBookings)
+                .toList();
+    }
+
+    /**
+     * Карточка отеля с номерами: два запроса проекций (отель и его номера) в одной read-only транзакции
+     * вместо загрузки агрегата с коллекцией {@code rooms}.
+     *
+     * @param id идентификатор отеля
+     * @return карточка отеля
+     */
+    @Transactional(readOnly = true)
+    public Optional<HotelDetailsDto> getHotelDetails(Long id) {
+        return hotelRepository.findListDtoById(id)
+                .map(h -> new HotelDetailsDto(h.id(), h.name(), h.address(), h.city(),
+                        roomRepository.findDtosByHotelId(id).stream()
+                                .map(r -> new RoomDto(r.id(), r.number(), r.capacity(),
+                                        r.timesBooked() + bookingCounter.pending(r.id()), r.available()))
+                                .toList()));
+    }
+
+    /**
+     * Ищет номера, свободные на все ночи периода.
+     *
+     * <p>Кандидаты (доступные номера подходящей вместимости в отеле или городе) читаются порциями по
+     * {@value #CANDIDATE_CHUNK} номеров в порядке id (keyset), пока не найдено {@code limit} свободных; занятость
+     * проверяется по битовым картам ночей {@link RoomOccupancyIndex} без чтения таблицы удержаний.
+     * Результат не резервирует номер: удержание по-прежнему может завершиться конфликтом.</p>
+     *
+     * @param startDate   дата начала
+     * @param endDate     дата окончания
+     * @param minCapacity минимальная вместимость
+     * @param hotelId     идентификатор отеля или null
+     * @param city        город или null
+     * @param limit       максимальное число номеров в ответе
+     * @return свободные номера в порядке идентификаторов
+     */
+    public List<RoomListDto> findAvailableRooms(LocalDate startDate, LocalDate endDate, int minCapacity,
+                                                Long hotelId, String city, int limit) {
+        if (endDate.isBefore(startDate)) {
+            throw new IllegalArgumentException("endDate must not be before startDate");
+        }
+        if (hotelId != null && city != null) {
+            throw new IllegalArgumentException("Specify either hotelId or city, not both");
+        }
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+
+        List<RoomListDto> result = new ArrayList<>();
+        long afterId = 0;
+        List<RoomListDto> chunk;
+        do {
+            chunk = roomRepository.findAvailabilityCandidates(minCapacity, hotelId, city, afterId,
+                    Limit.of(CANDIDATE_CHUNK));
+            for (RoomListDto room : chunk) {
+                if (isFree(room.id(), startDate, endDate)) {
+                    result.add(withPendingBookings(room));
+                    if (result.size() >= limit) {
+                        return result;
+                    }
+                }
+                afterId = room.id();
+            }
+        } while (chunk.size() == CANDIDATE_CHUNK);
+        return result;
+    }
+
+    /**
+     * Проверяет доступность пакета пар (номер, период).
+     *
+     * <p>Пакет вычисляется за один проход: один запрос выбирает существующие доступные номера пакета,
+     * один запрос — активные удержания этих номеров, пересекающиеся с общим периодом пакета;
+     * далее удержания группируются по номеру и сравниваются с периодами в памяти.
+     * Некорректный элемент (нет номера или дат, конец раньше начала) считается недоступным.</p>
+     *
+     * @param queries элементы проверки
+     * @return результаты в порядке элементов
+     */
+    public boolean[] checkAvailability(List<AvailabilityQueryDto> queries) {
+        boolean[] result = new boolean[queries.size()];
+        Set<Long> roomIds = new HashSet<>();
+        LocalDate minStart = null;
+        LocalDate maxEnd = null;
+        for (AvailabilityQueryDto q : queries) {
+            if (isValid(q)) {
+                roomIds.add(q.roomId());
+                minStart = minStart == null || q.startDate().isBefore(minStart) ? q.startDate() : minStart;
+                maxEnd = maxEnd == null || q.endDate().isAfter(maxEnd) ? q.endDate() : maxEnd;
+            }
+        }
+        if (roomIds.isEmpty()) {
+            return result;
+        }
+
+        Set<Long> bookable = new HashSet<>(roomRepository.findAvailableIds(roomIds));
+        Map<Long, List<RoomReservationLockRepository.IntervalView>> locksByRoom = lockRepository
+                .findByRoomIdInAndStatusInAndStartDateLessThanEqualAndEndDateGreaterThanEqual(
+                        bookable, ACTIVE_STATUSES, maxEnd, minStart)
+                .stream()
+                .collect(Collectors.groupingBy(RoomReservationLockRepository.IntervalView::getRoomId));
+
+        for (int i = 0; i < result.length; i++) {
+            AvailabilityQueryDto q = queries.get(i);
+            if (!isValid(q) || !bookable.contains(q.roomId())) {
+                continue;
+            }
+            result[i] = locksByRoom.getOrDefault(q.roomId(), List.of()).stream()
+                    .noneMatch(l -> !l.getStartDate().isAfter(q.endDate()) && !l.getEndDate().isBefore(q.startDate()));
+        }
+        return result;
+    }
+
+    private static boolean isValid(AvailabilityQueryDto q) {
+        return q != null && q.roomId() != null && q.startDate() != null && q.endDate() != null
+                && !q.endDate().isBefore(q.startDate());
+    }
+
+    private RoomListDto withPendingBookings(RoomListDto room) {
+        long pending = bookingCounter.pending(room.id());
+        return pending == 0 ? room : new RoomListDto(room.id(), room.hotelId(), room.number(), room.capacity(),
+                room.timesBooked() + pending, room.available());
+    }
+
+    private boolean isFree(Long roomId, LocalDate startDate, LocalDate endDate) {
+        if (occupancyIndex.isReady()) {
+            return occupancyIndex.isFree(roomId, startDate, endDate);
+        }
+        return !hasConflict(roomId, startDate, endDate);
+    }
+
+    /**
+     * Создаёт удержание номера на период дат (идемпотентно по requestId).
+     *
+     * <p>Удержания одного номера сериализуются в два уровня:
+     * <ol>
+     *   <li>полосатая блокировка по roomId внутри экземпляра — берётся до открытия транзакции,
+     *       поэтому ожидающие запросы не занимают соединения из пула;</li>
+     *   <li>пессимистическая блокировка строки номера в БД — защищает от гонок между экземплярами.</li>
+     * </ol>
+     * Обе блокировки удерживаются до commit, поэтому проверка конфликтов и вставка атомарны.
+     * Удержания разных номеров выполняются параллельно.</p>
+     *
+     * @param requestId идентификатор запроса
+     * @param roomId    идентификатор номера
+     * @param startDate дата начала
+     * @param endDate   дата окончания
+     * @return созданное (или ранее созданное) удержание
+     */
     public RoomReservationLock holdRoom(String requestId, Long roomId, LocalDate startDate, LocalDate endDate) {
+        Lock roomLock = roomLocks.forRoom(roomId);
+        acquire(roomLock);
+        try {
+            return transactionTemplate.execute(status -> doHoldRoom(requestId, roomId, startDate, endDate));
+        } finally {
+            roomLock.unlock();
+        }
+    }
+
+    /**
+     * Резервирует номер за один вызов: проверка конфликтов и запись подтверждённого удержания
+     * (CONFIRMED) в одной транзакции под теми же блокировками, что и {@link #holdRoom}.
+     *
+     * <p>Идемпотентность по requestId: повтор возвращает существующее удержание; удержание HELD
+     * (например, созданное ранее через hold) подтверждается по правилам {@link #confirmHold}.</p>
+     *
+     * @param requestId идентификатор запроса
+     * @param roomId    идентификатор номера
+     * @param startDate дата начала
+     * @param endDate   дата окончания
+     * @return подтверждённое удержание
+     */
+    public RoomReservationLock reserveRoom(String requestId, Long roomId, LocalDate startDate, LocalDate endDate) {
+        Lock roomLock = roomLocks.forRoom(roomId);
+        acquire(roomLock);
+        try {
+            return transactionTemplate.execute(status -> {
+                Optional<RoomReservationLock> existing = lockRepository.findByRequestId(requestId);
+                if (existing.isPresent()) {
+                    return doConfirm(existing.get());
+                }
+                return createLock(requestId, roomId, startDate, endDate, RoomReservationLock.Status.CONFIRMED);
+            });
+        } finally {
+            roomLock.unlock();
+        }
+    }
+
+    private RoomReservationLock doHoldRoom(String requestId, Long roomId, LocalDate startDate, LocalDate endDate) {
         Optional<RoomReservationLock> existing = lockRepository.findByRequestId(requestId);
         if (existing.isPresent()) {
             return existing.get();
         }
-        List<RoomReservationLock> conflicts = lockRepository
-                .findByRoomIdAndStatusInAndStartDateLessThanEqualAndEndDateGreaterThanEqual(
-                        roomId,
-                        Arrays.asList(RoomReservationLock.Status.HELD, RoomReservationLock.Status.CONFIRMED),
-                        endDate,
-                        startDate
-                );
-        if (!conflicts.isEmpty()) {
+        return createLock(requestId, roomId, startDate, endDate, RoomReservationLock.Status.HELD);
+    }
+
+    private RoomReservationLock createLock(String requestId, Long roomId, LocalDate startDate, LocalDate endDate,
+                                           RoomReservationLock.Status status) {
+        roomRepository.findByIdForUpdate(roomId)
+                .orElseThrow(() -> new NoSuchElementException("Room not found"));
+        if (hasConflict(roomId, startDate, endDate)) {
             throw new IllegalStateException("Room unavailable");
         }
         RoomReservationLock lock = new RoomReservationLock();
@@ -76,41 +397,128 @@ public class HotelService {
         lock.setRoomId(roomId);
         lock.setStartDate(startDate);
         lock.setEndDate(endDate);
-        lock.setStatus(RoomReservationLock.Status.HELD);
-        lock.setExpiresAt(LocalDate.now().plusDays(1));
-        return lockRepository.save(lock);
+        lock.setStatus(status);
+        lock.setExpiresAt(status == RoomReservationLock.Status.HELD ? Instant.now().plus(holdTtl) : null);
+        RoomReservationLock saved = track(lockRepository.save(lock));
+        if (status == RoomReservationLock.Status.CONFIRMED) {
+            countBooking(roomId);
+        }
+        return saved;
     }
 
     @Transactional
     public RoomReservationLock confirmHold(String requestId) {
         RoomReservationLock lock = lockRepository.findByRequestId(requestId)
                 .orElseThrow(() -> new IllegalStateException("Hold not found"));
+        return doConfirm(lock);
+    }
+
+    private RoomReservationLock doConfirm(RoomReservationLock lock) {
         if (lock.getStatus() == RoomReservationLock.Status.CONFIRMED) {
             return lock; // идемпотентность
         }
         if (lock.getStatus() == RoomReservationLock.Status.RELEASED) {
             throw new IllegalStateException("Hold already released");
         }
-        if (lock.getExpiresAt() != null && lock.getExpiresAt().isBefore(LocalDate.now())) {
-            lock.setStatus(RoomReservationLock.Status.RELEASED);
-            lockRepository.save(lock);
-            throw new IllegalStateException("Hold expired");
+        // Условный UPDATE, а не запись прочитанной сущности: HoldExpirySweeper мог освободить удержание
+        // после чтения, и безусловная запись вернула бы его в CONFIRMED при уже освобождённом номере.
+        Instant now = Instant.now();
+        if (lockRepository.confirmHeld(lock.getId(), now) == 0) {
+            RoomReservationLock current = lockRepository.findById(lock.getId())
+                    .orElseThrow(() -> new IllegalStateException("Hold not found"));
+            if (current.getStatus() == RoomReservationLock.Status.CONFIRMED) {
+                return current; // подтверждено параллельным запросом
+            }
+            // истёкшее HELD освобождает HoldExpirySweeper: запись здесь откатилась бы вместе с исключением
+            boolean expired = current.getExpiresAt() != null && current.getExpiresAt().isBefore(now);
+            throw new IllegalStateException(expired ? "Hold expired" : "Hold already released");
         }
         lock.setStatus(RoomReservationLock.Status.CONFIRMED);
-        return lockRepository.save(lock);
+        track(lock);
+        countBooking(lock.getRoomId());
+        return lock;
+    }
+
+    /**
+     * Учитывает подтверждённое бронирование номера в {@code timesBooked}, статистике и рейтинге популярности.
+     *
+     * <p>Строка номера не обновляется: приращение накапливается после commit и записывается пакетно
+     * ({@link RoomBookingCounter}), поэтому подтверждения популярного номера не конкурируют за блокировку строки.</p>
+     */
+    private void countBooking(Long roomId) {
+        statistics.onBookingConfirmed(roomId);
     }
 
     @Transactional
     public RoomReservationLock releaseHold(String requestId) {
+        return releaseHold(requestId, false);
+    }
+
+    /**
+     * Освобождает удержание по requestId.
+     *
+     * <p>Обычный release не трогает подтверждённое удержание. Компенсация саги ({@code compensation = true})
+     * освобождает и CONFIRMED: requestId принадлежит саге, которая не записала итоговый статус бронирования
+     * (например, booking-service упал после reserve), и бронирование будет отменено. {@code timesBooked} при этом
+     * не уменьшается.</p>
+     *
+     * @param requestId    requestId удержания
+     * @param compensation освобождать ли подтверждённое удержание
+     * @return удержание после освобождения
+     * @throws NoSuchElementException удержание с таким requestId не создавалось
+     */
+    @Transactional
+    public RoomReservationLock releaseHold(String requestId, boolean compensation) {
         RoomReservationLock lock = lockRepository.findByRequestId(requestId)
-                .orElseThrow(() -> new IllegalStateException("Hold not found"));
+                .orElseThrow(() -> new NoSuchElementException("Hold not found"));
         if (lock.getStatus() == RoomReservationLock.Status.RELEASED) {
             return lock; // идемпотентность
         }
-        if (lock.getStatus() == RoomReservationLock.Status.CONFIRMED) {
+        if (lock.getStatus() == RoomReservationLock.Status.CONFIRMED && !compensation) {
             return lock; // уже подтверждено; ничего не делаем для идемпотентности
         }
         lock.setStatus(RoomReservationLock.Status.RELEASED);
-        return lockRepository.save(lock);
+        return track(lockRepository.save(lock));
+    }
+
+    /**
+     * Проверяет пересечение периода с активными удержаниями номера.
+     *
+     * <p>Пока in-memory индекс не построен (старт приложения), а также в неавторитетном режиме
+     * индекса свободный период проверяется запросом к БД.</p>
+     */
+    private boolean hasConflict(Long roomId, LocalDate startDate, LocalDate endDate) {
+        if (occupancyIndex.isReady()) {
+            if (occupancyIndex.hasConflict(roomId, startDate, endDate)) {
+                return true;
+            }
+            if (indexAuthoritative) {
+                return false;
+            }
+        }
+        return !lockRepository
+                .findByRoomIdAndStatusInAndStartDateLessThanEqualAndEndDateGreaterThanEqual(
+                        roomId,
+                        ACTIVE_STATUSES,
+                        endDate,
+                        startDate
+                )
+                .isEmpty();
+    }
+
+    private void acquire(Lock roomLock) {
+        try {
+            if (!roomLock.tryLock(holdLockTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new RoomBusyException("Room is busy, retry later", 1);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for room lock", e);
+        }
+    }
+
+    private RoomReservationLock track(RoomReservationLock lock) {
+        occupancyIndex.track(lock);
+        return lock;
     }
 }
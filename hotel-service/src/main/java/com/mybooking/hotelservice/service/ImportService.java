@@ -0,0 +1,317 @@
+package com.mybooking.hotelservice.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mybooking.hotelservice.dto.ImportResultDto;
+import com.mybooking.hotelservice.model.Hotel;
+import com.mybooking.hotelservice.model.Room;
+import com.mybooking.hotelservice.repository.HotelRepository;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Массовый импорт отелей и номеров из CSV или NDJSON.
+ *
+ * <p>Файл читается построчно, каждая строка проверяется; некорректные строки отклоняются с указанием
+ * номера строки и причины, не прерывая импорт. Корректные строки сохраняются порциями по
+ * {@code hotel.import.chunk-size} в отдельных транзакциях; внутри порции Hibernate отправляет INSERT
+ * JDBC-пакетами ({@code hibernate.jdbc.batch_size}), что возможно благодаря идентификаторам
+ * из последовательностей. Если порция не сохранилась, отклоняются только её строки.</p>
+ *
+ * <p>CSV — с заголовком (порядок колонок произвольный, имена в camelCase или snake_case — {@code hotel_id}
+ * равносильно {@code hotelId}), значения без кавычек и экранирования; лишние колонки игнорируются.
+ * NDJSON — по одному JSON-объекту в строке с теми же именами полей.</p>
+ */
+@Service
+public class ImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImportService.class);
+
+    /**
+     * Формат входного файла.
+     */
+    public enum Format { CSV, NDJSON }
+
+    private final HotelRepository hotelRepository;
+    private final RoomStatistics statistics;
+    private final RoomPopularityRanking ranking;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final int maxErrors;
+    private final int jdbcBatchSize;
+
+    /**
+     * @param chunkSize     число строк в одной транзакции
+     * @param maxErrors     максимальное число ошибок строк в итоге импорта
+     * @param jdbcBatchSize размер JDBC-пакета Hibernate
+     */
+    public ImportService(
+            HotelRepository hotelRepository,
+            RoomStatistics statistics,
+            RoomPopularityRanking ranking,
+            EntityManager entityManager,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            @Value("${hotel.import.chunk-size:5000}") int chunkSize,
+            @Value("${hotel.import.max-errors:100}") int maxErrors,
+            @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:500}") int jdbcBatchSize
+    ) {
+        this.hotelRepository = hotelRepository;
+        this.statistics = statistics;
+        this.ranking = ranking;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.maxErrors = maxErrors;
+        this.jdbcBatchSize = jdbcBatchSize;
+    }
+
+    /**
+     * Импортирует отели. Поля: {@code name}, {@code city} (обязательные), {@code address}.
+     *
+     * @param in     содержимое файла
+     * @param format формат файла
+     * @return итог импорта
+     */
+    public ImportResultDto importHotels(InputStream in, Format format) throws IOException {
+        return run("hotels", in, format, ImportService::toHotel, entityManager::persist);
+    }
+
+    /**
+     * Импортирует номера существующих отелей. Поля: {@code hotelId}, {@code number}, {@code capacity}
+     * (обязательные), {@code available} (по умолчанию true). После импорта статистика и рейтинг
+     * популярности перестраиваются.
+     *
+     * @param in     содержимое файла
+     * @param format формат файла
+     * @return итог импорта
+     */
+    public ImportResultDto importRooms(InputStream in, Format format) throws IOException {
+        Set<Long> hotelIds = new HashSet<>(hotelRepository.findAllIds());
+        ImportResultDto result = run("rooms", in, format, row -> toRoom(row, hotelIds), this::persistRoom);
+        if (result.imported() > 0) {
+            statistics.rebuild();
+            ranking.rebuild();
+        }
+        return result;
+    }
+
+    private <T> ImportResultDto run(String kind, InputStream in, Format format,
+                                    Function<Row, T> mapper, Consumer<T> persist) throws IOException {
+        long startedAt = System.nanoTime();
+        Progress progress = new Progress();
+        List<T> chunk = new ArrayList<>(Math.min(chunkSize, 10_000));
+        long chunkFirstLine = 0;
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            Map<String, Integer> header = null;
+            long lineNo = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNo++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (format == Format.CSV && header == null) {
+                    header = csvHeader(line);
+                    continue;
+                }
+
+                T item;
+                try {
+                    item = mapper.apply(format == Format.CSV ? csvRow(header, line) : jsonRow(line));
+                } catch (IllegalArgumentException | JsonProcessingException ex) {
+                    progress.reject(lineNo, ex.getMessage());
+                    continue;
+                }
+                if (chunk.isEmpty()) {
+                    chunkFirstLine = lineNo;
+                }
+                chunk.add(item);
+                if (chunk.size() >= chunkSize) {
+                    save(kind, chunk, chunkFirstLine, lineNo, persist, progress);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                save(kind, chunk, chunkFirstLine, lineNo, persist, progress);
+            }
+        }
+
+        long elapsedMs = (System.nanoTime() - startedAt) / 1_000_000;
+        log.info("Import {} completed: imported={}, rejected={}, took={}ms", kind, progress.imported,
+                progress.rejected, elapsedMs);
+        return new ImportResultDto(progress.imported, progress.rejected, elapsedMs, List.copyOf(progress.errors));
+    }
+
+    private <T> void save(String kind, List<T> chunk, long firstLine, long lastLine, Consumer<T> persist,
+                          Progress progress) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (int i = 0; i < chunk.size(); i++) {
+                    persist.accept(chunk.get(i));
+                    if ((i + 1) % jdbcBatchSize == 0) {
+                        // persistence context не растёт до размера порции: flush отправляет готовый JDBC-пакет
+                        entityManager.flush();
+                        entityManager.clear();
+                    }
+                }
+            });
+            progress.imported += chunk.size();
+            log.info("Import {}: {} rows imported, {} rejected", kind, progress.imported, progress.rejected);
+        } catch (RuntimeException ex) {
+            // строки порции не разделяются: отклоняется порция целиком одной ошибкой
+            progress.rejected += chunk.size() - 1;
+            progress.reject(firstLine, "rows " + firstLine + "-" + lastLine + " not saved: " + ex.getMessage());
+        }
+        chunk.clear();
+    }
+
+    private void persistRoom(RoomRow row) {
+        Room room = new Room();
+        room.setHotel(entityManager.getReference(Hotel.class, row.hotelId()));
+        room.setNumber(row.number());
+        room.setCapacity(row.capacity());
+        room.setAvailable(row.available());
+        entityManager.persist(room);
+    }
+
+    private static Hotel toHotel(Row row) {
+        Hotel hotel = new Hotel();
+        hotel.setName(required(row, "name"));
+        hotel.setCity(required(row, "city"));
+        hotel.setAddress(row.get("address"));
+        return hotel;
+    }
+
+    private static RoomRow toRoom(Row row, Set<Long> hotelIds) {
+        long hotelId = parseLong(required(row, "hotelId"), "hotelId");
+        if (!hotelIds.contains(hotelId)) {
+            throw new IllegalArgumentException("unknown hotelId " + hotelId);
+        }
+        String number = required(row, "number");
+        int capacity = (int) parseLong(required(row, "capacity"), "capacity");
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        String available = row.get("available");
+        boolean isAvailable = available == null || available.isEmpty() || parseBoolean(available);
+        return new RoomRow(hotelId, number, capacity, isAvailable);
+    }
+
+    private static String required(Row row, String column) {
+        String value = row.get(column);
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException(column + " is required");
+        }
+        return value;
+    }
+
+    private static long parseLong(String value, String column) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException(column + " must be an integer: " + value);
+        }
+    }
+
+    private static boolean parseBoolean(String value) {
+        if ("true".equalsIgnoreCase(value)) {
+            return true;
+        }
+        if ("false".equalsIgnoreCase(value)) {
+            return false;
+        }
+        throw new IllegalArgumentException("available must be true or false: " + value);
+    }
+
+    private static Map<String, Integer> csvHeader(String line) {
+        String[] columns = line.split(",", -1);
+        Map<String, Integer> header = new HashMap<>();
+        for (int i = 0; i < columns.length; i++) {
+            header.put(camelCase(columns[i].trim()), i);
+        }
+        return header;
+    }
+
+    private static String camelCase(String column) {
+        StringBuilder sb = new StringBuilder(column.length());
+        boolean upper = false;
+        for (char c : column.toCharArray()) {
+            if (c == '_') {
+                upper = true;
+            } else {
+                sb.append(upper ? Character.toUpperCase(c) : c);
+                upper = false;
+            }
+        }
+        return sb.toString();
+    }
+
+    private static Row csvRow(Map<String, Integer> header, String line) {
+        String[] values = line.split(",", -1);
+        if (values.length != header.size()) {
+            throw new IllegalArgumentException("expected " + header.size() + " columns but got " + values.length);
+        }
+        return column -> {
+            Integer index = header.get(column);
+            return index == null ? null : values[index].trim();
+        };
+    }
+
+    private Row jsonRow(String line) throws JsonProcessingException {
+        JsonNode node = objectMapper.readTree(line);
+        if (!node.isObject()) {
+            throw new IllegalArgumentException("JSON object expected");
+        }
+        return column -> {
+            JsonNode value = node.get(column);
+            return value == null || value.isNull() ? null : value.asText().trim();
+        };
+    }
+
+    /**
+     * Строка файла: значение поля по имени колонки.
+     */
+    @FunctionalInterface
+    private interface Row {
+        String get(String column);
+    }
+
+    private record RoomRow(long hotelId, String number, int capacity, boolean available) {}
+
+    private final class Progress {
+        private long imported;
+        private long rejected;
+        private final List<ImportResultDto.RowError> errors = new ArrayList<>();
+
+        void reject(long line, String message) {
+            rejected++;
+            if (errors.size() < maxErrors) {
+                errors.add(new ImportResultDto.RowError(line, message));
+            }
+        }
+    }
+}
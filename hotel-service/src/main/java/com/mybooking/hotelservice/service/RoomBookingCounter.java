@@ -0,0 +1,194 @@
+package com.mybooking.hotelservice.service;
+
+import com.mybooking.hotelservice.repository.RoomRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Накопитель подтверждённых бронирований номеров для {@code Room.timesBooked}.
+ *
+ * <p>Подтверждение удержания не обновляет строку номера: приращение накапливается в {@link LongAdder}
+ * номера без блокировок и конкуренции за «горячую» строку популярного номера. Накопленные приращения
+ * периодически ({@code hotel.rooms.times-booked.flush-interval-ms}) записываются в таблицу номеров
+ * одной транзакцией: одним UPDATE на каждое различное значение приращения. При штатной остановке
+ * выполняется финальный сброс.</p>
+ *
+ * <p>Накопитель номера не обнуляется: {@link #confirmed(Long)} монотонно растёт с момента старта и служит
+ * версией номера, а сброс запоминает, сколько из этого уже записано ({@link #flushed(Long)}). Статистика и
+ * рейтинг сравнивают версию с последней учтённой, поэтому пересчёт, прочитавший приращение, и обработка того же
+ * подтверждения не учитывают его дважды. Чтения, которым нужна актуальная популярность (статистика, карточка
+ * номера), прибавляют к значению из БД {@link #pending(Long)}.</p>
+ */
+@Component
+public class RoomBookingCounter {
+
+    private static final Logger log = LoggerFactory.getLogger(RoomBookingCounter.class);
+
+    private final RoomRepository roomRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Подтверждения номеров с момента старта (не обнуляются).
+     */
+    private final Map<Long, LongAdder> confirmed = new ConcurrentHashMap<>();
+
+    /**
+     * Часть {@link #confirmed}, записанная в БД; изменяется только сбросом под {@link #flushLock}.
+     */
+    private final Map<Long, Long> flushed = new ConcurrentHashMap<>();
+
+    /**
+     * Сериализует сбросы и согласованные чтения ({@link #whileNotFlushing}).
+     */
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    public RoomBookingCounter(RoomRepository roomRepository, PlatformTransactionManager transactionManager) {
+        this.roomRepository = roomRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Учитывает одно подтверждённое бронирование номера.
+     *
+     * @param roomId идентификатор номера
+     */
+    public void increment(Long roomId) {
+        confirmed.computeIfAbsent(roomId, id -> new LongAdder()).increment();
+    }
+
+    /**
+     * @param roomId идентификатор номера
+     * @return подтверждения номера с момента старта (версия номера)
+     */
+    public long confirmed(Long roomId) {
+        LongAdder adder = confirmed.get(roomId);
+        return adder == null ? 0 : adder.sum();
+    }
+
+    /**
+     * @param roomId идентификатор номера
+     * @return часть {@link #confirmed(Long)}, уже записанная в БД; стабильна внутри {@link #whileNotFlushing}
+     */
+    public long flushed(Long roomId) {
+        return flushed.getOrDefault(roomId, 0L);
+    }
+
+    /**
+     * @param roomId идентификатор номера
+     * @return бронирования номера, ещё не записанные в БД
+     */
+    public long pending(Long roomId) {
+        return confirmed(roomId) - flushed(roomId);
+    }
+
+    /**
+     * @return подтверждения с момента старта по номерам (только номера с подтверждениями)
+     */
+    public Map<Long, Long> confirmedByRoom() {
+        Map<Long, Long> result = new HashMap<>();
+        confirmed.forEach((roomId, adder) -> result.put(roomId, adder.sum()));
+        return result;
+    }
+
+    /**
+     * @return незаписанные бронирования по номерам
+     */
+    public Map<Long, Long> pendingByRoom() {
+        Map<Long, Long> result = new HashMap<>();
+        confirmed.forEach((roomId, adder) -> {
+            long delta = adder.sum() - flushed(roomId);
+            if (delta != 0) {
+                result.put(roomId, delta);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Выполняет чтение, пока сброс не выполняется: значения в БД и {@link #pending} не пересекаются.
+     *
+     * @param read чтение из БД
+     * @param <T>  тип результата
+     * @return результат чтения
+     */
+    public <T> T whileNotFlushing(Supplier<T> read) {
+        flushLock.lock();
+        try {
+            return read.get();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Записывает накопленные приращения в таблицу номеров.
+     *
+     * <p>Если запись не удалась, записанная часть не меняется, и приращения будут записаны следующим сбросом.</p>
+     *
+     * @return число обновлённых номеров
+     */
+    @Scheduled(
+            initialDelayString = "${hotel.rooms.times-booked.flush-interval-ms:5000}",
+            fixedDelayString = "${hotel.rooms.times-booked.flush-interval-ms:5000}"
+    )
+    public int flush() {
+        flushLock.lock();
+        try {
+            Map<Long, Long> snapshot = new HashMap<>();
+            Map<Long, List<Long>> roomsByDelta = new TreeMap<>();
+            confirmed.forEach((roomId, adder) -> {
+                long sum = adder.sum();
+                long delta = sum - flushed(roomId);
+                if (delta != 0) {
+                    snapshot.put(roomId, sum);
+                    roomsByDelta.computeIfAbsent(delta, d -> new ArrayList<>()).add(roomId);
+                }
+            });
+            if (snapshot.isEmpty()) {
+                return 0;
+            }
+
+            try {
+                transactionTemplate.executeWithoutResult(status ->
+                        roomsByDelta.forEach(roomRepository::addTimesBooked));
+            } catch (RuntimeException ex) {
+                log.warn("Failed to flush room booking counters, will retry: {}", ex.toString());
+                return 0;
+            }
+
+            flushed.putAll(snapshot);
+            log.debug("Room booking counters flushed: rooms={}, updates={}", snapshot.size(), roomsByDelta.size());
+            return snapshot.size();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Записывает накопленные приращения при штатной остановке приложения.
+     */
+    @PreDestroy
+    public void flushOnShutdown() {
+        int flushed = flush();
+        if (!pendingByRoom().isEmpty()) {
+            log.error("Room booking counters were not flushed on shutdown: {}", pendingByRoom());
+        } else if (flushed > 0) {
+            log.info("Room booking counters flushed on shutdown: rooms={}", flushed);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.mybooking.hotelservice.service;
+
+/**
+ * Блокировка номера не получена за {@code hotel.hold.lock-timeout-ms}: номер занят параллельными
+ * удержаниями. Конфликтом периода это не является — повтор через {@link #getRetryAfterSeconds()}
+ * может пройти.
+ *
+ * <p>Отображается в {@code 429 Too Many Requests} с заголовком {@code Retry-After}.</p>
+ */
+public class RoomBusyException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public RoomBusyException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * @return через сколько секунд имеет смысл повторить запрос
+     */
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,138 @@
+package com.mybooking.hotelservice.service;
+
+import com.mybooking.hotelservice.dto.RoomCalendarDto;
+import com.mybooking.hotelservice.model.RoomReservationLock;
+import com.mybooking.hotelservice.repository.HotelRepository;
+import com.mybooking.hotelservice.repository.RoomRepository;
+import com.mybooking.hotelservice.repository.RoomReservationLockRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Месячные календари занятости номеров.
+ *
+ * <p>Календарь строится из таблицы удержаний одним запросом по пересечению с месяцем (для пакета номеров
+ * отеля — одним запросом на все номера) и кэшируется до следующего изменения удержаний номера:
+ * вместе с календарём хранится {@link RoomOccupancyIndex#version(Long) версия номера}, прочитанная
+ * до запроса. Кэш ограничен {@code hotel.calendar.cache-size} записями.</p>
+ */
+@Service
+public class RoomCalendarService {
+
+    private static final List<RoomReservationLock.Status> ACTIVE_STATUSES =
+            List.of(RoomReservationLock.Status.HELD, RoomReservationLock.Status.CONFIRMED);
+
+    private final RoomReservationLockRepository lockRepository;
+    private final RoomRepository roomRepository;
+    private final HotelRepository hotelRepository;
+    private final RoomOccupancyIndex occupancyIndex;
+    private final int cacheSize;
+
+    private final Map<CacheKey, CachedCalendar> cache = new ConcurrentHashMap<>();
+
+    /**
+     * @param cacheSize максимальное число календарей в кэше
+     */
+    public RoomCalendarService(
+            RoomReservationLockRepository lockRepository,
+            RoomRepository roomRepository,
+            HotelRepository hotelRepository,
+            RoomOccupancyIndex occupancyIndex,
+            @Value("${hotel.calendar.cache-size:10000}") int cacheSize
+    ) {
+        this.lockRepository = lockRepository;
+        this.roomRepository = roomRepository;
+        this.hotelRepository = hotelRepository;
+        this.occupancyIndex = occupancyIndex;
+        this.cacheSize = cacheSize;
+    }
+
+    /**
+     * @param roomId идентификатор номера
+     * @param month  месяц
+     * @return календарь номера
+     * @throws NoSuchElementException номер не найден
+     */
+    public RoomCalendarDto roomCalendar(Long roomId, YearMonth month) {
+        if (!roomRepository.existsById(roomId)) {
+            throw new NoSuchElementException("Room not found");
+        }
+        return calendars(List.of(roomId), month).get(0);
+    }
+
+    /**
+     * @param hotelId идентификатор отеля
+     * @param month   месяц
+     * @return календари всех номеров отеля в порядке идентификаторов
+     * @throws NoSuchElementException отель не найден
+     */
+    public List<RoomCalendarDto> hotelCalendar(Long hotelId, YearMonth month) {
+        if (!hotelRepository.existsById(hotelId)) {
+            throw new NoSuchElementException("Hotel not found");
+        }
+        List<Long> roomIds = roomRepository.findRoomHotelIdsByHotelId(hotelId).stream()
+                .map(RoomRepository.RoomHotelView::getRoomId)
+                .sorted()
+                .toList();
+        return calendars(roomIds, month);
+    }
+
+    private List<RoomCalendarDto> calendars(List<Long> roomIds, YearMonth month) {
+        boolean cacheable = occupancyIndex.isReady();
+        Map<Long, Long> versions = new HashMap<>();
+        Map<Long, RoomCalendarDto> result = new HashMap<>();
+        List<Long> misses = new ArrayList<>();
+
+        for (Long roomId : roomIds) {
+            long version = occupancyIndex.version(roomId);
+            CachedCalendar cached = cacheable ? cache.get(new CacheKey(roomId, month)) : null;
+            if (cached != null && cached.version() == version) {
+                result.put(roomId, cached.calendar());
+            } else {
+                versions.put(roomId, version);
+                misses.add(roomId);
+            }
+        }
+
+        if (!misses.isEmpty()) {
+            LocalDate first = month.atDay(1);
+            LocalDate last = month.atEndOfMonth();
+            Map<Long, Integer> masks = new HashMap<>();
+            for (RoomReservationLockRepository.IntervalView lock : lockRepository
+                    .findByRoomIdInAndStatusInAndStartDateLessThanEqualAndEndDateGreaterThanEqual(
+                            misses, ACTIVE_STATUSES, last, first)) {
+                int from = (lock.getStartDate().isBefore(first) ? first : lock.getStartDate()).getDayOfMonth() - 1;
+                int to = (lock.getEndDate().isAfter(last) ? last : lock.getEndDate()).getDayOfMonth() - 1;
+                int mask = (int) (((1L << (to + 1)) - 1) & ~((1L << from) - 1));
+                masks.merge(lock.getRoomId(), mask, (a, b) -> a | b);
+            }
+
+            if (cacheable && cache.size() + misses.size() > cacheSize) {
+                cache.clear();
+            }
+            for (Long roomId : misses) {
+                RoomCalendarDto calendar = new RoomCalendarDto(roomId, month.toString(), month.lengthOfMonth(),
+                        masks.getOrDefault(roomId, 0));
+                result.put(roomId, calendar);
+                if (cacheable) {
+                    cache.put(new CacheKey(roomId, month), new CachedCalendar(versions.get(roomId), calendar));
+                }
+            }
+        }
+
+        return roomIds.stream().map(result::get).toList();
+    }
+
+    private record CacheKey(Long roomId, YearMonth month) {}
+
+    private record CachedCalendar(long version, RoomCalendarDto calendar) {}
+}
@@ -0,0 +1,44 @@
+package com.mybooking.hotelservice.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Полосатая (striped) блокировка номеров внутри экземпляра hotel-service.
+ *
+ * <p>Каждому roomId соответствует одна из фиксированного числа блокировок. Операции над разными
+ * номерами почти всегда попадают в разные полосы и выполняются параллельно, операции над одним
+ * номером сериализуются. Память не зависит от числа номеров.</p>
+ *
+ * <p>Блокировка защищает только один экземпляр сервиса; между экземплярами согласованность
+ * обеспечивает пессимистическая блокировка строки номера в БД.</p>
+ */
+@Component
+public class RoomLockStripes {
+
+    private final Lock[] stripes;
+    private final int mask;
+
+    public RoomLockStripes(@Value("${hotel.hold.lock-stripes:256}") int stripeCount) {
+        int size = stripeCount <= 1 ? 1 : Integer.highestOneBit(stripeCount - 1) << 1;
+        this.stripes = new Lock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * Возвращает блокировку полосы, к которой относится номер.
+     *
+     * @param roomId идентификатор номера
+     * @return блокировка полосы
+     */
+    public Lock forRoom(Long roomId) {
+        long h = roomId * 0x9E3779B97F4A7C15L;
+        return stripes[(int) (h ^ (h >>> 32)) & mask];
+    }
+}
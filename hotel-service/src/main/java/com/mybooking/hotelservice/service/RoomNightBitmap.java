@@ -0,0 +1,63 @@
+package com.mybooking.hotelservice.service;
+
+/**
+ * Операции над битовой картой ночей номера: один бит на ночь, 64 ночи в слове {@code long}.
+ *
+ * <p>Бит {@code i} соответствует ночи {@code origin + i}. Установка и проверка диапазона
+ * выполняются пословно масками, поэтому проверка периода в N ночей стоит {@code N / 64 + 1} операций.</p>
+ */
+public final class RoomNightBitmap {
+
+    private RoomNightBitmap() {
+    }
+
+    /**
+     * @param nights число ночей в горизонте
+     * @return пустая карта, вмещающая {@code nights} ночей
+     */
+    public static long[] allocate(int nights) {
+        return new long[(nights + 63) >>> 6];
+    }
+
+    /**
+     * Помечает занятыми ночи {@code [from, to]} (границы включительные, индексы в пределах карты).
+     */
+    public static void set(long[] words, int from, int to) {
+        int first = from >>> 6;
+        int last = to >>> 6;
+        for (int w = first; w <= last; w++) {
+            words[w] |= mask(w, first, last, from, to);
+        }
+    }
+
+    /**
+     * Помечает свободными ночи {@code [from, to]} (границы включительные, индексы в пределах карты).
+     */
+    public static void clear(long[] words, int from, int to) {
+        int first = from >>> 6;
+        int last = to >>> 6;
+        for (int w = first; w <= last; w++) {
+            words[w] &= ~mask(w, first, last, from, to);
+        }
+    }
+
+    /**
+     * @return true, если все ночи {@code [from, to]} свободны (границы включительные, индексы в пределах карты)
+     */
+    public static boolean isClear(long[] words, int from, int to) {
+        int first = from >>> 6;
+        int last = to >>> 6;
+        for (int w = first; w <= last; w++) {
+            if ((words[w] & mask(w, first, last, from, to)) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long mask(int w, int first, int last, int from, int to) {
+        long lo = w == first ? -1L << (from & 63) : -1L;
+        long hi = w == last ? -1L >>> (63 - (to & 63)) : -1L;
+        return lo & hi;
+    }
+}
@@ -0,0 +1,607 @@
+package com.mybooking.hotelservice.service;
+
+import com.mybooking.hotelservice.model.RoomReservationLock;
+import com.mybooking.hotelservice.repository.RoomReservationLockRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory индекс занятости номеров для проверки конфликтов удержаний.
+ *
+ * <p>Для каждого номера хранит отсортированное по дате начала множество интервалов активных
+ * удержаний (HELD и CONFIRMED). Проверка пересечения выполняется за O(log n + k), где k — число
+ * интервалов, начинающихся в окне {@code [start - maxSpan, end]}; для непересекающихся удержаний
+ * одного номера k ограничено единицами. Таблица {@code room_reservation_lock} остаётся источником
+ * истины, но при проверке конфликтов не читается.</p>
+ *
+ * <p>Дополнительно для каждого номера поддерживается битовая карта ночей ({@link RoomNightBitmap}) на скользящем
+ * горизонте {@code hotel.occupancy-index.horizon-days} от текущей даты: проверка свободности периода внутри
+ * горизонта сводится к нескольким операциям над словами {@code long}. Карта обновляется вместе с интервалами
+ * (в том числе при откате транзакции и сверке): добавленный интервал помечается в карте, а при удалении
+ * пересчитываются только слова, которые он покрывал, по соседним интервалам — изменение стоит O(log n + k)
+ * независимо от длины истории удержаний номера. Целиком карта строится заново только при сдвиге горизонта.
+ * Периоды за пределами горизонта проверяются по интервалам.</p>
+ *
+ * <p>Каждое изменение номера (а также завершение изменившей его транзакции) увеличивает версию номера
+ * ({@link #version(Long)}), по которой кэши, построенные из таблицы удержаний, определяют устаревание.</p>
+ *
+ * <p>Добавления применяются сразу, чтобы их видели последующие проверки в той же транзакции,
+ * и откатываются, если транзакция завершилась rollback. Удаления внутри транзакции откладываются
+ * до commit и видны только самой транзакции: для остальных интервал продолжает занимать номер,
+ * и параллельное удержание не может занять период, который откат вернул бы прежнему владельцу.
+ * Пока индекс не построен,
+ * {@link #isReady()} возвращает false и конфликты нужно проверять запросом к БД.</p>
+ */
+@Component
+public class RoomOccupancyIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(RoomOccupancyIndex.class);
+
+    private static final List<RoomReservationLock.Status> ACTIVE_STATUSES =
+            List.of(RoomReservationLock.Status.HELD, RoomReservationLock.Status.CONFIRMED);
+
+    private final RoomReservationLockRepository lockRepository;
+    private final int horizonDays;
+
+    private volatile Horizon horizon;
+
+    private volatile Map<Long, RoomIntervals> rooms = new ConcurrentHashMap<>();
+
+    /**
+     * Изменения берут блокировку на чтение, подмена построенной заново карты — на запись.
+     */
+    private final ReadWriteLock swapLock = new ReentrantReadWriteLock();
+
+    /**
+     * Удержания, изменённые во время перестройки (null вне перестройки).
+     */
+    private volatile Set<Long> changedDuringRebuild;
+
+    /**
+     * Идентификаторы удержаний, изменённых незавершёнными транзакциями (не участвуют в сверке).
+     */
+    private final Set<Long> pending = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean ready;
+
+    private final AtomicLong versions = new AtomicLong();
+
+    /**
+     * Версия номеров без интервалов в индексе; меняется при перестройке.
+     */
+    private volatile long emptyVersion = versions.incrementAndGet();
+
+    /**
+     * @param horizonDays длина горизонта битовых карт ночей от текущей даты
+     */
+    public RoomOccupancyIndex(
+            RoomReservationLockRepository lockRepository,
+            @Value("${hotel.occupancy-index.horizon-days:365}") int horizonDays
+    ) {
+        this.lockRepository = lockRepository;
+        this.horizonDays = horizonDays;
+        this.horizon = Horizon.starting(LocalDate.now(), horizonDays);
+    }
+
+    /**
+     * Полностью перестраивает индекс по таблице удержаний.
+     *
+     * <p>Вызывается при старте приложения. На время построения индекс помечается как не готовый.
+     * Новая карта строится отдельно и подменяет текущую целиком, поэтому выполняющиеся запросы
+     * не видят частично построенный индекс. Удержания, изменённые во время построения или
+     * незавершёнными транзакциями, переносятся из текущей карты: снимок БД их ещё не отражает.</p>
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long startedAt = System.nanoTime();
+        ready = false;
+        Set<Long> changed = ConcurrentHashMap.newKeySet();
+        changedDuringRebuild = changed;
+
+        Horizon built = Horizon.starting(LocalDate.now(), horizonDays);
+        Map<Long, RoomIntervals> fresh = new ConcurrentHashMap<>();
+        Map<Long, Interval> loaded = new HashMap<>();
+        List<RoomReservationLockRepository.IntervalView> active = lockRepository.findByStatusIn(ACTIVE_STATUSES);
+        for (RoomReservationLockRepository.IntervalView view : active) {
+            Interval interval = Interval.of(view.getId(), view.getRoomId(), view.getStartDate(), view.getEndDate());
+            loaded.put(interval.lockId(), interval);
+            apply(fresh, built, interval.roomId(), interval.lockId(), interval);
+        }
+
+        swapLock.writeLock().lock();
+        try {
+            Map<Long, Interval> current = snapshot();
+            changed.addAll(pending);
+            for (Long lockId : changed) {
+                Interval stale = loaded.get(lockId);
+                if (stale != null) {
+                    apply(fresh, built, stale.roomId(), lockId, null);
+                }
+                Interval actual = current.get(lockId);
+                if (actual != null) {
+                    apply(fresh, built, actual.roomId(), lockId, actual);
+                }
+            }
+            horizon = built;
+            rooms = fresh;
+            emptyVersion = versions.incrementAndGet();
+            changedDuringRebuild = null;
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+
+        ready = true;
+        log.info("Room occupancy index built: rooms={}, locks={}, took={}ms",
+                fresh.size(), active.size(), (System.nanoTime() - startedAt) / 1_000_000);
+    }
+
+    /**
+     * @return true, если индекс построен и может использоваться вместо запроса к БД
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Проверяет, пересекается ли период с активными удержаниями номера.
+     *
+     * <p>Семантика совпадает с запросом к БД: границы включительные.</p>
+     *
+     * @param roomId    идентификатор номера
+     * @param startDate дата начала
+     * @param endDate   дата окончания
+     * @return true, если есть конфликтующее удержание
+     */
+    public boolean hasConflict(Long roomId, LocalDate startDate, LocalDate endDate) {
+        return !isFree(roomId, startDate, endDate);
+    }
+
+    /**
+     * Проверяет, свободен ли номер на все ночи периода (границы включительные, как в {@link #hasConflict}).
+     *
+     * <p>Внутри горизонта проверка выполняется по битовой карте ночей номера.</p>
+     *
+     * @param roomId    идентификатор номера
+     * @param startDate дата начала
+     * @param endDate   дата окончания
+     * @return true, если номер свободен
+     */
+    public boolean isFree(Long roomId, LocalDate startDate, LocalDate endDate) {
+        RoomIntervals intervals = rooms.get(roomId);
+        if (intervals == null || intervals.isFree(horizon, startDate.toEpochDay(), endDate.toEpochDay())) {
+            return true;
+        }
+        // удаления текущей транзакции ещё не применены, но для неё самой номер уже освобождён
+        Set<Long> removed = removedInTransaction(roomId);
+        return !removed.isEmpty() && !intervals.overlaps(startDate.toEpochDay(), endDate.toEpochDay(), removed);
+    }
+
+    /**
+     * Версия состояния номера. Меняется при каждом изменении удержаний номера, а также после commit
+     * или rollback изменившей его транзакции, поэтому значение, прочитанное до запроса к БД, перестаёт
+     * совпадать, если результат запроса мог устареть.
+     *
+     * @param roomId идентификатор номера
+     * @return версия
+     */
+    public long version(Long roomId) {
+        RoomIntervals intervals = rooms.get(roomId);
+        return intervals == null ? emptyVersion : intervals.version;
+    }
+
+    /**
+     * Сдвигает горизонт битовых карт вслед за текущей датой.
+     *
+     * <p>Начало горизонта выровнено на 64 дня, поэтому карты пересчитываются из интервалов
+     * не чаще одного раза в 64 дня; до пересчёта карта номера не используется.</p>
+     */
+    @Scheduled(fixedDelayString = "${hotel.occupancy-index.horizon-roll-interval-ms:3600000}")
+    public void rollHorizon() {
+        Horizon next = Horizon.starting(LocalDate.now(), horizonDays);
+        if (next.equals(horizon)) {
+            return;
+        }
+        horizon = next;
+        rooms.values().forEach(intervals -> intervals.remap(next));
+        log.info("Room occupancy horizon moved: origin={}, nights={}", LocalDate.ofEpochDay(next.origin()), next.nights());
+    }
+
+    /**
+     * Отражает в индексе текущее состояние удержания (после сохранения в БД).
+     *
+     * <p>HELD и CONFIRMED добавляются в индекс, RELEASED — удаляются. Если вызов выполняется внутри
+     * транзакции, добавление при её откате отменяется, а удаление применяется только после commit.</p>
+     *
+     * @param lock сохранённое удержание
+     */
+    public void track(RoomReservationLock lock) {
+        Interval interval = ACTIVE_STATUSES.contains(lock.getStatus())
+                ? Interval.of(lock.getId(), lock.getRoomId(), lock.getStartDate(), lock.getEndDate())
+                : null;
+        if (interval == null) {
+            untrack(lock.getRoomId(), lock.getId());
+            return;
+        }
+        Interval previous = apply(lock.getRoomId(), lock.getId(), interval);
+        UndoLog undoLog = undoLog();
+        if (undoLog != null) {
+            undoLog.record(lock.getRoomId(), lock.getId());
+            undoLog.removals.remove(lock.getId());
+            undoLog.actions.addFirst(() -> apply(lock.getRoomId(), lock.getId(), previous));
+        }
+    }
+
+    /**
+     * Удаляет удержание из индекса (например, после массового освобождения истёкших удержаний
+     * UPDATE-запросом, когда сущности не загружаются). Внутри транзакции удаление применяется
+     * после commit, при откате запись остаётся в индексе.
+     *
+     * @param roomId идентификатор номера
+     * @param lockId идентификатор удержания
+     */
+    public void untrack(Long roomId, Long lockId) {
+        UndoLog undoLog = undoLog();
+        if (undoLog == null) {
+            apply(roomId, lockId, null);
+            return;
+        }
+        undoLog.record(roomId, lockId);
+        undoLog.removals.put(lockId, roomId);
+    }
+
+    /**
+     * Сверяет индекс с таблицей удержаний и исправляет расхождения.
+     *
+     * <p>Расхождения между снимками индекса и БД перепроверяются по каждому удержанию отдельно,
+     * чтобы не «исправлять» изменения, выполненные параллельно со сверкой. Удержания
+     * незавершённых транзакций пропускаются.</p>
+     *
+     * @return число исправленных записей индекса
+     */
+    @Scheduled(
+            initialDelayString = "${hotel.occupancy-index.verify-interval-ms:300000}",
+            fixedDelayString = "${hotel.occupancy-index.verify-interval-ms:300000}"
+    )
+    public int verifyAgainstDatabase() {
+        if (!ready) {
+            return 0;
+        }
+
+        Map<Long, Interval> expected = new HashMap<>();
+        for (RoomReservationLockRepository.IntervalView view : lockRepository.findByStatusIn(ACTIVE_STATUSES)) {
+            expected.put(view.getId(), Interval.of(view.getId(), view.getRoomId(), view.getStartDate(), view.getEndDate()));
+        }
+        Map<Long, Interval> actual = snapshot();
+
+        Set<Long> suspects = new HashSet<>();
+        expected.forEach((id, interval) -> {
+            if (!interval.equals(actual.get(id))) {
+                suspects.add(id);
+            }
+        });
+        actual.keySet().stream().filter(id -> !expected.containsKey(id)).forEach(suspects::add);
+        suspects.removeAll(pending);
+
+        int repaired = 0;
+        for (Long id : suspects) {
+            Interval wanted = lockRepository.findById(id)
+                    .filter(lock -> ACTIVE_STATUSES.contains(lock.getStatus()))
+                    .map(lock -> Interval.of(lock.getId(), lock.getRoomId(), lock.getStartDate(), lock.getEndDate()))
+                    .orElse(null);
+            Interval known = wanted != null ? wanted : actual.getOrDefault(id, expected.get(id));
+            Interval current = find(id, known.roomId());
+            if (!pending.contains(id) && !Objects.equals(wanted, current)) {
+                apply(known.roomId(), id, wanted);
+                repaired++;
+            }
+        }
+
+        if (repaired > 0) {
+            log.warn("Room occupancy index diverged from database: repaired {} entries", repaired);
+        } else {
+            log.debug("Room occupancy index is consistent with database: locks={}", expected.size());
+        }
+        return repaired;
+    }
+
+    private Interval apply(Long roomId, Long lockId, Interval interval) {
+        swapLock.readLock().lock();
+        try {
+            Set<Long> changed = changedDuringRebuild;
+            if (changed != null) {
+                changed.add(lockId);
+            }
+            return apply(rooms, horizon, roomId, lockId, interval);
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    private Interval apply(Map<Long, RoomIntervals> target, Horizon horizon, Long roomId, Long lockId, Interval interval) {
+        RoomIntervals intervals = target.computeIfAbsent(roomId, id -> new RoomIntervals());
+        Interval previous = intervals.replace(lockId, interval, horizon);
+        intervals.version = versions.incrementAndGet();
+        return previous;
+    }
+
+    private void touch(Long roomId) {
+        RoomIntervals intervals = rooms.get(roomId);
+        if (intervals != null) {
+            intervals.version = versions.incrementAndGet();
+        }
+    }
+
+    private Interval find(Long lockId, Long roomId) {
+        RoomIntervals intervals = rooms.get(roomId);
+        return intervals == null ? null : intervals.get(lockId);
+    }
+
+    private Map<Long, Interval> snapshot() {
+        Map<Long, Interval> result = new HashMap<>();
+        rooms.values().forEach(intervals -> intervals.copyTo(result));
+        return result;
+    }
+
+    /**
+     * @return удержания номера, удалённые текущей транзакцией (удаление применится после commit)
+     */
+    private Set<Long> removedInTransaction(Long roomId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return Set.of();
+        }
+        UndoLog undoLog = (UndoLog) TransactionSynchronizationManager.getResource(this);
+        if (undoLog == null || undoLog.removals.isEmpty()) {
+            return Set.of();
+        }
+        Set<Long> removed = new HashSet<>();
+        undoLog.removals.forEach((lockId, lockRoomId) -> {
+            if (lockRoomId.equals(roomId)) {
+                removed.add(lockId);
+            }
+        });
+        return removed;
+    }
+
+    /**
+     * Возвращает журнал изменений текущей транзакции, регистрируя его при первом обращении.
+     *
+     * <p>После commit применяются отложенные удаления, после rollback журнал отмены воспроизводится
+     * в обратном порядке, поэтому несколько изменений одного удержания в рамках транзакции
+     * откатываются корректно.</p>
+     *
+     * @return журнал или null, если синхронизация транзакций не активна
+     */
+    private UndoLog undoLog() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+
+        UndoLog undoLog = (UndoLog) TransactionSynchronizationManager.getResource(this);
+        if (undoLog == null) {
+            UndoLog newLog = new UndoLog();
+            TransactionSynchronizationManager.bindResource(this, newLog);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(RoomOccupancyIndex.this);
+                    if (status == STATUS_COMMITTED) {
+                        newLog.removals.forEach((lockId, roomId) -> apply(roomId, lockId, null));
+                    } else {
+                        newLog.actions.forEach(Runnable::run);
+                    }
+                    pending.removeAll(newLog.lockIds);
+                    newLog.roomIds.forEach(RoomOccupancyIndex.this::touch);
+                }
+            });
+            undoLog = newLog;
+        }
+        return undoLog;
+    }
+
+    /**
+     * Журнал отмены изменений индекса в рамках одной транзакции.
+     */
+    private final class UndoLog {
+        private final Deque<Runnable> actions = new ArrayDeque<>();
+
+        /**
+         * Удаления, отложенные до commit: lockId → roomId.
+         */
+        private final Map<Long, Long> removals = new LinkedHashMap<>();
+        private final Set<Long> lockIds = new HashSet<>();
+        private final Set<Long> roomIds = new HashSet<>();
+
+        void record(Long roomId, Long lockId) {
+            pending.add(lockId);
+            lockIds.add(lockId);
+            roomIds.add(roomId);
+        }
+    }
+
+    /**
+     * Интервал активного удержания в днях от эпохи (границы включительные).
+     */
+    record Interval(long lockId, Long roomId, long start, long end) {
+
+        static Interval of(Long lockId, Long roomId, LocalDate startDate, LocalDate endDate) {
+            return new Interval(lockId, roomId, startDate.toEpochDay(), endDate.toEpochDay());
+        }
+    }
+
+    /**
+     * Горизонт битовых карт: ночи {@code [origin, origin + nights)} в днях от эпохи.
+     */
+    record Horizon(long origin, int nights) {
+
+        static Horizon starting(LocalDate today, int horizonDays) {
+            long origin = Math.floorDiv(today.toEpochDay(), 64) * 64;
+            int nights = (int) (today.toEpochDay() - origin) + Math.max(horizonDays, 1);
+            return new Horizon(origin, (nights + 63) & ~63);
+        }
+
+        boolean covers(long start, long end) {
+            return start >= origin && end < origin + nights;
+        }
+    }
+
+    /**
+     * Интервалы одного номера. Все операции синхронизированы на экземпляре.
+     */
+    private static final class RoomIntervals {
+
+        private static final Comparator<Interval> ORDER =
+                Comparator.comparingLong(Interval::start).thenComparingLong(Interval::lockId);
+
+        private final NavigableSet<Interval> byStart = new TreeSet<>(ORDER);
+        private final Map<Long, Interval> byLockId = new HashMap<>();
+
+        /**
+         * Верхняя граница длины интервала. Не уменьшается при удалении, что сохраняет корректность поиска.
+         */
+        private long maxSpan;
+
+        /**
+         * Битовая карта занятых ночей на горизонте {@link #mapped}.
+         */
+        private Horizon mapped;
+        private long[] nights;
+
+        private volatile long version;
+
+        synchronized Interval replace(Long lockId, Interval interval, Horizon horizon) {
+            if (!horizon.equals(mapped)) {
+                remap(horizon);
+            }
+            Interval previous = byLockId.remove(lockId);
+            if (previous != null) {
+                byStart.remove(previous);
+                unmark(previous);
+            }
+            if (interval != null) {
+                byLockId.put(lockId, interval);
+                byStart.add(interval);
+                maxSpan = Math.max(maxSpan, interval.end() - interval.start());
+                mark(interval, Long.MIN_VALUE, Long.MAX_VALUE);
+            }
+            return previous;
+        }
+
+        /**
+         * Строит карту на новом горизонте; читаются только интервалы, пересекающие горизонт.
+         */
+        synchronized void remap(Horizon horizon) {
+            mapped = horizon;
+            nights = RoomNightBitmap.allocate(horizon.nights());
+            long last = horizon.origin() + horizon.nights() - 1;
+            for (Interval interval : overlapping(horizon.origin(), last)) {
+                mark(interval, Long.MIN_VALUE, Long.MAX_VALUE);
+            }
+        }
+
+        /**
+         * Помечает ночи интервала в пределах горизонта и окна {@code [lo, hi]}.
+         */
+        private void mark(Interval interval, long lo, long hi) {
+            long from = Math.max(Math.max(interval.start(), lo), mapped.origin());
+            long to = Math.min(Math.min(interval.end(), hi), mapped.origin() + mapped.nights() - 1);
+            if (from <= to) {
+                RoomNightBitmap.set(nights, (int) (from - mapped.origin()), (int) (to - mapped.origin()));
+            }
+        }
+
+        /**
+         * Снимает удалённый интервал с карты: очищает покрытые им слова и заново помечает в них
+         * ночи интервалов, пересекающих эти слова (удалённый уже исключён из множества).
+         */
+        private void unmark(Interval removed) {
+            long from = Math.max(removed.start(), mapped.origin());
+            long to = Math.min(removed.end(), mapped.origin() + mapped.nights() - 1);
+            if (from > to) {
+                return;
+            }
+            // начало горизонта выровнено на 64 дня: границы слов — кратные 64 смещения
+            long lo = mapped.origin() + ((from - mapped.origin()) & ~63L);
+            long hi = mapped.origin() + ((to - mapped.origin()) | 63L);
+            RoomNightBitmap.clear(nights, (int) (lo - mapped.origin()), (int) (hi - mapped.origin()));
+            for (Interval neighbour : overlapping(lo, hi)) {
+                mark(neighbour, lo, hi);
+            }
+        }
+
+        /**
+         * @return интервалы, пересекающие {@code [start, end]}
+         */
+        private List<Interval> overlapping(long start, long end) {
+            if (byStart.isEmpty()) {
+                return List.of();
+            }
+            Interval from = new Interval(Long.MIN_VALUE, null, start - maxSpan, Long.MIN_VALUE);
+            Interval to = new Interval(Long.MAX_VALUE, null, end, Long.MAX_VALUE);
+            List<Interval> result = new ArrayList<>();
+            for (Interval candidate : byStart.subSet(from, true, to, true)) {
+                if (candidate.end() >= start) {
+                    result.add(candidate);
+                }
+            }
+            return result;
+        }
+
+        synchronized boolean isFree(Horizon horizon, long start, long end) {
+            if (horizon.equals(mapped) && horizon.covers(start, end)) {
+                return RoomNightBitmap.isClear(nights, (int) (start - horizon.origin()), (int) (end - horizon.origin()));
+            }
+            return !overlaps(start, end, Set.of());
+        }
+
+        synchronized Interval get(Long lockId) {
+            return byLockId.get(lockId);
+        }
+
+        /**
+         * @param ignored удержания, не учитываемые при проверке
+         */
+        synchronized boolean overlaps(long start, long end, Set<Long> ignored) {
+            if (byStart.isEmpty()) {
+                return false;
+            }
+            Interval from = new Interval(Long.MIN_VALUE, null, start - maxSpan, Long.MIN_VALUE);
+            Interval to = new Interval(Long.MAX_VALUE, null, end, Long.MAX_VALUE);
+            for (Interval candidate : byStart.subSet(from, true, to, true)) {
+                if (candidate.end() >= start && !ignored.contains(candidate.lockId())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        synchronized void copyTo(Map<Long, Interval> target) {
+            target.putAll(byLockId);
+        }
+    }
+}
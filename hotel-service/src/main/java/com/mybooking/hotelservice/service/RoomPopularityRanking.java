@@ -0,0 +1,284 @@
+package com.mybooking.hotelservice.service;
+
+import com.mybooking.hotelservice.dto.RoomListDto;
+import com.mybooking.hotelservice.repository.RoomRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Инкрементально поддерживаемый рейтинг популярности доступных номеров (для {@code /api/rooms/top}).
+ *
+ * <p>Номера хранятся в упорядоченных skip-list множествах (по убыванию {@code timesBooked}, при равенстве — по
+ * возрастанию id): общем, по отелям и по городам, поэтому первые N номеров читаются обходом начала одного
+ * множества без сканирования и сортировки всего фонда; фильтр по вместимости применяется во время обхода.
+ * Рейтинг обновляется:
+ * <ul>
+ *   <li>при подтверждении удержания — после commit и приращения {@link RoomBookingCounter}, перестановкой
+ *       одного номера (O(log n));</li>
+ *   <li>при сохранении и удалении номера или отеля через {@link HotelService} — перечитыванием затронутых
+ *       номеров;</li>
+ *   <li>полной перестройкой при старте и периодической сверкой ({@code hotel.stats.reconcile-interval-ms}).</li>
+ * </ul>
+ * Перестановки выполняются под монитором экземпляра, чтение не блокируется: во время перестановки номер может
+ * на мгновение отсутствовать в выдаче. Приращение счётчика выполняется вне монитора. Номер в рейтинге хранит
+ * значение из БД за вычетом уже записанной части счётчика ({@link RoomBookingCounter#flushed}), а
+ * {@code timesBooked} вычисляется по текущей версии {@link RoomBookingCounter#confirmed}: перестановка после
+ * подтверждения лишь догоняет счётчик, поэтому пересчёт, уже прочитавший приращение, не учитывается дважды.</p>
+ */
+@Component
+public class RoomPopularityRanking {
+
+    private static final Logger log = LoggerFactory.getLogger(RoomPopularityRanking.class);
+
+    static final Comparator<Ranked> BY_POPULARITY = Comparator.comparingLong(Ranked::timesBooked).reversed()
+            .thenComparingLong(Ranked::roomId);
+
+    private final RoomRepository roomRepository;
+    private final RoomBookingCounter bookingCounter;
+
+    /**
+     * Текущий индекс; полная перестройка подменяет его целиком, чтобы чтение не видело частично заполненный.
+     */
+    private volatile Index index = new Index();
+
+    public RoomPopularityRanking(RoomRepository roomRepository, RoomBookingCounter bookingCounter) {
+        this.roomRepository = roomRepository;
+        this.bookingCounter = bookingCounter;
+    }
+
+    /**
+     * Полностью перестраивает рейтинг по таблице номеров.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long startedAt = System.nanoTime();
+        int rooms = bookingCounter.whileNotFlushing(() -> {
+            List<RoomRepository.RoomRankingView> views = roomRepository.findRankingViews();
+            synchronized (this) {
+                Index rebuilt = new Index();
+                for (RoomRepository.RoomRankingView view : views) {
+                    rebuilt.put(ranked(view));
+                }
+                index = rebuilt;
+            }
+            return views.size();
+        });
+
+        log.info("Room popularity ranking built: rooms={}, took={}ms", rooms, (System.nanoTime() - startedAt) / 1_000_000);
+    }
+
+    /**
+     * Периодически перестраивает рейтинг, исправляя изменения, выполненные в обход сервиса.
+     */
+    @Scheduled(
+            initialDelayString = "${hotel.stats.reconcile-interval-ms:300000}",
+            fixedDelayString = "${hotel.stats.reconcile-interval-ms:300000}"
+    )
+    public void reconcile() {
+        rebuild();
+    }
+
+    /**
+     * Самые популярные доступные номера.
+     *
+     * @param n           максимальное число номеров
+     * @param city        город или null
+     * @param hotelId     идентификатор отеля или null
+     * @param minCapacity минимальная вместимость
+     * @return номера по убыванию {@code timesBooked}, при равенстве — по возрастанию id
+     */
+    public List<RoomListDto> top(int n, String city, Long hotelId, int minCapacity) {
+        Index current = index;
+        NavigableSet<Ranked> source = hotelId != null ? current.byHotel.get(hotelId)
+                : city != null ? current.byCity.get(city)
+                : current.all;
+        if (source == null) {
+            return List.of();
+        }
+        List<RoomListDto> result = new ArrayList<>(Math.min(n, 64));
+        for (Ranked room : source) {
+            if (room.capacity() < minCapacity || (city != null && !city.equals(room.city()))) {
+                continue;
+            }
+            result.add(room.toDto());
+            if (result.size() == n) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Перечитывает номера (после сохранения или удаления); удалённые и закрытые для бронирования номера
+     * исключаются из рейтинга. null-идентификаторы пропускаются.
+     *
+     * @param roomIds идентификаторы номеров
+     */
+    public void refreshRooms(Long... roomIds) {
+        Set<Long> ids = nonNull(roomIds);
+        if (ids.isEmpty()) {
+            return;
+        }
+        bookingCounter.whileNotFlushing(() -> {
+            List<RoomRepository.RoomRankingView> views = roomRepository.findRankingViewsByIds(ids);
+            synchronized (this) {
+                Index current = index;
+                ids.forEach(current::remove);
+                for (RoomRepository.RoomRankingView view : views) {
+                    current.put(ranked(view));
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Перечитывает все номера отелей (после сохранения или удаления отеля, например смены города).
+     *
+     * @param hotelIds идентификаторы отелей
+     */
+    public void refreshHotels(Long... hotelIds) {
+        for (Long hotelId : nonNull(hotelIds)) {
+            bookingCounter.whileNotFlushing(() -> {
+                List<RoomRepository.RoomRankingView> views = roomRepository.findRankingViewsByHotelId(hotelId);
+                synchronized (this) {
+                    Index current = index;
+                    NavigableSet<Ranked> previous = current.byHotel.get(hotelId);
+                    if (previous != null) {
+                        List.copyOf(previous).forEach(room -> current.remove(room.roomId()));
+                    }
+                    for (RoomRepository.RoomRankingView view : views) {
+                        current.put(ranked(view));
+                    }
+                }
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Переставляет номер по текущему значению {@link RoomBookingCounter} после подтверждённого бронирования.
+     * Вызывается после commit и приращения счётчика из {@link RoomStatistics#onBookingConfirmed}; повторный
+     * вызов или вызов после пересчёта ничего не меняет.
+     *
+     * @param roomId идентификатор номера
+     */
+    void addBooking(Long roomId) {
+        // без монитора: номер уже на месте, если пересчёт или параллельная перестановка догнали счётчик
+        // (отсутствующий номер может быть посреди перестановки, поэтому проверяется под монитором)
+        Ranked seen = index.byRoom.get(roomId);
+        if (seen != null && seen.timesBooked() == seen.base() + bookingCounter.confirmed(roomId)) {
+            return;
+        }
+        synchronized (this) {
+            Index current = index;
+            Ranked room = current.byRoom.get(roomId);
+            if (room != null) {
+                long timesBooked = room.base() + bookingCounter.confirmed(roomId);
+                if (timesBooked != room.timesBooked()) {
+                    current.put(room.withTimesBooked(timesBooked));
+                }
+            }
+        }
+    }
+
+    /**
+     * Номер рейтинга по строке БД; вызывать внутри {@link RoomBookingCounter#whileNotFlushing}, чтобы значение
+     * из БД и записанная часть счётчика были согласованы.
+     */
+    private Ranked ranked(RoomRepository.RoomRankingView view) {
+        long base = view.getTimesBooked() - bookingCounter.flushed(view.getRoomId());
+        return new Ranked(view.getRoomId(), view.getHotelId(), view.getCity(), view.getNumber(),
+                view.getCapacity(), base, base + bookingCounter.confirmed(view.getRoomId()));
+    }
+
+    private static Set<Long> nonNull(Long[] ids) {
+        Set<Long> result = new LinkedHashSet<>();
+        for (Long id : ids) {
+            if (id != null) {
+                result.add(id);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Номер в рейтинге (неизменяемый: при изменении заменяется новым экземпляром).
+     *
+     * @param base        {@code timesBooked} из БД за вычетом записанной части {@link RoomBookingCounter}
+     * @param timesBooked {@code base} плюс подтверждения номера с момента старта
+     */
+    record Ranked(long roomId, Long hotelId, String city, String number, int capacity, long base, long timesBooked) {
+
+        Ranked withTimesBooked(long value) {
+            return new Ranked(roomId, hotelId, city, number, capacity, base, value);
+        }
+
+        RoomListDto toDto() {
+            return new RoomListDto(roomId, hotelId, number, capacity, timesBooked, true);
+        }
+    }
+
+    /**
+     * Множества рейтинга; изменяются только под монитором {@link RoomPopularityRanking}.
+     */
+    private static final class Index {
+
+        final Map<Long, Ranked> byRoom = new ConcurrentHashMap<>();
+        final NavigableSet<Ranked> all = new ConcurrentSkipListSet<>(BY_POPULARITY);
+        final Map<Long, NavigableSet<Ranked>> byHotel = new ConcurrentHashMap<>();
+        final Map<String, NavigableSet<Ranked>> byCity = new ConcurrentHashMap<>();
+
+        /**
+         * Добавляет номер или заменяет его прежнюю позицию.
+         */
+        void put(Ranked room) {
+            remove(room.roomId());
+            byRoom.put(room.roomId(), room);
+            all.add(room);
+            if (room.hotelId() != null) {
+                byHotel.computeIfAbsent(room.hotelId(), id -> new ConcurrentSkipListSet<>(BY_POPULARITY)).add(room);
+            }
+            if (room.city() != null) {
+                byCity.computeIfAbsent(room.city(), c -> new ConcurrentSkipListSet<>(BY_POPULARITY)).add(room);
+            }
+        }
+
+        void remove(Long roomId) {
+            Ranked previous = byRoom.remove(roomId);
+            if (previous == null) {
+                return;
+            }
+            all.remove(previous);
+            if (previous.hotelId() != null) {
+                removeFrom(byHotel, previous.hotelId(), previous);
+            }
+            if (previous.city() != null) {
+                removeFrom(byCity, previous.city(), previous);
+            }
+        }
+
+        private static <K> void removeFrom(Map<K, NavigableSet<Ranked>> sets, K key, Ranked room) {
+            NavigableSet<Ranked> set = sets.getOrDefault(key, Collections.emptyNavigableSet());
+            set.remove(room);
+            if (set.isEmpty()) {
+                sets.remove(key);
+            }
+        }
+    }
+}
@@ -0,0 +1,390 @@
+package com.mybooking.hotelservice.service;
+
+import com.mybooking.hotelservice.repository.RoomRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Инкрементально поддерживаемая статистика номерного фонда.
+ *
+ * <p>Хранит агрегаты (число номеров, доступных номеров и бронирований) в целом, по отелям и по городам,
+ * поэтому {@code /api/stats} отвечает без чтения таблицы номеров. Агрегаты обновляются:
+ * <ul>
+ *   <li>при сохранении и удалении номера или отеля через {@link HotelService} — пересчётом
+ *       одного отеля агрегирующим запросом (GROUP BY по строкам одного отеля);</li>
+ *   <li>при подтверждении удержания — после commit: приращением {@link RoomBookingCounter} (он пакетно
+ *       записывает приращение в {@code timesBooked}) без блокировок; номер отмечается изменённым, а счётчик
+ *       бронирований агрегатов догоняется при следующем чтении или пересчёте; в том же обратном вызове номер
+ *       переставляется в {@link RoomPopularityRanking};</li>
+ *   <li>полной перестройкой при старте и периодической сверкой ({@code hotel.stats.reconcile-interval-ms}),
+ *       которая исправляет изменения, выполненные в обход сервиса.</li>
+ * </ul>
+ * Все изменения агрегатов выполняются под монитором экземпляра; чтение возвращает согласованный снимок.
+ * Пересчёт по БД прибавляет ещё не записанные приращения {@link RoomBookingCounter} (read-your-writes) и
+ * запоминает версию счётчика номера ({@link RoomBookingCounter#confirmed}); при догоне учитывается только
+ * разница с запомненной версией, поэтому подтверждение, уже прочитанное пересчётом, не учитывается дважды.</p>
+ */
+@Component
+public class RoomStatistics {
+
+    private static final Logger log = LoggerFactory.getLogger(RoomStatistics.class);
+
+    private final RoomRepository roomRepository;
+    private final RoomBookingCounter bookingCounter;
+    private final RoomPopularityRanking ranking;
+
+    /**
+     * Отель каждого номера; номера без отеля не хранятся.
+     */
+    private final Map<Long, Long> hotelByRoom = new ConcurrentHashMap<>();
+
+    /**
+     * Номера каждого отеля (обратный индекс к {@link #hotelByRoom}): пересчёт отеля заменяет только его номера.
+     */
+    private final Map<Long, Set<Long>> roomsByHotel = new HashMap<>();
+
+    /**
+     * Версия счётчика {@link RoomBookingCounter#confirmed}, уже учтённая в агрегатах, по номерам.
+     */
+    private final Map<Long, Long> countedVersions = new HashMap<>();
+
+    /**
+     * Номера с подтверждениями, ещё не учтёнными в агрегатах; пополняется без монитора.
+     */
+    private final Set<Long> confirmedRooms = ConcurrentHashMap.newKeySet();
+
+    private final Map<Long, HotelBucket> hotels = new HashMap<>();
+    private final Map<String, Totals> cities = new HashMap<>();
+    private Totals unassigned = Totals.EMPTY;
+    private Totals total = Totals.EMPTY;
+
+    public RoomStatistics(RoomRepository roomRepository, RoomBookingCounter bookingCounter,
+                          RoomPopularityRanking ranking) {
+        this.roomRepository = roomRepository;
+        this.bookingCounter = bookingCounter;
+        this.ranking = ranking;
+    }
+
+    /**
+     * Полностью перестраивает агрегаты по таблицам отелей и номеров.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long startedAt = System.nanoTime();
+        int hotelCount = bookingCounter.whileNotFlushing(() -> {
+            List<RoomRepository.HotelAggregate> aggregates = roomRepository.aggregateByHotel();
+            Totals unassignedTotals = Totals.of(roomRepository.aggregateUnassigned());
+            List<RoomRepository.RoomHotelView> mapping = roomRepository.findRoomHotelIds();
+
+            synchronized (this) {
+                hotelByRoom.clear();
+                roomsByHotel.clear();
+                for (RoomRepository.RoomHotelView view : mapping) {
+                    if (view.getHotelId() != null) {
+                        assignRoom(view.getRoomId(), view.getHotelId());
+                    }
+                }
+
+                Map<Long, Long> pendingByHotel = new HashMap<>();
+                long pendingUnassigned = 0;
+                countedVersions.clear();
+                for (Long roomId : bookingCounter.confirmedByRoom().keySet()) {
+                    long pending = countPending(roomId);
+                    Long hotelId = hotelByRoom.get(roomId);
+                    if (hotelId != null) {
+                        pendingByHotel.merge(hotelId, pending, Long::sum);
+                    } else {
+                        pendingUnassigned += pending;
+                    }
+                }
+
+                hotels.clear();
+                cities.clear();
+                total = Totals.EMPTY;
+                unassigned = Totals.EMPTY;
+                for (RoomRepository.HotelAggregate aggregate : aggregates) {
+                    Totals totals = Totals.of(aggregate)
+                            .plus(Totals.bookings(pendingByHotel.getOrDefault(aggregate.getHotelId(), 0L)));
+                    putHotel(aggregate.getHotelId(), new HotelBucket(aggregate.getCity(), totals));
+                }
+                setUnassigned(unassignedTotals.plus(Totals.bookings(pendingUnassigned)));
+            }
+            return aggregates.size();
+        });
+
+        log.info("Room statistics built: hotels={}, took={}ms", hotelCount, (System.nanoTime() - startedAt) / 1_000_000);
+    }
+
+    /**
+     * Периодически перестраивает агрегаты, исправляя расхождения с БД.
+     */
+    @Scheduled(
+            initialDelayString = "${hotel.stats.reconcile-interval-ms:300000}",
+            fixedDelayString = "${hotel.stats.reconcile-interval-ms:300000}"
+    )
+    public void reconcile() {
+        Totals before = totals();
+        rebuild();
+        Totals after = totals();
+        if (!before.equals(after)) {
+            log.warn("Room statistics diverged from database: was {}, now {}", before, after);
+        }
+    }
+
+    /**
+     * @return текущие суммарные показатели
+     */
+    public synchronized Totals totals() {
+        applyConfirmed();
+        return total;
+    }
+
+    /**
+     * @return показатели по отелям, упорядоченные по идентификатору отеля
+     */
+    public synchronized List<HotelTotals> byHotel() {
+        applyConfirmed();
+        List<HotelTotals> result = new ArrayList<>(hotels.size());
+        new TreeMap<>(hotels).forEach((id, bucket) -> result.add(new HotelTotals(id, bucket.city(), bucket.totals())));
+        return result;
+    }
+
+    /**
+     * @return показатели по городам, упорядоченные по названию; отели без города не учитываются
+     */
+    public synchronized Map<String, Totals> byCity() {
+        applyConfirmed();
+        return new TreeMap<>(cities);
+    }
+
+    /**
+     * @param roomId идентификатор номера
+     * @return отель номера по данным статистики; null, если номер без отеля или неизвестен
+     */
+    public Long hotelOf(Long roomId) {
+        return hotelByRoom.get(roomId);
+    }
+
+    /**
+     * Пересчитывает агрегаты номеров без отеля и перечисленных отелей (после сохранения/удаления номеров
+     * или отелей). Вызывается после commit изменений; null-идентификаторы пропускаются.
+     *
+     * @param hotelIds идентификаторы затронутых отелей
+     */
+    public void refresh(Long... hotelIds) {
+        Set<Long> ids = new LinkedHashSet<>();
+        for (Long id : hotelIds) {
+            if (id != null) {
+                ids.add(id);
+            }
+        }
+
+        for (Long hotelId : ids) {
+            bookingCounter.whileNotFlushing(() -> {
+                Optional<RoomRepository.HotelAggregate> aggregate = roomRepository.aggregateForHotel(hotelId);
+                List<RoomRepository.RoomHotelView> rooms = roomRepository.findRoomHotelIdsByHotelId(hotelId);
+                synchronized (this) {
+                    Set<Long> previousRooms = roomsByHotel.remove(hotelId);
+                    if (previousRooms != null) {
+                        previousRooms.forEach(roomId -> hotelByRoom.remove(roomId, hotelId));
+                    }
+                    long pendingBookings = 0;
+                    for (RoomRepository.RoomHotelView view : rooms) {
+                        assignRoom(view.getRoomId(), hotelId);
+                        pendingBookings += countPending(view.getRoomId());
+                    }
+                    Totals pending = Totals.bookings(pendingBookings);
+                    putHotel(hotelId, aggregate.map(a -> new HotelBucket(a.getCity(), Totals.of(a).plus(pending)))
+                            .orElse(null));
+                }
+                return null;
+            });
+        }
+        bookingCounter.whileNotFlushing(() -> {
+            Totals unassignedTotals = Totals.of(roomRepository.aggregateUnassigned());
+            List<Long> unassignedRooms = roomRepository.findUnassignedRoomIds();
+            synchronized (this) {
+                long pendingBookings = unassignedRooms.stream().mapToLong(this::countPending).sum();
+                setUnassigned(unassignedTotals.plus(Totals.bookings(pendingBookings)));
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Учитывает подтверждённое бронирование номера в {@code timesBooked}, статистике и рейтинге популярности.
+     * Внутри транзакции счётчики меняются после commit, одним обратным вызовом.
+     *
+     * @param roomId идентификатор номера
+     */
+    public void onBookingConfirmed(Long roomId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    addBooking(roomId);
+                }
+            });
+        } else {
+            addBooking(roomId);
+        }
+    }
+
+    private void addBooking(Long roomId) {
+        // приращение без монитора: подтверждения разных номеров не конкурируют; агрегаты догоняют его по версии
+        bookingCounter.increment(roomId);
+        confirmedRooms.add(roomId);
+        ranking.addBooking(roomId);
+    }
+
+    /**
+     * Переносит в агрегаты подтверждения отмеченных номеров сверх учтённой версии счётчика.
+     * Номер снимается с отметки до чтения версии: отметка, поставленная позже, будет обработана повторно.
+     */
+    private void applyConfirmed() {
+        for (Iterator<Long> it = confirmedRooms.iterator(); it.hasNext(); ) {
+            Long roomId = it.next();
+            it.remove();
+            long version = bookingCounter.confirmed(roomId);
+            long delta = version - countedVersions.getOrDefault(roomId, 0L);
+            if (delta <= 0) {
+                continue;
+            }
+            countedVersions.put(roomId, version);
+            Totals bookings = Totals.bookings(delta);
+            Long hotelId = hotelByRoom.get(roomId);
+            HotelBucket bucket = hotelId == null ? null : hotels.get(hotelId);
+            if (bucket != null) {
+                putHotel(hotelId, new HotelBucket(bucket.city(), bucket.totals().plus(bookings)));
+            } else {
+                setUnassigned(unassigned.plus(bookings));
+            }
+        }
+    }
+
+    /**
+     * Незаписанные бронирования номера для пересчёта по БД; запоминает прочитанную версию счётчика.
+     * Вызывать под монитором внутри {@link RoomBookingCounter#whileNotFlushing}.
+     */
+    private long countPending(Long roomId) {
+        long version = bookingCounter.confirmed(roomId);
+        countedVersions.put(roomId, version);
+        return version - bookingCounter.flushed(roomId);
+    }
+
+    /**
+     * Привязывает номер к отелю в обоих индексах; номер, перенесённый из другого отеля, удаляется из его набора.
+     */
+    private void assignRoom(Long roomId, Long hotelId) {
+        Long previous = hotelByRoom.put(roomId, hotelId);
+        if (previous != null && !previous.equals(hotelId)) {
+            Set<Long> previousRooms = roomsByHotel.get(previous);
+            if (previousRooms != null) {
+                previousRooms.remove(roomId);
+            }
+        }
+        roomsByHotel.computeIfAbsent(hotelId, id -> new HashSet<>()).add(roomId);
+    }
+
+    /**
+     * Заменяет агрегаты отеля, перенося разницу в суммарные и городские показатели.
+     */
+    private void putHotel(Long hotelId, HotelBucket bucket) {
+        HotelBucket previous = bucket == null ? hotels.remove(hotelId) : hotels.put(hotelId, bucket);
+        if (previous != null) {
+            total = total.minus(previous.totals());
+            addCity(previous.city(), previous.totals().negate());
+        }
+        if (bucket != null) {
+            total = total.plus(bucket.totals());
+            addCity(bucket.city(), bucket.totals());
+        }
+    }
+
+    private void setUnassigned(Totals totals) {
+        total = total.minus(unassigned).plus(totals);
+        unassigned = totals;
+    }
+
+    private void addCity(String city, Totals delta) {
+        if (city == null) {
+            return;
+        }
+        Totals updated = cities.getOrDefault(city, Totals.EMPTY).plus(delta);
+        if (updated.equals(Totals.EMPTY) && !hasHotelIn(city)) {
+            cities.remove(city);
+        } else {
+            cities.put(city, updated);
+        }
+    }
+
+    private boolean hasHotelIn(String city) {
+        return hotels.values().stream().anyMatch(b -> Objects.equals(b.city(), city));
+    }
+
+    /**
+     * Показатели набора номеров.
+     *
+     * @param totalRooms     число номеров
+     * @param availableRooms число доступных номеров
+     * @param totalBookings  суммарное число бронирований
+     */
+    public record Totals(long totalRooms, long availableRooms, long totalBookings) {
+
+        static final Totals EMPTY = new Totals(0, 0, 0);
+
+        static Totals bookings(long bookings) {
+            return new Totals(0, 0, bookings);
+        }
+
+        static Totals of(RoomRepository.RoomTotalsView view) {
+            if (view == null) {
+                return EMPTY;
+            }
+            return new Totals(view.getRooms(), nz(view.getAvailableRooms()), nz(view.getBookings()));
+        }
+
+        Totals plus(Totals other) {
+            return new Totals(totalRooms + other.totalRooms, availableRooms + other.availableRooms,
+                    totalBookings + other.totalBookings);
+        }
+
+        Totals minus(Totals other) {
+            return plus(other.negate());
+        }
+
+        Totals negate() {
+            return new Totals(-totalRooms, -availableRooms, -totalBookings);
+        }
+
+        private static long nz(Long value) {
+            return value == null ? 0 : value;
+        }
+    }
+
+    /**
+     * Показатели отеля.
+     */
+    public record HotelTotals(Long hotelId, String city, Totals totals) {}
+
+    private record HotelBucket(String city, Totals totals) {}
+}
@@ -0,0 +1,81 @@
+package com.mybooking.hotelservice;
+
+import com.mybooking.hotelservice.dto.ImportResultDto;
+import com.mybooking.hotelservice.model.Hotel;
+import com.mybooking.hotelservice.repository.HotelRepository;
+import com.mybooking.hotelservice.repository.RoomRepository;
+import com.mybooking.hotelservice.service.ImportService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Пропускная способность массового импорта номеров на H2.
+ *
+ * <p>Импортирует 20 000 номеров из CSV и проверяет, что все строки записаны и INSERT уходят
+ * JDBC-пакетами: подготовленных statement-ов на порядки меньше, чем строк. Скорость пишется в журнал
+ * для сравнения, но не проверяется — её измеряет модуль benchmarks. Журнал SQL отключён:
+ * вывод каждого INSERT в консоль сам по себе ограничивает скорость.</p>
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+public class BulkImportThroughputTests {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkImportThroughputTests.class);
+
+    private static final int ROOMS = 20_000;
+
+    @Autowired
+    private ImportService importService;
+
+    @Autowired
+    private HotelRepository hotelRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void importsRoomsInJdbcBatches() throws Exception {
+        Hotel h = new Hotel();
+        h.setName("Bulk");
+        h.setCity("C");
+        h.setAddress("A");
+        Long hotelId = hotelRepository.save(h).getId();
+
+        StringBuilder csv = new StringBuilder("hotelId,number,capacity,available\n");
+        for (int i = 0; i < ROOMS; i++) {
+            csv.append(hotelId).append(",B").append(i).append(',').append(1 + i % 4).append(",true\n");
+        }
+        byte[] file = csv.toString().getBytes(StandardCharsets.UTF_8);
+        long roomsBefore = roomRepository.count();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        ImportResultDto result = importService.importRooms(new ByteArrayInputStream(file), ImportService.Format.CSV);
+
+        log.info("Bulk import: {} rooms in {} ms ({} rows/s), {} statements prepared", result.imported(),
+                result.elapsedMs(), result.imported() * 1000 / Math.max(1, result.elapsedMs()),
+                statistics.getPrepareStatementCount());
+        Assertions.assertEquals(ROOMS, result.imported());
+        Assertions.assertEquals(0, result.rejected());
+        Assertions.assertEquals(roomsBefore + ROOMS, roomRepository.count());
+        Assertions.assertEquals(ROOMS, statistics.getEntityInsertCount());
+        // построчные INSERT подготовили бы statement на каждую строку
+        Assertions.assertTrue(statistics.getPrepareStatementCount() < ROOMS / 10,
+                "rooms are inserted in JDBC batches: " + statistics.getPrepareStatementCount() + " statements");
+    }
+}
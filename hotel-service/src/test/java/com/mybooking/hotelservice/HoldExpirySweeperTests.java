@@ -0,0 +1,166 @@
+package com.mybooking.hotelservice;
+
+import com.mybooking.hotelservice.model.Hotel;
+import com.mybooking.hotelservice.model.Room;
+import com.mybooking.hotelservice.model.RoomReservationLock;
+import com.mybooking.hotelservice.repository.HotelRepository;
+import com.mybooking.hotelservice.repository.RoomReservationLockRepository;
+import com.mybooking.hotelservice.service.HoldExpirySweeper;
+import com.mybooking.hotelservice.service.HotelService;
+import com.mybooking.hotelservice.service.RoomOccupancyIndex;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Интеграционные тесты фонового освобождения истёкших удержаний.
+ *
+ * <p>Проверяет, что истёкшие HELD освобождаются порциями, подтверждённые и неистёкшие удержания
+ * не затрагиваются, номер снова доступен для удержания, а метрики запуска публикуются. Подтверждение,
+ * конкурирующее с освобождением, либо выигрывает, либо завершается ошибкой: освобождённое удержание
+ * не возвращается в CONFIRMED.</p>
+ */
+@SpringBootTest(properties = "hotel.hold.sweep-batch-size=2")
+public class HoldExpirySweeperTests {
+
+    @Autowired
+    private HotelRepository hotelRepository;
+
+    @Autowired
+    private RoomReservationLockRepository lockRepository;
+
+    @Autowired
+    private HotelService hotelService;
+
+    @Autowired
+    private HoldExpirySweeper sweeper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private RoomOccupancyIndex occupancyIndex;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void expiredHoldsAreReleasedInBatches() {
+        Hotel h = new Hotel();
+        h.setName("Sweep");
+        h.setCity("C");
+        h.setAddress("A");
+
+        Room r = new Room();
+        r.setNumber("501");
+        r.setCapacity(2);
+        r.setHotel(h);
+        h.getRooms().add(r);
+
+        hotelRepository.save(h);
+
+        LocalDate base = LocalDate.now().plusDays(200);
+        for (int i = 0; i < 5; i++) {
+            RoomReservationLock lock = hotelService.holdRoom("sweep-" + i, r.getId(),
+                    base.plusDays(i * 10L), base.plusDays(i * 10L + 1));
+            lock.setExpiresAt(Instant.now().minusSeconds(1));
+            lockRepository.save(lock);
+        }
+        RoomReservationLock fresh = hotelService.holdRoom("sweep-fresh", r.getId(), base.plusDays(100), base.plusDays(101));
+        RoomReservationLock confirmed = hotelService.reserveRoom("sweep-confirmed", r.getId(), base.plusDays(120), base.plusDays(121));
+
+        Assertions.assertEquals(5, sweeper.sweep());
+
+        for (int i = 0; i < 5; i++) {
+            Assertions.assertEquals(RoomReservationLock.Status.RELEASED,
+                    lockRepository.findByRequestId("sweep-" + i).orElseThrow().getStatus());
+        }
+        Assertions.assertEquals(RoomReservationLock.Status.HELD,
+                lockRepository.findById(fresh.getId()).orElseThrow().getStatus());
+        Assertions.assertEquals(RoomReservationLock.Status.CONFIRMED,
+                lockRepository.findById(confirmed.getId()).orElseThrow().getStatus());
+
+        // освобождённый период снова доступен (индекс занятости обновлён)
+        RoomReservationLock again = hotelService.holdRoom("sweep-again", r.getId(), base, base.plusDays(1));
+        Assertions.assertEquals(RoomReservationLock.Status.HELD, again.getStatus());
+
+        Assertions.assertEquals(0, sweeper.sweep());
+        Assertions.assertTrue(meterRegistry.get("hotel.holds.swept").summary().totalAmount() >= 5);
+        Assertions.assertTrue(meterRegistry.get("hotel.holds.sweep.duration").timer().count() >= 2);
+    }
+
+    @Test
+    void confirmRacingWithSweeperNeverConfirmsReleasedHold() throws Exception {
+        Hotel h = new Hotel();
+        h.setName("Sweep race");
+        h.setCity("C");
+        h.setAddress("A");
+
+        Room r = new Room();
+        r.setNumber("502");
+        r.setCapacity(2);
+        r.setHotel(h);
+        h.getRooms().add(r);
+
+        hotelRepository.save(h);
+
+        int holds = 200;
+        LocalDate base = LocalDate.now().plusDays(400);
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < holds; i++) {
+            ids.add(hotelService.holdRoom("sweep-race-" + i, r.getId(), base.plusDays(i), base.plusDays(i)).getId());
+        }
+        // сроки истекают по одному каждые 2 мс, пока идут подтверждения и запуски sweeper
+        Instant expiresFrom = Instant.now().plusMillis(100);
+        jdbcTemplate.batchUpdate("update room_reservation_lock set expires_at = ? where id = ?", ids, 100,
+                (ps, id) -> {
+                    ps.setTimestamp(1, Timestamp.from(expiresFrom.plusMillis(2L * ids.indexOf(id))));
+                    ps.setLong(2, id);
+                });
+
+        AtomicBoolean done = new AtomicBoolean();
+        Thread sweeps = new Thread(() -> {
+            while (!done.get()) {
+                sweeper.sweep();
+            }
+        });
+        sweeps.start();
+        boolean[] confirmed = new boolean[holds];
+        try {
+            for (int i = 0; i < holds; i++) {
+                try {
+                    hotelService.confirmHold("sweep-race-" + i);
+                    confirmed[i] = true;
+                } catch (IllegalStateException expired) {
+                    confirmed[i] = false;
+                }
+            }
+        } finally {
+            done.set(true);
+            sweeps.join();
+        }
+        sweeper.sweep();
+
+        for (int i = 0; i < holds; i++) {
+            RoomReservationLock lock = lockRepository.findById(ids.get(i)).orElseThrow();
+            LocalDate night = base.plusDays(i);
+            if (confirmed[i]) {
+                Assertions.assertEquals(RoomReservationLock.Status.CONFIRMED, lock.getStatus(), "hold " + i);
+                Assertions.assertTrue(occupancyIndex.hasConflict(r.getId(), night, night), "hold " + i);
+            } else {
+                Assertions.assertEquals(RoomReservationLock.Status.RELEASED, lock.getStatus(), "hold " + i);
+                Assertions.assertFalse(occupancyIndex.hasConflict(r.getId(), night, night), "hold " + i);
+            }
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.mybooking.hotelservice;
 
+import com.mybooking.hotelservice.dto.RoomListDto;
 import com.mybooking.hotelservice.model.Hotel;
 import com.mybooking.hotelservice.model.Room;
 import com.mybooking.hotelservice.model.RoomReservationLock;
@@ -12,6 +13,7 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.List;
 
 /**
  * Интеграционные тесты сценариев удержания доступности номера.
@@ -62,4 +64,106 @@ public class HotelAvailabilityTests {
         RoomReservationLock afterRelease = hotelService.releaseHold(req);
         Assertions.assertEquals(RoomReservationLock.Status.CONFIRMED, afterRelease.getStatus());
     }
+
+    @Test
+    @Transactional
+    void reserveIsAtomicAndIdempotent() {
+        Hotel h = new Hotel();
+        h.setName("H");
+        h.setCity("C");
+        h.setAddress("A");
+
+        Room r = new Room();
+        r.setNumber("102");
+        r.setCapacity(2);
+        r.setHotel(h);
+        h.getRooms().add(r);
+
+        hotelRepository.save(h);
+
+        LocalDate s = LocalDate.now().plusDays(10);
+        LocalDate e = s.plusDays(2);
+
+        RoomReservationLock l1 = hotelService.reserveRoom("res-1", r.getId(), s, e);
+        RoomReservationLock l2 = hotelService.reserveRoom("res-1", r.getId(), s, e);
+        Assertions.assertEquals(RoomReservationLock.Status.CONFIRMED, l1.getStatus());
+        Assertions.assertEquals(l1.getId(), l2.getId());
+
+        // Пересекающийся период занят подтверждённым удержанием
+        Assertions.assertThrows(IllegalStateException.class,
+                () -> hotelService.reserveRoom("res-2", r.getId(), s.plusDays(1), e.plusDays(1)));
+
+        // Удержание, созданное через hold, повтор reserve подтверждает
+        hotelService.holdRoom("res-3", r.getId(), e.plusDays(5), e.plusDays(6));
+        RoomReservationLock upgraded = hotelService.reserveRoom("res-3", r.getId(), e.plusDays(5), e.plusDays(6));
+        Assertions.assertEquals(RoomReservationLock.Status.CONFIRMED, upgraded.getStatus());
+    }
+
+    @Test
+    @Transactional
+    void availabilitySearchSkipsOccupiedRooms() {
+        Hotel h = new Hotel();
+        h.setName("H");
+        h.setCity("Avail City");
+        h.setAddress("A");
+
+        Room small = new Room();
+        small.setNumber("103");
+        small.setCapacity(2);
+        small.setHotel(h);
+        h.getRooms().add(small);
+
+        Room large = new Room();
+        large.setNumber("104");
+        large.setCapacity(4);
+        large.setHotel(h);
+        h.getRooms().add(large);
+
+        hotelRepository.save(h);
+
+        LocalDate s = LocalDate.now().plusDays(40);
+        LocalDate e = s.plusDays(3);
+        hotelService.holdRoom("avail-1", large.getId(), s, e);
+
+        List<Long> free = hotelService.findAvailableRooms(s, e, 1, null, "Avail City", 100).stream()
+                .map(RoomListDto::id).toList();
+        Assertions.assertEquals(List.of(small.getId()), free);
+
+        // граница удержания включительная; следующая ночь свободна
+        Assertions.assertEquals(2, hotelService.findAvailableRooms(e.plusDays(1), e.plusDays(2), 1, h.getId(), null, 100).size());
+        Assertions.assertTrue(hotelService.findAvailableRooms(s, e, 3, h.getId(), null, 100).isEmpty());
+
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> hotelService.findAvailableRooms(e, s, 1, null, null, 100));
+    }
+
+    @Test
+    @Transactional
+    void availabilitySearchReadsCandidatesPastFirstChunk() {
+        Hotel h = new Hotel();
+        h.setName("H");
+        h.setCity("Avail Chunk City");
+        h.setAddress("A");
+        for (int i = 0; i < 510; i++) {
+            Room r = new Room();
+            r.setNumber("C" + i);
+            r.setCapacity(2);
+            r.setHotel(h);
+            h.getRooms().add(r);
+        }
+        hotelRepository.save(h);
+
+        LocalDate s = LocalDate.now().plusDays(60);
+        List<Long> ids = h.getRooms().stream().map(Room::getId).sorted().toList();
+        // первая порция кандидатов (500 номеров) и ещё пять номеров заняты
+        for (int i = 0; i < 505; i++) {
+            hotelService.holdRoom("avail-chunk-" + i, ids.get(i), s, s);
+        }
+
+        List<Long> free = hotelService.findAvailableRooms(s, s, 1, h.getId(), null, 3).stream()
+                .map(RoomListDto::id).toList();
+        Assertions.assertEquals(ids.subList(505, 508), free);
+        Assertions.assertEquals(ids.subList(505, 510),
+                hotelService.findAvailableRooms(s, s, 1, h.getId(), null, 100).stream().map(RoomListDto::id).toList());
+    }
 }
@@ -1,20 +1,37 @@
 package com.mybooking.hotelservice;
 
+import com.mybooking.hotelservice.model.Hotel;
+import com.mybooking.hotelservice.model.Room;
+import com.mybooking.hotelservice.repository.HotelRepository;
+import com.mybooking.hotelservice.service.HotelService;
+import com.mybooking.hotelservice.service.RoomLockStripes;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.Lock;
 
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 /**
@@ -23,14 +40,31 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
  * <p>Проверяют базовые сценарии авторизации по JWT и доступ к административным
  * эндпоинтам без поднятия реального сервера. Тесты используют MockMvc и заголовок
  * {@code Authorization: Bearer <token>}.</p>
+ *
+ * <p>Пакетная проверка доступности выполняется с порцией из двух элементов, чтобы ответ
+ * собирался из нескольких порций; ожидание блокировки номера сокращено до 200 мс. Выгрузка изменений
+ * отдаёт строки без запаса на незафиксированные транзакции.</p>
  */
-@SpringBootTest
+@SpringBootTest(properties = {"hotel.availability.check-batch-size=2", "hotel.hold.lock-timeout-ms=200",
+        "hotel.export.settle-ms=0"})
 @AutoConfigureMockMvc
 public class HotelHTTPIntegrationTests {
 
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private HotelRepository hotelRepository;
+
+    @Autowired
+    private HotelService hotelService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private RoomLockStripes roomLocks;
+
     /**
      * Генерирует тестовый JWT для роли ADMIN.
      *
@@ -62,4 +96,324 @@ public class HotelHTTPIntegrationTests {
                         .content("{\"name\":\"H\",\"city\":\"C\",\"address\":\"A\"}"))
                 .andExpect(status().isOk());
     }
+
+    @Test
+    void availabilityCheckAnswersEachItemInOrder() throws Exception {
+        Hotel h = new Hotel();
+        h.setName("Check");
+        h.setCity("C");
+        h.setAddress("A");
+
+        Room r = new Room();
+        r.setNumber("801");
+        r.setCapacity(2);
+        r.setHotel(h);
+        h.getRooms().add(r);
+
+        hotelRepository.save(h);
+
+        LocalDate s = LocalDate.now().plusDays(50);
+        hotelService.holdRoom("check-1", r.getId(), s, s.plusDays(2));
+
+        String body = "[" +
+                item(r.getId(), s.plusDays(2), s.plusDays(3)) + "," +
+                item(r.getId(), s.plusDays(3), s.plusDays(4)) + "," +
+                item(-1L, s, s.plusDays(1)) + "," +
+                item(r.getId(), s.plusDays(5), s.plusDays(4)) + "," +
+                item(r.getId(), s.minusDays(3), s.minusDays(1)) +
+                "]";
+
+        mockMvc.perform(post("/api/rooms/availability/check")
+                        .header("Authorization", "Bearer " + tokenAdmin())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[false,true,false,false,true]", true));
+
+        mockMvc.perform(post("/api/rooms/availability/check")
+                        .header("Authorization", "Bearer " + tokenAdmin())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void availabilityCheckAnswersFalseForMalformedItem() throws Exception {
+        Hotel h = new Hotel();
+        h.setName("Check malformed");
+        h.setCity("C");
+        h.setAddress("A");
+
+        Room r = new Room();
+        r.setNumber("802");
+        r.setCapacity(2);
+        r.setHotel(h);
+        h.getRooms().add(r);
+
+        hotelRepository.save(h);
+
+        LocalDate s = LocalDate.now().plusDays(50);
+        // первая порция (2 элемента) уже записана в ответ, когда разбирается неверная дата
+        String body = "[" +
+                item(r.getId(), s, s.plusDays(1)) + "," +
+                item(r.getId(), s.plusDays(2), s.plusDays(3)) + "," +
+                "{\"roomId\":" + r.getId() + ",\"startDate\":\"2025-13-45\",\"endDate\":\"" + s + "\"}," +
+                "{\"roomId\":\"abc\",\"startDate\":\"" + s + "\",\"endDate\":\"" + s + "\"}," +
+                item(r.getId(), s.plusDays(4), s.plusDays(5)) +
+                "]";
+
+        mockMvc.perform(post("/api/rooms/availability/check")
+                        .header("Authorization", "Bearer " + tokenAdmin())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[true,true,false,false,true]", true));
+    }
+
+    @Test
+    void keysetPaginationWalksAllHotelsWithoutDuplicates() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            Hotel h = new Hotel();
+            h.setName("Keyset " + i);
+            h.setCity("C");
+            h.setAddress("A");
+            hotelRepository.save(h);
+        }
+        List<Long> expected = hotelRepository.findAll().stream().map(Hotel::getId).sorted().toList();
+
+        List<Long> walked = new ArrayList<>();
+        String cursor = null;
+        do {
+            var request = get("/api/hotels").param("limit", "2")
+                    .header("Authorization", "Bearer " + tokenAdmin());
+            if (cursor != null) {
+                request.param("after", cursor);
+            }
+            String json = mockMvc.perform(request)
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            JsonNode page = objectMapper.readTree(json);
+            page.get("items").forEach(item -> walked.add(item.get("id").asLong()));
+            cursor = page.get("next").isNull() ? null : page.get("next").asText();
+        } while (cursor != null);
+
+        Assertions.assertEquals(expected, walked);
+
+        mockMvc.perform(get("/api/hotels").param("limit", "2").param("after", "not-a-cursor")
+                        .header("Authorization", "Bearer " + tokenAdmin()))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void exportStreamsNdjsonSinceId() throws Exception {
+        long since = hotelRepository.findAll().stream().mapToLong(Hotel::getId).max().orElse(0);
+        for (int i = 0; i < 2; i++) {
+            Hotel h = new Hotel();
+            h.setName("Export " + i);
+            h.setCity("C");
+            h.setAddress("A");
+            hotelRepository.save(h);
+        }
+
+        String body = mockMvc.perform(get("/api/export/hotels").param("since", String.valueOf(since))
+                        .header("Authorization", "Bearer " + tokenAdmin()))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        Assertions.assertEquals(2, lines.length);
+        Assertions.assertTrue(body.endsWith("\n"));
+        Assertions.assertEquals("Export 0", objectMapper.readTree(lines[0]).get("name").asText());
+        Assertions.assertEquals("Export 1", objectMapper.readTree(lines[1]).get("name").asText());
+        Assertions.assertTrue(objectMapper.readTree(lines[0]).get("id").asLong() > since);
+    }
+
+    @Test
+    void exportLocksStreamsChangesByCursor() throws Exception {
+        Hotel h = new Hotel();
+        h.setName("Export locks");
+        h.setCity("C");
+        h.setAddress("A");
+        h = hotelService.saveHotel(h);
+        Room r = hotelService.saveRoom(room("E1", h, 2));
+        LocalDate s = LocalDate.now().plusDays(40);
+        hotelService.holdRoom("export-lock", r.getId(), s, s.plusDays(1));
+
+        MockHttpServletResponse first = exportLockChanges("1970-01-01T00:00:00Z");
+        Assertions.assertEquals("HELD", lockStatus(first.getContentAsString(), "export-lock"));
+        String cursor = first.getHeader("X-Export-Next-Since");
+        Assertions.assertNotNull(cursor);
+
+        // без изменений удержание повторно не выгружается
+        MockHttpServletResponse unchanged = exportLockChanges(cursor);
+        Assertions.assertNull(lockStatus(unchanged.getContentAsString(), "export-lock"));
+
+        // подтверждение меняет только статус, но попадает в следующую выгрузку
+        hotelService.confirmHold("export-lock");
+        MockHttpServletResponse changed = exportLockChanges(unchanged.getHeader("X-Export-Next-Since"));
+        Assertions.assertEquals("CONFIRMED", lockStatus(changed.getContentAsString(), "export-lock"));
+
+        mockMvc.perform(get("/api/export/locks").param("since", "yesterday")
+                        .header("Authorization", "Bearer " + tokenAdmin()))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void importRoomsReportsRowErrorsWithoutAborting() throws Exception {
+        Hotel h = new Hotel();
+        h.setName("Import");
+        h.setCity("C");
+        h.setAddress("A");
+        Long hotelId = hotelRepository.save(h).getId();
+
+        String csv = "number,hotelId,capacity,available\n"
+                + "101," + hotelId + ",2,true\n"
+                + "102," + hotelId + ",zero,true\n"
+                + "103,999999,2,true\n"
+                + "104," + hotelId + ",3,\n";
+        String body = mockMvc.perform(post("/api/import/rooms")
+                        .contentType("text/csv")
+                        .content(csv)
+                        .header("Authorization", "Bearer " + tokenAdmin()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        JsonNode result = objectMapper.readTree(body);
+        Assertions.assertEquals(2, result.get("imported").asLong());
+        Assertions.assertEquals(2, result.get("rejected").asLong());
+        Assertions.assertEquals(3, result.get("errors").get(0).get("line").asLong());
+        Assertions.assertEquals(4, result.get("errors").get(1).get("line").asLong());
+        Assertions.assertEquals(2, hotelService.getHotelDetails(hotelId).orElseThrow().rooms().size());
+
+        String ndjson = "{\"name\":\"Chain 1\",\"city\":\"Kazan\"}\n{\"city\":\"Kazan\"}\nnot json\n";
+        String hotels = mockMvc.perform(post("/api/import/hotels")
+                        .contentType("application/x-ndjson")
+                        .content(ndjson)
+                        .header("Authorization", "Bearer " + tokenAdmin()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        Assertions.assertEquals(1, objectMapper.readTree(hotels).get("imported").asLong());
+        Assertions.assertEquals(2, objectMapper.readTree(hotels).get("rejected").asLong());
+    }
+
+    @Test
+    void topRoomsAreOrderedByPopularityAndFiltered() throws Exception {
+        Hotel h = new Hotel();
+        h.setName("Top");
+        h.setCity("Top City");
+        h.setAddress("A");
+        h = hotelService.saveHotel(h);
+        Room quiet = hotelService.saveRoom(room("T1", h, 2));
+        Room popular = hotelService.saveRoom(room("T2", h, 4));
+
+        LocalDate start = LocalDate.now().plusDays(400);
+        hotelService.reserveRoom("top-1", popular.getId(), start, start.plusDays(1));
+        hotelService.reserveRoom("top-2", popular.getId(), start.plusDays(2), start.plusDays(3));
+        hotelService.reserveRoom("top-3", quiet.getId(), start, start.plusDays(1));
+
+        String body = mockMvc.perform(get("/api/rooms/top").param("n", "5").param("city", "Top City")
+                        .header("Authorization", "Bearer " + tokenAdmin()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        JsonNode top = objectMapper.readTree(body);
+        Assertions.assertEquals(2, top.size());
+        Assertions.assertEquals(popular.getId(), top.get(0).get("id").asLong());
+        Assertions.assertEquals(2, top.get(0).get("timesBooked").asLong());
+        Assertions.assertEquals(quiet.getId(), top.get(1).get("id").asLong());
+
+        body = mockMvc.perform(get("/api/rooms/top").param("n", "5").param("hotelId", String.valueOf(h.getId()))
+                        .param("minCapacity", "3")
+                        .header("Authorization", "Bearer " + tokenAdmin()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        Assertions.assertEquals(1, objectMapper.readTree(body).size());
+
+        mockMvc.perform(get("/api/rooms/top").param("n", "0")
+                        .header("Authorization", "Bearer " + tokenAdmin()))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void holdOnBusyRoomAnswers429WithRetryAfter() throws Exception {
+        Hotel h = new Hotel();
+        h.setName("Busy");
+        h.setCity("C");
+        h.setAddress("A");
+        h = hotelService.saveHotel(h);
+        Room busy = hotelService.saveRoom(room("B1", h, 2));
+        LocalDate start = LocalDate.now().plusDays(450);
+
+        // полосу номера держит другой поток, как параллельный hold
+        Lock stripe = roomLocks.forRoom(busy.getId());
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        Thread holder = new Thread(() -> {
+            stripe.lock();
+            try {
+                locked.countDown();
+                done.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                stripe.unlock();
+            }
+        });
+        holder.start();
+        try {
+            locked.await();
+            mockMvc.perform(post("/api/rooms/" + busy.getId() + "/hold")
+                            .param("requestId", "busy-1")
+                            .param("startDate", start.toString())
+                            .param("endDate", start.plusDays(1).toString())
+                            .header("Authorization", "Bearer " + tokenAdmin()))
+                    .andExpect(status().isTooManyRequests())
+                    .andExpect(header().string("Retry-After", "1"));
+        } finally {
+            done.countDown();
+            holder.join();
+        }
+
+        // после освобождения полосы повтор того же запроса проходит
+        mockMvc.perform(post("/api/rooms/" + busy.getId() + "/hold")
+                        .param("requestId", "busy-1")
+                        .param("startDate", start.toString())
+                        .param("endDate", start.plusDays(1).toString())
+                        .header("Authorization", "Bearer " + tokenAdmin()))
+                .andExpect(status().isOk());
+    }
+
+    private MockHttpServletResponse exportLockChanges(String since) throws Exception {
+        return mockMvc.perform(get("/api/export/locks").param("since", since)
+                        .header("Authorization", "Bearer " + tokenAdmin()))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn().getResponse();
+    }
+
+    private String lockStatus(String ndjson, String requestId) throws Exception {
+        for (String line : ndjson.split("\n")) {
+            if (line.isEmpty()) {
+                continue;
+            }
+            JsonNode lock = objectMapper.readTree(line);
+            if (requestId.equals(lock.get("requestId").asText())) {
+                return lock.get("status").asText();
+            }
+        }
+        return null;
+    }
+
+    private static Room room(String number, Hotel hotel, int capacity) {
+        Room r = new Room();
+        r.setNumber(number);
+        r.setCapacity(capacity);
+        r.setAvailable(true);
+        r.setHotel(hotel);
+        return r;
+    }
+
+    private static String item(Long roomId, LocalDate start, LocalDate end) {
+        return "{\"roomId\":" + roomId + ",\"startDate\":\"" + start + "\",\"endDate\":\"" + end + "\"}";
+    }
 }
@@ -0,0 +1,131 @@
+package com.mybooking.hotelservice;
+
+import com.mybooking.hotelservice.model.Hotel;
+import com.mybooking.hotelservice.model.Room;
+import com.mybooking.hotelservice.model.RoomReservationLock;
+import com.mybooking.hotelservice.repository.HotelRepository;
+import com.mybooking.hotelservice.repository.RoomReservationLockRepository;
+import com.mybooking.hotelservice.service.HotelService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Нагрузочный тест конкурентных удержаний одного номера.
+ *
+ * <p>Тысячи параллельных hold на пересекающиеся периоды одного номера не должны приводить
+ * к двойному бронированию: среди активных удержаний не может быть пересекающихся.</p>
+ */
+@SpringBootTest
+public class HotelHoldConcurrencyTests {
+
+    private static final int HOLDS = 2_000;
+    private static final int THREADS = 32;
+
+    @Autowired
+    private HotelRepository hotelRepository;
+
+    @Autowired
+    private RoomReservationLockRepository lockRepository;
+
+    @Autowired
+    private HotelService hotelService;
+
+    private Hotel hotel;
+    private Room room;
+
+    @BeforeEach
+    void createRoom() {
+        hotel = new Hotel();
+        hotel.setName("Stress");
+        hotel.setCity("C");
+        hotel.setAddress("A");
+
+        room = new Room();
+        room.setNumber("777");
+        room.setCapacity(2);
+        room.setHotel(hotel);
+        hotel.getRooms().add(room);
+
+        hotelRepository.save(hotel);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        lockRepository.deleteAll(activeLocks(lockRepository.findAll()));
+        hotelRepository.deleteById(hotel.getId());
+    }
+
+    @Test
+    void parallelHoldsOnOneRoomNeverOverlap() throws Exception {
+        LocalDate base = LocalDate.now().plusDays(100);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < HOLDS; i++) {
+                String requestId = "stress-" + i;
+                int offset = ThreadLocalRandom.current().nextInt(30);
+                int nights = 1 + ThreadLocalRandom.current().nextInt(5);
+                LocalDate s = base.plusDays(offset);
+                LocalDate e = s.plusDays(nights);
+
+                results.add(pool.submit(() -> {
+                    start.await();
+                    try {
+                        hotelService.holdRoom(requestId, room.getId(), s, e);
+                        return true;
+                    } catch (IllegalStateException conflict) {
+                        return false;
+                    }
+                }));
+            }
+
+            start.countDown();
+            long winners = 0;
+            for (Future<Boolean> result : results) {
+                if (result.get(60, TimeUnit.SECONDS)) {
+                    winners++;
+                }
+            }
+
+            List<RoomReservationLock> active = activeLocks(lockRepository.findAll());
+            Assertions.assertTrue(winners > 0);
+            Assertions.assertEquals(winners, active.size());
+
+            for (int i = 0; i < active.size(); i++) {
+                for (int j = i + 1; j < active.size(); j++) {
+                    RoomReservationLock a = active.get(i);
+                    RoomReservationLock b = active.get(j);
+                    boolean overlap = !a.getStartDate().isAfter(b.getEndDate())
+                            && !b.getStartDate().isAfter(a.getEndDate());
+                    Assertions.assertFalse(overlap,
+                            "Overlapping holds " + a.getRequestId() + " and " + b.getRequestId());
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private List<RoomReservationLock> activeLocks(List<RoomReservationLock> locks) {
+        return locks.stream()
+                .filter(l -> room.getId().equals(l.getRoomId()))
+                .filter(l -> l.getStatus() != RoomReservationLock.Status.RELEASED)
+                .toList();
+    }
+}
@@ -12,13 +12,15 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.time.LocalDate;
+import java.util.NoSuchElementException;
 
 /**
  * Дополнительные интеграционные тесты Hotel Service.
  *
- * <p>Проверяют конфликт удержаний по пересечению диапазонов дат, корректность освобождения удержаний,
- * а также поведение при истёкших удержаниях.</p>
+ * <p>Проверяют конфликт удержаний по пересечению диапазонов дат, корректность освобождения удержаний
+ * (в том числе компенсацию подтверждённого), а также поведение при истёкших удержаниях.</p>
  */
 @SpringBootTest
 public class HotelMoreTests {
@@ -86,6 +88,37 @@ public class HotelMoreTests {
         Assertions.assertEquals(RoomReservationLock.Status.HELD, lock2.getStatus());
     }
 
+    @Test
+    @Transactional
+    void compensationReleasesConfirmedReservation() {
+        Hotel h = new Hotel();
+        h.setName("H");
+        h.setCity("C");
+        h.setAddress("A");
+
+        Room r = new Room();
+        r.setNumber("101");
+        r.setCapacity(2);
+        r.setHotel(h);
+        h.getRooms().add(r);
+
+        hotelRepository.save(h);
+
+        LocalDate s = LocalDate.now().plusDays(1);
+        LocalDate e = s.plusDays(2);
+
+        hotelService.reserveRoom("req-comp", r.getId(), s, e);
+        // обычный release подтверждённое удержание не трогает
+        Assertions.assertEquals(RoomReservationLock.Status.CONFIRMED, hotelService.releaseHold("req-comp").getStatus());
+        // компенсация саги освобождает его
+        Assertions.assertEquals(RoomReservationLock.Status.RELEASED,
+                hotelService.releaseHold("req-comp", true).getStatus());
+
+        RoomReservationLock next = hotelService.holdRoom("req-comp-next", r.getId(), s, e);
+        Assertions.assertEquals(RoomReservationLock.Status.HELD, next.getStatus());
+        Assertions.assertThrows(NoSuchElementException.class, () -> hotelService.releaseHold("req-unknown", true));
+    }
+
     @Test
     @Transactional
     void expiredHoldCannotBeConfirmed() {
@@ -107,7 +140,7 @@ public class HotelMoreTests {
 
         RoomReservationLock lock = hotelService.holdRoom("req-exp", r.getId(), s, e);
 
-        lock.setExpiresAt(LocalDate.now().minusDays(1));
+        lock.setExpiresAt(Instant.now().minusSeconds(60));
         lockRepository.save(lock);
 
         Assertions.assertThrows(IllegalStateException.class, () -> hotelService.confirmHold("req-exp"));
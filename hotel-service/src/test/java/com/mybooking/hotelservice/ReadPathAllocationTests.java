@@ -0,0 +1,78 @@
+package com.mybooking.hotelservice;
+
+import com.mybooking.hotelservice.dto.RoomListDto;
+import com.mybooking.hotelservice.model.Hotel;
+import com.mybooking.hotelservice.model.Room;
+import com.mybooking.hotelservice.repository.HotelRepository;
+import com.mybooking.hotelservice.repository.RoomRepository;
+import com.mybooking.hotelservice.service.HotelService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+/**
+ * Сравнение выделения памяти на запрос списка номеров: загрузка сущностей против проекции в DTO.
+ *
+ * <p>Измеряет байты, выделенные текущим потоком ({@code com.sun.management.ThreadMXBean}), после прогрева.
+ * Проверяется, что проекция выделяет как минимум вдвое меньше: без загрузки сущностей и снимков
+ * persistence context разница около трёх раз, поэтому запас покрывает шум измерения.</p>
+ */
+@SpringBootTest
+public class ReadPathAllocationTests {
+
+    private static final int ROOMS = 200;
+    private static final int ITERATIONS = 50;
+
+    @Autowired
+    private HotelRepository hotelRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private HotelService hotelService;
+
+    @Test
+    void projectionAllocatesLessThanEntityMapping() {
+        Hotel h = new Hotel();
+        h.setName("Alloc");
+        h.setCity("C");
+        h.setAddress("A");
+        for (int i = 0; i < ROOMS; i++) {
+            Room r = new Room();
+            r.setNumber("A" + i);
+            r.setCapacity(2);
+            r.setHotel(h);
+            h.getRooms().add(r);
+        }
+        hotelRepository.save(h);
+
+        Pageable page = PageRequest.of(0, ROOMS);
+        long entity = allocatedPerCall(() -> roomRepository.findAll(page)
+                .map(r -> new RoomListDto(r.getId(), r.getHotel() != null ? r.getHotel().getId() : null,
+                        r.getNumber(), r.getCapacity(), r.getTimesBooked(), r.isAvailable()))
+                .getContent());
+        long projection = allocatedPerCall(() -> hotelService.listRoomDtos(page).getContent());
+
+        Assertions.assertTrue(projection * 2 < entity, "projection=" + projection + ", entity=" + entity);
+    }
+
+    private static long allocatedPerCall(java.util.function.Supplier<List<RoomListDto>> call) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        for (int i = 0; i < ITERATIONS; i++) {
+            Assertions.assertEquals(ROOMS, call.get().size());
+        }
+        long before = threads.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < ITERATIONS; i++) {
+            call.get();
+        }
+        return (threads.getThreadAllocatedBytes(thread) - before) / ITERATIONS;
+    }
+}
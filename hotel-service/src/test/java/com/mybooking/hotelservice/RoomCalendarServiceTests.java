@@ -0,0 +1,75 @@
+package com.mybooking.hotelservice;
+
+import com.mybooking.hotelservice.dto.RoomCalendarDto;
+import com.mybooking.hotelservice.model.Hotel;
+import com.mybooking.hotelservice.model.Room;
+import com.mybooking.hotelservice.repository.HotelRepository;
+import com.mybooking.hotelservice.service.HotelService;
+import com.mybooking.hotelservice.service.RoomCalendarService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Интеграционные тесты месячных календарей занятости номеров.
+ *
+ * <p>Проверяет кодирование занятых дней битовой маской (включая удержания, выходящие за границы месяца),
+ * повторное использование кэша до изменения удержаний номера и пакетный ответ по отелю.</p>
+ */
+@SpringBootTest
+public class RoomCalendarServiceTests {
+
+    @Autowired
+    private HotelRepository hotelRepository;
+
+    @Autowired
+    private HotelService hotelService;
+
+    @Autowired
+    private RoomCalendarService calendarService;
+
+    @Test
+    void calendarIsCachedUntilRoomChanges() {
+        Hotel h = new Hotel();
+        h.setName("Calendar");
+        h.setCity("C");
+        h.setAddress("A");
+
+        Room first = new Room();
+        first.setNumber("701");
+        first.setCapacity(2);
+        first.setHotel(h);
+        h.getRooms().add(first);
+
+        Room second = new Room();
+        second.setNumber("702");
+        second.setCapacity(2);
+        second.setHotel(h);
+        h.getRooms().add(second);
+
+        hotelRepository.save(h);
+
+        YearMonth month = YearMonth.now().plusMonths(6);
+        // 3..5 число и период, начинающийся в последний день месяца
+        hotelService.holdRoom("cal-1", first.getId(), month.atDay(3), month.atDay(5));
+        hotelService.reserveRoom("cal-2", first.getId(), month.atEndOfMonth(), month.plusMonths(1).atDay(2));
+
+        RoomCalendarDto calendar = calendarService.roomCalendar(first.getId(), month);
+        Assertions.assertEquals(month.lengthOfMonth(), calendar.days());
+        Assertions.assertEquals(0b11100 | 1 << (month.lengthOfMonth() - 1), calendar.occupied());
+        Assertions.assertSame(calendar, calendarService.roomCalendar(first.getId(), month));
+
+        hotelService.releaseHold("cal-1");
+        RoomCalendarDto afterRelease = calendarService.roomCalendar(first.getId(), month);
+        Assertions.assertEquals(1 << (month.lengthOfMonth() - 1), afterRelease.occupied());
+
+        List<RoomCalendarDto> batch = calendarService.hotelCalendar(h.getId(), month.plusMonths(1));
+        Assertions.assertEquals(List.of(first.getId(), second.getId()), batch.stream().map(RoomCalendarDto::roomId).toList());
+        Assertions.assertEquals(0b11, batch.get(0).occupied());
+        Assertions.assertEquals(0, batch.get(1).occupied());
+    }
+}
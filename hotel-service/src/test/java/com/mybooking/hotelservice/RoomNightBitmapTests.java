@@ -0,0 +1,91 @@
+package com.mybooking.hotelservice;
+
+import com.mybooking.hotelservice.service.RoomNightBitmap;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+/**
+ * Модульные тесты битовой карты ночей номера.
+ *
+ * <p>Сравнивают пословные операции с наивной проверкой по массиву ночей, в том числе на границах слов,
+ * и проверяют поиск по горизонту 100 000 номеров × 365 ночей.</p>
+ */
+class RoomNightBitmapTests {
+
+    private static final int NIGHTS = 365;
+
+    @Test
+    void rangeOperationsMatchNaiveCheck() {
+        Random random = new Random(42);
+        for (int round = 0; round < 200; round++) {
+            long[] words = RoomNightBitmap.allocate(NIGHTS);
+            boolean[] naive = new boolean[NIGHTS];
+            for (int i = 0; i < 5; i++) {
+                int from = random.nextInt(NIGHTS);
+                int to = Math.min(NIGHTS - 1, from + random.nextInt(80));
+                RoomNightBitmap.set(words, from, to);
+                for (int n = from; n <= to; n++) {
+                    naive[n] = true;
+                }
+            }
+            for (int q = 0; q < 200; q++) {
+                int from = random.nextInt(NIGHTS);
+                int to = Math.min(NIGHTS - 1, from + random.nextInt(130));
+                Assertions.assertEquals(isClear(naive, from, to), RoomNightBitmap.isClear(words, from, to),
+                        "range " + from + ".." + to);
+            }
+        }
+    }
+
+    @Test
+    void wordBoundaries() {
+        long[] words = RoomNightBitmap.allocate(NIGHTS);
+        RoomNightBitmap.set(words, 63, 64);
+        Assertions.assertFalse(RoomNightBitmap.isClear(words, 0, 63));
+        Assertions.assertFalse(RoomNightBitmap.isClear(words, 64, 127));
+        Assertions.assertTrue(RoomNightBitmap.isClear(words, 0, 62));
+        Assertions.assertTrue(RoomNightBitmap.isClear(words, 65, NIGHTS - 1));
+    }
+
+    @Test
+    void searchOverHundredThousandRoomsAndYearHorizon() {
+        int rooms = 100_000;
+        Random random = new Random(7);
+        long[][] calendar = new long[rooms][];
+        for (int r = 0; r < rooms; r++) {
+            calendar[r] = RoomNightBitmap.allocate(NIGHTS);
+            for (int i = 0; i < 20; i++) {
+                int from = random.nextInt(NIGHTS - 7);
+                RoomNightBitmap.set(calendar[r], from, from + random.nextInt(7));
+            }
+        }
+
+        int free = 0;
+        for (int r = 0; r < rooms; r++) {
+            if (RoomNightBitmap.isClear(calendar[r], 100, 106)) {
+                free++;
+            }
+        }
+
+        int expected = 0;
+        for (long[] words : calendar) {
+            boolean clear = true;
+            for (int n = 100; n <= 106; n++) {
+                clear &= (words[n >>> 6] & (1L << n)) == 0;
+            }
+            expected += clear ? 1 : 0;
+        }
+        Assertions.assertEquals(expected, free);
+    }
+
+    private static boolean isClear(boolean[] nights, int from, int to) {
+        for (int n = from; n <= to; n++) {
+            if (nights[n]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,195 @@
+package com.mybooking.hotelservice;
+
+import com.mybooking.hotelservice.model.Hotel;
+import com.mybooking.hotelservice.model.Room;
+import com.mybooking.hotelservice.model.RoomReservationLock;
+import com.mybooking.hotelservice.repository.HotelRepository;
+import com.mybooking.hotelservice.repository.RoomReservationLockRepository;
+import com.mybooking.hotelservice.service.HotelService;
+import com.mybooking.hotelservice.service.RoomOccupancyIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Интеграционные тесты in-memory индекса занятости номеров.
+ *
+ * <p>Проверяют, что индекс отражает удержания после commit, откатывается вместе с транзакцией,
+ * не освобождает номер до commit, переживает перестройку во время транзакции
+ * и восстанавливается сверкой с таблицей room_reservation_lock.</p>
+ */
+@SpringBootTest
+public class RoomOccupancyIndexTests {
+
+    @Autowired
+    private HotelRepository hotelRepository;
+
+    @Autowired
+    private RoomReservationLockRepository lockRepository;
+
+    @Autowired
+    private HotelService hotelService;
+
+    @Autowired
+    private RoomOccupancyIndex occupancyIndex;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Hotel hotel;
+    private Room room;
+
+    @BeforeEach
+    void createRoom() {
+        hotel = new Hotel();
+        hotel.setName("Index");
+        hotel.setCity("C");
+        hotel.setAddress("A");
+
+        room = new Room();
+        room.setNumber("301");
+        room.setCapacity(2);
+        room.setHotel(hotel);
+        hotel.getRooms().add(room);
+
+        hotelRepository.save(hotel);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        lockRepository.deleteAll(lockRepository.findAll().stream()
+                .filter(l -> room.getId().equals(l.getRoomId()))
+                .toList());
+        hotelRepository.deleteById(hotel.getId());
+    }
+
+    @Test
+    void committedHoldIsIndexedAndReleaseRemovesIt() {
+        LocalDate s = LocalDate.now().plusDays(10);
+        LocalDate e = s.plusDays(3);
+
+        hotelService.holdRoom("idx-commit", room.getId(), s, e);
+        Assertions.assertTrue(occupancyIndex.hasConflict(room.getId(), e, e.plusDays(1)));
+        Assertions.assertFalse(occupancyIndex.hasConflict(room.getId(), e.plusDays(1), e.plusDays(2)));
+
+        hotelService.releaseHold("idx-commit");
+        Assertions.assertFalse(occupancyIndex.hasConflict(room.getId(), s, e));
+    }
+
+    @Test
+    void rolledBackHoldIsRemovedFromIndex() {
+        LocalDate s = LocalDate.now().plusDays(20);
+        LocalDate e = s.plusDays(2);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            hotelService.holdRoom("idx-rollback", room.getId(), s, e);
+            Assertions.assertTrue(occupancyIndex.hasConflict(room.getId(), s, e));
+            status.setRollbackOnly();
+        });
+
+        Assertions.assertFalse(occupancyIndex.hasConflict(room.getId(), s, e));
+    }
+
+    @Test
+    void uncommittedReleaseKeepsRoomOccupied() {
+        LocalDate s = LocalDate.now().plusDays(40);
+        LocalDate e = s.plusDays(2);
+        hotelService.holdRoom("idx-release-owner", room.getId(), s, e);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            hotelService.releaseHold("idx-release-owner");
+            // Параллельное удержание не должно занять период, который вернёт откат
+            CompletableFuture<Void> competitor = CompletableFuture.runAsync(
+                    () -> hotelService.holdRoom("idx-release-competitor", room.getId(), s, e));
+            Throwable failure = Assertions.assertThrows(Exception.class, competitor::join);
+            Assertions.assertInstanceOf(IllegalStateException.class, failure.getCause());
+            status.setRollbackOnly();
+        });
+
+        Assertions.assertTrue(occupancyIndex.hasConflict(room.getId(), s, e));
+        Assertions.assertTrue(lockRepository.findByRequestId("idx-release-competitor").isEmpty());
+
+        hotelService.releaseHold("idx-release-owner");
+        Assertions.assertFalse(occupancyIndex.hasConflict(room.getId(), s, e));
+    }
+
+    @Test
+    void rebuildKeepsHoldOfTransactionInFlight() {
+        LocalDate s = LocalDate.now().plusDays(50);
+        LocalDate e = s.plusDays(2);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            hotelService.holdRoom("idx-rebuild", room.getId(), s, e);
+            // Снимок БД в перестройке не видит незакоммиченное удержание
+            CompletableFuture.runAsync(occupancyIndex::rebuild).join();
+            Assertions.assertTrue(occupancyIndex.isReady());
+            Assertions.assertTrue(occupancyIndex.hasConflict(room.getId(), s, e));
+        });
+
+        Assertions.assertTrue(occupancyIndex.hasConflict(room.getId(), s, e));
+        Assertions.assertEquals(0, occupancyIndex.verifyAgainstDatabase());
+    }
+
+    @Test
+    void verificationRepairsDivergenceFromDatabase() {
+        LocalDate s = LocalDate.now().plusDays(30);
+        LocalDate e = s.plusDays(2);
+
+        RoomReservationLock lock = hotelService.holdRoom("idx-verify", room.getId(), s, e);
+
+        // Изменение в обход сервиса: индекс об этом не знает
+        lock.setStatus(RoomReservationLock.Status.RELEASED);
+        lockRepository.save(lock);
+        Assertions.assertTrue(occupancyIndex.hasConflict(room.getId(), s, e));
+
+        Assertions.assertTrue(occupancyIndex.verifyAgainstDatabase() >= 1);
+        Assertions.assertFalse(occupancyIndex.hasConflict(room.getId(), s, e));
+    }
+
+    @Test
+    void incrementalBitmapMatchesIntervals() {
+        // отдельный экземпляр: карта проверяется без БД, удержания передаются напрямую
+        RoomOccupancyIndex index = new RoomOccupancyIndex(null, 365);
+        LocalDate today = LocalDate.now();
+        Random random = new Random(42);
+        List<RoomReservationLock> active = new ArrayList<>();
+        for (long id = 1; id <= 2_000; id++) {
+            if (active.size() >= 6) {
+                RoomReservationLock released = active.remove(random.nextInt(active.size()));
+                released.setStatus(RoomReservationLock.Status.RELEASED);
+                index.track(released);
+            }
+            // интервалы одного номера могут пересекаться: проверяется только отражение в карте
+            LocalDate start = today.plusDays(random.nextInt(400) - 30);
+            RoomReservationLock lock = new RoomReservationLock();
+            lock.setId(id);
+            lock.setRoomId(1L);
+            lock.setStartDate(start);
+            lock.setEndDate(start.plusDays(random.nextInt(90)));
+            lock.setStatus(RoomReservationLock.Status.CONFIRMED);
+            index.track(lock);
+            active.add(lock);
+        }
+
+        int free = 0;
+        for (int night = 0; night < 365; night++) {
+            LocalDate date = today.plusDays(night);
+            boolean expectedFree = active.stream()
+                    .noneMatch(l -> !l.getStartDate().isAfter(date) && !l.getEndDate().isBefore(date));
+            Assertions.assertEquals(expectedFree, index.isFree(1L, date, date), date.toString());
+            free += expectedFree ? 1 : 0;
+        }
+        Assertions.assertTrue(free > 0 && free < 365, "both free and occupied nights are checked");
+    }
+}
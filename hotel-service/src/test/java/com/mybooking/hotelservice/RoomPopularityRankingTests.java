@@ -0,0 +1,207 @@
+package com.mybooking.hotelservice;
+
+import com.mybooking.hotelservice.dto.RoomListDto;
+import com.mybooking.hotelservice.model.Hotel;
+import com.mybooking.hotelservice.model.Room;
+import com.mybooking.hotelservice.service.HotelService;
+import com.mybooking.hotelservice.service.RoomBookingCounter;
+import com.mybooking.hotelservice.service.RoomPopularityRanking;
+import com.mybooking.hotelservice.service.RoomStatistics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Интеграционные тесты рейтинга популярности номеров.
+ *
+ * <p>Проверяет, что подтверждения, изменения номеров и отелей отражаются в рейтинге без полной перестройки,
+ * а перестройка по БД (с незаписанными приращениями {@code timesBooked}) даёт тот же порядок. Подтверждения
+ * разных номеров из нескольких потоков на фоне перестроек и сбросов счётчика учитываются ровно один раз.</p>
+ */
+@SpringBootTest(properties = "hotel.rooms.times-booked.flush-interval-ms=3600000")
+public class RoomPopularityRankingTests {
+
+    @Autowired
+    private HotelService hotelService;
+
+    @Autowired
+    private RoomPopularityRanking ranking;
+
+    @Autowired
+    private RoomStatistics statistics;
+
+    @Autowired
+    private RoomBookingCounter bookingCounter;
+
+    @Test
+    void rankingFollowsConfirmationsAndRoomChanges() {
+        Hotel h = new Hotel();
+        h.setName("Ranking");
+        h.setCity("Ranking City");
+        h.setAddress("A");
+        h = hotelService.saveHotel(h);
+
+        Room a = hotelService.saveRoom(room("701", h));
+        Room b = hotelService.saveRoom(room("702", h));
+        Room c = hotelService.saveRoom(room("703", h));
+        Assertions.assertEquals(List.of(a.getId(), b.getId(), c.getId()), top("Ranking City"));
+
+        LocalDate start = LocalDate.now().plusDays(500);
+        hotelService.holdRoom("ranking-hold", c.getId(), start, start.plusDays(1));
+        hotelService.confirmHold("ranking-hold");
+        hotelService.reserveRoom("ranking-c", c.getId(), start.plusDays(2), start.plusDays(3));
+        hotelService.reserveRoom("ranking-b", b.getId(), start, start.plusDays(1));
+        Assertions.assertEquals(List.of(c.getId(), b.getId(), a.getId()), top("Ranking City"));
+
+        // перестройка по БД видит ещё не записанные подтверждения
+        ranking.rebuild();
+        Assertions.assertEquals(List.of(c.getId(), b.getId(), a.getId()), top("Ranking City"));
+        Assertions.assertEquals(2, ranking.top(1, "Ranking City", null, 1).get(0).timesBooked());
+
+        // закрытый для бронирования и удалённый номера исключаются
+        c.setAvailable(false);
+        hotelService.saveRoom(c);
+        hotelService.deleteRoom(b.getId());
+        Assertions.assertEquals(List.of(a.getId()), top("Ranking City"));
+
+        // смена города отеля переносит его номера
+        Hotel moved = hotelService.getHotel(h.getId()).orElseThrow();
+        moved.setCity("Ranking Town");
+        hotelService.saveHotel(moved);
+        Assertions.assertEquals(List.of(), top("Ranking City"));
+        Assertions.assertEquals(List.of(a.getId()), top("Ranking Town"));
+
+        hotelService.deleteHotel(h.getId());
+        Assertions.assertEquals(List.of(), top("Ranking Town"));
+        Assertions.assertEquals(List.of(), ranking.top(10, null, h.getId(), 1));
+    }
+
+    @Test
+    void rebuildDuringConfirmationsDoesNotCountTwice() throws Exception {
+        Hotel h = new Hotel();
+        h.setName("Ranking race");
+        h.setCity("Ranking Race City");
+        h.setAddress("A");
+        h = hotelService.saveHotel(h);
+        Room room = hotelService.saveRoom(room("711", h));
+
+        int confirmations = 200;
+        LocalDate start = LocalDate.now().plusDays(600);
+        AtomicBoolean done = new AtomicBoolean();
+        Thread rebuilds = new Thread(() -> {
+            while (!done.get()) {
+                ranking.rebuild();
+            }
+        });
+        rebuilds.start();
+        try {
+            for (int i = 0; i < confirmations; i++) {
+                LocalDate night = start.plusDays(i);
+                hotelService.reserveRoom("ranking-race-" + i, room.getId(), night, night);
+            }
+        } finally {
+            done.set(true);
+            rebuilds.join();
+        }
+
+        Assertions.assertEquals(confirmations, ranking.top(1, "Ranking Race City", null, 1).get(0).timesBooked());
+        ranking.rebuild();
+        Assertions.assertEquals(confirmations, ranking.top(1, "Ranking Race City", null, 1).get(0).timesBooked());
+        hotelService.deleteHotel(h.getId());
+    }
+
+    @Test
+    void concurrentConfirmationsOfDifferentRoomsAreCountedOnce() throws Exception {
+        Hotel h = new Hotel();
+        h.setName("Ranking contention");
+        h.setCity("Ranking Contention City");
+        h.setAddress("A");
+        h = hotelService.saveHotel(h);
+        int threads = 8;
+        int confirmationsPerRoom = 25;
+        List<Room> rooms = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            rooms.add(hotelService.saveRoom(room("72" + i, h)));
+        }
+
+        // подтверждение не ждёт монитор статистики: счётчик увеличивается без него
+        synchronized (statistics) {
+            CompletableFuture<Void> confirm = CompletableFuture.runAsync(() -> hotelService.reserveRoom(
+                    "ranking-contention-free", rooms.get(0).getId(), LocalDate.now().plusDays(700),
+                    LocalDate.now().plusDays(700)));
+            confirm.get(10, TimeUnit.SECONDS);
+        }
+
+        LocalDate start = LocalDate.now().plusDays(701);
+        AtomicBoolean done = new AtomicBoolean();
+        Thread reconcile = new Thread(() -> {
+            while (!done.get()) {
+                ranking.rebuild();
+                statistics.rebuild();
+                bookingCounter.flush();
+            }
+        });
+        reconcile.start();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> confirmations = new ArrayList<>();
+            for (Room room : rooms) {
+                confirmations.add(pool.submit(() -> {
+                    for (int i = 0; i < confirmationsPerRoom; i++) {
+                        LocalDate night = start.plusDays(i);
+                        hotelService.reserveRoom("ranking-contention-" + room.getId() + "-" + i, room.getId(),
+                                night, night);
+                    }
+                }));
+            }
+            for (Future<?> confirmation : confirmations) {
+                confirmation.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdown();
+            done.set(true);
+            reconcile.join();
+        }
+
+        long expectedBookings = (long) threads * confirmationsPerRoom + 1;
+        assertCounted(rooms, confirmationsPerRoom, expectedBookings, h.getId());
+        ranking.rebuild();
+        statistics.rebuild();
+        assertCounted(rooms, confirmationsPerRoom, expectedBookings, h.getId());
+        hotelService.deleteHotel(h.getId());
+    }
+
+    private void assertCounted(List<Room> rooms, int confirmationsPerRoom, long expectedBookings, Long hotelId) {
+        for (RoomListDto room : ranking.top(rooms.size(), null, hotelId, 1)) {
+            long expected = room.id().equals(rooms.get(0).getId()) ? confirmationsPerRoom + 1 : confirmationsPerRoom;
+            Assertions.assertEquals(expected, room.timesBooked(), "room " + room.id());
+            Assertions.assertEquals(expected, hotelService.getRoomDetails(room.id()).orElseThrow().timesBooked());
+        }
+        Assertions.assertEquals(expectedBookings,
+                statistics.byCity().get("Ranking Contention City").totalBookings());
+    }
+
+    private List<Long> top(String city) {
+        return ranking.top(10, city, null, 1).stream().map(RoomListDto::id).toList();
+    }
+
+    private static Room room(String number, Hotel hotel) {
+        Room r = new Room();
+        r.setNumber(number);
+        r.setCapacity(2);
+        r.setAvailable(true);
+        r.setHotel(hotel);
+        return r;
+    }
+}
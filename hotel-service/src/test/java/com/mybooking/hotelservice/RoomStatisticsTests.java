@@ -0,0 +1,141 @@
+package com.mybooking.hotelservice;
+
+import com.mybooking.hotelservice.model.Hotel;
+import com.mybooking.hotelservice.model.Room;
+import com.mybooking.hotelservice.repository.RoomRepository;
+import com.mybooking.hotelservice.service.HotelService;
+import com.mybooking.hotelservice.service.RoomBookingCounter;
+import com.mybooking.hotelservice.service.RoomStatistics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+
+/**
+ * Интеграционные тесты инкрементальной статистики номерного фонда.
+ *
+ * <p>Проверяет, что сохранение и удаление номеров и подтверждение удержаний отражаются в суммарных,
+ * гостиничных и городских показателях без полной перестройки, а сверка совпадает с БД.
+ * Счётчик {@code timesBooked} записывается в БД пакетно, но чтения видят незаписанные приращения.</p>
+ */
+@SpringBootTest(properties = "hotel.rooms.times-booked.flush-interval-ms=3600000")
+public class RoomStatisticsTests {
+
+    @Autowired
+    private HotelService hotelService;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private RoomStatistics statistics;
+
+    @Autowired
+    private RoomBookingCounter bookingCounter;
+
+    @Test
+    void statisticsFollowRoomChangesAndConfirmations() {
+        RoomStatistics.Totals before = statistics.totals();
+
+        Hotel h = new Hotel();
+        h.setName("Stats");
+        h.setCity("Stats City");
+        h.setAddress("A");
+        h = hotelService.saveHotel(h);
+
+        Room free = room("601", h, true);
+        Room closed = room("602", h, false);
+        hotelService.saveRoom(free);
+        hotelService.saveRoom(closed);
+
+        LocalDate start = LocalDate.now().plusDays(300);
+        hotelService.holdRoom("stats-hold", free.getId(), start, start.plusDays(1));
+        hotelService.confirmHold("stats-hold");
+        hotelService.reserveRoom("stats-reserve", free.getId(), start.plusDays(5), start.plusDays(6));
+        // повтор не учитывается повторно
+        hotelService.reserveRoom("stats-reserve", free.getId(), start.plusDays(5), start.plusDays(6));
+
+        RoomStatistics.Totals after = statistics.totals();
+        Assertions.assertEquals(before.totalRooms() + 2, after.totalRooms());
+        Assertions.assertEquals(before.availableRooms() + 1, after.availableRooms());
+        Assertions.assertEquals(before.totalBookings() + 2, after.totalBookings());
+
+        // до сброса строка номера не обновляется, но чтения видят подтверждения
+        Room stored = roomRepository.findById(free.getId()).orElseThrow();
+        Assertions.assertEquals(0, stored.getTimesBooked());
+        Assertions.assertEquals(2, hotelService.getRoomDetails(stored.getId()).orElseThrow().timesBooked());
+        statistics.rebuild();
+        Assertions.assertEquals(after, statistics.totals());
+
+        Assertions.assertTrue(bookingCounter.flush() >= 1);
+        stored = roomRepository.findById(free.getId()).orElseThrow();
+        Assertions.assertEquals(2, stored.getTimesBooked());
+        Assertions.assertEquals(2, hotelService.getRoomDetails(stored.getId()).orElseThrow().timesBooked());
+
+        Long hotelId = h.getId();
+        RoomStatistics.HotelTotals hotel = statistics.byHotel().stream()
+                .filter(t -> t.hotelId().equals(hotelId))
+                .findFirst().orElseThrow();
+        Assertions.assertEquals(new RoomStatistics.Totals(2, 1, 2), hotel.totals());
+        Assertions.assertEquals(new RoomStatistics.Totals(2, 1, 2), statistics.byCity().get("Stats City"));
+
+        hotelService.deleteRoom(closed.getId());
+        Assertions.assertEquals(new RoomStatistics.Totals(1, 1, 2), statistics.byCity().get("Stats City"));
+
+        // полная перестройка совпадает с инкрементальными показателями
+        RoomStatistics.Totals incremental = statistics.totals();
+        statistics.rebuild();
+        Assertions.assertEquals(incremental, statistics.totals());
+
+        hotelService.deleteHotel(hotelId);
+        Assertions.assertNull(statistics.byCity().get("Stats City"));
+        Assertions.assertEquals(before, statistics.totals());
+    }
+
+    @Test
+    void movedRoomCountsForNewHotel() {
+        Hotel first = hotel("Stats Move A");
+        Hotel second = hotel("Stats Move B");
+        Room moving = hotelService.saveRoom(room("611", first, true));
+        Room staying = hotelService.saveRoom(room("612", first, true));
+        Assertions.assertEquals(first.getId(), statistics.hotelOf(moving.getId()));
+
+        moving.setHotel(second);
+        hotelService.saveRoom(moving);
+        Assertions.assertEquals(second.getId(), statistics.hotelOf(moving.getId()));
+        Assertions.assertEquals(first.getId(), statistics.hotelOf(staying.getId()));
+
+        LocalDate start = LocalDate.now().plusDays(320);
+        hotelService.reserveRoom("stats-move", moving.getId(), start, start.plusDays(1));
+        Assertions.assertEquals(new RoomStatistics.Totals(1, 1, 1), statistics.byCity().get("Stats Move B"));
+        Assertions.assertEquals(new RoomStatistics.Totals(1, 1, 0), statistics.byCity().get("Stats Move A"));
+
+        // пересчёт прежнего отеля не отвязывает перенесённый номер
+        hotelService.deleteRoom(staying.getId());
+        Assertions.assertEquals(second.getId(), statistics.hotelOf(moving.getId()));
+        Assertions.assertNull(statistics.hotelOf(staying.getId()));
+
+        hotelService.deleteHotel(first.getId());
+        hotelService.deleteHotel(second.getId());
+        Assertions.assertNull(statistics.hotelOf(moving.getId()));
+    }
+
+    private Hotel hotel(String city) {
+        Hotel h = new Hotel();
+        h.setName(city);
+        h.setCity(city);
+        h.setAddress("A");
+        return hotelService.saveHotel(h);
+    }
+
+    private static Room room(String number, Hotel hotel, boolean available) {
+        Room r = new Room();
+        r.setNumber(number);
+        r.setCapacity(2);
+        r.setAvailable(available);
+        r.setHotel(hotel);
+        return r;
+    }
+}
@@ -0,0 +1,56 @@
+package com.mybooking.loadtest;
+
+import com.nimbusds.jose.JOSEObjectType;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSObject;
+import com.nimbusds.jose.Payload;
+import com.nimbusds.jose.crypto.MACSigner;
+import com.nimbusds.jwt.JWTClaimsSet;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Date;
+
+/**
+ * HS256 JWT для нагрузочных запросов — так же, как их выпускает {@code JwtTestTokens} в тестах booking-service.
+ */
+final class JwtTokens {
+
+    private JwtTokens() {
+    }
+
+    /**
+     * @param secret  HMAC секрет (>= 32 байта), общий с сервисами
+     * @param subject userId
+     * @param scope   scope, например "USER" или "ADMIN"
+     * @param ttlSeconds время жизни токена
+     * @return строка токена (без префикса "Bearer ")
+     */
+    static String hmacToken(String secret, String subject, String scope, long ttlSeconds) {
+        byte[] key = secret.getBytes(StandardCharsets.UTF_8);
+        if (key.length < 32) {
+            throw new IllegalArgumentException("JWT secret must be at least 32 bytes for HS256");
+        }
+
+        Instant now = Instant.now();
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .subject(subject)
+                .claim("scope", scope)
+                .issueTime(Date.from(now))
+                .expirationTime(Date.from(now.plusSeconds(ttlSeconds)))
+                .build();
+
+        try {
+            JWSHeader header = new JWSHeader.Builder(JWSAlgorithm.HS256)
+                    .type(JOSEObjectType.JWT)
+                    .build();
+
+            JWSObject jws = new JWSObject(header, new Payload(claims.toJSONObject()));
+            jws.sign(new MACSigner(key));
+            return jws.serialize();
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to build JWT", e);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.mybooking.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Задержки ответов по итогам саги (HdrHistogram, микросекунды, 3 значащие цифры).
+ *
+ * <p>Итог — вид запроса и результат: {@code fresh CONFIRMED}, {@code conflict CANCELLED},
+ * {@code duplicate CONFIRMED}, {@code fresh HTTP 503}, {@code fresh ERROR HttpTimeoutException} и т.д.
+ * Запись потокобезопасна.</p>
+ */
+final class LatencyReport {
+
+    static final String ALL = "all";
+
+    private final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+    void record(String outcome, long latencyNanos) {
+        long micros = Math.max(1, latencyNanos / 1_000);
+        histogram(ALL).recordValue(micros);
+        histogram(outcome).recordValue(micros);
+    }
+
+    /**
+     * @param elapsed длительность измерения (без прогрева)
+     * @return строки отчёта: сначала {@link #ALL}, затем итоги по алфавиту
+     */
+    List<Row> rows(Duration elapsed) {
+        double seconds = Math.max(elapsed.toNanos(), 1) / 1e9;
+        List<Row> rows = new ArrayList<>();
+        Histogram all = histograms.get(ALL);
+        if (all != null) {
+            rows.add(row(ALL, all, seconds));
+        }
+        new TreeMap<>(histograms).forEach((outcome, histogram) -> {
+            if (!outcome.equals(ALL)) {
+                rows.add(row(outcome, histogram, seconds));
+            }
+        });
+        return rows;
+    }
+
+    private Histogram histogram(String outcome) {
+        return histograms.computeIfAbsent(outcome, k -> new ConcurrentHistogram(3));
+    }
+
+    private static Row row(String outcome, Histogram h, double seconds) {
+        return new Row(outcome, h.getTotalCount(), h.getTotalCount() / seconds,
+                ms(h.getValueAtPercentile(50)), ms(h.getValueAtPercentile(95)), ms(h.getValueAtPercentile(99)),
+                ms(h.getValueAtPercentile(99.9)), ms(h.getMaxValue()));
+    }
+
+    private static double ms(long micros) {
+        return micros / 1000.0;
+    }
+
+    /**
+     * Строка отчёта; задержки в миллисекундах.
+     */
+    record Row(String outcome, long count, double throughput, double p50, double p95, double p99, double p999,
+               double max) {
+
+        static final String HEADER = String.format("%-36s %9s %9s %9s %9s %9s %9s %9s",
+                "outcome", "count", "req/s", "p50 ms", "p95 ms", "p99 ms", "p99.9 ms", "max ms");
+
+        @Override
+        public String toString() {
+            return String.format("%-36s %9d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f",
+                    outcome, count, throughput, p50, p95, p99, p999, max);
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package com.mybooking.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Нагрузочный прогон саги бронирования: {@code POST /api/bookings} от {@code concurrency} виртуальных клиентов.
+ *
+ * <p>Сервисы запускаются в этом же процессе ({@link Services}); запросы подписываются JWT пользователей
+ * {@code 1..users}. Состав запросов задаёт {@link Workload.Mix}. Без {@code --rate} нагрузка замкнутая: каждый
+ * клиент отправляет следующий запрос сразу после ответа. С {@code --rate} клиенты отправляют запросы по
+ * расписанию, и задержка считается от запланированного момента отправки — очередь перед перегруженным
+ * сервисом попадает в перцентили (без coordinated omission).</p>
+ *
+ * <p>Клиенты — виртуальные потоки, если JVM их поддерживает (Java 21+); на Java 17 — обычные потоки.
+ * Первые {@code warmup} секунд не измеряются.</p>
+ *
+ * <p>Запуск: {@code java -jar loadtest/target/loadtest-0.0.1-SNAPSHOT.jar --mode=in-process --duration=30
+ * --concurrency=64 --mix=fresh:80,duplicate:10,conflict:10}.</p>
+ */
+public final class LoadTest {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final Options options;
+
+    public LoadTest(Options options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options;
+        try {
+            options = Options.parse(args);
+        } catch (IllegalArgumentException ex) {
+            System.err.println(ex.getMessage());
+            System.err.println(Options.USAGE);
+            System.exit(2);
+            return;
+        }
+        System.out.println(new LoadTest(options).run());
+        System.exit(0);
+    }
+
+    /**
+     * Запускает сервисы, выполняет прогон и останавливает сервисы.
+     *
+     * @return итог прогона
+     */
+    public Summary run() throws Exception {
+        try (Services services = options.mode() == Mode.IN_PROCESS
+                ? Services.inProcess(options.rooms(), options.secret(), options.transport())
+                : Services.wireMock(options.rooms(), options.secret(), options.transport(), options.stubLatencyMs(),
+                        options.concurrency() * 2 + 10)) {
+            return drive(services);
+        }
+    }
+
+    private Summary drive(Services services) throws InterruptedException {
+        long tokenTtl = options.warmup() + options.duration() + 3600;
+        String[] tokens = new String[options.users()];
+        for (int user = 1; user <= options.users(); user++) {
+            tokens[user - 1] = JwtTokens.hmacToken(options.secret(), String.valueOf(user), "USER", tokenTtl);
+        }
+        URI uri = URI.create(services.bookingUrl() + "/api/bookings");
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        Workload workload = new Workload(options.mix(), services.roomIds(), services.conflictRoom(), options.users());
+        LatencyReport report = new LatencyReport();
+
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(options.warmup());
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(options.duration());
+        // интервал между запросами одного клиента в режиме заданной интенсивности
+        long interval = options.rate() > 0 ? (long) (1e9 * options.concurrency() / options.rate()) : 0;
+
+        boolean virtual;
+        ExecutorService clients;
+        try {
+            clients = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            virtual = true;
+        } catch (ReflectiveOperationException ex) {
+            clients = Executors.newFixedThreadPool(options.concurrency());
+            virtual = false;
+        }
+        for (int i = 0; i < options.concurrency(); i++) {
+            long firstSend = start + (interval > 0 ? interval * i / options.concurrency() : 0);
+            clients.execute(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long scheduled = firstSend;
+                while (true) {
+                    long now = System.nanoTime();
+                    if (interval > 0 && scheduled > now) {
+                        LockSupport.parkNanos(scheduled - now);
+                    }
+                    long sentAt = interval > 0 ? scheduled : System.nanoTime();
+                    if (sentAt >= end || System.nanoTime() >= end) {
+                        return;
+                    }
+                    Workload.Request request = workload.next(random);
+                    String outcome = send(client, uri, tokens[request.user() - 1], request, workload);
+                    if (sentAt >= measureFrom) {
+                        report.record(outcome, System.nanoTime() - sentAt);
+                    }
+                    scheduled += interval;
+                }
+            });
+        }
+        clients.shutdown();
+        clients.awaitTermination(options.warmup() + options.duration() + 120, TimeUnit.SECONDS);
+
+        Duration measured = Duration.ofNanos(Math.min(System.nanoTime(), end) - measureFrom);
+        return new Summary(options, virtual, measured, report.rows(measured));
+    }
+
+    private static String send(HttpClient client, URI uri, String token, Workload.Request request,
+                               Workload workload) {
+        String kind = request.kind().name().toLowerCase();
+        String body = "{\"roomId\":\"" + request.roomId() + "\",\"startDate\":\"" + request.night()
+                + "\",\"endDate\":\"" + request.night() + "\"}";
+        HttpRequest http = HttpRequest.newBuilder(uri)
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .header("Authorization", "Bearer " + token)
+                .header("X-Request-Id", request.requestId())
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        try {
+            HttpResponse<String> response = client.send(http, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                return kind + " HTTP " + response.statusCode();
+            }
+            JsonNode status = JSON.readTree(response.body()).get("status");
+            String bookingStatus = status == null ? "UNKNOWN" : status.asText();
+            workload.completed(request, "CONFIRMED".equals(bookingStatus));
+            return kind + " " + bookingStatus;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return kind + " ERROR " + ex.getClass().getSimpleName();
+        } catch (Exception ex) {
+            return kind + " ERROR " + ex.getClass().getSimpleName();
+        }
+    }
+
+    /**
+     * Где работает hotel-service.
+     */
+    public enum Mode {
+        /** Настоящий hotel-service в этом же процессе. */
+        IN_PROCESS,
+        /** Заглушка WireMock. */
+        WIREMOCK
+    }
+
+    /**
+     * Параметры прогона.
+     *
+     * @param mode          hotel-service или заглушка
+     * @param duration      длительность измерения, секунд
+     * @param warmup        длительность прогрева перед измерением, секунд
+     * @param concurrency   число клиентов
+     * @param rate          целевая интенсивность, запросов в секунду (0 — замкнутая нагрузка)
+     * @param mix           состав запросов
+     * @param rooms         число номеров
+     * @param users         число пользователей (JWT subject 1..users)
+     * @param stubLatencyMs задержка ответов заглушки hotel-service
+     * @param secret        общий JWT-секрет сервисов
+     * @param transport     транспорт вызовов booking-service → hotel-service ({@code hotel.http.transport})
+     */
+    public record Options(Mode mode, int duration, int warmup, int concurrency, double rate, Workload.Mix mix,
+                          int rooms, int users, int stubLatencyMs, String secret, String transport) {
+
+        static final String USAGE = """
+                Usage: java -jar loadtest.jar [--mode=in-process|wiremock] [--duration=30] [--warmup=10]
+                       [--concurrency=64] [--rate=0] [--mix=fresh:80,duplicate:10,conflict:10] [--rooms=1000]
+                       [--users=100] [--stub-latency-ms=5] [--secret=<32+ bytes>]
+                       [--transport=apache|jdk|simple]""";
+
+        public Options {
+            if (duration < 1 || warmup < 0 || concurrency < 1 || rate < 0 || rooms < 1 || users < 1
+                    || stubLatencyMs < 0) {
+                throw new IllegalArgumentException("durations, sizes and rate must be positive");
+            }
+        }
+
+        static Options parse(String[] args) {
+            Map<String, String> values = new LinkedHashMap<>();
+            for (String arg : args) {
+                if (!arg.startsWith("--") || !arg.contains("=")) {
+                    throw new IllegalArgumentException("Unexpected argument: " + arg);
+                }
+                values.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+            String mode = values.getOrDefault("mode", "in-process");
+            Options options = new Options(
+                    switch (mode) {
+                        case "in-process" -> Mode.IN_PROCESS;
+                        case "wiremock" -> Mode.WIREMOCK;
+                        default -> throw new IllegalArgumentException("Unknown mode: " + mode);
+                    },
+                    Integer.parseInt(values.getOrDefault("duration", "30")),
+                    Integer.parseInt(values.getOrDefault("warmup", "10")),
+                    Integer.parseInt(values.getOrDefault("concurrency", "64")),
+                    Double.parseDouble(values.getOrDefault("rate", "0")),
+                    Workload.Mix.parse(values.getOrDefault("mix", "fresh:80,duplicate:10,conflict:10")),
+                    Integer.parseInt(values.getOrDefault("rooms", "1000")),
+                    Integer.parseInt(values.getOrDefault("users", "100")),
+                    Integer.parseInt(values.getOrDefault("stub-latency-ms", "5")),
+                    values.getOrDefault("secret", "LOAD_TEST_JWT_SECRET__MIN_32_BYTES_LONG__1234"),
+                    values.getOrDefault("transport", "apache"));
+            values.keySet().removeAll(List.of("mode", "duration", "warmup", "concurrency", "rate", "mix", "rooms",
+                    "users", "stub-latency-ms", "secret", "transport"));
+            if (!values.isEmpty()) {
+                throw new IllegalArgumentException("Unknown options: " + values.keySet());
+            }
+            return options;
+        }
+    }
+
+    /**
+     * Итог прогона.
+     *
+     * @param options  параметры
+     * @param virtual  клиенты работали в виртуальных потоках
+     * @param measured длительность измерения
+     * @param rows     пропускная способность и задержки: сначала все запросы, затем по итогам
+     */
+    public record Summary(Options options, boolean virtual, Duration measured, List<LatencyReport.Row> rows) {
+
+        /**
+         * @return строка итога или null, если таких ответов не было
+         */
+        public LatencyReport.Row row(String outcome) {
+            return rows.stream().filter(r -> r.outcome().equals(outcome)).findFirst().orElse(null);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append("Load test: mode=").append(options.mode()).append(", transport=").append(options.transport())
+                    .append(", clients=").append(options.concurrency())
+                    .append(virtual ? " (virtual threads)" : " (platform threads)")
+                    .append(", rate=").append(options.rate() > 0 ? options.rate() + " req/s" : "closed loop")
+                    .append(", mix=").append(options.mix())
+                    .append(", measured ").append(measured.toMillis()).append(" ms\n");
+            sb.append(LatencyReport.Row.HEADER).append('\n');
+            rows.forEach(row -> sb.append(row).append('\n'));
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.mybooking.loadtest;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+
+/**
+ * ClassLoader, через который Spring Boot видит конфигурацию только одного сервиса.
+ *
+ * <p>hotel-service и booking-service лежат на одном classpath, и у обоих есть {@code application.yml};
+ * без фильтра оба контекста прочитали бы первый найденный. Ресурсы {@code application*} отдаются только из
+ * jar (каталога) указанного класса приложения, остальные ресурсы и все классы — из родительского ClassLoader
+ * без изменений.</p>
+ */
+final class ModuleClassLoader extends ClassLoader {
+
+    private final String base;
+
+    /**
+     * @param application класс приложения, чей {@code application.yml} нужно видеть
+     */
+    ModuleClassLoader(Class<?> application) {
+        super(application.getClassLoader());
+        String classFile = application.getName().replace('.', '/') + ".class";
+        URL url = application.getClassLoader().getResource(classFile);
+        if (url == null) {
+            throw new IllegalStateException("Cannot locate " + classFile);
+        }
+        String location = url.toString();
+        this.base = location.substring(0, location.length() - classFile.length());
+    }
+
+    @Override
+    public URL getResource(String name) {
+        if (!isConfig(name)) {
+            return super.getResource(name);
+        }
+        List<URL> own = own(name);
+        return own.isEmpty() ? null : own.get(0);
+    }
+
+    @Override
+    public Enumeration<URL> getResources(String name) throws IOException {
+        if (!isConfig(name)) {
+            return super.getResources(name);
+        }
+        return Collections.enumeration(own(name));
+    }
+
+    private List<URL> own(String name) {
+        List<URL> own = new ArrayList<>();
+        try {
+            for (URL url : Collections.list(getParent().getResources(name))) {
+                if (url.toString().startsWith(base)) {
+                    own.add(url);
+                }
+            }
+        } catch (IOException ex) {
+            throw new IllegalStateException("Cannot list " + name, ex);
+        }
+        return own;
+    }
+
+    private static boolean isConfig(String name) {
+        String path = name.startsWith("/") ? name.substring(1) : name;
+        return path.startsWith("application") || path.startsWith("config/application");
+    }
+}
@@ -0,0 +1,197 @@
+package com.mybooking.loadtest;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.mybooking.bookingservice.BookingServiceApplication;
+import com.mybooking.hotelservice.HotelServiceApplication;
+import com.mybooking.hotelservice.service.ImportService;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.okJson;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+
+/**
+ * Сервисы под нагрузкой, запущенные в этом же процессе на случайных портах.
+ *
+ * <ul>
+ *   <li>{@link #inProcess} — booking-service и настоящий hotel-service (каждый со своей in-memory H2);
+ *       в hotel-service импортируются {@code rooms} номеров, конфликты — реальные пересечения дат;</li>
+ *   <li>{@link #wireMock} — booking-service и заглушка hotel-service, как в
+ *       {@code BookingSagaWireMockIntegrationTests}: hold/reserve/confirm/release отвечают 200 с задержкой
+ *       {@code stubLatencyMs}, для номера {@link #CONFLICT_ROOM} hold/reserve отвечают 409.</li>
+ * </ul>
+ */
+final class Services implements AutoCloseable {
+
+    /**
+     * Номер, удержание которого заглушка всегда отклоняет (режим WireMock).
+     */
+    static final long CONFLICT_ROOM = 999_999_999L;
+
+    private final List<AutoCloseable> resources;
+    private final String bookingUrl;
+    private final long[] roomIds;
+    private final Long conflictRoom;
+
+    private Services(List<AutoCloseable> resources, String bookingUrl, long[] roomIds, Long conflictRoom) {
+        this.resources = resources;
+        this.bookingUrl = bookingUrl;
+        this.roomIds = roomIds;
+        this.conflictRoom = conflictRoom;
+    }
+
+    /**
+     * @param rooms     число номеров для импорта в hotel-service
+     * @param secret    общий JWT-секрет сервисов
+     * @param transport транспорт вызовов hotel-service в booking-service
+     */
+    static Services inProcess(int rooms, String secret, String transport) throws IOException {
+        List<AutoCloseable> resources = new ArrayList<>();
+        try {
+            ConfigurableApplicationContext hotel = start(HotelServiceApplication.class, secret,
+                    "--spring.datasource.url=jdbc:h2:mem:loadtest-hotel;DB_CLOSE_DELAY=-1");
+            resources.add(hotel);
+            long[] roomIds = importRooms(hotel, rooms);
+
+            ConfigurableApplicationContext booking = start(BookingServiceApplication.class, secret,
+                    "--spring.datasource.url=jdbc:h2:mem:loadtest-booking;DB_CLOSE_DELAY=-1",
+                    "--hotel.base-url=http://localhost:" + port(hotel),
+                    "--hotel.http.transport=" + transport);
+            resources.add(booking);
+            return new Services(resources, "http://localhost:" + port(booking), roomIds, null);
+        } catch (RuntimeException | IOException ex) {
+            closeAll(resources);
+            throw ex;
+        }
+    }
+
+    /**
+     * @param rooms         число номеров (id 1..rooms)
+     * @param secret        JWT-секрет booking-service
+     * @param transport     транспорт вызовов hotel-service в booking-service
+     * @param stubLatencyMs задержка ответов заглушки
+     * @param threads       потоков обработки запросов заглушки
+     */
+    static Services wireMock(int rooms, String secret, String transport, int stubLatencyMs, int threads) {
+        List<AutoCloseable> resources = new ArrayList<>();
+        try {
+            WireMockServer wireMock = new WireMockServer(wireMockConfig()
+                    .dynamicPort()
+                    .containerThreads(threads)
+                    .disableRequestJournal());
+            wireMock.start();
+            resources.add(wireMock::stop);
+
+            wireMock.stubFor(get(urlPathEqualTo("/api/rooms/capabilities"))
+                    .willReturn(okJson("{\"operations\":[\"hold\",\"confirm\",\"release\",\"reserve\"]}")));
+            wireMock.stubFor(post(urlPathMatching("/api/rooms/\\d+/(hold|reserve)"))
+                    .willReturn(aResponse().withStatus(200).withFixedDelay(stubLatencyMs)));
+            wireMock.stubFor(post(urlPathMatching("/api/rooms/" + CONFLICT_ROOM + "/(hold|reserve)"))
+                    .atPriority(1)
+                    .willReturn(aResponse().withStatus(409).withFixedDelay(stubLatencyMs)));
+            wireMock.stubFor(post(urlPathMatching("/api/rooms/(confirm|release)"))
+                    .willReturn(aResponse().withStatus(200).withFixedDelay(stubLatencyMs)));
+
+            ConfigurableApplicationContext booking = start(BookingServiceApplication.class, secret,
+                    "--spring.datasource.url=jdbc:h2:mem:loadtest-booking-wiremock;DB_CLOSE_DELAY=-1",
+                    "--hotel.base-url=http://localhost:" + wireMock.port(),
+                    "--hotel.http.transport=" + transport);
+            resources.add(booking);
+            return new Services(resources, "http://localhost:" + port(booking),
+                    LongStream.rangeClosed(1, rooms).toArray(), CONFLICT_ROOM);
+        } catch (RuntimeException ex) {
+            closeAll(resources);
+            throw ex;
+        }
+    }
+
+    String bookingUrl() {
+        return bookingUrl;
+    }
+
+    long[] roomIds() {
+        return roomIds;
+    }
+
+    /**
+     * @return номер для конфликтующих запросов или null, если конфликт создаётся повтором занятых дат
+     */
+    Long conflictRoom() {
+        return conflictRoom;
+    }
+
+    @Override
+    public void close() {
+        closeAll(resources);
+    }
+
+    private static ConfigurableApplicationContext start(Class<?> application, String secret, String... args) {
+        List<String> all = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--security.jwt.secret=" + secret,
+                "--spring.jpa.show-sql=false",
+                "--eureka.client.enabled=false",
+                "--logging.level.root=WARN",
+                "--logging.level.org.springframework.security=WARN",
+                // ожидаемые отказы саги (конфликты дат) логируются на WARN на каждый запрос
+                "--logging.level.com.mybooking=ERROR"));
+        all.addAll(List.of(args));
+        SpringApplication app = new SpringApplication(
+                new DefaultResourceLoader(new ModuleClassLoader(application)), application);
+        return app.run(all.toArray(String[]::new));
+    }
+
+    private static long[] importRooms(ConfigurableApplicationContext hotel, int rooms) throws IOException {
+        ImportService importService = hotel.getBean(ImportService.class);
+        JdbcTemplate jdbc = hotel.getBean(JdbcTemplate.class);
+
+        int hotels = (rooms + 19) / 20;
+        StringBuilder csv = new StringBuilder("name,city,address\n");
+        for (int i = 0; i < hotels; i++) {
+            csv.append("Load ").append(i).append(",City ").append(i % 20).append(",Street ").append(i).append('\n');
+        }
+        importService.importHotels(bytes(csv), ImportService.Format.CSV);
+        List<Long> hotelIds = jdbc.queryForList("select id from hotels where name like 'Load %' order by id", Long.class);
+
+        csv = new StringBuilder("hotelId,number,capacity,available\n");
+        for (int i = 0; i < rooms; i++) {
+            csv.append(hotelIds.get(i / 20)).append(',').append(100 + i % 20).append(",2,true\n");
+        }
+        importService.importRooms(bytes(csv), ImportService.Format.CSV);
+        return jdbc.queryForList("select r.id from room r join hotels h on h.id = r.hotel_id "
+                        + "where h.name like 'Load %' order by r.id", Long.class)
+                .stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static int port(ConfigurableApplicationContext context) {
+        return Integer.parseInt(context.getEnvironment().getRequiredProperty("local.server.port"));
+    }
+
+    private static ByteArrayInputStream bytes(StringBuilder csv) {
+        return new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void closeAll(List<AutoCloseable> resources) {
+        for (int i = resources.size() - 1; i >= 0; i--) {
+            try {
+                resources.get(i).close();
+            } catch (Exception ignored) {
+                // остальные ресурсы всё равно закрываются
+            }
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.mybooking.loadtest;
+
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Поток запросов {@code POST /api/bookings} заданного состава.
+ *
+ * <ul>
+ *   <li>{@link Kind#FRESH} — новый requestId на свободную ночь: номера перебираются по кругу,
+ *       после каждого круга — следующая ночь;</li>
+ *   <li>{@link Kind#DUPLICATE} — повтор недавнего запроса с тем же requestId и телом (идемпотентный ответ);</li>
+ *   <li>{@link Kind#CONFLICT} — новый requestId на ночь недавнего подтверждённого бронирования
+ *       (или на номер-заглушку, всегда отвечающий 409, см. {@link Services#CONFLICT_ROOM}).</li>
+ * </ul>
+ * Пока повторять нечего (начало прогона), вместо повтора и конфликта отправляется новый запрос.
+ */
+final class Workload {
+
+    /**
+     * Вид запроса.
+     */
+    enum Kind { FRESH, DUPLICATE, CONFLICT }
+
+    /**
+     * Запрос бронирования одной ночи.
+     */
+    record Request(Kind kind, String requestId, long roomId, LocalDate night, int user) {}
+
+    private static final int RECENT = 4096;
+    /** Ночей вперёд, на которые бронирует генератор (в пределах горизонта индекса hotel-service). */
+    private static final int NIGHTS = 360;
+
+    private final Mix mix;
+    private final long[] roomIds;
+    private final Long conflictRoom;
+    private final int users;
+    private final LocalDate firstNight;
+    private final AtomicLong slots = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong confirmed = new AtomicLong();
+    private final AtomicReferenceArray<Request> recentCompleted = new AtomicReferenceArray<>(RECENT);
+    private final AtomicReferenceArray<Request> recentConfirmed = new AtomicReferenceArray<>(RECENT);
+
+    Workload(Mix mix, long[] roomIds, Long conflictRoom, int users) {
+        this.mix = mix;
+        this.roomIds = roomIds;
+        this.conflictRoom = conflictRoom;
+        this.users = users;
+        this.firstNight = LocalDate.now().plusDays(1);
+    }
+
+    Request next(Random random) {
+        Kind kind = mix.pick(random);
+        if (kind == Kind.DUPLICATE) {
+            Request previous = recent(recentCompleted, completed.get(), random);
+            if (previous != null) {
+                return new Request(Kind.DUPLICATE, previous.requestId(), previous.roomId(), previous.night(),
+                        previous.user());
+            }
+        } else if (kind == Kind.CONFLICT) {
+            if (conflictRoom != null) {
+                return newRequest(Kind.CONFLICT, conflictRoom, firstNight, random);
+            }
+            Request taken = recent(recentConfirmed, confirmed.get(), random);
+            if (taken != null) {
+                return newRequest(Kind.CONFLICT, taken.roomId(), taken.night(), random);
+            }
+        }
+        long slot = slots.getAndIncrement();
+        long roomId = roomIds[(int) (slot % roomIds.length)];
+        LocalDate night = firstNight.plusDays(slot / roomIds.length % NIGHTS);
+        return newRequest(Kind.FRESH, roomId, night, random);
+    }
+
+    /**
+     * Запоминает выполненный запрос для последующих повторов и конфликтов.
+     *
+     * @param bookingConfirmed ответ — бронирование в статусе CONFIRMED
+     */
+    void completed(Request request, boolean bookingConfirmed) {
+        if (request.kind() != Kind.FRESH) {
+            return;
+        }
+        recentCompleted.set((int) (completed.getAndIncrement() % RECENT), request);
+        if (bookingConfirmed) {
+            recentConfirmed.set((int) (confirmed.getAndIncrement() % RECENT), request);
+        }
+    }
+
+    private Request newRequest(Kind kind, long roomId, LocalDate night, Random random) {
+        return new Request(kind, UUID.randomUUID().toString(), roomId, night, 1 + random.nextInt(users));
+    }
+
+    private static Request recent(AtomicReferenceArray<Request> ring, long written, Random random) {
+        if (written == 0) {
+            return null;
+        }
+        return ring.get(random.nextInt((int) Math.min(written, RECENT)));
+    }
+
+    /**
+     * Доли видов запросов: {@code fresh:80,duplicate:10,conflict:10} (веса, не обязательно в сумме 100).
+     */
+    record Mix(int fresh, int duplicate, int conflict) {
+
+        Mix {
+            if (fresh < 0 || duplicate < 0 || conflict < 0 || fresh + duplicate + conflict == 0) {
+                throw new IllegalArgumentException("mix weights must be non-negative and not all zero");
+            }
+        }
+
+        static Mix parse(String value) {
+            int fresh = 0;
+            int duplicate = 0;
+            int conflict = 0;
+            for (String part : value.split(",")) {
+                String[] kv = part.trim().split(":");
+                if (kv.length != 2) {
+                    throw new IllegalArgumentException("Invalid mix entry: " + part);
+                }
+                int weight = Integer.parseInt(kv[1].trim());
+                switch (kv[0].trim()) {
+                    case "fresh" -> fresh = weight;
+                    case "duplicate" -> duplicate = weight;
+                    case "conflict" -> conflict = weight;
+                    default -> throw new IllegalArgumentException("Unknown request kind: " + kv[0]);
+                }
+            }
+            return new Mix(fresh, duplicate, conflict);
+        }
+
+        Kind pick(Random random) {
+            int r = random.nextInt(fresh + duplicate + conflict);
+            if (r < fresh) {
+                return Kind.FRESH;
+            }
+            return r < fresh + duplicate ? Kind.DUPLICATE : Kind.CONFLICT;
+        }
+
+        @Override
+        public String toString() {
+            return "fresh:" + fresh + ",duplicate:" + duplicate + ",conflict:" + conflict;
+        }
+    }
+}
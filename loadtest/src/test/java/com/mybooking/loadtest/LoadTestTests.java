@@ -0,0 +1,39 @@
+package com.mybooking.loadtest;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Короткий прогон против заглушки hotel-service: все виды запросов доходят до booking-service
+ * и раскладываются по итогам саги.
+ */
+class LoadTestTests {
+
+    @Test
+    void wireMockRunReportsOutcomesByKind() throws Exception {
+        LoadTest.Options options = LoadTest.Options.parse(new String[]{
+                "--mode=wiremock", "--duration=3", "--warmup=1", "--concurrency=4", "--rooms=50", "--users=5",
+                "--stub-latency-ms=1", "--mix=fresh:60,duplicate:20,conflict:20"});
+
+        LoadTest.Summary summary = new LoadTest(options).run();
+
+        LatencyReport.Row all = summary.row(LatencyReport.ALL);
+        Assertions.assertNotNull(all, summary.toString());
+        Assertions.assertTrue(all.throughput() > 0);
+        Assertions.assertTrue(all.p50() <= all.p99() && all.p99() <= all.max());
+        Assertions.assertNotNull(summary.row("fresh CONFIRMED"), summary.toString());
+        Assertions.assertNotNull(summary.row("duplicate CONFIRMED"), summary.toString());
+        Assertions.assertNotNull(summary.row("conflict CANCELLED"), summary.toString());
+        Assertions.assertTrue(summary.rows().stream().noneMatch(r -> r.outcome().contains("ERROR")
+                || r.outcome().contains("HTTP")), summary.toString());
+    }
+
+    @Test
+    void mixParsesWeights() {
+        Workload.Mix mix = Workload.Mix.parse("fresh:1, conflict:3");
+
+        Assertions.assertEquals(new Workload.Mix(1, 0, 3), mix);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Workload.Mix.parse("fresh:0"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Workload.Mix.parse("retry:5"));
+    }
+}